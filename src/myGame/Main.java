@@ -1,13 +1,26 @@
 package myGame;
 
+import myGame.batch.BatchRunner;
+import myGame.history.MatchHistory;
+import myGame.history.MatchRecord;
+import myGame.log.LogRetention;
+import myGame.mode.MatchCheckpoint;
 import myGame.mode.OneVsOne;
 import myGame.mode.ReadFromFile;
 import myGame.mode.TeamVsTeam;
+import myGame.rating.RatingLadder;
+import myGame.search.LogIndex;
+import myGame.stats.LogAnalyzer;
+import myGame.stats.LogStats;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -18,14 +31,24 @@ import java.util.stream.Collectors;
  * <ul>
  *   <li>1 vs 1 - битва між двома дроїдами</li>
  *   <li>Team vs Team - битва між двома командами дроїдів</li>
- *   <li>Read game log - перегляд збережених логів ігор</li>
+ *   <li>Team vs Team (одночасні ходи) - автоматичний бій, де всі дроїди діють одночасно</li>
+ *   <li>Read game log - перегляд збережених боїв (сховище боїв та окремі лог-файли),
+ *       пошук за словами з відкриттям логу одразу на знайденому раунді</li>
+ *   <li>Log statistics - зведена статистика по всіх логах (лише нові файли з минулого запуску)</li>
+ *   <li>Follow logs - стеження за логами, що пишуться іншим процесом (як tail -f)</li>
+ *   <li>Ratings - таблиці лідерів Glicko: типи дроїдів, склади команд, гравці</li>
+ *   <li>Match history - останні бої з участю дроїда, на мапі або за проміжок днів</li>
  * </ul>
  *
+ * <p>Бої зберігають контрольну точку після кожного раунду ({@link MatchCheckpoint});
+ * перерваний бій пропонується продовжити, коли наступного разу обрано той самий режим.</p>
+ *
  * @author Yaroslav_Basarab
- * @version 2.5
+ * @version 2.9
  * @see OneVsOne
  * @see TeamVsTeam
  * @see ReadFromFile
+ * @see LogAnalyzer
  * @since 2.0
  */
 public class Main {
@@ -33,58 +56,311 @@ public class Main {
     /** Директорія для збереження лог-файлів */
     private static final String LOGS_DIR = "logs";
     /** Дозволені розширення файлів для перегляду логів */
-    private static final Set<String> ALLOWED = Set.of("log", "txt");
+    private static final Set<String> ALLOWED = Set.of("log", "txt", "gz");
+    /** Розмір сегмента сховища: після нього сегмент закривається і починається новий */
+    private static final long SEGMENT_BYTES = 8L << 20;
+    /** Межа загального розміру старих логів (сегменти сховища та .log.gz окремо) */
+    private static final long MAX_LOG_BYTES = 256L << 20;
+    /** Межа віку логів */
+    private static final long MAX_LOG_AGE = TimeUnit.DAYS.toMillis(90);
+    /** Скільки результатів пошуку показувати */
+    private static final int SEARCH_LIMIT = 50;
+    /** Скільки рядків показувати у кожній таблиці лідерів */
+    private static final int LEADERBOARD_LIMIT = 10;
 
     /**
      * Головний метод програми, точка входу.
      * Виводить головне меню та обробляє вибір користувача.
+     * З аргументами командного рядка грає пакет боїв без меню (див. {@link BatchRunner}).
      *
-     * @param args аргументи командного рядка (не використовуються)
+     * @param args ключі пакетного режиму або нічого для інтерактивного меню
      */
     public static void main(String[] args) {
+        if (args.length > 0) System.exit(BatchRunner.run(args));
         Scanner sc = new Scanner(System.in);
 
         System.out.println("=== MyGame ===");
         System.out.println("1) 1 vs 1");
         System.out.println("2) Team vs Team");
-        System.out.println("3) Read game from file");
-        System.out.println("4) Exit");
+        System.out.println("3) Team vs Team (simultaneous turns)");
+        System.out.println("4) Read game from file");
+        System.out.println("5) Log statistics");
+        System.out.println("6) Follow logs");
+        System.out.println("7) Ratings");
+        System.out.println("8) Match history");
+        System.out.println("9) Exit");
         System.out.print("Choose: ");
 
-        int choice = readIntFromTo(sc, 1, 3);
+        int choice = readIntFromTo(sc, 1, 9);
         switch (choice) {
-            case 1 -> new OneVsOne("C:\\Users\\user\\IdeaProjects\\LR3v2\\logs", false).start();
-            case 2 -> new TeamVsTeam("C:\\Users\\user\\IdeaProjects\\LR3v2\\logs", false).start();
-            case 3 -> readLogMenu(sc);
-            case 4 -> System.exit(0);
+            case 1, 2, 3 -> play(sc, choice);
+            case 4 -> readLogMenu(sc);
+            case 5 -> statsMenu();
+            case 6 -> followMenu(sc);
+            case 7 -> ratingsMenu();
+            case 8 -> historyMenu(sc);
+            case 9 -> System.exit(0);
+        }
+    }
+
+    /**
+     * Запускає бій обраного режиму; лог бою стискається і дописується у сховище боїв
+     * у {@link #LOGS_DIR}, підсумок — в історію боїв, а результат оновлює рейтинги. Після бою застарілі логи
+     * видаляються, а окремі лог-файли стискаються.
+     *
+     * @param sc     об'єкт Scanner для вводу користувача
+     * @param choice пункт меню (1 — 1v1, 2 — TvT, 3 — TvT з одночасними ходами)
+     */
+    private static void play(Scanner sc, int choice) {
+        Path dir = Paths.get(LOGS_DIR);
+        try (MatchStore store = MatchStore.open(dir, SEGMENT_BYTES, true);
+             MatchHistory history = MatchHistory.open(dir.resolve(MatchHistory.DIR))) {
+            RatingLadder ratings = RatingLadder.open(dir);
+            sc.nextLine();
+            System.out.print("Імена гравців A і B через кому (Enter — без рейтингу гравців): ");
+            String[] players = sc.hasNextLine() ? sc.nextLine().split(",") : new String[0];
+            String playerA = players.length == 2 && !players[0].isBlank() ? players[0].strip() : null;
+            String playerB = players.length == 2 && !players[1].isBlank() ? players[1].strip() : null;
+            int mode = choice == 1 ? MatchEntry.ONE_VS_ONE : choice == 2 ? MatchEntry.TEAM : MatchEntry.SIMULTANEOUS;
+            Path checkpoint = MatchCheckpoint.file(dir, mode);
+            MatchCheckpoint saved = resumePrompt(sc, checkpoint);
+            switch (choice) {
+                case 1 -> {
+                    OneVsOne game = saved != null ? new OneVsOne(store, saved) : new OneVsOne(store);
+                    game.setRatings(ratings, playerA, playerB);
+                    game.setHistory(history);
+                    game.setCheckpoint(checkpoint);
+                    game.start();
+                }
+                default -> {
+                    TeamVsTeam game = saved != null ? new TeamVsTeam(store, saved) : new TeamVsTeam(store, choice == 3);
+                    game.setRatings(ratings, playerA, playerB);
+                    game.setHistory(history);
+                    game.setCheckpoint(checkpoint);
+                    game.start();
+                }
+            }
+            ratings.save();
+            store.retain(MAX_LOG_BYTES, MAX_LOG_AGE);
+            new LogRetention(MAX_LOG_BYTES, MAX_LOG_AGE).apply(dir);
+        } catch (IOException e) {
+            System.err.println("Не вдалося відкрити сховище боїв: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Якщо бій цього режиму було перервано, запропонувати продовжити його.
+     * Відмова чи пошкоджена контрольна точка видаляють її.
+     *
+     * @param sc         об'єкт Scanner для вводу користувача
+     * @param checkpoint файл контрольної точки режиму
+     * @return відновлений стан або {@code null} — почати новий бій
+     */
+    private static MatchCheckpoint resumePrompt(Scanner sc, Path checkpoint) {
+        try {
+            MatchCheckpoint saved = MatchCheckpoint.load(checkpoint);
+            if (saved == null) return null;
+            System.out.print("Знайдено перерваний бій (" + saved.describe() + "). Продовжити? [т/н]: ");
+            String answer = sc.hasNextLine() ? sc.nextLine().strip().toLowerCase() : "";
+            if (answer.startsWith("т") || answer.startsWith("y")) return saved;
+            MatchCheckpoint.delete(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Контрольну точку бою відкинуто: " + e.getMessage());
+            try {
+                MatchCheckpoint.delete(checkpoint);
+            } catch (IOException ignored) {
+                // наступний бій перезапише файл
+            }
         }
+        return null;
     }
 
     /**
-     * Меню для вибору та перегляду лог-файлів.
-     * Показує список доступних .log та .txt файлів у директорії логів.
+     * Меню для вибору та перегляду логів.
+     * Показує бої зі сховища та окремі .log/.txt файли у директорії логів.
      *
      * @param sc об'єкт Scanner для вводу користувача
      */
     private static void readLogMenu(Scanner sc) {
         ensureDir(LOGS_DIR);
         List<Path> files = listFiles(Paths.get(LOGS_DIR), ALLOWED);
-        if (files.isEmpty()) {
-            System.out.println("У '" + LOGS_DIR + "' немає .log/.txt файлів.");
+        List<MatchEntry> matches;
+        MatchStore store;
+        try {
+            store = MatchStore.openReadOnly(Paths.get(LOGS_DIR));
+            matches = store.entries();
+        } catch (IOException e) {
+            System.err.println("Не вдалося прочитати сховище боїв: " + e.getMessage());
+            return;
+        }
+        if (files.isEmpty() && matches.isEmpty()) {
+            System.out.println("У '" + LOGS_DIR + "' немає боїв.");
             return;
         }
         System.out.println("\nДоступні логи:");
+        System.out.println("0) Пошук у логах");
+        for (int i = 0; i < matches.size(); i++) {
+            System.out.printf("%d) %s%n", i + 1, matches.get(i));
+        }
         for (int i = 0; i < files.size(); i++) {
-            System.out.printf("%d) %s%n", i + 1, files.get(i).getFileName());
+            System.out.printf("%d) %s%n", matches.size() + i + 1, files.get(i).getFileName());
+        }
+        System.out.print("Оберіть бій: ");
+        int idx = readIntFromTo(sc, 0, matches.size() + files.size());
+
+        try {
+            if (idx == 0) {
+                searchMenu(sc, store);
+            } else if (idx <= matches.size()) {
+                ReadFromFile.printToConsole(new ByteArrayInputStream(store.read(matches.get(idx - 1))));
+            } else {
+                ReadFromFile.printToConsole(files.get(idx - matches.size() - 1).toFile());
+            }
+        } catch (IOException e) {
+            System.err.println("Не вдалося прочитати лог: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Пошук боїв за словами (імена дроїдів, дії, мапа) через інвертований індекс.
+     * Індекс спершу доповнюється новими боями; обраний результат відкривається
+     * у переглядачі з початку знайденого раунду.
+     *
+     * @param sc    об'єкт Scanner для вводу користувача
+     * @param store сховище боїв (лише читання)
+     * @throws IOException помилка читання індексу або логу
+     */
+    private static void searchMenu(Scanner sc, MatchStore store) throws IOException {
+        Path dir = Paths.get(LOGS_DIR);
+        LogIndex index = LogIndex.load(dir);
+        int added = index.update();
+        if (added > 0) System.out.println("Проіндексовано нових боїв: " + added);
+        sc.nextLine();
+        System.out.print("Слова для пошуку (напр. FlashDroid SubmarineDroid виверження Volcano, префікс — спалах*): ");
+        String query = sc.nextLine();
+
+        long t0 = System.nanoTime();
+        List<LogIndex.Hit> hits = index.search(query);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        System.out.printf("Знайдено: %d (%d мс)%n", hits.size(), ms);
+        if (hits.isEmpty()) return;
+        int shown = Math.min(hits.size(), SEARCH_LIMIT);
+        for (int i = 0; i < shown; i++) {
+            LogIndex.Hit h = hits.get(i);
+            MatchEntry e = h.inStore() ? store.entry(h.storeId()) : null;
+            System.out.printf("%d) %s%s%n", i + 1, h, e != null ? "  " + e : "");
+        }
+        if (shown < hits.size()) System.out.println("... ще " + (hits.size() - shown));
+        System.out.print("Відкрити (0 — назад): ");
+        int idx = readIntFromTo(sc, 0, shown);
+        if (idx == 0) return;
+
+        LogIndex.Hit h = hits.get(idx - 1);
+        if (h.inStore()) {
+            MatchEntry e = store.entry(h.storeId());
+            if (e == null) {
+                System.out.println("Бій уже видалено зі сховища.");
+                return;
+            }
+            byte[] log = store.read(e);
+            int from = (int) Math.min(h.offset(), log.length);
+            ReadFromFile.printToConsole(new ByteArrayInputStream(log, from, log.length - from));
+        } else {
+            Path file = index.file(h);
+            if (file == null) {
+                System.out.println("Лог-файл уже видалено.");
+                return;
+            }
+            ReadFromFile.printToConsole(file.toFile(), h.offset());
+        }
+    }
+
+    /**
+     * Зведена статистика по логах боїв. Обробляються лише файли, що з'явились
+     * після попереднього запуску; решта береться з контрольної точки.
+     */
+    private static void statsMenu() {
+        ensureDir(LOGS_DIR);
+        try {
+            LogAnalyzer analyzer = new LogAnalyzer(Paths.get(LOGS_DIR));
+            LogStats stats = analyzer.run(true);
+            System.out.println("Нових файлів оброблено: " + analyzer.scanned());
+            System.out.print(stats.report());
+        } catch (IOException e) {
+            System.err.println("Не вдалося зібрати статистику: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Таблиці лідерів з файлу рейтингів (без перегляду історії боїв).
+     */
+    private static void ratingsMenu() {
+        try {
+            RatingLadder ratings = RatingLadder.open(Paths.get(LOGS_DIR));
+            printBoard(ratings, RatingLadder.Kind.DROID, "Типи дроїдів");
+            printBoard(ratings, RatingLadder.Kind.TEAM, "Склади команд");
+            printBoard(ratings, RatingLadder.Kind.PLAYER, "Гравці");
+        } catch (IOException e) {
+            System.err.println("Не вдалося прочитати рейтинги: " + e.getMessage());
         }
-        System.out.print("Оберіть файл: ");
-        int idx = readIntFromTo(sc, 1, files.size());
-        File chosen = files.get(idx - 1).toFile();
+    }
+
+    /**
+     * Пошук в історії боїв за вторинними індексами: дроїд, мапа або останні N днів.
+     *
+     * @param sc об'єкт Scanner для вводу користувача
+     */
+    private static void historyMenu(Scanner sc) {
+        try (MatchHistory history = MatchHistory.open(Paths.get(LOGS_DIR, MatchHistory.DIR))) {
+            System.out.println("Боїв в історії: " + history.size());
+            System.out.println("1) За дроїдом  2) За мапою  3) За останні дні");
+            System.out.print("Оберіть: ");
+            int how = readIntFromTo(sc, 1, 3);
+            List<MatchRecord> found;
+            if (how == 3) {
+                System.out.print("Скільки днів: ");
+                int days = readIntFromTo(sc, 1, 36500);
+                long now = System.currentTimeMillis();
+                found = history.byDate(now - TimeUnit.DAYS.toMillis(days), now, SEARCH_LIMIT);
+            } else {
+                sc.nextLine();
+                System.out.print(how == 1 ? "Ім'я дроїда (напр. FlashDroid): " : "Мапа (Cave, Ocean, Sky, Volcano): ");
+                String name = sc.nextLine().strip();
+                found = how == 1 ? history.byDroid(name, 0, Long.MAX_VALUE, SEARCH_LIMIT)
+                        : history.byMap(name, 0, Long.MAX_VALUE, SEARCH_LIMIT);
+            }
+            if (found.isEmpty()) System.out.println("Нічого не знайдено.");
+            for (MatchRecord r : found) System.out.println(r);
+        } catch (IOException e) {
+            System.err.println("Не вдалося прочитати історію боїв: " + e.getMessage());
+        }
+    }
+
+    private static void printBoard(RatingLadder ratings, RatingLadder.Kind kind, String title) {
+        List<RatingLadder.Rating> board = ratings.leaderboard(kind, LEADERBOARD_LIMIT);
+        System.out.println("\n" + title + (board.isEmpty() ? ": боїв ще не було" : " (рейтинг ±відхилення, перемоги/поразки/нічиї):"));
+        for (int i = 0; i < board.size(); i++) System.out.printf("%2d) %s%n", i + 1, board.get(i));
+    }
 
+    /**
+     * Стеження за директорією логів: нові рядки лог-файлів і нові бої сховища
+     * виводяться, щойно їх допише інший процес. Enter — зупинити.
+     *
+     * @param sc об'єкт Scanner для вводу користувача
+     */
+    private static void followMenu(Scanner sc) {
+        ensureDir(LOGS_DIR);
         try {
-            ReadFromFile.printToConsole(chosen);
+            Closeable follow = ReadFromFile.follow(Paths.get(LOGS_DIR));
+            try {
+                System.out.println("Стеження за '" + LOGS_DIR + "' (Enter — зупинити)...");
+                sc.nextLine();
+                if (sc.hasNextLine()) sc.nextLine();
+            } finally {
+                follow.close();
+            }
         } catch (IOException e) {
-            System.err.println("Не вдалося прочитати файл: " + e.getMessage());
+            System.err.println("Не вдалося стежити за логами: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,190 @@
+package myGame.balance;
+
+import myGame.batch.BatchRunner;
+import myGame.batch.HeadlessMatch;
+import myGame.batch.MatchConfig;
+import myGame.batch.MatchResult;
+import myGame.droid.DroidTemplate;
+import myGame.sim.ActionPolicy;
+import myGame.stats.LogStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Оцінка балансу вектора характеристик пакетом боїв без консолі.
+ *
+ * <p>Для кожної пари різних типів дроїдів на кожній мапі грається {@code matches}
+ * боїв з обох боків (той самий тип спершу за команду A, потім за B з тим самим
+ * зерном — так зникає перевага першого ходу). Зерна залежать лише від клітинки
+ * і номера бою, а не від кандидата (спільні випадкові числа): різниця між
+ * кандидатами — це різниця характеристик, а не шум.</p>
+ *
+ * <p>Оцінки кешуються за вектором: незмінений кандидат (еліта, повторний нащадок)
+ * не симулюється вдруге. Клітинки всіх нових кандидатів виконуються одним пулом
+ * потоків. Методи оцінки викликаються з одного потоку.</p>
+ */
+public final class BalanceEvaluator implements AutoCloseable {
+
+    /** Кількість пар різних типів. */
+    public static final int PAIRS = StatVector.DROIDS * (StatVector.DROIDS - 1) / 2;
+    /** Кількість клітинок (пара × мапа). */
+    public static final int CELLS = PAIRS * StatVector.MAPS;
+
+    /**
+     * Оцінка кандидата.
+     *
+     * @param rms     середньоквадратичне відхилення частки перемог від 50% по клітинках (менше — краще)
+     * @param worst   найбільше відхилення від 50%
+     * @param winRate частка перемог першого типу пари в кожній клітинці (нічия — половина)
+     */
+    public record Fitness(double rms, double worst, double[] winRate) { }
+
+    private final int mode;
+    private final ActionPolicy policy;
+    private final int matches;
+    private final long seed;
+    private final ExecutorService pool;
+    private final Map<StatVector, Fitness> cache = new HashMap<>();
+    private long simulated;
+    private long hits;
+
+    /**
+     * @param mode    режим боїв ({@link myGame.store.MatchEntry#ONE_VS_ONE} або {@link myGame.store.MatchEntry#SIMULTANEOUS})
+     * @param policy  політика дій
+     * @param matches боїв на клітинку з кожного боку
+     * @param seed    базове зерно (спільне для всіх кандидатів)
+     * @param threads потоків
+     */
+    public BalanceEvaluator(int mode, ActionPolicy policy, int matches, long seed, int threads) {
+        if (matches < 1) throw new IllegalArgumentException("Потрібен хоча б один бій на клітинку");
+        this.mode = mode;
+        this.policy = policy;
+        this.matches = matches;
+        this.seed = seed;
+        this.pool = Executors.newFixedThreadPool(threads, BatchRunner.daemonThreads("balance"));
+    }
+
+    /**
+     * @param v кандидат
+     * @return оцінка (з кешу, якщо вже рахувалась)
+     */
+    public Fitness evaluate(StatVector v) {
+        return evaluateAll(List.of(v)).get(0);
+    }
+
+    /**
+     * Оцінити покоління: нові кандидати симулюються разом, решта береться з кешу.
+     *
+     * @param vs кандидати
+     * @return оцінки в тому ж порядку
+     */
+    public List<Fitness> evaluateAll(List<StatVector> vs) {
+        Map<StatVector, List<Future<Double>>> pending = new LinkedHashMap<>();
+        for (StatVector v : vs) {
+            if (cache.containsKey(v) || pending.containsKey(v)) {
+                hits++;
+                continue;
+            }
+            List<Future<Double>> cells = new ArrayList<>(CELLS);
+            for (int c = 0; c < CELLS; c++) {
+                int cell = c;
+                cells.add(pool.submit(() -> playCell(v, cell)));
+            }
+            pending.put(v, cells);
+        }
+        try {
+            for (Map.Entry<StatVector, List<Future<Double>>> e : pending.entrySet()) {
+                double[] rate = new double[CELLS];
+                for (int c = 0; c < CELLS; c++) rate[c] = e.getValue().get(c).get();
+                cache.put(e.getKey(), fitness(rate));
+                simulated += (long) CELLS * matches * 2;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Оцінку перервано", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        List<Fitness> out = new ArrayList<>(vs.size());
+        for (StatVector v : vs) out.add(cache.get(v));
+        return out;
+    }
+
+    /** @return скільки боїв зіграно */
+    public long simulated() { return simulated; }
+
+    /** @return скільки оцінок узято з кешу */
+    public long cacheHits() { return hits; }
+
+    /** @return скільки різних кандидатів оцінено */
+    public int cached() { return cache.size(); }
+
+    /**
+     * @param cell індекс клітинки
+     * @return пара типів {i, j} (i &lt; j) цієї клітинки
+     */
+    public static int[] pair(int cell) {
+        int p = cell / StatVector.MAPS;
+        int i = 0;
+        int row = StatVector.DROIDS - 1;
+        while (p >= row) {
+            p -= row;
+            i++;
+            row--;
+        }
+        return new int[]{i, i + 1 + p};
+    }
+
+    /**
+     * @param cell індекс клітинки
+     * @return індекс мапи у {@link LogStats#MAPS}
+     */
+    public static int map(int cell) { return cell % StatVector.MAPS; }
+
+    private double playCell(StatVector v, int cell) {
+        int[] p = pair(cell);
+        int m = map(cell);
+        List<DroidTemplate> a = List.of(v.template(p[0]));
+        List<DroidTemplate> b = List.of(v.template(p[1]));
+        String mapName = LogStats.MAPS[m];
+        int bonus = v.mapBonus(m);
+        MatchConfig first = new MatchConfig(mode, a, b, mapName, policy, MatchConfig.MAX_ROUNDS, bonus);
+        MatchConfig second = new MatchConfig(mode, b, a, mapName, policy, MatchConfig.MAX_ROUNDS, bonus);
+        double score = 0;
+        for (int k = 0; k < matches; k++) {
+            long s = BatchRunner.matchSeed(seed, (long) cell * matches + k);
+            score += points(HeadlessMatch.run(first, s), MatchResult.A);
+            score += points(HeadlessMatch.run(second, s), MatchResult.B);
+        }
+        return score / (2.0 * matches);
+    }
+
+    private static double points(MatchResult r, int side) {
+        if (r.winner() == side) return 1;
+        return r.winner() == MatchResult.DRAW ? 0.5 : 0;
+    }
+
+    private static Fitness fitness(double[] rate) {
+        double sq = 0;
+        double worst = 0;
+        for (double r : rate) {
+            double d = Math.abs(r - 0.5);
+            sq += d * d;
+            worst = Math.max(worst, d);
+        }
+        return new Fitness(Math.sqrt(sq / rate.length), worst, rate);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,181 @@
+package myGame.balance;
+
+import myGame.batch.BatchRunner;
+import myGame.droid.DroidTemplate;
+import myGame.sim.ActionPolicy;
+import myGame.stats.LogStats;
+import myGame.store.MatchEntry;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Генетичний пошук балансу: підбирає характеристики всіх типів дроїдів і бонуси
+ * мап так, щоб частка перемог у кожній парі на кожній мапі була якомога ближчою до 50%.
+ *
+ * <pre>
+ * java myGame.balance.BalanceOptimizer --generations 30 --population 24 --matches 8 --threads 8
+ * </pre>
+ *
+ * <p>Покоління: еліта переходить без змін (з кешу оцінок), решта — нащадки
+ * турнірного відбору, схрещування по типах і мутації. Початкова популяція —
+ * поточний баланс гри та його мутації, тож результат не гірший за нього.
+ * Пошук детермінований для того самого {@code --seed}.</p>
+ */
+public final class BalanceOptimizer {
+
+    private static final String HELP = String.join(System.lineSeparator(),
+            "Використання: java myGame.balance.BalanceOptimizer [ключі]",
+            "  --generations <n>     поколінь (за замовчуванням 20)",
+            "  --population <n>      кандидатів у поколінні (24)",
+            "  --elite <n>           кращих, що переходять без змін (2)",
+            "  --matches <n>         боїв на пару і мапу з кожного боку (8)",
+            "  --mode 1v1|sim        режим боїв (1v1)",
+            "  --policy greedy|random  політика дій (greedy)",
+            "  --target <частка>     зупинитись, коли середнє відхилення менше (0.02)",
+            "  --threads <n>         потоків (кількість ядер)",
+            "  --seed <число>        зерно пошуку і боїв (1)");
+
+    /** Кандидат з оцінкою. */
+    private record Scored(StatVector v, BalanceEvaluator.Fitness f) { }
+
+    private int generations = 20;
+    private int population = 24;
+    private int elite = 2;
+    private int matches = 8;
+    private int mode = MatchEntry.ONE_VS_ONE;
+    private ActionPolicy policy = ActionPolicy.GREEDY;
+    private double target = 0.02;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+
+    private BalanceOptimizer() {}
+
+    /**
+     * Точка входу.
+     *
+     * @param args ключі (див. {@link #HELP})
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * @param args ключі
+     * @return код завершення (0 — успіх, 2 — помилка у параметрах)
+     */
+    public static int run(String[] args) {
+        BalanceOptimizer o = new BalanceOptimizer();
+        try {
+            o.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HELP);
+            return 2;
+        }
+        o.optimize(System.out);
+        return 0;
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для " + key);
+            String v = args[++i];
+            switch (key) {
+                case "--generations" -> generations = BatchRunner.positive(key, v);
+                case "--population" -> population = BatchRunner.positive(key, v);
+                case "--elite" -> elite = Integer.parseInt(v);
+                case "--matches" -> matches = BatchRunner.positive(key, v);
+                case "--mode" -> mode = BatchRunner.mode(v, MatchEntry.ONE_VS_ONE, MatchEntry.SIMULTANEOUS);
+                case "--policy" -> policy = BatchRunner.policy(v);
+                case "--target" -> target = Double.parseDouble(v);
+                case "--threads" -> threads = BatchRunner.positive(key, v);
+                case "--seed" -> seed = Long.parseLong(v);
+                default -> throw new IllegalArgumentException("Невідомий ключ: " + key);
+            }
+        }
+        if (elite < 0 || elite >= population) throw new IllegalArgumentException("--elite має бути менше за --population");
+    }
+
+    private void optimize(PrintStream out) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long t0 = System.nanoTime();
+        try (BalanceEvaluator eval = new BalanceEvaluator(mode, policy, matches, seed, threads)) {
+            StatVector base = StatVector.defaults();
+            List<StatVector> pop = new ArrayList<>(population);
+            pop.add(base);
+            while (pop.size() < population) pop.add(base.mutate(rnd, 0.3, 0.15));
+
+            Scored baseline = null;
+            Scored best = null;
+            for (int g = 0; g < generations; g++) {
+                List<Scored> scored = score(eval, pop);
+                if (baseline == null) baseline = scored.stream().filter(s -> s.v().equals(base)).findFirst().orElseThrow();
+                best = scored.get(0);
+                out.printf(Locale.ROOT, "Покоління %d: відхилення %.4f (найгірша клітинка %.1f%%), боїв %d, з кешу %d%n",
+                        g + 1, best.f().rms(), 100 * best.f().worst(), eval.simulated(), eval.cacheHits());
+                if (best.f().rms() < target || g == generations - 1) break;
+                pop = breed(scored, rnd);
+            }
+
+            double sec = (System.nanoTime() - t0) / 1e9;
+            out.printf(Locale.ROOT, "%nЗіграно %d боїв за %.1f с (%.0f боїв/с), кандидатів %d%n",
+                    eval.simulated(), sec, eval.simulated() / Math.max(sec, 1e-9), eval.cached());
+            out.printf(Locale.ROOT, "Поточний баланс: відхилення %.4f, найгірша клітинка %.1f%%%n",
+                    baseline.f().rms(), 100 * baseline.f().worst());
+            out.printf(Locale.ROOT, "Знайдений баланс: відхилення %.4f, найгірша клітинка %.1f%%%n",
+                    best.f().rms(), 100 * best.f().worst());
+            out.println(best.v());
+            out.println();
+            printTable(out, best.f());
+        }
+    }
+
+    private List<Scored> score(BalanceEvaluator eval, List<StatVector> pop) {
+        List<BalanceEvaluator.Fitness> fs = eval.evaluateAll(pop);
+        List<Scored> scored = new ArrayList<>(pop.size());
+        for (int i = 0; i < pop.size(); i++) scored.add(new Scored(pop.get(i), fs.get(i)));
+        scored.sort(Comparator.comparingDouble((Scored s) -> s.f().rms()).thenComparingDouble(s -> s.f().worst()));
+        return scored;
+    }
+
+    private List<StatVector> breed(List<Scored> scored, SplittableRandom rnd) {
+        List<StatVector> next = new ArrayList<>(population);
+        for (int i = 0; i < elite; i++) next.add(scored.get(i).v());
+        while (next.size() < population) {
+            StatVector a = tournament(scored, rnd);
+            StatVector b = tournament(scored, rnd);
+            StatVector child = rnd.nextDouble() < 0.9 ? a.cross(b, rnd) : a;
+            next.add(child.mutate(rnd, 2.0 / StatVector.LENGTH, 0.1));
+        }
+        return next;
+    }
+
+    /** Турнір з трьох: кращий з трьох випадкових (список відсортовано від кращого). */
+    private static StatVector tournament(List<Scored> scored, SplittableRandom rnd) {
+        int best = rnd.nextInt(scored.size());
+        for (int k = 1; k < 3; k++) best = Math.min(best, rnd.nextInt(scored.size()));
+        return scored.get(best).v();
+    }
+
+    /** Частка перемог першого типу пари по мапах. */
+    private static void printTable(PrintStream out, BalanceEvaluator.Fitness f) {
+        out.printf("%-30s", "Пара");
+        for (String m : LogStats.MAPS) out.printf("%9s", m);
+        out.println();
+        List<String> names = DroidTemplate.CATALOG.stream().map(t -> t.name().trim()).toList();
+        for (int p = 0; p < BalanceEvaluator.PAIRS; p++) {
+            int[] ij = BalanceEvaluator.pair(p * StatVector.MAPS);
+            out.printf("%-30s", names.get(ij[0]) + " vs " + names.get(ij[1]));
+            for (int m = 0; m < StatVector.MAPS; m++) {
+                out.printf(Locale.ROOT, "%8.1f%%", 100 * f.winRate()[p * StatVector.MAPS + m]);
+            }
+            out.println();
+        }
+    }
+}
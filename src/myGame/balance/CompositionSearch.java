@@ -0,0 +1,308 @@
+package myGame.balance;
+
+import myGame.batch.BatchRunner;
+import myGame.batch.HeadlessMatch;
+import myGame.batch.MatchConfig;
+import myGame.batch.MatchResult;
+import myGame.batch.OutcomeCache;
+import myGame.droid.DroidTemplate;
+import myGame.sim.ActionPolicy;
+import myGame.stats.LogStats;
+import myGame.store.MatchEntry;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пошук найсильніших складів команд на кожній мапі.
+ *
+ * <pre>
+ * java myGame.balance.CompositionSearch --size 6 --threads 8
+ * </pre>
+ *
+ * <p>Склад — мультимножина типів: перестановки одного складу відрізняються лише
+ * порядком розстановки ({@code placeLine}), тож кожен склад грається в одному
+ * каноничному порядку (за індексом типу). Для 6 дроїдів з 8 типів це 1716
+ * складів замість 262144 впорядкованих.</p>
+ *
+ * <p>Відбір послідовним діленням навпіл: у раунді кожен живий склад грає ті самі
+ * {@code m} боїв з обох боків (суперники — випадкові живі склади, однакові зерна
+ * для всіх), нижча половина відкидається, {@code m} подвоюється. Слабкі склади
+ * вибувають після кількох боїв, а сильні зрештою міряються з сильними. Результати
+ * кожного бою зберігаються в {@link OutcomeCache} з ключем від складів з їхніми
+ * характеристиками, мапи з її стихією, бонусом і розміром, режиму, політики,
+ * ліміту раундів і зерна, тож повторний запуск (інші {@code --top}, продовження
+ * після переривання) не грає зіграного вдруге, а змінений баланс не дає старих
+ * результатів.</p>
+ */
+public final class CompositionSearch {
+
+    /** Найбільше дроїдів у команді (як у режимі Команда vs Команда). */
+    public static final int MAX_SIZE = 6;
+    /** Найбільше боїв на склад у раунді. */
+    private static final int MAX_MATCHES = 512;
+    private static final int TYPES = DroidTemplate.CATALOG.size();
+
+    private static final String HELP = String.join(System.lineSeparator(),
+            "Використання: java myGame.balance.CompositionSearch [ключі]",
+            "  --size <1-6>          дроїдів у команді (за замовчуванням 3)",
+            "  --map <мапа>|all      мапа (за замовчуванням усі)",
+            "  --mode tvt|sim        режим боїв (tvt)",
+            "  --policy greedy|random  політика дій (greedy)",
+            "  --start <n>           боїв на склад у першому раунді (4)",
+            "  --top <n>             скільки складів показати (10)",
+            "  --threads <n>         потоків (кількість ядер)",
+            "  --seed <число>        зерно (1)",
+            "  --cache <файл>|none   кеш результатів (logs/.team-cache)");
+
+    private int size = 3;
+    private String map;
+    private int mode = MatchEntry.TEAM;
+    private ActionPolicy policy = ActionPolicy.GREEDY;
+    private int start = 4;
+    private int top = 10;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private Path cacheFile = Paths.get("logs", ".team-cache");
+
+    private final AtomicLong played = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    private CompositionSearch() {}
+
+    /**
+     * Точка входу.
+     *
+     * @param args ключі
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * @param args ключі
+     * @return код завершення (0 — успіх, 1 — помилка кешу, 2 — помилка у параметрах)
+     */
+    public static int run(String[] args) {
+        CompositionSearch s = new CompositionSearch();
+        try {
+            s.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HELP);
+            return 2;
+        }
+        try {
+            s.search(System.out);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Помилка кешу результатів: " + e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для " + key);
+            String v = args[++i];
+            switch (key) {
+                case "--size" -> {
+                    size = Integer.parseInt(v);
+                    if (size < 1 || size > MAX_SIZE) throw new IllegalArgumentException("--size від 1 до " + MAX_SIZE);
+                }
+                case "--map" -> map = v.equalsIgnoreCase("all") ? null : v;
+                case "--mode" -> mode = BatchRunner.mode(v, MatchEntry.TEAM, MatchEntry.SIMULTANEOUS);
+                case "--policy" -> policy = BatchRunner.policy(v);
+                case "--start" -> start = BatchRunner.positive(key, v);
+                case "--top" -> top = BatchRunner.positive(key, v);
+                case "--threads" -> threads = BatchRunner.positive(key, v);
+                case "--seed" -> seed = Long.parseLong(v);
+                case "--cache" -> cacheFile = v.equalsIgnoreCase("none") ? null : Paths.get(v);
+                default -> throw new IllegalArgumentException("Невідомий ключ: " + key);
+            }
+        }
+        if (map != null && Arrays.stream(LogStats.MAPS).noneMatch(m -> m.equalsIgnoreCase(map))) {
+            throw new IllegalArgumentException("Невідома мапа: " + map);
+        }
+    }
+
+    private void search(PrintStream out) throws IOException {
+        int[] teams = teams(size);
+        out.printf("Складів з %d дроїдів: %d%n", size, teams.length);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, BatchRunner.daemonThreads("composition"));
+        long t0 = System.nanoTime();
+        OutcomeCache cache = cacheFile != null ? OutcomeCache.open(cacheFile) : null;
+        try {
+            if (cache != null) out.printf("У кеші: %d записів%n", cache.size());
+            for (int m = 0; m < LogStats.MAPS.length; m++) {
+                if (map != null && !LogStats.MAPS[m].equalsIgnoreCase(map)) continue;
+                race(out, m, teams, pool, cache);
+            }
+        } finally {
+            pool.shutdownNow();
+            if (cache != null) {
+                played.addAndGet(cache.simulated());
+                reused.addAndGet(cache.reused());
+                cache.close();
+            }
+        }
+        double sec = (System.nanoTime() - t0) / 1e9;
+        out.printf(Locale.ROOT, "%nЗіграно %d боїв, з кешу %d, за %.1f с (%.0f боїв/с)%n",
+                played.get(), reused.get(), sec, played.get() / Math.max(sec, 1e-9));
+    }
+
+    /** Послідовне ділення навпіл на одній мапі. */
+    private void race(PrintStream out, int mapIdx, int[] teams, ExecutorService pool, OutcomeCache cache) {
+        String mapName = LogStats.MAPS[mapIdx];
+        out.printf("%n=== %s ===%n", mapName);
+        int[] alive = teams.clone();
+        double[] score = new double[alive.length];
+        SplittableRandom rnd = new SplittableRandom(BatchRunner.matchSeed(seed, mapIdx));
+        int m = start;
+        for (int round = 1; ; round++) {
+            int[] opponents = new int[m];
+            long[] seeds = new long[m];
+            for (int k = 0; k < m; k++) {
+                opponents[k] = alive[rnd.nextInt(alive.length)];
+                seeds[k] = rnd.nextLong();
+            }
+            score = play(alive, opponents, seeds, mapIdx, pool, cache);
+
+            Integer[] order = new Integer[alive.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            double[] s = score;
+            Arrays.sort(order, (a, b) -> Double.compare(s[b], s[a]));
+            int keep = alive.length <= top ? alive.length : Math.max(top, (alive.length + 1) / 2);
+            int[] nextAlive = new int[keep];
+            double[] nextScore = new double[keep];
+            for (int i = 0; i < keep; i++) {
+                nextAlive[i] = alive[order[i]];
+                nextScore[i] = s[order[i]];
+            }
+            out.printf(Locale.ROOT, "Раунд %d: складів %d, боїв на склад %d, лідер %s (%.1f%%)%n",
+                    round, alive.length, 2 * m, name(nextAlive[0]), 100 * nextScore[0]);
+            boolean last = alive.length <= top;
+            alive = nextAlive;
+            score = nextScore;
+            if (last) break;
+            m = Math.min(m * 2, MAX_MATCHES);
+        }
+        for (int i = 0; i < alive.length; i++) {
+            out.printf(Locale.ROOT, "%2d. %-72s %.1f%%%n", i + 1, name(alive[i]), 100 * score[i]);
+        }
+    }
+
+    /** Кожен склад грає з кожним суперником раунду з обох боків; повертає частку очок. */
+    private double[] play(int[] alive, int[] opponents, long[] seeds, int mapIdx,
+                          ExecutorService pool, OutcomeCache cache) {
+        double[] score = new double[alive.length];
+        int chunk = Math.max(1, alive.length / (threads * 8));
+        List<Future<?>> done = new ArrayList<>();
+        for (int from = 0; from < alive.length; from += chunk) {
+            int lo = from;
+            int hi = Math.min(alive.length, from + chunk);
+            done.add(pool.submit(() -> {
+                for (int i = lo; i < hi; i++) {
+                    double points = 0;
+                    for (int k = 0; k < opponents.length; k++) {
+                        points += points(match(alive[i], opponents[k], mapIdx, seeds[k], cache), MatchResult.A);
+                        points += points(match(opponents[k], alive[i], mapIdx, seeds[k], cache), MatchResult.B);
+                    }
+                    score[i] = points / (2.0 * opponents.length);
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : done) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Пошук перервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) throw u;
+            throw new IllegalStateException(e.getCause());
+        }
+        return score;
+    }
+
+    private int match(int a, int b, int mapIdx, long matchSeed, OutcomeCache cache) {
+        MatchConfig cfg = new MatchConfig(mode, templates(a), templates(b), LogStats.MAPS[mapIdx], policy);
+        if (cache == null) {
+            played.incrementAndGet();
+            return HeadlessMatch.run(cfg, matchSeed).winner();
+        }
+        try {
+            return cache.winner(cfg, matchSeed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double points(int winner, int side) {
+        if (winner == side) return 1;
+        return winner == MatchResult.DRAW ? 0.5 : 0;
+    }
+
+    // ---------- Склади ----------
+
+    /**
+     * Усі склади з {@code size} дроїдів: кількості кожного типу по 3 біти.
+     *
+     * @param size дроїдів у команді
+     * @return коди складів
+     */
+    static int[] teams(int size) {
+        List<Integer> out = new ArrayList<>();
+        collect(0, size, 0, out);
+        return out.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void collect(int type, int left, int code, List<Integer> out) {
+        if (type == TYPES - 1) {
+            out.add(code | left << (3 * type));
+            return;
+        }
+        for (int n = left; n >= 0; n--) collect(type + 1, left - n, code | n << (3 * type), out);
+    }
+
+    /**
+     * @param code код складу
+     * @return шаблони у каноничному порядку (за індексом типу)
+     */
+    static List<DroidTemplate> templates(int code) {
+        List<DroidTemplate> out = new ArrayList<>(MAX_SIZE);
+        for (int t = 0; t < TYPES; t++) {
+            for (int n = code >>> (3 * t) & 7; n > 0; n--) out.add(DroidTemplate.of(t));
+        }
+        return out;
+    }
+
+    /**
+     * @param code код складу
+     * @return склад для відображення, наприклад {@code 2×HammerDroid + FlashDroid}
+     */
+    static String name(int code) {
+        StringBuilder sb = new StringBuilder();
+        for (int t = 0; t < TYPES; t++) {
+            int n = code >>> (3 * t) & 7;
+            if (n == 0) continue;
+            if (sb.length() > 0) sb.append(" + ");
+            if (n > 1) sb.append(n).append('×');
+            sb.append(DroidTemplate.of(t).name().trim());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,336 @@
+package myGame.balance;
+
+import myGame.batch.BatchRunner;
+import myGame.batch.HeadlessMatch;
+import myGame.batch.MatchConfig;
+import myGame.batch.MatchResult;
+import myGame.batch.OutcomeCache;
+import myGame.droid.DroidTemplate;
+import myGame.sim.ActionPolicy;
+import myGame.stats.LogStats;
+import myGame.store.MatchEntry;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Матриця частки перемог (тип A, тип B, мапа) з адаптивною кількістю боїв.
+ *
+ * <pre>
+ * java myGame.balance.MatchupMatrix --width 0.05 --threads 8
+ * </pre>
+ *
+ * <p>Клітинка перестає отримувати бої, щойно її довірчий інтервал Вілсона стає
+ * вужчим за {@code --width}. Потоки щоразу беруть пачку боїв для клітинки з
+ * найширшим інтервалом (з урахуванням пачок, що вже граються), тож однобічні
+ * пари закриваються за кілька десятків боїв, а рівні отримують тисячі.
+ * Зерно кожного бою залежить лише від клітинки і номера бою, тому результат
+ * клітинки не залежить від кількості потоків.</p>
+ *
+ * <p>З {@code --cache} бої беруться блоками з {@link OutcomeCache}: повторне
+ * дослідження з тими самими характеристиками грає лише бої, яких ще немає у файлі.</p>
+ */
+public final class MatchupMatrix {
+
+    private static final int TYPES = DroidTemplate.CATALOG.size();
+    private static final int MAPS = LogStats.MAPS.length;
+    /** Кількість клітинок. */
+    public static final int CELLS = TYPES * TYPES * MAPS;
+
+    private static final String HELP = String.join(System.lineSeparator(),
+            "Використання: java myGame.balance.MatchupMatrix [ключі]",
+            "  --width <частка>      ширина довірчого інтервалу, за якої клітинка готова (0.1)",
+            "  --z <число>           квантиль нормального розподілу (1.96 — 95%)",
+            "  --min <n>             найменше боїв на клітинку (20)",
+            "  --max <n>             найбільше боїв на клітинку (20000)",
+            "  --batch <n>           боїв в одній пачці (16)",
+            "  --mode 1v1|sim        режим боїв (1v1)",
+            "  --policy greedy|random  політика дій (greedy)",
+            "  --threads <n>         потоків (кількість ядер)",
+            "  --seed <число>        зерно (1)",
+            "  --cache <файл>        брати зіграні бої з кешу результатів і дописувати нові");
+
+    /**
+     * Оцінка однієї клітинки.
+     *
+     * @param a     тип команди A (ходить першою)
+     * @param b     тип команди B
+     * @param map   індекс мапи у {@link LogStats#MAPS}
+     * @param n     зіграно боїв
+     * @param score частка очок A (нічия — половина)
+     * @param low   нижня межа інтервалу Вілсона
+     * @param high  верхня межа
+     */
+    public record Cell(int a, int b, int map, long n, double score, double low, double high) { }
+
+    /** Пачка боїв: клітинка і номер першого бою. */
+    private record Task(int cell, long from, int count) { }
+
+    private double width = 0.1;
+    private double z = 1.96;
+    private int min = 20;
+    private int max = 20000;
+    private int batch = 16;
+    private int mode = MatchEntry.ONE_VS_ONE;
+    private ActionPolicy policy = ActionPolicy.GREEDY;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private Path cacheFile;
+    private OutcomeCache cache;
+
+    private final long[] n = new long[CELLS];
+    private final double[] points = new double[CELLS];
+    private final long[] inFlight = new long[CELLS];
+    private final long[] next = new long[CELLS];
+    private final boolean[] done = new boolean[CELLS];
+    private volatile RuntimeException failure;
+
+    private MatchupMatrix() {}
+
+    /**
+     * Точка входу.
+     *
+     * @param args ключі
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * @param args ключі
+     * @return код завершення (0 — успіх, 1 — помилка кешу, 2 — помилка у параметрах)
+     */
+    public static int run(String[] args) {
+        MatchupMatrix m = new MatchupMatrix();
+        try {
+            m.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HELP);
+            return 2;
+        }
+        PrintStream out = System.out;
+        long t0 = System.nanoTime();
+        List<Cell> cells;
+        try {
+            if (m.cacheFile != null) m.cache = OutcomeCache.open(m.cacheFile);
+            try {
+                cells = m.estimate();
+            } finally {
+                if (m.cache != null) m.cache.close();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Помилка кешу результатів: " + e.getMessage());
+            return 1;
+        }
+        double sec = (System.nanoTime() - t0) / 1e9;
+        m.print(out, cells);
+        long total = cells.stream().mapToLong(Cell::n).sum();
+        long uniform = (long) CELLS * m.uniformMatches();
+        out.printf(Locale.ROOT, "%nЗіграно %d боїв за %.1f с (%.0f боїв/с); з однаковою кількістю на клітинку знадобилось би %d%n",
+                total, sec, total / Math.max(sec, 1e-9), uniform);
+        if (m.cache != null) {
+            out.printf("Кеш: зіграно %d, взято з файлу %d%n", m.cache.simulated(), m.cache.reused());
+        }
+        return 0;
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для " + key);
+            String v = args[++i];
+            switch (key) {
+                case "--width" -> width = Double.parseDouble(v);
+                case "--z" -> z = Double.parseDouble(v);
+                case "--min" -> min = BatchRunner.positive(key, v);
+                case "--max" -> max = BatchRunner.positive(key, v);
+                case "--batch" -> batch = BatchRunner.positive(key, v);
+                case "--mode" -> mode = BatchRunner.mode(v, MatchEntry.ONE_VS_ONE, MatchEntry.SIMULTANEOUS);
+                case "--policy" -> policy = BatchRunner.policy(v);
+                case "--threads" -> threads = BatchRunner.positive(key, v);
+                case "--seed" -> seed = Long.parseLong(v);
+                case "--cache" -> cacheFile = Paths.get(v);
+                default -> throw new IllegalArgumentException("Невідомий ключ: " + key);
+            }
+        }
+        if (width <= 0 || width >= 1) throw new IllegalArgumentException("--width має бути між 0 і 1");
+        if (min > max) throw new IllegalArgumentException("--min більше за --max");
+        if (cacheFile != null) {
+            // кеш зберігає цілі блоки боїв, тож пачки вирівнюються по блоках
+            min = roundUp(min);
+            max = roundUp(max);
+            batch = roundUp(batch);
+        }
+    }
+
+    private static int roundUp(int v) {
+        return (v + OutcomeCache.BLOCK - 1) / OutcomeCache.BLOCK * OutcomeCache.BLOCK;
+    }
+
+    /**
+     * Грати, доки всі клітинки не стануть готовими.
+     *
+     * @return оцінки всіх клітинок
+     */
+    private List<Cell> estimate() {
+        List<Thread> workers = new ArrayList<>(threads);
+        ThreadFactory factory = BatchRunner.daemonThreads("matchup");
+        for (int t = 0; t < threads; t++) {
+            Thread w = factory.newThread(this::work);
+            w.start();
+            workers.add(w);
+        }
+        try {
+            for (Thread w : workers) w.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Оцінку перервано", e);
+        }
+        if (failure != null) throw failure;
+        List<Cell> out = new ArrayList<>(CELLS);
+        for (int c = 0; c < CELLS; c++) {
+            double[] ci = wilson(points[c], n[c], z);
+            out.add(new Cell(typeA(c), typeB(c), map(c), n[c], n[c] == 0 ? 0 : points[c] / n[c], ci[0], ci[1]));
+        }
+        return out;
+    }
+
+    private void work() {
+        for (Task t; failure == null && (t = take()) != null; ) {
+            int c = t.cell();
+            MatchConfig cfg = new MatchConfig(mode, List.of(DroidTemplate.of(typeA(c))), List.of(DroidTemplate.of(typeB(c))),
+                    LogStats.MAPS[map(c)], policy);
+            long cellSeed = BatchRunner.matchSeed(seed, c);
+            double pts = 0;
+            try {
+                if (cache != null) {
+                    OutcomeCache.Outcomes o = cache.outcomes(cfg, cellSeed,
+                            t.from() / OutcomeCache.BLOCK, t.count() / OutcomeCache.BLOCK);
+                    pts = o.winsA() + o.draws() / 2.0;
+                } else for (long k = t.from(); k < t.from() + t.count(); k++) {
+                    MatchResult r = HeadlessMatch.run(cfg, BatchRunner.matchSeed(cellSeed, k));
+                    if (r.winner() == MatchResult.A) pts += 1;
+                    else if (r.winner() == MatchResult.DRAW) pts += 0.5;
+                }
+            } catch (IOException e) {
+                failure = new UncheckedIOException(e);
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+                return;
+            }
+            report(t, pts);
+        }
+    }
+
+    /**
+     * Наступна пачка: клітинка з найширшим очікуваним інтервалом серед неготових.
+     * Бої, що вже граються, враховуються як зіграні з поточною часткою, щоб потоки
+     * не збігались на одній клітинці.
+     *
+     * @return пачка або {@code null}, якщо всі клітинки готові
+     */
+    private synchronized Task take() {
+        int best = -1;
+        double widest = -1;
+        for (int c = 0; c < CELLS; c++) {
+            if (done[c] || next[c] >= max) continue;
+            long planned = n[c] + inFlight[c];
+            double w = planned < min ? 2 - planned / (double) min
+                    : projected(c, planned);
+            if (w > widest) {
+                widest = w;
+                best = c;
+            }
+        }
+        if (best < 0) return null;
+        long planned = n[best] + inFlight[best];
+        int count = (int) Math.min(max - next[best], planned < min ? Math.max(min - planned, 1) : batch);
+        Task t = new Task(best, next[best], count);
+        next[best] += count;
+        inFlight[best] += count;
+        return t;
+    }
+
+    private synchronized void report(Task t, double pts) {
+        int c = t.cell();
+        n[c] += t.count();
+        points[c] += pts;
+        inFlight[c] -= t.count();
+        if (n[c] >= max) {
+            done[c] = true;
+        } else if (n[c] >= min) {
+            double[] ci = wilson(points[c], n[c], z);
+            if (ci[1] - ci[0] < width) done[c] = true;
+        }
+    }
+
+    /** Ширина інтервалу, якщо у клітинці буде {@code planned} боїв з поточною часткою. */
+    private double projected(int c, long planned) {
+        double p = n[c] == 0 ? 0.5 : points[c] / n[c];
+        double[] ci = wilson(p * planned, planned, z);
+        return ci[1] - ci[0];
+    }
+
+    /**
+     * Довірчий інтервал Вілсона для частки.
+     *
+     * @param successes кількість успіхів (можна дробову — нічиї як половина)
+     * @param n         кількість спроб
+     * @param z         квантиль нормального розподілу
+     * @return {нижня межа, верхня межа}
+     */
+    public static double[] wilson(double successes, long n, double z) {
+        if (n == 0) return new double[]{0, 1};
+        double p = successes / n;
+        double z2 = z * z;
+        double denom = 1 + z2 / n;
+        double center = (p + z2 / (2.0 * n)) / denom;
+        double half = z * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n)) / denom;
+        return new double[]{Math.max(0, center - half), Math.min(1, center + half)};
+    }
+
+    /** Боїв на клітинку, щоб і найрівніша пара (50%) мала інтервал не ширший за {@code --width}. */
+    private long uniformMatches() {
+        long lo = min;
+        long hi = max;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            double[] ci = wilson(mid / 2.0, mid, z);
+            if (ci[1] - ci[0] < width) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    private static int typeA(int cell) { return cell / (TYPES * MAPS); }
+
+    private static int typeB(int cell) { return cell / MAPS % TYPES; }
+
+    private static int map(int cell) { return cell % MAPS; }
+
+    private void print(PrintStream out, List<Cell> cells) {
+        for (int m = 0; m < MAPS; m++) {
+            out.printf("%n=== %s (рядок — A, ходить першим; у дужках — боїв) ===%n", LogStats.MAPS[m]);
+            out.printf("%-16s", "");
+            for (int b = 0; b < TYPES; b++) out.printf("%17s", DroidTemplate.of(b).name().trim());
+            out.println();
+            for (int a = 0; a < TYPES; a++) {
+                out.printf("%-16s", DroidTemplate.of(a).name().trim());
+                for (int b = 0; b < TYPES; b++) {
+                    Cell c = cells.get((a * TYPES + b) * MAPS + m);
+                    out.printf(Locale.ROOT, "%9.1f%% %-7s", 100 * c.score(), "(" + c.n() + ")");
+                }
+                out.println();
+            }
+        }
+    }
+}
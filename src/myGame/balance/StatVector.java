@@ -0,0 +1,181 @@
+package myGame.balance;
+
+import myGame.droid.DroidTemplate;
+import myGame.stats.LogStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Незмінний вектор балансу: характеристики всіх типів дроїдів і бонуси мап.
+ *
+ * <p>Порядок генів: для кожного типу каталогу — maxHp, moveSpeed, range, attack;
+ * далі бонуси мап у порядку {@link LogStats#MAPS}. Кожен ген обмежений
+ * {@link #LOW}..{@link #HIGH}. Рівність і хеш — за значеннями генів, тож
+ * вектор годиться як ключ кешу оцінок.</p>
+ */
+public final class StatVector {
+
+    /** Генів на тип дроїда. */
+    static final int PER_DROID = 4;
+    /** Кількість типів дроїдів. */
+    public static final int DROIDS = DroidTemplate.CATALOG.size();
+    /** Кількість мап. */
+    public static final int MAPS = LogStats.MAPS.length;
+    /** Довжина вектора. */
+    public static final int LENGTH = DROIDS * PER_DROID + MAPS;
+
+    private static final int[] DROID_LOW = {50, 1, 1, 20};
+    private static final int[] DROID_HIGH = {300, 3, 3, 150};
+    /** Межі бонусів мап: Cave (HP), Ocean (швидкість), Sky (дальність), Volcano (атака). */
+    private static final int[] MAP_LOW = {0, 0, 0, 0};
+    private static final int[] MAP_HIGH = {60, 4, 3, 60};
+    /** Стандартні бонуси мап (як у конструкторах {@code Cave}, {@code Ocean}, {@code Sky}, {@code Volcano}). */
+    private static final int[] MAP_DEFAULT = {25, 4, 2, 25};
+
+    static final int[] LOW = new int[LENGTH];
+    static final int[] HIGH = new int[LENGTH];
+
+    static {
+        for (int d = 0; d < DROIDS; d++) {
+            System.arraycopy(DROID_LOW, 0, LOW, d * PER_DROID, PER_DROID);
+            System.arraycopy(DROID_HIGH, 0, HIGH, d * PER_DROID, PER_DROID);
+        }
+        System.arraycopy(MAP_LOW, 0, LOW, DROIDS * PER_DROID, MAPS);
+        System.arraycopy(MAP_HIGH, 0, HIGH, DROIDS * PER_DROID, MAPS);
+    }
+
+    private final int[] genes;
+    private final int hash;
+
+    private StatVector(int[] genes) {
+        this.genes = genes;
+        this.hash = Arrays.hashCode(genes);
+    }
+
+    /**
+     * Поточний баланс гри (стандартні шаблони і бонуси мап).
+     *
+     * @return вектор
+     */
+    public static StatVector defaults() {
+        int[] g = new int[LENGTH];
+        for (int d = 0; d < DROIDS; d++) {
+            DroidTemplate t = DroidTemplate.of(d);
+            int at = d * PER_DROID;
+            g[at] = t.maxHp();
+            g[at + 1] = t.moveSpeed();
+            g[at + 2] = t.range();
+            g[at + 3] = t.attack();
+        }
+        System.arraycopy(MAP_DEFAULT, 0, g, DROIDS * PER_DROID, MAPS);
+        return new StatVector(g);
+    }
+
+    /**
+     * @param genes значення генів (обрізаються до меж)
+     * @return вектор
+     */
+    static StatVector of(int[] genes) {
+        if (genes.length != LENGTH) throw new IllegalArgumentException("Очікувалось " + LENGTH + " генів");
+        int[] g = genes.clone();
+        for (int i = 0; i < LENGTH; i++) g[i] = Math.max(LOW[i], Math.min(HIGH[i], g[i]));
+        return new StatVector(g);
+    }
+
+    /**
+     * Випадкова зміна: кожен ген з імовірністю {@code rate} зсувається на нормальний крок
+     * розміром {@code scale} від ширини його діапазону (не менше ніж на 1).
+     *
+     * @param rnd   генератор
+     * @param rate  імовірність зміни гена
+     * @param scale відносний розмір кроку
+     * @return новий вектор
+     */
+    StatVector mutate(SplittableRandom rnd, double rate, double scale) {
+        int[] g = genes.clone();
+        for (int i = 0; i < LENGTH; i++) {
+            if (rnd.nextDouble() >= rate) continue;
+            double step = gaussian(rnd) * scale * (HIGH[i] - LOW[i]);
+            int delta = (int) Math.round(step);
+            if (delta == 0) delta = rnd.nextBoolean() ? 1 : -1;
+            g[i] += delta;
+        }
+        return of(g);
+    }
+
+    /**
+     * Рівномірне схрещування: кожен тип дроїда (усі його гени разом) і кожен бонус мапи
+     * береться від одного з батьків.
+     *
+     * @param other другий батько
+     * @param rnd   генератор
+     * @return нащадок
+     */
+    StatVector cross(StatVector other, SplittableRandom rnd) {
+        int[] g = genes.clone();
+        for (int d = 0; d < DROIDS; d++) {
+            if (rnd.nextBoolean()) System.arraycopy(other.genes, d * PER_DROID, g, d * PER_DROID, PER_DROID);
+        }
+        for (int i = DROIDS * PER_DROID; i < LENGTH; i++) if (rnd.nextBoolean()) g[i] = other.genes[i];
+        return new StatVector(g);
+    }
+
+    /**
+     * @param type індекс типу 0-7
+     * @return шаблон типу з характеристиками цього вектора
+     */
+    public DroidTemplate template(int type) {
+        int at = type * PER_DROID;
+        return DroidTemplate.of(type)
+                .withMaxHp(genes[at])
+                .withMoveSpeed(genes[at + 1])
+                .withRange(genes[at + 2])
+                .withAttack(genes[at + 3]);
+    }
+
+    /** @return шаблони всіх типів у порядку каталогу */
+    public List<DroidTemplate> templates() {
+        List<DroidTemplate> out = new ArrayList<>(DROIDS);
+        for (int d = 0; d < DROIDS; d++) out.add(template(d));
+        return out;
+    }
+
+    /**
+     * @param map індекс мапи у {@link LogStats#MAPS}
+     * @return бонус мапи
+     */
+    public int mapBonus(int map) { return genes[DROIDS * PER_DROID + map]; }
+
+    private static double gaussian(SplittableRandom rnd) {
+        // Бокс-Мюллер; SplittableRandom не має nextGaussian
+        double u = 1 - rnd.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * rnd.nextDouble());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StatVector v && hash == v.hash && Arrays.equals(genes, v.genes);
+    }
+
+    @Override
+    public int hashCode() { return hash; }
+
+    /**
+     * Таблиця характеристик у форматі каталогу плюс бонуси мап.
+     *
+     * @return текстове представлення
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (DroidTemplate t : templates()) sb.append(t).append(System.lineSeparator());
+        for (int m = 0; m < MAPS; m++) {
+            if (m > 0) sb.append(", ");
+            sb.append(LogStats.MAPS[m]).append(" bonus=").append(mapBonus(m));
+        }
+        return sb.toString();
+    }
+}
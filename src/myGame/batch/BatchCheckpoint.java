@@ -0,0 +1,251 @@
+package myGame.batch;
+
+import myGame.droid.DroidTemplate;
+import myGame.history.MatchHistory;
+import myGame.rating.RatingLadder;
+import myGame.sim.ActionPolicy;
+import myGame.store.MatchStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Поступ пакета боїв {@link BatchRunner}: для кожного завдання — курсор зерен
+ * (скільки перших боїв уже зіграно й враховано) і підсумок цих боїв, а також
+ * кінці файлу стовпців, сховища логів і історії боїв та знімок рейтингів на момент точки.
+ *
+ * <p>Бої завдання зараховуються лише суцільним префіксом: шматок, що завершився
+ * раніше за попередні, чекає на них. Тож після переривання досить продовжити
+ * кожне завдання з курсора — зерно бою залежить лише від його номера
+ * ({@link BatchRunner#matchSeed}), і жоден зарахований бій не грається вдруге.
+ * Бої, записані у сховище, історію чи рейтинги після точки, але до наступної, при
+ * продовженні граються знову, тому {@link #rollback} спершу відкочує сховище та
+ * історію до кінців з точки, а {@link #ratings} бере рейтинги зі знімка.</p>
+ *
+ * <p>Файл — магія, версія, довжина і CRC32 тіла, тіло; пишеться у тимчасовий файл
+ * і атомарно перейменовується. Відбиток завдань не дає продовжити іншим пакетом.</p>
+ */
+final class BatchCheckpoint {
+
+    private static final int MAGIC = 0x42434B50; // "BCKP"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final long fingerprint;
+    /** Номер першого ще не зарахованого бою кожного завдання. */
+    final int[] next;
+    /** Підсумки зарахованих боїв кожного завдання. */
+    final MatchupSummary[] summaries;
+    /** Довжина файлу стовпців на момент точки ({@code -1} — без файлу стовпців). */
+    long columnsLength = -1;
+    /** Кінець сховища логів на момент точки ({@code null} — без сховища). */
+    MatchStore.Position storeEnd;
+    /** Довжина файлу історії боїв на момент точки ({@code -1} — без історії). */
+    long historyLength = -1;
+    /** Знімок рейтингів на момент точки ({@code null} — без рейтингів). */
+    byte[] ratings;
+
+    private BatchCheckpoint(Path file, long fingerprint, int jobs) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.next = new int[jobs];
+        this.summaries = new MatchupSummary[jobs];
+        for (int j = 0; j < jobs; j++) summaries[j] = new MatchupSummary();
+    }
+
+    /**
+     * Поступ з нуля, без файлу (пакет без контрольної точки).
+     *
+     * @param jobs завдання
+     * @return порожній поступ
+     */
+    static BatchCheckpoint fresh(List<BatchRunner.Job> jobs) {
+        return new BatchCheckpoint(null, 0, jobs.size());
+    }
+
+    /**
+     * Прочитати контрольну точку або почати нову, якщо файлу ще немає.
+     *
+     * @param file    файл контрольної точки
+     * @param jobs    завдання пакета
+     * @param columns чи пишеться файл стовпців
+     * @return поступ
+     * @throws IOException помилка читання, пошкоджений файл або точка іншого пакета
+     */
+    static BatchCheckpoint open(Path file, List<BatchRunner.Job> jobs, boolean columns) throws IOException {
+        long fp = fingerprint(jobs, columns);
+        byte[] all;
+        try {
+            all = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return new BatchCheckpoint(file, fp, jobs.size());
+        }
+        ByteBuffer head = ByteBuffer.wrap(all);
+        if (all.length < 16 || head.getInt() != MAGIC || head.getInt() != VERSION) {
+            throw new IOException("Не контрольна точка пакета: " + file);
+        }
+        int len = head.getInt();
+        int sum = head.getInt();
+        CRC32 crc = new CRC32();
+        if (len != all.length - 16) throw new IOException("Обрізана контрольна точка пакета: " + file);
+        crc.update(all, 16, len);
+        if ((int) crc.getValue() != sum) throw new IOException("Пошкоджена контрольна точка пакета: " + file);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(all, 16, len));
+        try {
+            if (in.readLong() != fp || in.readInt() != jobs.size()) {
+                throw new IOException("Контрольна точка " + file + " належить іншому пакету завдань");
+            }
+            BatchCheckpoint cp = new BatchCheckpoint(file, fp, jobs.size());
+            cp.columnsLength = in.readLong();
+            int segment = in.readInt();
+            long offset = in.readLong();
+            if (segment >= 0) cp.storeEnd = new MatchStore.Position(segment, offset);
+            cp.historyLength = in.readLong();
+            int ratingsLength = in.readInt();
+            if (ratingsLength > len) throw new IOException("Пошкоджена контрольна точка пакета: " + file);
+            if (ratingsLength >= 0) {
+                cp.ratings = new byte[ratingsLength];
+                in.readFully(cp.ratings);
+            }
+            for (int j = 0; j < jobs.size(); j++) {
+                cp.next[j] = in.readInt();
+                if (cp.next[j] < 0 || cp.next[j] > jobs.get(j).matches()) {
+                    throw new IOException("Пошкоджена контрольна точка пакета: " + file);
+                }
+                cp.summaries[j] = MatchupSummary.read(in);
+            }
+            return cp;
+        } catch (EOFException e) {
+            throw new IOException("Пошкоджена контрольна точка пакета: " + file, e);
+        }
+    }
+
+    /**
+     * Відкотити сховище логів та історію боїв до кінців з точки: бої, записані після
+     * неї, будуть зіграні й записані знову. Викликається до їх відкриття.
+     *
+     * @param storeDir   директорія сховища або {@code null}, якщо логи не пишуться
+     * @param historyDir директорія історії або {@code null}, якщо історія не пишеться
+     * @throws IOException помилка файлів
+     */
+    void rollback(Path storeDir, Path historyDir) throws IOException {
+        if (storeDir != null && storeEnd != null) MatchStore.truncate(storeDir, storeEnd);
+        if (historyDir != null && historyLength >= 0) MatchHistory.truncate(historyDir, historyLength);
+    }
+
+    /**
+     * Рейтинги, з яких продовжувати: знімок з точки або, якщо його немає, файл рейтингів.
+     *
+     * @param dir директорія рейтингів
+     * @return рейтинги
+     * @throws IOException помилка читання або пошкоджений файл
+     */
+    RatingLadder ratings(Path dir) throws IOException {
+        return ratings != null ? RatingLadder.restore(dir, ratings, file) : RatingLadder.open(dir);
+    }
+
+    /** @return чи пишеться поступ у файл */
+    boolean persistent() { return file != null; }
+
+    /** @return скільки боїв уже зараховано */
+    long done() {
+        long n = 0;
+        for (int v : next) n += v;
+        return n;
+    }
+
+    /**
+     * Атомарно записати поступ.
+     *
+     * @throws IOException помилка запису
+     */
+    void save() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(32 * 1024);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeLong(fingerprint);
+        out.writeInt(next.length);
+        out.writeLong(columnsLength);
+        out.writeInt(storeEnd != null ? storeEnd.segment() : -1);
+        out.writeLong(storeEnd != null ? storeEnd.offset() : -1);
+        out.writeLong(historyLength);
+        out.writeInt(ratings != null ? ratings.length : -1);
+        if (ratings != null) out.write(ratings);
+        for (int j = 0; j < next.length; j++) {
+            out.writeInt(next[j]);
+            summaries[j].write(out);
+        }
+        byte[] b = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(b);
+        ByteBuffer buf = ByteBuffer.allocate(16 + b.length);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(b.length).putInt((int) crc.getValue()).put(b).flip();
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Видалити контрольну точку (пакет завершено).
+     *
+     * @throws IOException помилка видалення
+     */
+    void delete() throws IOException {
+        if (file != null) Files.deleteIfExists(file);
+    }
+
+    /** Відбиток FNV-1a від усіх параметрів завдань, що впливають на результати. */
+    private static long fingerprint(List<BatchRunner.Job> jobs, boolean columns) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(columns);
+        for (BatchRunner.Job job : jobs) {
+            MatchConfig cfg = job.config();
+            sb.append('|').append(job.name()).append('|').append(job.seed()).append('|').append(job.matches())
+                    .append('|').append(cfg.mode()).append('|').append(policyName(cfg.policy()))
+                    .append('|').append(cfg.map()).append('|').append(cfg.maxRounds())
+                    .append('|').append(cfg.mapBonus()).append('|').append(cfg.arena())
+                    .append('|').append(job.playerA()).append('|').append(job.playerB());
+            sb.append("|A");
+            for (DroidTemplate t : cfg.teamA()) sb.append(';').append(t.type()).append(':').append(t);
+            sb.append("|B");
+            for (DroidTemplate t : cfg.teamB()) sb.append(';').append(t.type()).append(':').append(t);
+        }
+        long h = 0xcbf29ce484222325L;
+        for (byte x : sb.toString().getBytes(StandardCharsets.UTF_8)) {
+            h ^= x & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static String policyName(ActionPolicy p) {
+        if (p == ActionPolicy.GREEDY) return "greedy";
+        if (p == ActionPolicy.RANDOM) return "random";
+        return "custom";
+    }
+}
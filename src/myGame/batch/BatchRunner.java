@@ -0,0 +1,617 @@
+package myGame.batch;
+
+import myGame.columnar.Column;
+import myGame.columnar.ColumnWriter;
+import myGame.droid.DroidTemplate;
+import myGame.history.MatchHistory;
+import myGame.history.MatchRecord;
+import myGame.rating.RatingLadder;
+import myGame.sim.ActionPolicy;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пакетний запуск боїв з командного рядка або з файлу завдань — без жодних запитів до консолі.
+ *
+ * <pre>
+ * java myGame.Main --mode sim --a Hammer,Flash --b Storm,Submarine --map Volcano \
+ *                  --seed 42 --policy greedy --matches 10000 --threads 8 --out logs
+ * java myGame.Main --batch jobs.txt --threads 8
+ * </pre>
+ *
+ * <p>Файл завдань: по завданню на рядок з тими самими ключами ({@code #} — коментар);
+ * ключі командного рядка діють як значення за замовчуванням для кожного рядка.
+ * Ключі всього пакета ({@code --out}, {@code --threads}, {@code --columns},
+ * {@code --checkpoint}, {@code --no-log}, {@code --no-history}) у рядках завдань заборонені.
+ * Бої всіх завдань виконуються пулом з {@code --threads} потоків; зерно бою
+ * виводиться із зерна завдання та номера бою, тож повторний запуск дає ті самі
+ * результати. Логи боїв (якщо не задано {@code --no-log}) стискаються і
+ * дописуються в окреме сховище {@code <out>/}{@value #STORE_DIR}, щоб тисячі пакетних
+ * боїв не потрапляли до переглядача й пошуку інтерактивних боїв. Кожен результат
+ * оновлює рейтинги ({@link RatingLadder}) у {@code --out}; з {@code --players} —
+ * і рейтинги гравців.
+ * Підсумки боїв (склади, шкода кожного дроїда, переможець) пишуться в історію
+ * боїв ({@link MatchHistory}), якщо не задано {@code --no-history}. Підсумок завдання
+ * ({@link MatchupSummary}) збирається ескізами у сталій пам'яті; окремі результати
+ * і логи боїв тримаються в пам'яті лише до запису шматка. З {@code --columns}
+ * результати всіх боїв дописуються ще й у файл стовпців ({@link ColumnWriter},
+ * стовпці {@link #RESULT_COLUMNS}) для вибірок через {@link myGame.columnar.ColumnQuery}.</p>
+ *
+ * <p>З {@code --checkpoint} поступ пакета ({@link BatchCheckpoint}: курсор зерен і
+ * підсумок кожного завдання) кожні кілька секунд атомарно записується у файл, а
+ * після завершення файл видаляється. Перерваний пакет, запущений з тими самими
+ * завданнями, продовжує з курсорів: зараховані бої не граються вдруге. Потоки пулу
+ * лише грають бої; у сховище, історію і рейтинги бої потрапляють з потоку, що
+ * зараховує шматки, перед записом контрольної точки, а точка зберігає кінці
+ * сховища, історії й файлу стовпців і знімок рейтингів. Бої, записані після
+ * останньої точки, при продовженні граються знову, тому сховище, історія і файл
+ * стовпців спершу обрізаються до точки, а рейтинги беруться з її знімка — повторно
+ * зіграні бої не дублюються.</p>
+ */
+public final class BatchRunner {
+
+    /** Код завершення: помилка у параметрах. */
+    public static final int USAGE = 2;
+
+    private static final String HELP = String.join(System.lineSeparator(),
+            "Використання: java myGame.Main [ключі] | --batch <файл> [ключі]",
+            "  --mode 1v1|tvt|sim    режим (tvt — покрокові ходи команд, sim — одночасні)",
+            "  --a <склад>           команда A: назви або індекси через кому (Hammer,Flash або 0,3)",
+            "  --b <склад>           команда B",
+            "  --map <мапа>|random   Cave, Ocean, Sky, Volcano (за замовчуванням випадкова)",
+            "  --seed <число>        зерно завдання (за замовчуванням 1)",
+            "  --policy greedy|random  політика вибору дій",
+            "  --matches <n>         кількість боїв",
+            "  --rounds <n>          ліміт раундів (за замовчуванням " + MatchConfig.MAX_ROUNDS + ")",
+            "  --threads <n>         потоків (за замовчуванням — кількість ядер)",
+            "  --out <директорія>    рейтинги та історія боїв (за замовчуванням logs),",
+            "                        логи боїв — у <директорія>/" + BatchRunner.STORE_DIR,
+            "  --no-log              не зберігати логи, лише підсумки",
+            "  --no-history          не записувати бої в історію боїв",
+            "  --players <A,B>       гравці команд A і B для рейтингу гравців",
+            "  --columns <файл>      дописати результати боїв у файл стовпців",
+            "  --checkpoint <файл>   зберігати поступ; перерваний пакет продовжується з нього",
+            "  --batch <файл>        завдання з файлу, по одному на рядок",
+            "                        (--out, --threads, --columns, --checkpoint, --no-log і",
+            "                        --no-history задаються лише в командному рядку)");
+
+    /** Стовпці файлу результатів ({@code --columns}): по рядку на бій. */
+    public static final List<Column> RESULT_COLUMNS = List.of(
+            Column.ofString("job"), Column.ofString("mode"),
+            Column.ofString("team_a"), Column.ofString("team_b"), Column.ofString("map"),
+            Column.ofLong("seed"), Column.ofInt("winner"), Column.ofInt("rounds"),
+            Column.ofInt("hp_a"), Column.ofInt("hp_b"), Column.ofInt("damage_a"), Column.ofInt("damage_b"));
+
+    /** Піддиректорія {@code --out} для сховища логів пакетних боїв. */
+    public static final String STORE_DIR = "batch";
+
+    private static final int COLUMN_GROUP_ROWS = 4096;
+    /** Найбільший шматок боїв на задачу пулу. */
+    private static final int MAX_CHUNK = 4096;
+    /** Найбільший шматок, коли зберігаються логи: логи шматка тримаються в пам'яті до запису. */
+    private static final int MAX_LOG_CHUNK = 64;
+    /** Як часто записувати контрольну точку пакета. */
+    private static final long CHECKPOINT_NANOS = 2_000_000_000L;
+
+    /** Одне завдання: налаштування і скільки боїв зіграти. */
+    record Job(String name, MatchConfig config, long seed, int matches, String playerA, String playerB) { }
+
+    /** Ключі, що діють на весь пакет і не можуть відрізнятися між завданнями. */
+    private static final Set<String> BATCH_KEYS = Set.of(
+            "--out", "--threads", "--columns", "--checkpoint", "--batch", "--no-log", "--no-history");
+
+    /** Ключі одного рядка (завдання або командного рядка). */
+    private static final class Options {
+        String mode = "sim";
+        String a;
+        String b;
+        String map;
+        long seed = 1;
+        String policy = "greedy";
+        int matches = 1;
+        int rounds = MatchConfig.MAX_ROUNDS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String out = "logs";
+        boolean log = true;
+        boolean history = true;
+        String playerA;
+        String playerB;
+        String batch;
+        String columns;
+        String checkpoint;
+
+        Options copy() {
+            Options o = new Options();
+            o.mode = mode; o.a = a; o.b = b; o.map = map; o.seed = seed; o.policy = policy;
+            o.matches = matches; o.rounds = rounds; o.threads = threads; o.out = out; o.log = log; o.history = history;
+            o.playerA = playerA; o.playerB = playerB;
+            return o;
+        }
+
+        /**
+         * @param args ключі
+         * @param line чи це рядок файлу завдань (тоді ключі всього пакета заборонені)
+         */
+        void parse(String[] args, boolean line) {
+            for (int i = 0; i < args.length; i++) {
+                String key = args[i];
+                if (line && BATCH_KEYS.contains(key)) {
+                    throw new IllegalArgumentException("Ключ " + key + " діє на весь пакет — задайте його в командному рядку");
+                }
+                if (key.equals("--no-log")) {
+                    log = false;
+                    continue;
+                }
+                if (key.equals("--no-history")) {
+                    history = false;
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для " + key);
+                String v = args[++i];
+                switch (key) {
+                    case "--mode" -> mode = v;
+                    case "--a" -> a = v;
+                    case "--b" -> b = v;
+                    case "--map" -> map = v.equalsIgnoreCase("random") ? null : v;
+                    case "--seed" -> seed = Long.parseLong(v);
+                    case "--policy" -> policy = v;
+                    case "--matches" -> matches = positive(key, v);
+                    case "--rounds" -> rounds = positive(key, v);
+                    case "--threads" -> threads = positive(key, v);
+                    case "--out" -> out = v;
+                    case "--batch" -> batch = v;
+                    case "--columns" -> columns = v;
+                    case "--checkpoint" -> checkpoint = v;
+                    case "--players" -> {
+                        String[] p = v.split(",");
+                        if (p.length != 2 || p[0].isBlank() || p[1].isBlank()) {
+                            throw new IllegalArgumentException("--players: потрібно два імені через кому");
+                        }
+                        playerA = p[0].strip();
+                        playerB = p[1].strip();
+                    }
+                    default -> throw new IllegalArgumentException("Невідомий ключ: " + key);
+                }
+            }
+        }
+
+        Job job(String name) {
+            if (a == null || b == null) throw new IllegalArgumentException("Потрібні склади --a і --b");
+            MatchConfig cfg = new MatchConfig(mode(mode), roster(a), roster(b), map, policy(policy), rounds);
+            return new Job(name, cfg, seed, matches, playerA, playerB);
+        }
+    }
+
+    private BatchRunner() {}
+
+    /**
+     * Виконати пакет боїв.
+     *
+     * @param args ключі командного рядка
+     * @return код завершення (0 — успіх, 1 — помилка вводу-виводу, {@value #USAGE} — помилка у параметрах)
+     */
+    public static int run(String[] args) {
+        PrintStream out = System.out;
+        Options base = new Options();
+        List<Job> jobs = new ArrayList<>();
+        try {
+            base.parse(args, false);
+            if (base.batch != null) {
+                List<String> lines = Files.readAllLines(Paths.get(base.batch), StandardCharsets.UTF_8);
+                for (int n = 0; n < lines.size(); n++) {
+                    String line = lines.get(n).strip();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    Options o = base.copy();
+                    o.parse(line.split("\\s+"), true);
+                    jobs.add(o.job(base.batch + ":" + (n + 1)));
+                }
+            } else {
+                jobs.add(base.job("cli"));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HELP);
+            return USAGE;
+        } catch (IOException e) {
+            System.err.println("Не вдалося прочитати файл завдань: " + e.getMessage());
+            return 1;
+        }
+
+        long t0 = System.nanoTime();
+        long total = 0;
+        long resumed = 0;
+        Path storeDir = base.log ? Paths.get(base.out, STORE_DIR) : null;
+        Path historyDir = base.history ? Paths.get(base.out, MatchHistory.DIR) : null;
+        try {
+            BatchCheckpoint progress = base.checkpoint != null
+                    ? BatchCheckpoint.open(Paths.get(base.checkpoint), jobs, base.columns != null)
+                    : BatchCheckpoint.fresh(jobs);
+            progress.rollback(storeDir, historyDir);
+            try (MatchStore store = storeDir != null
+                    ? MatchStore.open(storeDir, MatchStore.DEFAULT_SEGMENT_BYTES, true) : null;
+                 MatchHistory history = historyDir != null ? MatchHistory.open(historyDir) : null) {
+                RatingLadder ratings = progress.ratings(Paths.get(base.out));
+                resumed = progress.done();
+                if (resumed > 0) out.println("Продовження з контрольної точки: уже зіграно " + resumed + " боїв");
+                List<MatchupSummary> summaries;
+                try (ColumnWriter columns = base.columns != null ? openColumns(Paths.get(base.columns), progress) : null) {
+                    summaries = execute(jobs, base.threads, store, ratings, history, columns, progress);
+                }
+                ratings.save();
+                progress.delete();
+                for (int j = 0; j < jobs.size(); j++) {
+                    out.println(summary(jobs.get(j), summaries.get(j)));
+                    out.println("  " + summaries.get(j).percentiles());
+                    total += summaries.get(j).matches();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Помилка сховища, історії боїв, рейтингів, файлу стовпців чи контрольної точки: "
+                    + e.getMessage());
+            return 1;
+        }
+        total -= resumed;
+        double sec = (System.nanoTime() - t0) / 1e9;
+        out.printf(Locale.ROOT, "Усього: %d боїв за %.2f с (%.0f боїв/с, потоків: %d)%n",
+                total, sec, total / Math.max(sec, 1e-9), base.threads);
+        return 0;
+    }
+
+    /**
+     * Зіграти всі бої завдань пулом потоків, продовжуючи з поступу {@code progress}.
+     *
+     * <p>У пулі одночасно не більше кількох шматків на потік; шматки наступного завдання
+     * ставляться, щойно попередні розібрано. Потоки пулу лише грають бої, а результати
+     * зараховуються в цьому потоці суцільним префіксом кожного завдання (у порядку
+     * боїв): підсумок, файл стовпців і курсор поступу. Зараховані шматки пишуться у
+     * сховище, історію й рейтинги одразу або, якщо поступ зберігається у файл, раз на
+     * {@value #CHECKPOINT_NANOS} нс перед скиданням усього на диск і записом контрольної
+     * точки з кінцями сховища, історії й файлу стовпців. Перша точка пишеться ще до
+     * першого запису, тож перерваний пакет завжди має, до чого відкотитися.</p>
+     *
+     * @param store    сховище логів або {@code null}
+     * @param ratings  рейтинги для результатів або {@code null}
+     * @param history  історія боїв або {@code null}
+     * @param columns  файл стовпців для результатів боїв або {@code null}
+     * @param progress поступ: з чого продовжувати і куди зараховувати
+     * @return підсумок кожного завдання
+     */
+    static List<MatchupSummary> execute(List<Job> jobs, int threads, MatchStore store, RatingLadder ratings,
+                                        MatchHistory history, ColumnWriter columns, BatchCheckpoint progress)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, daemonThreads("batch"));
+        CompletionService<Part> done = new ExecutorCompletionService<>(pool);
+        // шматки, що завершилися раніше за попередні, чекають тут на свою чергу
+        List<Map<Integer, Part>> waiting = new ArrayList<>(jobs.size());
+        for (int j = 0; j < jobs.size(); j++) waiting.add(new HashMap<>());
+        int[] cursor = progress.next.clone();
+        // зараховані шматки, ще не записані у сховище, історію і рейтинги
+        List<Part> unsaved = new ArrayList<>();
+        boolean logs = store != null;
+        int window = threads * 4;
+        int inFlight = 0;
+        long lastSave = System.nanoTime();
+        if (progress.persistent()) checkpoint(progress, jobs, unsaved, store, ratings, history, columns);
+        try {
+            int j = 0;
+            while (true) {
+                while (inFlight < window && j < jobs.size()) {
+                    Job job = jobs.get(j);
+                    if (cursor[j] >= job.matches()) {
+                        j++;
+                        continue;
+                    }
+                    int index = j;
+                    int lo = cursor[j];
+                    int hi = Math.min(job.matches(), lo + chunk(job, threads, logs));
+                    cursor[j] = hi;
+                    done.submit(() -> playRange(index, job, lo, hi, logs));
+                    inFlight++;
+                }
+                if (inFlight == 0) break;
+                Part p = done.take().get();
+                inFlight--;
+                Map<Integer, Part> w = waiting.get(p.job());
+                w.put(p.from(), p);
+                for (Part next; (next = w.remove(progress.next[p.job()])) != null; ) {
+                    progress.summaries[p.job()].merge(next.summary());
+                    if (columns != null) writeColumns(columns, jobs.get(p.job()), next.results());
+                    progress.next[p.job()] = next.to();
+                    unsaved.add(next);
+                }
+                if (!progress.persistent()) {
+                    save(jobs, unsaved, store, ratings, history);
+                } else if (System.nanoTime() - lastSave >= CHECKPOINT_NANOS) {
+                    checkpoint(progress, jobs, unsaved, store, ratings, history, columns);
+                    lastSave = System.nanoTime();
+                }
+            }
+            save(jobs, unsaved, store, ratings, history);
+            return List.of(progress.summaries);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Перервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Шматок боїв на задачу: не по задачі на бій, але й не надто великий для контрольної точки. */
+    private static int chunk(Job job, int threads, boolean logs) {
+        return Math.max(1, Math.min(logs ? MAX_LOG_CHUNK : MAX_CHUNK, job.matches() / (threads * 8)));
+    }
+
+    /** Записати зараховані шматки, скинути все на диск і записати контрольну точку з кінцями записаного. */
+    private static void checkpoint(BatchCheckpoint progress, List<Job> jobs, List<Part> unsaved, MatchStore store,
+                                   RatingLadder ratings, MatchHistory history, ColumnWriter columns) throws IOException {
+        save(jobs, unsaved, store, ratings, history);
+        if (store != null) {
+            store.sync();
+            progress.storeEnd = store.end();
+        }
+        if (history != null) {
+            history.sync();
+            progress.historyLength = history.length();
+        }
+        if (ratings != null) {
+            progress.ratings = ratings.image();
+            ratings.save();
+        }
+        if (columns != null) {
+            columns.flush();
+            progress.columnsLength = columns.length();
+        }
+        progress.save();
+    }
+
+    /**
+     * Зіграні бої одного шматка завдання.
+     *
+     * @param results результати боїв за порядком
+     * @param logs    тексти логів боїв (UTF-8) або {@code null}, якщо логи не зберігаються
+     */
+    private record Part(int job, int from, int to, MatchupSummary summary, MatchResult[] results, byte[][] logs) { }
+
+    private static Part playRange(int index, Job job, int from, int to, boolean logs) {
+        MatchupSummary sum = new MatchupSummary();
+        MatchResult[] results = new MatchResult[to - from];
+        byte[][] texts = logs ? new byte[to - from][] : null;
+        StringBuilder log = logs ? new StringBuilder(8 * 1024) : null;
+        MatchConfig cfg = job.config();
+        for (int i = from; i < to; i++) {
+            if (log != null) log.setLength(0);
+            MatchResult r = HeadlessMatch.run(cfg, matchSeed(job.seed(), i), log, sum.states());
+            results[i - from] = r;
+            if (texts != null) texts[i - from] = log.toString().getBytes(StandardCharsets.UTF_8);
+            sum.add(r);
+        }
+        return new Part(index, from, to, sum, results, texts);
+    }
+
+    /** Записати бої зарахованих шматків (у порядку зарахування) у сховище, рейтинги й історію. */
+    private static void save(List<Job> jobs, List<Part> unsaved, MatchStore store, RatingLadder ratings,
+                             MatchHistory history) throws IOException {
+        if (unsaved.isEmpty()) return;
+        for (Part p : unsaved) {
+            Job job = jobs.get(p.job());
+            MatchConfig cfg = job.config();
+            List<String> namesA = names(cfg.teamA());
+            List<String> namesB = names(cfg.teamB());
+            for (int i = 0; i < p.results().length; i++) {
+                MatchResult r = p.results()[i];
+                if (store != null) {
+                    byte[] bytes = p.logs()[i];
+                    store.append(store.reserveId(), cfg.mode(), r.map(), namesA, namesB, bytes, 0, bytes.length);
+                }
+                if (ratings != null) ratings.record(namesA, namesB, job.playerA(), job.playerB(), r.winner());
+                if (history != null) {
+                    history.append(new MatchRecord(history.reserveId(), System.currentTimeMillis(), cfg.mode(),
+                            r.map(), r.seed(), r.winner(), r.rounds(), namesA, namesB, r.damageA(), r.damageB()));
+                }
+            }
+        }
+        if (ratings != null) ratings.publish();
+        unsaved.clear();
+    }
+
+    /**
+     * Відкрити файл стовпців результатів. Після переривання відрізається все, що
+     * записано після контрольної точки: ці бої буде зіграно знову.
+     *
+     * @param file     файл стовпців
+     * @param progress поступ пакета
+     * @return записувач
+     * @throws IOException помилка файлу або файл з іншими стовпцями
+     */
+    private static ColumnWriter openColumns(Path file, BatchCheckpoint progress) throws IOException {
+        if (progress.columnsLength >= 0 && Files.exists(file) && Files.size(file) > progress.columnsLength) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(progress.columnsLength);
+            }
+        }
+        return ColumnWriter.open(file, RESULT_COLUMNS, COLUMN_GROUP_ROWS);
+    }
+
+    /**
+     * Дописати результати шматка у файл стовпців ({@link #RESULT_COLUMNS}).
+     *
+     * @param w   записувач
+     * @param job завдання
+     * @param rs  результати боїв шматка за порядком
+     * @throws IOException помилка запису
+     */
+    static void writeColumns(ColumnWriter w, Job job, MatchResult[] rs) throws IOException {
+        MatchConfig cfg = job.config();
+        String mode = modeName(cfg.mode());
+        String teamA = String.join(",", names(cfg.teamA()));
+        String teamB = String.join(",", names(cfg.teamB()));
+        for (MatchResult r : rs) {
+            w.set(0, job.name()).set(1, mode).set(2, teamA).set(3, teamB).set(4, r.map())
+                    .set(5, r.seed()).set(6, r.winner()).set(7, r.rounds())
+                    .set(8, r.hpA()).set(9, r.hpB())
+                    .set(10, Arrays.stream(r.damageA()).sum()).set(11, Arrays.stream(r.damageB()).sum())
+                    .endRow();
+        }
+    }
+
+    /**
+     * Зерно i-го бою завдання (SplitMix64), щоб сусідні бої не були скорельовані.
+     *
+     * @param jobSeed зерно завдання
+     * @param i       номер бою
+     * @return зерно бою
+     */
+    public static long matchSeed(long jobSeed, long i) {
+        long z = jobSeed + 0x9E3779B97F4A7C15L * (i + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String summary(Job job, MatchupSummary s) {
+        long a = s.winsA(), b = s.winsB();
+        double n = Math.max(1, s.matches());
+        return String.format(Locale.ROOT, "%s: %s %s vs %s — боїв %d, A %d (%.1f%%), B %d (%.1f%%), нічиїх %d, раундів у середньому %.1f",
+                job.name(), modeName(job.config().mode()), names(job.config().teamA()), names(job.config().teamB()),
+                s.matches(), a, 100 * a / n, b, 100 * b / n, s.draws(), s.avgRounds());
+    }
+
+    static List<String> names(List<DroidTemplate> team) {
+        List<String> out = new ArrayList<>(team.size());
+        for (DroidTemplate t : team) out.add(t.name().trim());
+        return out;
+    }
+
+    static String modeName(int mode) {
+        return switch (mode) {
+            case MatchEntry.ONE_VS_ONE -> "1v1";
+            case MatchEntry.TEAM -> "tvt";
+            default -> "sim";
+        };
+    }
+
+    // ---------- Розбір значень (спільний для пакетних засобів) ----------
+
+    /**
+     * @param v назва режиму: {@code 1v1}, {@code tvt} або {@code sim}
+     * @return режим ({@link MatchEntry#ONE_VS_ONE} тощо)
+     */
+    public static int mode(String v) {
+        return switch (v.toLowerCase(Locale.ROOT)) {
+            case "1v1" -> MatchEntry.ONE_VS_ONE;
+            case "tvt" -> MatchEntry.TEAM;
+            case "sim" -> MatchEntry.SIMULTANEOUS;
+            default -> throw new IllegalArgumentException("Невідомий режим: " + v);
+        };
+    }
+
+    /**
+     * Розібрати режим, який підтримує засіб.
+     *
+     * @param v       назва режиму
+     * @param allowed дозволені режими
+     * @return режим
+     */
+    public static int mode(String v, int... allowed) {
+        int mode = mode(v);
+        for (int m : allowed) if (m == mode) return mode;
+        throw new IllegalArgumentException("Невідомий режим: " + v);
+    }
+
+    /**
+     * @param v назва політики: {@code greedy} або {@code random}
+     * @return політика дій
+     */
+    public static ActionPolicy policy(String v) {
+        return switch (v.toLowerCase(Locale.ROOT)) {
+            case "greedy" -> ActionPolicy.GREEDY;
+            case "random" -> ActionPolicy.RANDOM;
+            default -> throw new IllegalArgumentException("Невідома політика: " + v);
+        };
+    }
+
+    /**
+     * Розібрати склад: назви дроїдів (з або без "Droid", без урахування регістру) або індекси каталогу.
+     *
+     * @param v склад через кому
+     * @return шаблони
+     */
+    static List<DroidTemplate> roster(String v) {
+        List<DroidTemplate> out = new ArrayList<>();
+        for (String part : v.split(",")) {
+            String p = part.strip();
+            if (p.isEmpty()) continue;
+            out.add(template(p));
+        }
+        if (out.isEmpty()) throw new IllegalArgumentException("Порожній склад: " + v);
+        return out;
+    }
+
+    static DroidTemplate template(String p) {
+        if (p.chars().allMatch(Character::isDigit)) {
+            int i = Integer.parseInt(p);
+            if (i < DroidTemplate.CATALOG.size()) return DroidTemplate.of(i);
+        }
+        for (DroidTemplate t : DroidTemplate.CATALOG) {
+            String name = t.name().trim();
+            if (name.equalsIgnoreCase(p) || name.equalsIgnoreCase(p + "Droid")) return t;
+        }
+        throw new IllegalArgumentException("Невідомий дроїд: " + p + " (є: " + Arrays.toString(catalogNames()) + ")");
+    }
+
+    /**
+     * Фабрика фонових потоків пулу: потоки не тримають JVM після завершення засобу.
+     *
+     * @param name префікс імені потоків
+     * @return фабрика потоків {@code <name>-<N>}
+     */
+    public static ThreadFactory daemonThreads(String name) {
+        AtomicInteger next = new AtomicInteger(1);
+        return r -> {
+            Thread t = new Thread(r, name + "-" + next.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static String[] catalogNames() {
+        return DroidTemplate.CATALOG.stream().map(t -> t.name().trim()).toArray(String[]::new);
+    }
+
+    /**
+     * @param key ключ командного рядка (для повідомлення про помилку)
+     * @param v   значення
+     * @return додатне ціле
+     */
+    public static int positive(String key, String v) {
+        int n = Integer.parseInt(v);
+        if (n < 1) throw new IllegalArgumentException(key + " має бути додатним");
+        return n;
+    }
+}
@@ -0,0 +1,246 @@
+package myGame.batch;
+
+import myGame.droid.BaseDroid;
+import myGame.droid.DroidPool;
+import myGame.droid.DroidTemplate;
+import myGame.droid.HealPolicy;
+import myGame.droid.WoundedIndex;
+import myGame.effect.EffectEngine;
+import myGame.effect.StatusEffect;
+import myGame.map.BaseMap;
+import myGame.map.Cave;
+import myGame.map.Ocean;
+import myGame.map.Sky;
+import myGame.map.Volcano;
+import myGame.mode.StatusRenderer;
+import myGame.sim.SimultaneousResolver;
+import myGame.stats.DistinctCounter;
+import myGame.stats.LogStats;
+import myGame.store.MatchEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Бій без вводу з консолі: склади, мапа й політика дій задаються {@link MatchConfig},
+ * уся випадковість — зерном.
+ *
+ * <p>Дії дроїдів обирає {@link myGame.sim.ActionPolicy} і планує
+ * {@link SimultaneousResolver}: в одночасному режимі — усі разом, у покрокових
+ * режимах — спершу хід команди A, потім команди B. Межі арени задаються кожному
+ * бою окремо, тож бої на різних мапах можна грати паралельно в різних потоках.</p>
+ *
+ * <p>Якщо передано буфер логу, у нього пишеться текст у тому самому форматі, що й
+ * в інтерактивних режимах (його розбирають статистика й пошук). Якщо передано
+ * лічильник станів, після кожного раунду в нього додається хеш стану бою
+ * (HP і позиції всіх дроїдів).</p>
+ *
+ * <p>Дроїдів бій бере з пулу потоку ({@link DroidPool#local()}) і повертає туди після
+ * завершення, тож у сталому режимі пакетний запуск не створює нових дроїдів.</p>
+ */
+public final class HeadlessMatch {
+
+    private HeadlessMatch() {}
+
+    /**
+     * Зіграти бій без логу.
+     *
+     * @param cfg  налаштування
+     * @param seed зерно бою
+     * @return підсумок
+     */
+    public static MatchResult run(MatchConfig cfg, long seed) {
+        return run(cfg, seed, null);
+    }
+
+    /**
+     * Зіграти бій.
+     *
+     * @param cfg  налаштування
+     * @param seed зерно бою
+     * @param log  буфер для тексту логу або {@code null}
+     * @return підсумок
+     */
+    public static MatchResult run(MatchConfig cfg, long seed, StringBuilder log) {
+        return run(cfg, seed, log, null);
+    }
+
+    /**
+     * Зіграти бій і врахувати стани, яких він досяг.
+     *
+     * @param cfg    налаштування
+     * @param seed   зерно бою
+     * @param log    буфер для тексту логу або {@code null}
+     * @param states лічильник різних станів або {@code null}
+     * @return підсумок
+     */
+    public static MatchResult run(MatchConfig cfg, long seed, StringBuilder log, DistinctCounter states) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int mapIdx = cfg.map() != null ? MatchConfig.mapIndex(cfg.map()) : rnd.nextInt(LogStats.MAPS.length);
+        BaseMap map = map(mapIdx, cfg.mapBonus(), cfg.arena());
+        String mapName = LogStats.MAPS[mapIdx];
+        boolean teams = cfg.mode() != MatchEntry.ONE_VS_ONE;
+
+        DroidPool pool = DroidPool.local();
+        List<BaseDroid> teamA = new ArrayList<>(cfg.teamA().size());
+        List<BaseDroid> teamB = new ArrayList<>(cfg.teamB().size());
+        try {
+            build(pool, cfg.teamA(), teamA);
+            build(pool, cfg.teamB(), teamB);
+            return play(cfg, seed, log, states, rnd, mapIdx, map, mapName, teams, teamA, teamB);
+        } finally {
+            pool.releaseAll(teamA);
+            pool.releaseAll(teamB);
+        }
+    }
+
+    /** Зіграти бій складами, взятими з пулу. */
+    private static MatchResult play(MatchConfig cfg, long seed, StringBuilder log, DistinctCounter states,
+                                    SplittableRandom rnd, int mapIdx, BaseMap map, String mapName, boolean teams,
+                                    List<BaseDroid> teamA, List<BaseDroid> teamB) {
+        spawn(teamA, teamB, map);
+
+        EffectEngine effects = new EffectEngine();
+        WoundedIndex woundedA = new WoundedIndex(HealPolicy.MOST_MISSING);
+        WoundedIndex woundedB = new WoundedIndex(HealPolicy.MOST_MISSING);
+        for (BaseDroid d : teamA) { d.setEffects(effects); woundedA.add(d); }
+        for (BaseDroid d : teamB) { d.setEffects(effects); woundedB.add(d); }
+
+        if (log != null) {
+            log.append("=== Пакетний бій (зерно ").append(seed).append(") ===\n");
+            log.append("Мапа: ").append(mapName)
+                    .append(" (element=").append(map.getElement()).append(", bonus=").append(map.getBonus()).append(")\n");
+            log.append("Арена: [").append(map.getMinPosition()).append(" .. ").append(map.getMaxPosition()).append("]\n");
+            log.append("Склади: A=").append(teamA.size()).append(", B=").append(teamB.size()).append('\n');
+        }
+        for (BaseDroid d : teamA) applyBonus(d, map, effects, log);
+        for (BaseDroid d : teamB) applyBonus(d, map, effects, log);
+
+        SimultaneousResolver resolver = new SimultaneousResolver(teamA, teamB, cfg.policy(),
+                rnd.nextLong(), log != null, ForkJoinPool.commonPool(), 1);
+        resolver.setArenaBounds(map.getMinPosition(), map.getMaxPosition());
+
+        StatusRenderer renderer = log != null ? new StatusRenderer(teamA, teamB, teams) : null;
+        if (log != null) {
+            log.append(teams ? "\n=== Автобій Команда vs Команда ===\n" : "\n=== Бій 1 на 1 ===\n");
+            log.append("Мапа: ").append(mapName).append('\n');
+            renderer.full(log);
+        }
+
+        if (states != null) states.add(state(mapIdx, teamA, teamB));
+        int round = 1;
+        while (alive(teamA) && alive(teamB) && round <= cfg.maxRounds()) {
+            if (log != null) log.append("\n--- Раунд ").append(round).append(" ---\n");
+            if (cfg.mode() == MatchEntry.SIMULTANEOUS) {
+                append(log, resolver.resolveRound(round));
+            } else {
+                append(log, resolver.resolveTeamTurn(round, 0));
+                if (alive(teamB)) append(log, resolver.resolveTeamTurn(round, 1));
+            }
+            effects.tick();
+            if (log != null) renderer.render(log);
+            if (states != null) states.add(state(mapIdx, teamA, teamB));
+            round++;
+        }
+
+        boolean a = alive(teamA);
+        boolean b = alive(teamB);
+        int winner = a && !b ? MatchResult.A : b && !a ? MatchResult.B : MatchResult.DRAW;
+        if (log != null) {
+            if (winner == MatchResult.A) {
+                log.append("\nПереможець: ").append(teams ? "Команда A 🎉" : teamA.get(0).getName()).append('\n');
+            } else if (winner == MatchResult.B) {
+                log.append("\nПереможець: ").append(teams ? "Команда B 🎉" : teamB.get(0).getName()).append('\n');
+            } else if (!a) {
+                log.append(teams ? "\nНічия — обидві команди знищені.\n" : "\nНічия — обидва знищені.\n");
+            } else {
+                log.append("\nНічия — досягнуто ліміту раундів.\n");
+            }
+        }
+        return new MatchResult(seed, mapName, winner, round - 1, hp(teamA), hp(teamB), damage(teamA), damage(teamB));
+    }
+
+    /**
+     * @param index індекс мапи у {@link LogStats#MAPS}
+     * @param bonus бонус мапи або {@link MatchConfig#DEFAULT_BONUS}
+     * @param arena найбільша позиція або {@link MatchConfig#DEFAULT_ARENA}
+     * @return нова мапа
+     */
+    static BaseMap map(int index, int bonus, int arena) {
+        BaseMap map = switch (index) {
+            case 0 -> new Cave();
+            case 1 -> new Ocean();
+            case 2 -> new Sky();
+            default -> new Volcano();
+        };
+        if (bonus != MatchConfig.DEFAULT_BONUS) map = new BaseMap(map.getElement(), bonus, map.getMaxPosition()) { };
+        if (arena != MatchConfig.DEFAULT_ARENA) map.setMaxPosition(arena);
+        return map;
+    }
+
+    /** Взяти з пулу дроїдів за шаблонами; позиції потім задає {@link #spawn}. */
+    private static void build(DroidPool pool, List<DroidTemplate> templates, List<BaseDroid> team) {
+        for (DroidTemplate t : templates) team.add(pool.acquire(t, 0));
+    }
+
+    /** Розставити команди на протилежних кінцях мапи (як у режимі Команда vs Команда). */
+    private static void spawn(List<BaseDroid> teamA, List<BaseDroid> teamB, BaseMap map) {
+        int min = map.getMinPosition();
+        int max = map.getMaxPosition();
+        int width = Math.max(1, max - min);
+        placeLine(teamA, min, min + width / 3);
+        placeLine(teamB, max - width / 3, max);
+    }
+
+    private static void placeLine(List<BaseDroid> team, int from, int to) {
+        int span = Math.max(0, to - from);
+        for (int i = 0; i < team.size(); i++) {
+            int pos = span == 0 ? from : from + (i * span / Math.max(1, team.size() - 1));
+            team.get(i).setCurrentPosition(pos);
+        }
+    }
+
+    private static void applyBonus(BaseDroid d, BaseMap map, EffectEngine effects, StringBuilder log) {
+        if (!d.getElement().equalsIgnoreCase(map.getElement())) return;
+        StatusEffect bonus = StatusEffect.mapBonus(map);
+        if (bonus == null) return;
+        effects.apply(d, bonus);
+        if (log != null) {
+            log.append(d.getName()).append(" отримує +").append(map.getBonus()).append(" від карти ")
+                    .append(map.getElement()).append("!\n");
+        }
+    }
+
+    private static void append(StringBuilder log, List<String> lines) {
+        if (log == null) return;
+        for (String line : lines) log.append(line).append('\n');
+    }
+
+    private static boolean alive(List<BaseDroid> team) {
+        for (BaseDroid d : team) if (d.isAlive()) return true;
+        return false;
+    }
+
+    /** Хеш стану бою: мапа, HP і позиції дроїдів обох команд. */
+    private static long state(int mapIdx, List<BaseDroid> teamA, List<BaseDroid> teamB) {
+        long h = mapIdx;
+        for (BaseDroid d : teamA) h = h * 0x100000001B3L + ((long) d.getCurrentHp() << 32 | d.getCurrentPosition() & 0xFFFFFFFFL);
+        h = h * 0x100000001B3L + 0x2D;
+        for (BaseDroid d : teamB) h = h * 0x100000001B3L + ((long) d.getCurrentHp() << 32 | d.getCurrentPosition() & 0xFFFFFFFFL);
+        return h;
+    }
+
+    private static int[] damage(List<BaseDroid> team) {
+        int[] out = new int[team.size()];
+        for (int i = 0; i < out.length; i++) out[i] = team.get(i).getDamageDealt();
+        return out;
+    }
+
+    private static int hp(List<BaseDroid> team) {
+        int sum = 0;
+        for (BaseDroid d : team) sum += d.getCurrentHp();
+        return sum;
+    }
+}
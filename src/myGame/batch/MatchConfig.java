@@ -0,0 +1,118 @@
+package myGame.batch;
+
+import myGame.droid.DroidTemplate;
+import myGame.sim.ActionPolicy;
+import myGame.stats.LogStats;
+import myGame.store.MatchEntry;
+
+import java.util.List;
+
+/**
+ * Налаштування бою без вводу з консолі.
+ *
+ * @param mode      режим ({@link MatchEntry#ONE_VS_ONE}, {@link MatchEntry#TEAM}, {@link MatchEntry#SIMULTANEOUS})
+ * @param teamA     шаблони дроїдів команди A
+ * @param teamB     шаблони дроїдів команди B
+ * @param map       назва мапи ({@code Cave}, {@code Ocean}, {@code Sky}, {@code Volcano}) або {@code null} — випадкова із зерна
+ * @param policy    політика вибору дій
+ * @param maxRounds ліміт раундів
+ * @param mapBonus  бонус мапи замість стандартного або {@link #DEFAULT_BONUS}
+ * @param arena     найбільша позиція арени замість стандартної або {@link #DEFAULT_ARENA}
+ */
+public record MatchConfig(int mode, List<DroidTemplate> teamA, List<DroidTemplate> teamB,
+                          String map, ActionPolicy policy, int maxRounds, int mapBonus, int arena) {
+
+    /** Ліміт раундів, як в інтерактивних режимах. */
+    public static final int MAX_ROUNDS = 200;
+    /** Стандартний бонус мапи. */
+    public static final int DEFAULT_BONUS = -1;
+    /** Стандартний розмір арени мапи. */
+    public static final int DEFAULT_ARENA = -1;
+
+    public MatchConfig {
+        if (mode < MatchEntry.ONE_VS_ONE || mode > MatchEntry.SIMULTANEOUS) {
+            throw new IllegalArgumentException("Невідомий режим: " + mode);
+        }
+        if (teamA.isEmpty() || teamB.isEmpty()) throw new IllegalArgumentException("Порожня команда");
+        if (mode == MatchEntry.ONE_VS_ONE && (teamA.size() != 1 || teamB.size() != 1)) {
+            throw new IllegalArgumentException("У режимі 1v1 по одному дроїду в команді");
+        }
+        if (map != null && mapIndex(map) < 0) throw new IllegalArgumentException("Невідома мапа: " + map);
+        if (maxRounds < 1) throw new IllegalArgumentException("Ліміт раундів має бути додатним");
+        if (mapBonus < DEFAULT_BONUS) throw new IllegalArgumentException("Від'ємний бонус мапи: " + mapBonus);
+        if (arena != DEFAULT_ARENA && arena < 1) throw new IllegalArgumentException("Арена має бути не менше 1: " + arena);
+        teamA = List.copyOf(teamA);
+        teamB = List.copyOf(teamB);
+    }
+
+    /**
+     * @param mode      режим
+     * @param teamA     команда A
+     * @param teamB     команда B
+     * @param map       мапа або {@code null}
+     * @param policy    політика дій
+     * @param maxRounds ліміт раундів
+     * @param mapBonus  бонус мапи або {@link #DEFAULT_BONUS}
+     */
+    public MatchConfig(int mode, List<DroidTemplate> teamA, List<DroidTemplate> teamB, String map,
+                       ActionPolicy policy, int maxRounds, int mapBonus) {
+        this(mode, teamA, teamB, map, policy, maxRounds, mapBonus, DEFAULT_ARENA);
+    }
+
+    /**
+     * @param mode      режим
+     * @param teamA     команда A
+     * @param teamB     команда B
+     * @param map       мапа або {@code null}
+     * @param policy    політика дій
+     * @param maxRounds ліміт раундів
+     */
+    public MatchConfig(int mode, List<DroidTemplate> teamA, List<DroidTemplate> teamB, String map,
+                       ActionPolicy policy, int maxRounds) {
+        this(mode, teamA, teamB, map, policy, maxRounds, DEFAULT_BONUS);
+    }
+
+    /**
+     * @param mode   режим
+     * @param teamA  команда A
+     * @param teamB  команда B
+     * @param map    мапа або {@code null}
+     * @param policy політика дій
+     */
+    public MatchConfig(int mode, List<DroidTemplate> teamA, List<DroidTemplate> teamB, String map, ActionPolicy policy) {
+        this(mode, teamA, teamB, map, policy, MAX_ROUNDS);
+    }
+
+    /**
+     * @param bonus новий бонус мапи
+     * @return копія з іншим бонусом мапи
+     */
+    public MatchConfig withMapBonus(int bonus) {
+        return new MatchConfig(mode, teamA, teamB, map, policy, maxRounds, bonus, arena);
+    }
+
+    /**
+     * @param maxPosition найбільша позиція арени
+     * @return копія з іншим розміром арени
+     */
+    public MatchConfig withArena(int maxPosition) {
+        return new MatchConfig(mode, teamA, teamB, map, policy, maxRounds, mapBonus, maxPosition);
+    }
+
+    /**
+     * @param rounds ліміт раундів
+     * @return копія з іншим лімітом раундів
+     */
+    public MatchConfig withMaxRounds(int rounds) {
+        return new MatchConfig(mode, teamA, teamB, map, policy, rounds, mapBonus, arena);
+    }
+
+    /**
+     * @param name назва мапи (без урахування регістру)
+     * @return індекс у {@link LogStats#MAPS} або -1
+     */
+    static int mapIndex(String name) {
+        for (int i = 0; i < LogStats.MAPS.length; i++) if (LogStats.MAPS[i].equalsIgnoreCase(name)) return i;
+        return -1;
+    }
+}
@@ -0,0 +1,24 @@
+package myGame.batch;
+
+/**
+ * Підсумок бою без консолі.
+ *
+ * @param seed    зерно бою (той самий бій відтворюється з тим самим зерном)
+ * @param map     назва мапи
+ * @param winner  {@link #A}, {@link #B} або {@link #DRAW}
+ * @param rounds  скільки раундів зіграно
+ * @param hpA     сумарний HP команди A наприкінці
+ * @param hpB     сумарний HP команди B наприкінці
+ * @param damageA шкода, завдана кожним дроїдом команди A
+ * @param damageB шкода, завдана кожним дроїдом команди B
+ */
+public record MatchResult(long seed, String map, int winner, int rounds, int hpA, int hpB,
+                          int[] damageA, int[] damageB) {
+
+    /** Перемогла команда A. */
+    public static final int A = 0;
+    /** Перемогла команда B. */
+    public static final int B = 1;
+    /** Нічия (обидві знищені або ліміт раундів). */
+    public static final int DRAW = -1;
+}
@@ -0,0 +1,165 @@
+package myGame.batch;
+
+import myGame.stats.DistinctCounter;
+import myGame.stats.QuantileSketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Підсумок серії боїв одного протистояння у сталій пам'яті, хоч би скільки боїв зіграно.
+ *
+ * <p>Лічильники перемог точні; розподіли раундів до перемоги і шкоди команд
+ * зберігаються ескізами квантилів ({@link QuantileSketch}), кількість різних
+ * станів боїв — {@link DistinctCounter}. Кожна задача пулу збирає власний підсумок,
+ * потім вони зливаються через {@link #merge(MatchupSummary)}. Підсумок записується
+ * у контрольну точку пакета ({@link #write(DataOutput)}).</p>
+ *
+ * <p>Екземпляр не потокобезпечний — по одному на задачу.</p>
+ */
+public final class MatchupSummary {
+
+    /** Процентилі у звіті. */
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private long matches;
+    private long winsA;
+    private long winsB;
+    private long rounds;
+    private final QuantileSketch winRounds;
+    private final QuantileSketch damageA;
+    private final QuantileSketch damageB;
+    private final DistinctCounter states;
+
+    /** Порожній підсумок. */
+    public MatchupSummary() {
+        this(0, 0, 0, 0, new QuantileSketch(), new QuantileSketch(), new QuantileSketch(), new DistinctCounter());
+    }
+
+    private MatchupSummary(long matches, long winsA, long winsB, long rounds, QuantileSketch winRounds,
+                           QuantileSketch damageA, QuantileSketch damageB, DistinctCounter states) {
+        this.matches = matches;
+        this.winsA = winsA;
+        this.winsB = winsB;
+        this.rounds = rounds;
+        this.winRounds = winRounds;
+        this.damageA = damageA;
+        this.damageB = damageB;
+        this.states = states;
+    }
+
+    /**
+     * Врахувати бій.
+     *
+     * @param r підсумок бою
+     */
+    public void add(MatchResult r) {
+        matches++;
+        rounds += r.rounds();
+        if (r.winner() == MatchResult.A) winsA++;
+        else if (r.winner() == MatchResult.B) winsB++;
+        if (r.winner() != MatchResult.DRAW) winRounds.add(r.rounds());
+        damageA.add(sum(r.damageA()));
+        damageB.add(sum(r.damageB()));
+    }
+
+    /**
+     * Додати до цього підсумку інший.
+     *
+     * @param o підсумок іншої задачі
+     * @return цей підсумок
+     */
+    public MatchupSummary merge(MatchupSummary o) {
+        matches += o.matches;
+        winsA += o.winsA;
+        winsB += o.winsB;
+        rounds += o.rounds;
+        winRounds.merge(o.winRounds);
+        damageA.merge(o.damageA);
+        damageB.merge(o.damageB);
+        states.merge(o.states);
+        return this;
+    }
+
+    /** @return лічильник різних станів, який заповнює {@link HeadlessMatch#run(MatchConfig, long, StringBuilder, DistinctCounter)} */
+    public DistinctCounter states() { return states; }
+
+    /** @return кількість боїв */
+    public long matches() { return matches; }
+
+    /** @return перемог команди A */
+    public long winsA() { return winsA; }
+
+    /** @return перемог команди B */
+    public long winsB() { return winsB; }
+
+    /** @return нічиїх */
+    public long draws() { return matches - winsA - winsB; }
+
+    /** @return середня кількість раундів */
+    public double avgRounds() { return matches == 0 ? 0 : (double) rounds / matches; }
+
+    /** @return розподіл раундів у боях з переможцем */
+    public QuantileSketch winRounds() { return winRounds; }
+
+    /** @return розподіл сумарної шкоди команди A за бій */
+    public QuantileSketch damageA() { return damageA; }
+
+    /** @return розподіл сумарної шкоди команди B за бій */
+    public QuantileSketch damageB() { return damageB; }
+
+    /**
+     * @return рядок процентилів: раунди до перемоги, шкода команд, різні стани
+     */
+    public String percentiles() {
+        return String.format(Locale.ROOT, "раунди до перемоги %s; шкода A %s; шкода B %s; різних станів ≈%d",
+                format(winRounds), format(damageA), format(damageB), states.estimate());
+    }
+
+    private static String format(QuantileSketch s) {
+        if (s.count() == 0) return "—";
+        StringBuilder sb = new StringBuilder();
+        for (double p : PERCENTILES) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(String.format(Locale.ROOT, "p%d=%.0f", Math.round(p * 100), s.quantile(p)));
+        }
+        return sb.append(String.format(Locale.ROOT, " max=%.0f", s.max())).toString();
+    }
+
+    /**
+     * Записати підсумок у двійковому вигляді.
+     *
+     * @param out потік
+     * @throws IOException помилка запису
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(matches);
+        out.writeLong(winsA);
+        out.writeLong(winsB);
+        out.writeLong(rounds);
+        winRounds.write(out);
+        damageA.write(out);
+        damageB.write(out);
+        states.write(out);
+    }
+
+    /**
+     * Прочитати підсумок, записаний {@link #write(DataOutput)}.
+     *
+     * @param in потік
+     * @return підсумок
+     * @throws IOException помилка читання або пошкоджені дані
+     */
+    public static MatchupSummary read(DataInput in) throws IOException {
+        return new MatchupSummary(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                QuantileSketch.read(in), QuantileSketch.read(in), QuantileSketch.read(in), DistinctCounter.read(in));
+    }
+
+    private static int sum(int[] v) {
+        int s = 0;
+        for (int x : v) s += x;
+        return s;
+    }
+}
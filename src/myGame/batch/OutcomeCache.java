@@ -0,0 +1,429 @@
+package myGame.batch;
+
+import myGame.droid.DroidTemplate;
+import myGame.map.BaseMap;
+import myGame.sim.ActionPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Кеш розподілів результатів боїв на диску, відображений у пам'ять.
+ *
+ * <p>Ключ — 64-бітний хеш усього, від чого залежить бій: шаблонів обох команд,
+ * параметрів мапи (стихія, бонус, розмір), режиму, політики, ліміту раундів і
+ * базового зерна. Змінені характеристики дроїда дають інший ключ, тож старі
+ * записи просто перестають знаходитись.</p>
+ *
+ * <p>Зерна боїв — {@code BatchRunner.matchSeed(base, k)}; вони групуються у блоки по
+ * {@link #BLOCK}. Запис блоку — лічильники перемог A, B, нічиїх і гістограма
+ * тривалості боїв. {@link #outcomes} грає лише блоки, яких ще немає у файлі.
+ * Окремі бої з довільним зерном (пошук складів) зберігає {@link #winner} — це запис
+ * з ключем від зерна бою і блоком {@link #SINGLE}.</p>
+ *
+ * <p>Таблиця — відкрита адресація з лінійним пробуванням у слотах по 128 байтів —
+ * лежить у файлі покоління {@code <файл>.<N>}, а сам {@code <файл>} лише вказує
+ * поточне покоління. При заповненні на 70% подвоєна таблиця будується у файлі
+ * наступного покоління, скидається на диск, і тоді атомарно підміняється вказівник.
+ * Відображений у пам'ять файл ніколи не перейменовується і не заміняється (у Windows
+ * це неможливо, доки відображення живе); старе покоління видаляється, щойно це
+ * вдається, а інакше — при наступному відкритті. Аварійне завершення посеред
+ * розширення лишає вказівник на стару або нову таблицю, але не суміш. Пошук і запис
+ * синхронізовані, бої грає викликач поза блокуванням.</p>
+ */
+public final class OutcomeCache implements Closeable {
+
+    /** Боїв у блоці. */
+    public static final int BLOCK = 16;
+    /** Межі кошиків гістограми раундів (включно, верхні). */
+    private static final int[] BUCKET_MAX = {
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+            24, 32, 48, 64, 96, 128, 192, Integer.MAX_VALUE};
+    /** Кількість кошиків гістограми. */
+    public static final int BUCKETS = BUCKET_MAX.length;
+
+    private static final int MAGIC = 0x4F555443; // "OUTC"
+    /** Магія файлу-вказівника на поточне покоління таблиці. */
+    private static final int POINTER_MAGIC = 0x4F555450; // "OUTP"
+    private static final int POINTER = 12;
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int SLOT = 128;
+    private static final int HIST = 32;
+    private static final int INITIAL = 1 << 12;
+    /** Номер блоку запису окремого бою ({@link #winner}). */
+    private static final long SINGLE = -1;
+
+    /**
+     * Розподіл результатів.
+     *
+     * @param winsA  перемог A
+     * @param winsB  перемог B
+     * @param draws  нічиїх
+     * @param rounds кількість боїв у кожному кошику тривалості
+     */
+    public record Outcomes(long winsA, long winsB, long draws, long[] rounds) {
+
+        /** @return боїв усього */
+        public long n() { return winsA + winsB + draws; }
+
+        /** @return частка очок A (нічия — половина) */
+        public double score() { return n() == 0 ? 0 : (winsA + draws / 2.0) / n(); }
+
+        /**
+         * @param bucket індекс кошика
+         * @return найбільша тривалість у кошику
+         */
+        public static int bucketMax(int bucket) { return BUCKET_MAX[bucket]; }
+    }
+
+    private final Path file;
+    private long generation;
+    private FileChannel ch;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int count;
+    private long simulated;
+    private long reused;
+
+    private OutcomeCache(Path file, long generation, FileChannel ch) {
+        this.file = file;
+        this.generation = generation;
+        this.ch = ch;
+    }
+
+    /**
+     * Відкрити або створити кеш.
+     *
+     * @param file файл кешу
+     * @return кеш
+     * @throws IOException помилка файлу або чужий формат
+     */
+    public static OutcomeCache open(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        long gen = generation(file);
+        boolean fresh = gen < 0;
+        if (fresh) gen = 0;
+        removeStale(file, gen);
+        FileChannel ch = FileChannel.open(dataFile(file, gen),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        OutcomeCache c = new OutcomeCache(file, gen, ch);
+        try {
+            int magic = fresh || ch.size() < HEADER ? 0 : ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).getInt(0);
+            if (magic == 0) {
+                ch.truncate(0);
+                c.remap(INITIAL);
+                c.map.putInt(4, VERSION).putInt(8, INITIAL).putInt(12, 0);
+                c.map.putInt(0, MAGIC);
+                c.map.force();
+                if (fresh) writePointer(file, gen);
+            } else {
+                MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+                if (magic != MAGIC || h.getInt(4) != VERSION) throw new IOException("Не файл кешу результатів: " + file);
+                c.remap(h.getInt(8));
+                c.count = c.map.getInt(12);
+            }
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        return c;
+    }
+
+    /**
+     * Поточне покоління таблиці за вказівником.
+     *
+     * @param file файл кешу (вказівник)
+     * @return покоління або -1, якщо кешу ще немає
+     * @throws IOException помилка файлу або чужий формат
+     */
+    private static long generation(Path file) throws IOException {
+        if (!Files.exists(file)) return -1;
+        try (FileChannel p = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(POINTER);
+            while (b.hasRemaining() && p.read(b) >= 0) { }
+            if (b.position() < 4 || b.getInt(0) != POINTER_MAGIC) {
+                throw new IOException("Не файл кешу результатів: " + file);
+            }
+            long gen = b.position() == POINTER && p.size() == POINTER ? b.getLong(4) : -1;
+            if (gen < 0) throw new IOException("Пошкоджений вказівник кешу результатів: " + file);
+            return gen;
+        }
+    }
+
+    /** Атомарно записати вказівник на покоління: тимчасовий файл, скидання на диск, перейменування. */
+    private static void writePointer(Path file, long gen) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".ptr");
+        try (FileChannel t = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer b = ByteBuffer.allocate(POINTER).putInt(POINTER_MAGIC).putLong(gen);
+            b.flip();
+            while (b.hasRemaining()) t.write(b);
+            t.force(true);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Видалити файли інших поколінь: недобудовані після аварії або не видалені, поки були відображені. */
+    private static void removeStale(Path file, long gen) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName() + ".";
+        try (DirectoryStream<Path> s = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path p : s) {
+                String suffix = p.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)
+                        && !suffix.equals(Long.toString(gen))) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param file файл кешу (вказівник)
+     * @param gen  покоління
+     * @return файл таблиці цього покоління
+     */
+    private static Path dataFile(Path file, long gen) {
+        return file.resolveSibling(file.getFileName() + "." + gen);
+    }
+
+    /**
+     * Розподіл результатів перших {@code matches} боїв (округлено вгору до цілих блоків).
+     *
+     * @param cfg      налаштування бою (мапа обов'язкова)
+     * @param baseSeed базове зерно послідовності боїв
+     * @param matches  скільки боїв потрібно
+     * @return сумарний розподіл
+     * @throws IOException помилка запису
+     */
+    public Outcomes outcomes(MatchConfig cfg, long baseSeed, long matches) throws IOException {
+        return outcomes(cfg, baseSeed, 0, (matches + BLOCK - 1) / BLOCK);
+    }
+
+    /**
+     * Розподіл результатів боїв {@code firstBlock * BLOCK .. (firstBlock + blocks) * BLOCK - 1}.
+     * Блоки, яких немає у кеші, граються і записуються.
+     *
+     * @param cfg        налаштування бою (мапа обов'язкова)
+     * @param baseSeed   базове зерно послідовності боїв
+     * @param firstBlock перший блок
+     * @param blocks     скільки блоків
+     * @return сумарний розподіл
+     * @throws IOException помилка запису
+     */
+    public Outcomes outcomes(MatchConfig cfg, long baseSeed, long firstBlock, long blocks) throws IOException {
+        long key = key(cfg, baseSeed);
+        long[] acc = new long[3 + BUCKETS];
+        for (long b = firstBlock; b < firstBlock + blocks; b++) {
+            if (!read(key, b, BLOCK, acc)) {
+                int[] block = play(cfg, baseSeed, b);
+                write(key, b, BLOCK, block);
+                for (int i = 0; i < block.length; i++) acc[i] += block[i];
+            }
+        }
+        return new Outcomes(acc[0], acc[1], acc[2], Arrays.copyOfRange(acc, 3, acc.length));
+    }
+
+    /**
+     * Переможець одного бою з довільним зерном; бій грається, якщо його ще немає у кеші.
+     *
+     * @param cfg  налаштування бою (мапа обов'язкова)
+     * @param seed зерно бою
+     * @return {@link MatchResult#A}, {@link MatchResult#B} або {@link MatchResult#DRAW}
+     * @throws IOException помилка запису
+     */
+    public int winner(MatchConfig cfg, long seed) throws IOException {
+        long key = key(cfg, seed);
+        long[] acc = new long[3 + BUCKETS];
+        if (!read(key, SINGLE, 1, acc)) {
+            MatchResult r = HeadlessMatch.run(cfg, seed);
+            int[] v = new int[3 + BUCKETS];
+            count(v, r);
+            write(key, SINGLE, 1, v);
+            return r.winner();
+        }
+        return acc[0] > 0 ? MatchResult.A : acc[1] > 0 ? MatchResult.B : MatchResult.DRAW;
+    }
+
+    /** @return скільки боїв зіграно (не знайдено у кеші) */
+    public synchronized long simulated() { return simulated; }
+
+    /** @return скільки боїв узято з кешу */
+    public synchronized long reused() { return reused; }
+
+    /** @return кількість блоків у файлі */
+    public synchronized int size() { return count; }
+
+    /**
+     * Ключ бою: хеш FNV-1a від усіх параметрів, що впливають на результат.
+     *
+     * @param cfg      налаштування (мапа обов'язкова)
+     * @param baseSeed базове зерно (для окремого бою — його зерно)
+     * @return ненульовий ключ
+     */
+    static long key(MatchConfig cfg, long baseSeed) {
+        if (cfg.map() == null) throw new IllegalArgumentException("Для кешу потрібна конкретна мапа");
+        BaseMap m = HeadlessMatch.map(MatchConfig.mapIndex(cfg.map()), cfg.mapBonus(), cfg.arena());
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(cfg.mode()).append('|').append(policyName(cfg.policy())).append('|').append(cfg.maxRounds())
+                .append('|').append(baseSeed)
+                .append('|').append(m.getElement()).append(',').append(m.getBonus()).append(',')
+                .append(m.getMinPosition()).append(',').append(m.getMaxPosition());
+        sb.append("|A");
+        for (DroidTemplate t : cfg.teamA()) sb.append(';').append(t.type()).append(':').append(t);
+        sb.append("|B");
+        for (DroidTemplate t : cfg.teamB()) sb.append(';').append(t.type()).append(':').append(t);
+        long h = 0xcbf29ce484222325L;
+        for (byte x : sb.toString().getBytes(StandardCharsets.UTF_8)) {
+            h ^= x & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    private static String policyName(ActionPolicy p) {
+        if (p == ActionPolicy.GREEDY) return "greedy";
+        if (p == ActionPolicy.RANDOM) return "random";
+        throw new IllegalArgumentException("Кешуються лише бої зі стандартними політиками");
+    }
+
+    private int[] play(MatchConfig cfg, long baseSeed, long block) {
+        int[] out = new int[3 + BUCKETS];
+        for (long k = block * BLOCK; k < (block + 1) * BLOCK; k++) {
+            count(out, HeadlessMatch.run(cfg, BatchRunner.matchSeed(baseSeed, k)));
+        }
+        return out;
+    }
+
+    private static void count(int[] v, MatchResult r) {
+        v[r.winner() == MatchResult.A ? 0 : r.winner() == MatchResult.B ? 1 : 2]++;
+        v[3 + bucket(r.rounds())]++;
+    }
+
+    private static int bucket(int rounds) {
+        int i = 0;
+        while (rounds > BUCKET_MAX[i]) i++;
+        return i;
+    }
+
+    // ---------- Таблиця ----------
+
+    private synchronized boolean read(long key, long block, int matches, long[] acc) {
+        int slot = find(map, capacity, key, block);
+        if (map.getLong(offset(slot)) == 0) return false;
+        int at = offset(slot);
+        acc[0] += map.getInt(at + 16);
+        acc[1] += map.getInt(at + 20);
+        acc[2] += map.getInt(at + 24);
+        for (int i = 0; i < BUCKETS; i++) acc[3 + i] += map.getInt(at + HIST + 4 * i);
+        reused += matches;
+        return true;
+    }
+
+    private synchronized void write(long key, long block, int matches, int[] v) throws IOException {
+        simulated += matches;
+        int slot = find(map, capacity, key, block);
+        if (map.getLong(offset(slot)) != 0) return; // інший потік уже записав цей блок
+        put(slot, key, block, v);
+        count++;
+        map.putInt(12, count);
+        if (count * 10L > capacity * 7L) grow();
+    }
+
+    private void put(int slot, long key, long block, int[] v) {
+        int at = offset(slot);
+        map.putLong(at + 8, block);
+        map.putInt(at + 16, v[0]);
+        map.putInt(at + 20, v[1]);
+        map.putInt(at + 24, v[2]);
+        for (int i = 0; i < BUCKETS; i++) map.putInt(at + HIST + 4 * i, v[3 + i]);
+        // ключ останнім: слот не видно як зайнятий, доки дані не записані
+        map.putLong(at, key);
+    }
+
+    /** Слот з цим ключем або перший порожній на шляху пробування. */
+    private static int find(MappedByteBuffer map, int capacity, long key, long block) {
+        long h = (key ^ block * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        int slot = (int) (h >>> 33) & (capacity - 1);
+        while (true) {
+            int at = offset(slot);
+            long k = map.getLong(at);
+            if (k == 0 || k == key && map.getLong(at + 8) == block) return slot;
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private static int offset(int slot) { return HEADER + slot * SLOT; }
+
+    /**
+     * Подвоїти таблицю: перенести зайняті слоти у файл наступного покоління, скинути
+     * його на диск і атомарно переставити на нього вказівник. Старий файл не
+     * змінюється і не перейменовується; його відображення лишається живим, доки
+     * його не прибере збирач сміття, тож видалити файл вдається не завжди.
+     */
+    private void grow() throws IOException {
+        int slots = capacity * 2;
+        long nextGen = generation + 1;
+        Path data = dataFile(file, nextGen);
+        FileChannel t = FileChannel.open(data, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer next;
+        try {
+            next = t.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slots * SLOT);
+            next.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slots).putInt(12, count);
+            for (int s = 0; s < capacity; s++) {
+                int from = offset(s);
+                long k = map.getLong(from);
+                if (k == 0) continue;
+                int to = offset(find(next, slots, k, map.getLong(from + 8)));
+                for (int i = 0; i < SLOT; i += 8) next.putLong(to + i, map.getLong(from + i));
+            }
+            next.force();
+            writePointer(file, nextGen);
+        } catch (IOException | RuntimeException e) {
+            t.close();
+            Files.deleteIfExists(data);
+            throw e;
+        }
+        map.force();
+        FileChannel old = ch;
+        Path oldData = dataFile(file, generation);
+        ch = t;
+        map = next;
+        capacity = slots;
+        generation = nextGen;
+        old.close();
+        try {
+            Files.deleteIfExists(oldData);
+        } catch (IOException e) {
+            // файл ще відображений (Windows) — його видалить наступне відкриття
+        }
+    }
+
+    private void remap(int slots) throws IOException {
+        capacity = slots;
+        map = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slots * SLOT);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        ch.close();
+    }
+}
@@ -0,0 +1,299 @@
+package myGame.batch;
+
+import myGame.columnar.Column;
+import myGame.columnar.ColumnReader;
+import myGame.columnar.ColumnWriter;
+import myGame.droid.DroidTemplate;
+import myGame.map.BaseMap;
+import myGame.sim.ActionPolicy;
+import myGame.stats.LogStats;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Перебір параметрів мап: бонус, розмір арени ({@code setMaxPosition}) і ліміт раундів.
+ *
+ * <pre>
+ * java myGame.batch.ParameterSweep --a Hammer,Flash --b Storm,Submarine \
+ *      --maps Cave,Volcano --bonus 0:50:5 --arena 4:16:2 --rounds 50,100,200 --matches 500
+ * </pre>
+ *
+ * <p>Кожна точка сітки — {@code --matches} боїв з однаковими для всіх точок
+ * зернами, тож різниця між точками — це вплив параметрів, а не шум. Точки
+ * граються паралельно, а підсумок кожної дописується рядком у файл стовпців
+ * ({@link ColumnWriter}) у міру готовності. Перерваний перебір продовжується тим
+ * самим запуском: точки, що вже є у файлі, пропускаються.</p>
+ */
+public final class ParameterSweep {
+
+    /** Стовпці файлу результатів. */
+    public static final List<Column> COLUMNS = List.of(
+            Column.ofInt("mode"), Column.ofString("policy"),
+            Column.ofString("team_a"), Column.ofString("team_b"),
+            Column.ofString("map"), Column.ofInt("bonus"), Column.ofInt("arena"), Column.ofInt("max_rounds"),
+            Column.ofLong("seed"), Column.ofInt("matches"),
+            Column.ofInt("wins_a"), Column.ofInt("wins_b"), Column.ofInt("draws"),
+            Column.ofDouble("avg_rounds"), Column.ofDouble("avg_hp_a"), Column.ofDouble("avg_hp_b"));
+
+    /** Рядків у групі файлу. */
+    private static final int GROUP_ROWS = 256;
+    /** Як часто скидати неповну групу, щоб після переривання втратити небагато. */
+    private static final long FLUSH_NANOS = 2_000_000_000L;
+
+    private static final String HELP = String.join(System.lineSeparator(),
+            "Використання: java myGame.batch.ParameterSweep --a <склад> --b <склад> [ключі]",
+            "  --mode 1v1|tvt|sim    режим (sim)",
+            "  --policy greedy|random  політика дій (greedy)",
+            "  --maps <мапи>|all     мапи через кому (усі)",
+            "  --bonus <сітка>       бонус мапи: default, 10,20,30 або від:до:крок (default)",
+            "  --arena <сітка>       найбільша позиція арени (default)",
+            "  --rounds <сітка>      ліміт раундів (" + MatchConfig.MAX_ROUNDS + ")",
+            "  --matches <n>         боїв у точці (100)",
+            "  --seed <число>        зерно (1)",
+            "  --threads <n>         потоків (кількість ядер)",
+            "  --out <файл>          файл стовпців (logs/sweep.col)");
+
+    /** Точка сітки. */
+    private record Point(String map, int bonus, int arena, int rounds) { }
+
+    /** Підсумок точки. */
+    private record Row(Point point, int winsA, int winsB, int draws, double avgRounds, double avgHpA, double avgHpB) { }
+
+    private String a;
+    private String b;
+    private String modeName = "sim";
+    private String policyName = "greedy";
+    private String maps = "all";
+    private String bonus = "default";
+    private String arena = "default";
+    private String rounds = String.valueOf(MatchConfig.MAX_ROUNDS);
+    private int matches = 100;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path out = Paths.get("logs", "sweep.col");
+
+    private ParameterSweep() {}
+
+    /**
+     * Точка входу.
+     *
+     * @param args ключі
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * @param args ключі
+     * @return код завершення (0 — успіх, 1 — помилка файлу, 2 — помилка у параметрах)
+     */
+    public static int run(String[] args) {
+        ParameterSweep s = new ParameterSweep();
+        MatchConfig base;
+        List<Point> grid;
+        try {
+            s.parse(args);
+            base = s.base();
+            grid = s.grid();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HELP);
+            return 2;
+        }
+        try {
+            s.sweep(System.out, base, grid);
+        } catch (IOException e) {
+            System.err.println("Помилка файлу результатів: " + e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для " + key);
+            String v = args[++i];
+            switch (key) {
+                case "--a" -> a = v;
+                case "--b" -> b = v;
+                case "--mode" -> modeName = v.toLowerCase(Locale.ROOT);
+                case "--policy" -> policyName = v.toLowerCase(Locale.ROOT);
+                case "--maps" -> maps = v;
+                case "--bonus" -> bonus = v;
+                case "--arena" -> arena = v;
+                case "--rounds" -> rounds = v;
+                case "--matches" -> matches = BatchRunner.positive(key, v);
+                case "--seed" -> seed = Long.parseLong(v);
+                case "--threads" -> threads = BatchRunner.positive(key, v);
+                case "--out" -> out = Paths.get(v);
+                default -> throw new IllegalArgumentException("Невідомий ключ: " + key);
+            }
+        }
+        if (a == null || b == null) throw new IllegalArgumentException("Потрібні склади --a і --b");
+    }
+
+    private MatchConfig base() {
+        int mode = BatchRunner.mode(modeName);
+        ActionPolicy policy = BatchRunner.policy(policyName);
+        return new MatchConfig(mode, BatchRunner.roster(a), BatchRunner.roster(b), LogStats.MAPS[0], policy);
+    }
+
+    /** Усі точки сітки; стандартні бонус і арена підставляються значеннями мапи. */
+    private List<Point> grid() {
+        List<String> mapNames = new ArrayList<>();
+        if (maps.equalsIgnoreCase("all")) {
+            mapNames.addAll(List.of(LogStats.MAPS));
+        } else {
+            for (String m : maps.split(",")) {
+                int idx = MatchConfig.mapIndex(m.strip());
+                if (idx < 0) throw new IllegalArgumentException("Невідома мапа: " + m);
+                mapNames.add(LogStats.MAPS[idx]);
+            }
+        }
+        List<Integer> roundValues = values("--rounds", rounds, MatchConfig.MAX_ROUNDS, 1);
+        List<Point> grid = new ArrayList<>();
+        for (String m : mapNames) {
+            BaseMap def = HeadlessMatch.map(MatchConfig.mapIndex(m), MatchConfig.DEFAULT_BONUS, MatchConfig.DEFAULT_ARENA);
+            for (int bv : values("--bonus", bonus, def.getBonus(), 0)) {
+                for (int av : values("--arena", arena, def.getMaxPosition(), 1)) {
+                    for (int rv : roundValues) grid.add(new Point(m, bv, av, rv));
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Розібрати сітку значень: {@code default}, список через кому або {@code від:до:крок}.
+     */
+    private static List<Integer> values(String key, String spec, int def, int min) {
+        List<Integer> out = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String p = part.strip();
+            if (p.equalsIgnoreCase("default")) {
+                out.add(def);
+            } else if (p.contains(":")) {
+                String[] r = p.split(":");
+                if (r.length < 2 || r.length > 3) throw new IllegalArgumentException("Сітка " + key + ": від:до[:крок]");
+                int from = Integer.parseInt(r[0]);
+                int to = Integer.parseInt(r[1]);
+                int step = r.length == 3 ? Integer.parseInt(r[2]) : 1;
+                if (step < 1) throw new IllegalArgumentException("Крок " + key + " має бути додатним");
+                for (int v = from; v <= to; v += step) {
+                    out.add(v);
+                    if ((long) v + step > to) break; // без переповнення біля Integer.MAX_VALUE
+                }
+            } else {
+                out.add(Integer.parseInt(p));
+            }
+        }
+        for (int v : out) if (v < min) throw new IllegalArgumentException(key + " не може бути менше " + min);
+        return out;
+    }
+
+    private void sweep(PrintStream log, MatchConfig base, List<Point> grid) throws IOException {
+        String teamA = teamName(base.teamA());
+        String teamB = teamName(base.teamB());
+        Set<String> done = done(base, teamA, teamB);
+        List<Point> todo = new ArrayList<>();
+        for (Point p : grid) if (!done.contains(key(base.mode(), teamA, teamB, p))) todo.add(p);
+        log.printf("Точок у сітці: %d, уже пораховано: %d, лишилось: %d%n", grid.size(), grid.size() - todo.size(), todo.size());
+        if (todo.isEmpty()) return;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, BatchRunner.daemonThreads("sweep"));
+        CompletionService<Row> results = new ExecutorCompletionService<>(pool);
+        long t0 = System.nanoTime();
+        try (ColumnWriter w = ColumnWriter.open(out, COLUMNS, GROUP_ROWS)) {
+            for (Point p : todo) results.submit(() -> play(base, p));
+            long lastFlush = System.nanoTime();
+            int step = Math.max(1, todo.size() / 10);
+            for (int i = 1; i <= todo.size(); i++) {
+                Row row = results.take().get();
+                Point p = row.point();
+                w.set(0, base.mode()).set(1, policyName).set(2, teamA).set(3, teamB)
+                        .set(4, p.map()).set(5, p.bonus()).set(6, p.arena()).set(7, p.rounds())
+                        .set(8, seed).set(9, matches)
+                        .set(10, row.winsA()).set(11, row.winsB()).set(12, row.draws())
+                        .set(13, row.avgRounds()).set(14, row.avgHpA()).set(15, row.avgHpB());
+                w.endRow();
+                if (System.nanoTime() - lastFlush > FLUSH_NANOS) {
+                    w.flush();
+                    lastFlush = System.nanoTime();
+                }
+                if (i % step == 0 || i == todo.size()) log.printf("  %d/%d точок%n", i, todo.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Перебір перервано", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        double sec = (System.nanoTime() - t0) / 1e9;
+        long total = (long) todo.size() * matches;
+        log.printf(Locale.ROOT, "Зіграно %d боїв за %.1f с (%.0f боїв/с), результати: %s%n",
+                total, sec, total / Math.max(sec, 1e-9), out);
+    }
+
+    /** Зіграти бої точки. */
+    private Row play(MatchConfig base, Point p) {
+        MatchConfig cfg = new MatchConfig(base.mode(), base.teamA(), base.teamB(), p.map(), base.policy(),
+                p.rounds(), p.bonus(), p.arena());
+        int[] counts = new int[3];
+        long roundsSum = 0;
+        long hpA = 0;
+        long hpB = 0;
+        for (int k = 0; k < matches; k++) {
+            MatchResult r = HeadlessMatch.run(cfg, BatchRunner.matchSeed(seed, k));
+            counts[r.winner() == MatchResult.A ? 0 : r.winner() == MatchResult.B ? 1 : 2]++;
+            roundsSum += r.rounds();
+            hpA += r.hpA();
+            hpB += r.hpB();
+        }
+        double n = matches;
+        return new Row(p, counts[0], counts[1], counts[2], roundsSum / n, hpA / n, hpB / n);
+    }
+
+    /** Ключі точок, що вже є у файлі результатів. */
+    private Set<String> done(MatchConfig base, String teamA, String teamB) throws IOException {
+        Set<String> keys = new HashSet<>();
+        if (!Files.exists(out) || Files.size(out) == 0) return keys;
+        try (ColumnReader r = ColumnReader.open(out)) {
+            if (!r.columns().equals(COLUMNS)) throw new IOException("Файл " + out + " має інші стовпці");
+            for (ColumnReader.RowGroup g; (g = r.next()) != null; ) {
+                for (int i = 0; i < g.rows(); i++) {
+                    if (g.ints(0)[i] != base.mode() || !g.strings(1)[i].equals(policyName)
+                            || g.longs(8)[i] != seed || g.ints(9)[i] != matches) continue;
+                    Point p = new Point(g.strings(4)[i], g.ints(5)[i], g.ints(6)[i], g.ints(7)[i]);
+                    keys.add(key(base.mode(), g.strings(2)[i], g.strings(3)[i], p));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String key(int mode, String teamA, String teamB, Point p) {
+        return mode + "|" + teamA + "|" + teamB + "|" + p;
+    }
+
+    /** Склад для запису у файл: імена через кому. */
+    private static String teamName(List<DroidTemplate> team) {
+        return String.join(",", BatchRunner.names(team));
+    }
+}
@@ -0,0 +1,22 @@
+package myGame.columnar;
+
+/**
+ * Опис стовпця: назва і тип.
+ *
+ * @param name назва
+ * @param type тип значень
+ */
+public record Column(String name, ColumnType type) {
+
+    /** @param name назва @return цілий стовпець */
+    public static Column ofInt(String name) { return new Column(name, ColumnType.INT); }
+
+    /** @param name назва @return стовпець 64-бітних цілих */
+    public static Column ofLong(String name) { return new Column(name, ColumnType.LONG); }
+
+    /** @param name назва @return дійсний стовпець */
+    public static Column ofDouble(String name) { return new Column(name, ColumnType.DOUBLE); }
+
+    /** @param name назва @return рядковий стовпець */
+    public static Column ofString(String name) { return new Column(name, ColumnType.STRING); }
+}
@@ -0,0 +1,343 @@
+package myGame.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Кодування одного стовпця групи рядків (формат версії 2).
+ *
+ * <p>Цілі стовпці пишуться різницями сусідніх значень (zigzag varint) або
+ * словником, якщо різних значень не більше {@value #MAX_DICT}, — обирається
+ * коротше. Дійсні — словником або як є, рядки — словником з номерами-varint
+ * або як є. Результат стискається Deflate, якщо це дає виграш.</p>
+ */
+final class ColumnCodec {
+
+    static final int PLAIN = 0;
+    static final int DELTA = 1;
+    static final int DICT = 2;
+    /** Прапорець у байті кодування: дані стиснені Deflate. */
+    static final int DEFLATED = 0x80;
+
+    private static final int MAX_DICT = 256;
+    private static final int MAX_STRING_DICT = 1 << 16;
+    /** Довші межі рядків не зберігаються (статистика тоді невідома). */
+    private static final int MAX_STAT_STRING = 256;
+
+    /**
+     * Закодований стовпець групи.
+     *
+     * @param encoding  кодування і прапорець {@link #DEFLATED}
+     * @param stats     межі значень
+     * @param rawLength довжина до стиснення
+     * @param data      байти стовпця
+     */
+    record Chunk(int encoding, ColumnStats stats, int rawLength, byte[] data) { }
+
+    private ColumnCodec() {}
+
+    static Chunk encode(ColumnType type, Object values, int rows) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(rows * 2 + 16);
+        DataOutputStream out = new DataOutputStream(raw);
+        int encoding;
+        ColumnStats stats;
+        switch (type) {
+            case INT, LONG -> {
+                long[] v = new long[rows];
+                if (type == ColumnType.INT) {
+                    int[] src = (int[]) values;
+                    for (int i = 0; i < rows; i++) v[i] = src[i];
+                } else {
+                    System.arraycopy((long[]) values, 0, v, 0, rows);
+                }
+                stats = longStats(v);
+                encoding = encodeLongs(v, out);
+            }
+            case DOUBLE -> {
+                double[] d = (double[]) values;
+                long[] bits = new long[rows];
+                double min = Double.NaN, max = Double.NaN;
+                for (int i = 0; i < rows; i++) {
+                    bits[i] = Double.doubleToLongBits(d[i]);
+                    if (Double.isNaN(d[i])) continue;
+                    if (Double.isNaN(min) || d[i] < min) min = d[i];
+                    if (Double.isNaN(max) || d[i] > max) max = d[i];
+                }
+                stats = Double.isNaN(min) ? ColumnStats.UNKNOWN : new ColumnStats(min, max);
+                long[] dict = dictionary(bits, MAX_DICT);
+                if (dict != null) {
+                    encoding = DICT;
+                    writeDict(dict, bits, out, false);
+                } else {
+                    encoding = PLAIN;
+                    for (long b : bits) out.writeLong(b);
+                }
+            }
+            default -> {
+                String[] s = Arrays.copyOf((String[]) values, rows);
+                stats = stringStats(s);
+                encoding = encodeStrings(s, out);
+            }
+        }
+        out.flush();
+        byte[] bytes = raw.toByteArray();
+        byte[] packed = deflate(bytes);
+        if (packed != null) return new Chunk(encoding | DEFLATED, stats, bytes.length, packed);
+        return new Chunk(encoding, stats, bytes.length, bytes);
+    }
+
+    static Object decode(ColumnType type, int encoding, byte[] data, int rawLength, int rows) throws IOException {
+        byte[] bytes = (encoding & DEFLATED) != 0 ? inflate(data, rawLength) : data;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int enc = encoding & ~DEFLATED;
+        switch (type) {
+            case INT -> {
+                long[] v = decodeLongs(enc, in, rows);
+                int[] out = new int[rows];
+                for (int i = 0; i < rows; i++) out[i] = (int) v[i];
+                return out;
+            }
+            case LONG -> {
+                return decodeLongs(enc, in, rows);
+            }
+            case DOUBLE -> {
+                long[] bits = enc == DICT ? readDict(in, rows, false) : readPlainLongs(in, rows);
+                double[] out = new double[rows];
+                for (int i = 0; i < rows; i++) out[i] = Double.longBitsToDouble(bits[i]);
+                return out;
+            }
+            default -> {
+                String[] out = new String[rows];
+                if (enc == DICT) {
+                    String[] dict = new String[(int) readVarint(in)];
+                    for (int i = 0; i < dict.length; i++) dict[i] = in.readUTF();
+                    for (int i = 0; i < rows; i++) out[i] = dict[(int) readVarint(in)];
+                } else {
+                    for (int i = 0; i < rows; i++) out[i] = in.readUTF();
+                }
+                return out;
+            }
+        }
+    }
+
+    // ---------- Статистика ----------
+
+    static void writeStats(DataOutput out, ColumnType type, ColumnStats s) throws IOException {
+        if (s.min() == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        switch (type) {
+            case INT, LONG -> {
+                out.writeLong((Long) s.min());
+                out.writeLong((Long) s.max());
+            }
+            case DOUBLE -> {
+                out.writeDouble((Double) s.min());
+                out.writeDouble((Double) s.max());
+            }
+            default -> {
+                out.writeUTF((String) s.min());
+                out.writeUTF((String) s.max());
+            }
+        }
+    }
+
+    static ColumnStats readStats(DataInput in, ColumnType type) throws IOException {
+        if (in.readByte() == 0) return ColumnStats.UNKNOWN;
+        return switch (type) {
+            case INT, LONG -> new ColumnStats(in.readLong(), in.readLong());
+            case DOUBLE -> new ColumnStats(in.readDouble(), in.readDouble());
+            default -> new ColumnStats(in.readUTF(), in.readUTF());
+        };
+    }
+
+    private static ColumnStats longStats(long[] v) {
+        if (v.length == 0) return ColumnStats.UNKNOWN;
+        long min = v[0], max = v[0];
+        for (long x : v) {
+            if (x < min) min = x;
+            if (x > max) max = x;
+        }
+        return new ColumnStats(min, max);
+    }
+
+    private static ColumnStats stringStats(String[] s) {
+        if (s.length == 0) return ColumnStats.UNKNOWN;
+        String min = s[0], max = s[0];
+        for (String x : s) {
+            if (x.compareTo(min) < 0) min = x;
+            if (x.compareTo(max) > 0) max = x;
+        }
+        if (min.length() > MAX_STAT_STRING || max.length() > MAX_STAT_STRING) return ColumnStats.UNKNOWN;
+        return new ColumnStats(min, max);
+    }
+
+    // ---------- Цілі ----------
+
+    private static int encodeLongs(long[] v, DataOutputStream out) throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream(v.length * 2 + 8);
+        DataOutputStream d = new DataOutputStream(delta);
+        long prev = 0;
+        for (long x : v) {
+            writeVarint(d, zigzag(x - prev));
+            prev = x;
+        }
+        long[] dict = dictionary(v, MAX_DICT);
+        if (dict != null) {
+            ByteArrayOutputStream byDict = new ByteArrayOutputStream(v.length + dict.length * 2 + 8);
+            writeDict(dict, v, new DataOutputStream(byDict), true);
+            if (byDict.size() < delta.size()) {
+                byDict.writeTo(out);
+                return DICT;
+            }
+        }
+        delta.writeTo(out);
+        return DELTA;
+    }
+
+    private static long[] decodeLongs(int enc, DataInputStream in, int rows) throws IOException {
+        if (enc == DICT) return readDict(in, rows, true);
+        if (enc == PLAIN) return readPlainLongs(in, rows);
+        long[] v = new long[rows];
+        long prev = 0;
+        for (int i = 0; i < rows; i++) v[i] = prev += unzigzag(readVarint(in));
+        return v;
+    }
+
+    private static long[] readPlainLongs(DataInputStream in, int rows) throws IOException {
+        long[] v = new long[rows];
+        for (int i = 0; i < rows; i++) v[i] = in.readLong();
+        return v;
+    }
+
+    /** @return відсортовані різні значення або {@code null}, якщо їх більше за {@code limit} */
+    private static long[] dictionary(long[] v, int limit) {
+        long[] seen = new long[limit];
+        int n = 0;
+        outer:
+        for (long x : v) {
+            for (int i = 0; i < n; i++) if (seen[i] == x) continue outer;
+            if (n == limit) return null;
+            seen[n++] = x;
+        }
+        long[] dict = Arrays.copyOf(seen, n);
+        Arrays.sort(dict);
+        return dict;
+    }
+
+    /** Словник (різниці сусідніх або як є) і по байту номера на рядок. */
+    private static void writeDict(long[] dict, long[] v, DataOutputStream out, boolean deltas) throws IOException {
+        writeVarint(out, dict.length);
+        long prev = 0;
+        for (long x : dict) {
+            if (deltas) writeVarint(out, zigzag(x - prev));
+            else out.writeLong(x);
+            prev = x;
+        }
+        for (long x : v) out.writeByte(Arrays.binarySearch(dict, x));
+        out.flush();
+    }
+
+    private static long[] readDict(DataInputStream in, int rows, boolean deltas) throws IOException {
+        long[] dict = new long[(int) readVarint(in)];
+        long prev = 0;
+        for (int i = 0; i < dict.length; i++) dict[i] = deltas ? prev += unzigzag(readVarint(in)) : in.readLong();
+        long[] v = new long[rows];
+        for (int i = 0; i < rows; i++) v[i] = dict[in.readUnsignedByte()];
+        return v;
+    }
+
+    // ---------- Рядки ----------
+
+    private static int encodeStrings(String[] s, DataOutputStream out) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        for (String x : s) {
+            ids.putIfAbsent(x, ids.size());
+            if (ids.size() > MAX_STRING_DICT) break;
+        }
+        if (ids.size() <= MAX_STRING_DICT && ids.size() < s.length) {
+            String[] dict = new String[ids.size()];
+            for (Map.Entry<String, Integer> e : ids.entrySet()) dict[e.getValue()] = e.getKey();
+            writeVarint(out, dict.length);
+            for (String x : dict) out.writeUTF(x);
+            for (String x : s) writeVarint(out, ids.get(x));
+            return DICT;
+        }
+        for (String x : s) out.writeUTF(x);
+        return PLAIN;
+    }
+
+    // ---------- Примітиви ----------
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static void writeVarint(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarint(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Зіпсоване число varint");
+    }
+
+    /** @return стиснені байти або {@code null}, якщо стиснення не дає хоча б 10% */
+    private static byte[] deflate(byte[] b) {
+        if (b.length < 64) return null;
+        Deflater d = new Deflater(Deflater.BEST_SPEED);
+        try {
+            d.setInput(b);
+            d.finish();
+            byte[] out = new byte[b.length];
+            int n = 0;
+            while (!d.finished() && n < out.length) n += d.deflate(out, n, out.length - n);
+            if (!d.finished() || n > b.length * 9L / 10) return null;
+            return Arrays.copyOf(out, n);
+        } finally {
+            d.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] b, int rawLength) throws IOException {
+        Inflater inf = new Inflater();
+        try {
+            inf.setInput(b);
+            byte[] out = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength) {
+                int k = inf.inflate(out, n, rawLength - n);
+                if (k == 0 && (inf.finished() || inf.needsInput())) break;
+                n += k;
+            }
+            if (n != rawLength) throw new IOException("Зіпсований стиснений стовпець");
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Зіпсований стиснений стовпець", e);
+        } finally {
+            inf.end();
+        }
+    }
+}
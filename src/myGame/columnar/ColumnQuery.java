@@ -0,0 +1,352 @@
+package myGame.columnar;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Агрегування вибраних стовпців файлу стовпців з пропуском груп за межами значень.
+ *
+ * <pre>
+ * java myGame.columnar.ColumnQuery logs/results.col --where map=Cave --where rounds=10..50 \
+ *                                  --group team_a --agg rounds,damage_a
+ * </pre>
+ *
+ * <p>Група рядків, для якої межі значень ({@link ColumnStats}) хоча б одного
+ * фільтра виключають збіг, пропускається цілком — її стовпці не читаються.
+ * З решти груп читаються лише стовпці фільтрів, групування та агрегатів.</p>
+ */
+public final class ColumnQuery {
+
+    /** Код завершення: помилка у параметрах. */
+    public static final int USAGE = 2;
+
+    private static final String HELP = String.join(System.lineSeparator(),
+            "Використання: java myGame.columnar.ColumnQuery <файл> [ключі]",
+            "  --where <стовпець>=<значення>      рівність",
+            "  --where <стовпець>=<від>..<до>     проміжок (включно; межу можна пропустити)",
+            "  --group <стовпець>                 групувати за значенням стовпця",
+            "  --agg <стовпці>                    числові стовпці через кому: середнє, мін., макс.");
+
+    private record Filter(String column, String lo, String hi) { }
+
+    /**
+     * Підсумок за одним значенням групування.
+     *
+     * @param key   значення стовпця групування (порожньо без групування)
+     * @param count рядків
+     * @param sum   суми агрегованих стовпців
+     * @param min   мінімуми
+     * @param max   максимуми
+     */
+    public record Row(String key, long count, double[] sum, double[] min, double[] max) {
+
+        /** @param i агрегат @return середнє */
+        public double avg(int i) { return count == 0 ? 0 : sum[i] / count; }
+    }
+
+    /**
+     * Результат запиту.
+     *
+     * @param rows          підсумки за значеннями групування (впорядковані)
+     * @param groupsRead    груп рядків прочитано
+     * @param groupsSkipped груп рядків пропущено за межами значень
+     * @param matched       рядків, що пройшли фільтри
+     */
+    public record Result(List<Row> rows, long groupsRead, long groupsSkipped, long matched) { }
+
+    private final Path file;
+    private final List<Filter> filters = new ArrayList<>();
+    private final List<String> aggregates = new ArrayList<>();
+    private String groupBy;
+
+    private ColumnQuery(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file файл стовпців
+     * @return порожній запит (лише кількість рядків)
+     */
+    public static ColumnQuery on(Path file) {
+        return new ColumnQuery(file);
+    }
+
+    /**
+     * Лишити рядки, де значення стовпця в проміжку (для рядків — лексикографічно).
+     * Значення задаються текстом і розбираються за типом стовпця.
+     *
+     * @param column назва стовпця
+     * @param lo     нижня межа або {@code null}
+     * @param hi     верхня межа або {@code null}
+     * @return цей запит
+     */
+    public ColumnQuery where(String column, String lo, String hi) {
+        filters.add(new Filter(column, lo, hi));
+        return this;
+    }
+
+    /**
+     * @param column назва стовпця
+     * @param value  значення
+     * @return цей запит
+     */
+    public ColumnQuery where(String column, String value) {
+        return where(column, value, value);
+    }
+
+    /** @param column стовпець групування @return цей запит */
+    public ColumnQuery groupBy(String column) {
+        this.groupBy = column;
+        return this;
+    }
+
+    /** @param columns числові стовпці для агрегатів @return цей запит */
+    public ColumnQuery aggregate(String... columns) {
+        aggregates.addAll(List.of(columns));
+        return this;
+    }
+
+    /**
+     * Виконати запит.
+     *
+     * @return підсумки
+     * @throws IOException помилка читання
+     * @throws IllegalArgumentException невідомий стовпець, нечисловий агрегат чи хибне значення фільтра
+     */
+    public Result run() throws IOException {
+        try (ColumnReader r = ColumnReader.open(file)) {
+            List<Column> cols = r.columns();
+            int[] fcol = new int[filters.size()];
+            Comparable<?>[] lo = new Comparable<?>[filters.size()];
+            Comparable<?>[] hi = new Comparable<?>[filters.size()];
+            for (int f = 0; f < fcol.length; f++) {
+                Filter filter = filters.get(f);
+                fcol[f] = r.index(filter.column());
+                lo[f] = parse(cols.get(fcol[f]).type(), filter.lo());
+                hi[f] = parse(cols.get(fcol[f]).type(), filter.hi());
+            }
+            int gcol = groupBy != null ? r.index(groupBy) : -1;
+            int[] acol = new int[aggregates.size()];
+            for (int a = 0; a < acol.length; a++) {
+                acol[a] = r.index(aggregates.get(a));
+                if (cols.get(acol[a]).type() == ColumnType.STRING) {
+                    throw new IllegalArgumentException("Стовпець " + aggregates.get(a) + " не числовий");
+                }
+            }
+
+            Map<String, double[]> acc = new TreeMap<>();
+            long read = 0, skipped = 0, matched = 0;
+            for (ColumnReader.RowGroup g; (g = r.next()) != null; ) {
+                boolean skip = false;
+                for (int f = 0; f < fcol.length && !skip; f++) skip = !g.stats(fcol[f]).mayOverlap(lo[f], hi[f]);
+                if (skip) {
+                    skipped++;
+                    continue;
+                }
+                read++;
+                boolean[] keep = new boolean[g.rows()];
+                Arrays.fill(keep, true);
+                for (int f = 0; f < fcol.length; f++) mask(g, cols.get(fcol[f]).type(), fcol[f], lo[f], hi[f], keep);
+                String[] keys = gcol < 0 ? null : text(g, cols.get(gcol).type(), gcol);
+                double[][] vals = new double[acol.length][];
+                for (int a = 0; a < acol.length; a++) vals[a] = numbers(g, cols.get(acol[a]).type(), acol[a]);
+                for (int i = 0; i < g.rows(); i++) {
+                    if (!keep[i]) continue;
+                    matched++;
+                    double[] s = acc.computeIfAbsent(keys == null ? "" : keys[i], k -> empty(acol.length));
+                    s[0]++;
+                    for (int a = 0; a < acol.length; a++) {
+                        double v = vals[a][i];
+                        s[1 + 3 * a] += v;
+                        s[2 + 3 * a] = Math.min(s[2 + 3 * a], v);
+                        s[3 + 3 * a] = Math.max(s[3 + 3 * a], v);
+                    }
+                }
+            }
+            List<Row> rows = new ArrayList<>(acc.size());
+            for (Map.Entry<String, double[]> e : acc.entrySet()) {
+                double[] s = e.getValue();
+                double[] sum = new double[acol.length], min = new double[acol.length], max = new double[acol.length];
+                for (int a = 0; a < acol.length; a++) {
+                    sum[a] = s[1 + 3 * a];
+                    min[a] = s[2 + 3 * a];
+                    max[a] = s[3 + 3 * a];
+                }
+                rows.add(new Row(e.getKey(), (long) s[0], sum, min, max));
+            }
+            return new Result(rows, read, skipped, matched);
+        }
+    }
+
+    private static double[] empty(int aggregates) {
+        double[] s = new double[1 + 3 * aggregates];
+        for (int a = 0; a < aggregates; a++) {
+            s[2 + 3 * a] = Double.POSITIVE_INFINITY;
+            s[3 + 3 * a] = Double.NEGATIVE_INFINITY;
+        }
+        return s;
+    }
+
+    private static Comparable<?> parse(ColumnType type, String v) {
+        if (v == null || v.isEmpty()) return null;
+        try {
+            return switch (type) {
+                case INT, LONG -> Long.parseLong(v);
+                case DOUBLE -> Double.parseDouble(v);
+                case STRING -> v;
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Не число: " + v);
+        }
+    }
+
+    /** Зняти позначки з рядків, значення яких поза [lo, hi]. */
+    private static void mask(ColumnReader.RowGroup g, ColumnType type, int col, Comparable<?> lo, Comparable<?> hi,
+                             boolean[] keep) throws IOException {
+        switch (type) {
+            case INT -> {
+                int[] v = g.ints(col);
+                long l = lo == null ? Long.MIN_VALUE : (Long) lo, h = hi == null ? Long.MAX_VALUE : (Long) hi;
+                for (int i = 0; i < v.length; i++) keep[i] &= v[i] >= l && v[i] <= h;
+            }
+            case LONG -> {
+                long[] v = g.longs(col);
+                long l = lo == null ? Long.MIN_VALUE : (Long) lo, h = hi == null ? Long.MAX_VALUE : (Long) hi;
+                for (int i = 0; i < v.length; i++) keep[i] &= v[i] >= l && v[i] <= h;
+            }
+            case DOUBLE -> {
+                double[] v = g.doubles(col);
+                double l = lo == null ? Double.NEGATIVE_INFINITY : (Double) lo;
+                double h = hi == null ? Double.POSITIVE_INFINITY : (Double) hi;
+                for (int i = 0; i < v.length; i++) keep[i] &= v[i] >= l && v[i] <= h;
+            }
+            case STRING -> {
+                String[] v = g.strings(col);
+                String l = (String) lo, h = (String) hi;
+                for (int i = 0; i < v.length; i++) {
+                    keep[i] &= (l == null || v[i].compareTo(l) >= 0) && (h == null || v[i].compareTo(h) <= 0);
+                }
+            }
+        }
+    }
+
+    private static String[] text(ColumnReader.RowGroup g, ColumnType type, int col) throws IOException {
+        if (type == ColumnType.STRING) return g.strings(col);
+        double[] v = numbers(g, type, col);
+        String[] out = new String[v.length];
+        for (int i = 0; i < v.length; i++) {
+            out[i] = type == ColumnType.DOUBLE ? String.valueOf(v[i]) : String.valueOf((long) v[i]);
+        }
+        return out;
+    }
+
+    private static double[] numbers(ColumnReader.RowGroup g, ColumnType type, int col) throws IOException {
+        switch (type) {
+            case INT -> {
+                int[] v = g.ints(col);
+                double[] out = new double[v.length];
+                for (int i = 0; i < v.length; i++) out[i] = v[i];
+                return out;
+            }
+            case LONG -> {
+                long[] v = g.longs(col);
+                double[] out = new double[v.length];
+                for (int i = 0; i < v.length; i++) out[i] = v[i];
+                return out;
+            }
+            case DOUBLE -> {
+                return g.doubles(col);
+            }
+            default -> throw new IllegalArgumentException("Стовпець не числовий");
+        }
+    }
+
+    /**
+     * Точка входу командного рядка.
+     *
+     * @param args файл і ключі
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Виконати запит з командного рядка і надрукувати таблицю.
+     *
+     * @param args файл і ключі
+     * @return код завершення (0 — успіх, 1 — помилка вводу-виводу, {@value #USAGE} — помилка у параметрах)
+     */
+    public static int run(String[] args) {
+        PrintStream out = System.out;
+        ColumnQuery q;
+        try {
+            q = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HELP);
+            return USAGE;
+        }
+        long t0 = System.nanoTime();
+        Result res;
+        try {
+            res = q.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return USAGE;
+        } catch (IOException e) {
+            System.err.println("Не вдалося прочитати " + q.file + ": " + e.getMessage());
+            return 1;
+        }
+        StringBuilder head = new StringBuilder(String.format("%-40s %10s", q.groupBy != null ? q.groupBy : "", "рядків"));
+        for (String a : q.aggregates) head.append(String.format(" %30s", a + " сер./мін./макс."));
+        out.println(head);
+        for (Row row : res.rows()) {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-40s %10d", row.key(), row.count()));
+            for (int a = 0; a < q.aggregates.size(); a++) {
+                sb.append(String.format(Locale.ROOT, " %30s",
+                        String.format(Locale.ROOT, "%.2f / %s / %s", row.avg(a), number(row.min()[a]), number(row.max()[a]))));
+            }
+            out.println(sb);
+        }
+        out.printf(Locale.ROOT, "Рядків: %d; груп прочитано %d, пропущено %d; %.0f мс%n",
+                res.matched(), res.groupsRead(), res.groupsSkipped(), (System.nanoTime() - t0) / 1e6);
+        return 0;
+    }
+
+    private static String number(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? String.valueOf((long) v) : String.format(Locale.ROOT, "%.2f", v);
+    }
+
+    private static ColumnQuery parse(String[] args) {
+        if (args.length == 0 || args[0].startsWith("--")) throw new IllegalArgumentException("Потрібен файл стовпців");
+        ColumnQuery q = on(Paths.get(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для " + key);
+            String v = args[++i];
+            switch (key) {
+                case "--where" -> {
+                    int eq = v.indexOf('=');
+                    if (eq <= 0) throw new IllegalArgumentException("--where: потрібно стовпець=значення");
+                    String col = v.substring(0, eq);
+                    String val = v.substring(eq + 1);
+                    int dots = val.indexOf("..");
+                    if (dots < 0) q.where(col, val);
+                    else q.where(col, val.substring(0, dots), val.substring(dots + 2));
+                }
+                case "--group" -> q.groupBy(v);
+                case "--agg" -> q.aggregate(v.split(","));
+                default -> throw new IllegalArgumentException("Невідомий ключ: " + key);
+            }
+        }
+        return q;
+    }
+}
@@ -0,0 +1,296 @@
+package myGame.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Читання файлу стовпців, записаного {@link ColumnWriter}, група рядків за групою.
+ *
+ * <p>Формат: заголовок (магія, версія, стовпці) і далі групи рядків.</p>
+ *
+ * <p>Версія 1: група — магія, кількість рядків, довжина і CRC32 тіла, а в тілі
+ * значення кожного стовпця йдуть підряд як є.</p>
+ *
+ * <p>Версія 2: група — магія, кількість рядків, довжина і CRC32 заголовка групи;
+ * у заголовку для кожного стовпця кодування ({@link ColumnCodec}), межі значень
+ * ({@link ColumnStats}), довжини і CRC32 його блоку; далі блоки стовпців.
+ * Стовпець читається і розкодовується лише тоді, коли його запитали, тож
+ * непотрібні стовпці і групи, відкинуті за межами значень, не читаються з диска.</p>
+ *
+ * <p>Обрізана чи пошкоджена остання група (перерваний запис) вважається кінцем
+ * файлу; {@link #validEnd()} показує, де закінчуються цілі дані.</p>
+ */
+public final class ColumnReader implements Closeable {
+
+    static final int MAGIC = 0x4D434F4C; // "MCOL"
+    static final int VERSION = 2;
+    static final int GROUP_MAGIC = 0x52475250; // "RGRP"
+
+    private final FileChannel ch;
+    private final int version;
+    private final List<Column> columns;
+    private long position;
+    private long validEnd;
+
+    /**
+     * Група рядків: значення кожного стовпця окремим масивом.
+     */
+    public final class RowGroup {
+        private final int rows;
+        private final Object[] values;
+        private final ColumnStats[] stats;
+        private final int[] encoding;
+        private final long[] offset;
+        private final int[] length;
+        private final int[] rawLength;
+        private final int[] crc;
+
+        private RowGroup(int rows, Object[] values) {
+            this.rows = rows;
+            this.values = values;
+            this.stats = null;
+            this.encoding = null;
+            this.offset = null;
+            this.length = null;
+            this.rawLength = null;
+            this.crc = null;
+        }
+
+        private RowGroup(int rows, ColumnStats[] stats, int[] encoding, long[] offset, int[] length,
+                         int[] rawLength, int[] crc) {
+            this.rows = rows;
+            this.values = new Object[stats.length];
+            this.stats = stats;
+            this.encoding = encoding;
+            this.offset = offset;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.crc = crc;
+        }
+
+        /** @return кількість рядків */
+        public int rows() { return rows; }
+
+        /**
+         * @param col стовпець
+         * @return межі значень стовпця у групі ({@link ColumnStats#UNKNOWN} для версії 1)
+         */
+        public ColumnStats stats(int col) { return stats == null ? ColumnStats.UNKNOWN : stats[col]; }
+
+        /** @param col стовпець типу INT @return значення @throws IOException помилка читання */
+        public int[] ints(int col) throws IOException { return (int[]) values(col); }
+
+        /** @param col стовпець типу LONG @return значення @throws IOException помилка читання */
+        public long[] longs(int col) throws IOException { return (long[]) values(col); }
+
+        /** @param col стовпець типу DOUBLE @return значення @throws IOException помилка читання */
+        public double[] doubles(int col) throws IOException { return (double[]) values(col); }
+
+        /** @param col стовпець типу STRING @return значення @throws IOException помилка читання */
+        public String[] strings(int col) throws IOException { return (String[]) values(col); }
+
+        private Object values(int col) throws IOException {
+            if (values[col] == null) {
+                values[col] = ColumnCodec.decode(columns.get(col).type(), encoding[col], chunk(col), rawLength[col], rows);
+            }
+            return values[col];
+        }
+
+        private byte[] chunk(int col) throws IOException {
+            byte[] b = new byte[length[col]];
+            readFully(ByteBuffer.wrap(b), offset[col]);
+            CRC32 sum = new CRC32();
+            sum.update(b);
+            if ((int) sum.getValue() != crc[col]) {
+                throw new IOException("Пошкоджений стовпець " + columns.get(col).name());
+            }
+            return b;
+        }
+
+        /** Перевірити контрольні суми всіх стовпців, не розкодовуючи їх. */
+        boolean verify() {
+            if (crc == null) return true;
+            try {
+                for (int c = 0; c < crc.length; c++) chunk(c);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private ColumnReader(FileChannel ch, int version, List<Column> columns, long position) {
+        this.ch = ch;
+        this.version = version;
+        this.columns = columns;
+        this.position = position;
+        this.validEnd = position;
+    }
+
+    /**
+     * Відкрити файл і прочитати заголовок.
+     *
+     * @param file файл стовпців
+     * @return читач
+     * @throws IOException помилка читання або не файл стовпців
+     */
+    public static ColumnReader open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            // заголовок читається потоком з початку каналу; далі — позиційне читання
+            DataInputStream in = new DataInputStream(Channels.newInputStream(ch));
+            int version;
+            if (in.readInt() != MAGIC || (version = in.readInt()) < 1 || version > VERSION) {
+                throw new IOException("Не файл стовпців: " + file);
+            }
+            int n = in.readInt();
+            List<Column> cols = new ArrayList<>(n);
+            long pos = 12;
+            for (int i = 0; i < n; i++) {
+                String name = in.readUTF();
+                ColumnType type = ColumnType.values()[in.readUnsignedByte()];
+                cols.add(new Column(name, type));
+                pos += 2 + utfLength(name) + 1;
+            }
+            return new ColumnReader(ch, version, Collections.unmodifiableList(cols), pos);
+        } catch (EOFException e) {
+            ch.close();
+            throw new IOException("Обрізаний заголовок: " + file, e);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** @return стовпці файлу */
+    public List<Column> columns() { return columns; }
+
+    /** @return версія формату файлу */
+    public int version() { return version; }
+
+    /**
+     * @param name назва стовпця
+     * @return індекс стовпця
+     * @throws IllegalArgumentException якщо стовпця немає
+     */
+    public int index(String name) {
+        for (int i = 0; i < columns.size(); i++) if (columns.get(i).name().equals(name)) return i;
+        throw new IllegalArgumentException("Немає стовпця " + name);
+    }
+
+    /** @return зміщення кінця останньої цілої прочитаної групи */
+    public long validEnd() { return validEnd; }
+
+    /**
+     * Наступна група рядків. У версії 2 значення стовпців читаються лише при зверненні до них.
+     *
+     * @return група або {@code null} у кінці файлу (чи на обрізаній групі)
+     * @throws IOException помилка читання
+     */
+    public RowGroup next() throws IOException {
+        long size = ch.size();
+        if (position + 16 > size) return null;
+        ByteBuffer head = ByteBuffer.allocate(16);
+        readFully(head, position);
+        int rows = head.getInt(4);
+        int len = head.getInt(8);
+        int sum = head.getInt(12);
+        if (head.getInt(0) != GROUP_MAGIC || rows < 0 || len < 0 || position + 16 + len > size) return null;
+        byte[] body = new byte[len];
+        readFully(ByteBuffer.wrap(body), position + 16);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != sum) return null;
+        DataInputStream d = new DataInputStream(new ByteArrayInputStream(body));
+        RowGroup g = version == 1 ? plainGroup(rows, d) : encodedGroup(rows, d, position + 16 + len);
+        long end = position + 16 + len;
+        if (g.length != null) for (int c : g.length) end += c;
+        if (end > size) return null;
+        position = end;
+        validEnd = position;
+        return g;
+    }
+
+    private RowGroup plainGroup(int rows, DataInputStream d) throws IOException {
+        Object[] values = new Object[columns.size()];
+        for (int c = 0; c < values.length; c++) {
+            switch (columns.get(c).type()) {
+                case INT -> {
+                    int[] v = new int[rows];
+                    for (int r = 0; r < rows; r++) v[r] = d.readInt();
+                    values[c] = v;
+                }
+                case LONG -> {
+                    long[] v = new long[rows];
+                    for (int r = 0; r < rows; r++) v[r] = d.readLong();
+                    values[c] = v;
+                }
+                case DOUBLE -> {
+                    double[] v = new double[rows];
+                    for (int r = 0; r < rows; r++) v[r] = d.readDouble();
+                    values[c] = v;
+                }
+                case STRING -> {
+                    String[] v = new String[rows];
+                    for (int r = 0; r < rows; r++) v[r] = d.readUTF();
+                    values[c] = v;
+                }
+            }
+        }
+        return new RowGroup(rows, values);
+    }
+
+    private RowGroup encodedGroup(int rows, DataInputStream d, long dataStart) throws IOException {
+        int n = columns.size();
+        ColumnStats[] stats = new ColumnStats[n];
+        int[] encoding = new int[n];
+        long[] offset = new long[n];
+        int[] length = new int[n];
+        int[] rawLength = new int[n];
+        int[] crc = new int[n];
+        long at = dataStart;
+        for (int c = 0; c < n; c++) {
+            encoding[c] = d.readUnsignedByte();
+            stats[c] = ColumnCodec.readStats(d, columns.get(c).type());
+            length[c] = d.readInt();
+            rawLength[c] = d.readInt();
+            crc[c] = d.readInt();
+            offset[c] = at;
+            at += length[c];
+        }
+        return new RowGroup(rows, stats, encoding, offset, length, rawLength, crc);
+    }
+
+    private void readFully(ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) {
+            if (ch.read(b, pos + b.position()) < 0) throw new EOFException();
+        }
+    }
+
+    /** Довжина рядка у модифікованому UTF-8 (як пише {@code writeUTF}). */
+    static int utfLength(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            n += ch >= 0x0001 && ch <= 0x007F ? 1 : ch <= 0x07FF ? 2 : 3;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+}
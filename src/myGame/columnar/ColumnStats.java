@@ -0,0 +1,48 @@
+package myGame.columnar;
+
+/**
+ * Найменше і найбільше значення стовпця у групі рядків — за ними групу можна
+ * пропустити, не читаючи її даних.
+ *
+ * <p>Для INT і LONG межі — {@link Long}, для DOUBLE — {@link Double} (NaN не
+ * враховуються; якщо всі значення NaN, межі {@code null}), для STRING — {@link String}.</p>
+ *
+ * @param min найменше значення або {@code null}, якщо невідомо
+ * @param max найбільше значення або {@code null}, якщо невідомо
+ */
+public record ColumnStats(Comparable<?> min, Comparable<?> max) {
+
+    /** Межі невідомі (група старого формату): пропускати не можна. */
+    public static final ColumnStats UNKNOWN = new ColumnStats(null, null);
+
+    /**
+     * Чи може група містити значення.
+     *
+     * @param value значення того самого типу, що й межі
+     * @return {@code false}, лише якщо значення точно поза межами
+     */
+    public boolean mayContain(Comparable<?> value) {
+        return mayOverlap(value, value);
+    }
+
+    /**
+     * Чи може група містити значення з проміжку.
+     *
+     * @param lo нижня межа (включно) або {@code null}
+     * @param hi верхня межа (включно) або {@code null}
+     * @return {@code false}, лише якщо проміжок точно не перетинає межі групи
+     */
+    public boolean mayOverlap(Comparable<?> lo, Comparable<?> hi) {
+        if (min == null || max == null) return true;
+        if (hi != null && compare(hi, min) < 0) return false;
+        return lo == null || compare(lo, max) <= 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Comparable a, Comparable b) {
+        if (a instanceof Number x && b instanceof Number y && a.getClass() != b.getClass()) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        return a.compareTo(b);
+    }
+}
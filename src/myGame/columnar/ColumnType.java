@@ -0,0 +1,15 @@
+package myGame.columnar;
+
+/**
+ * Тип значень стовпця у файлі стовпців.
+ */
+public enum ColumnType {
+    /** 32-бітне ціле. */
+    INT,
+    /** 64-бітне ціле. */
+    LONG,
+    /** Дійсне число. */
+    DOUBLE,
+    /** Рядок (UTF-8). */
+    STRING
+}
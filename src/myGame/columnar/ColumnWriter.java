@@ -0,0 +1,257 @@
+package myGame.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Потоковий запис таблиці у файл стовпців (формат — див. {@link ColumnReader}).
+ *
+ * <p>Рядки накопичуються в пам'яті по стовпцях і скидаються групою, коли
+ * назбирається {@code groupRows} рядків або викликано {@link #flush()}. Кожен
+ * стовпець групи кодується окремо ({@link ColumnCodec}) і зберігає межі значень.
+ * Якщо файл уже існує з тими самими стовпцями, запис продовжується з кінця
+ * останньої цілої групи (обрізаний хвіст після переривання відкидається)
+ * у форматі, яким файл було створено.</p>
+ *
+ * <pre>
+ * try (ColumnWriter w = ColumnWriter.open(file, columns, 1024)) {
+ *     w.set(0, "Cave").set(1, 25).endRow();
+ * }
+ * </pre>
+ */
+public final class ColumnWriter implements Closeable, Flushable {
+
+    private final FileChannel ch;
+    private final int version;
+    private final List<Column> columns;
+    private final int groupRows;
+    private final Object[] values;
+    private final boolean[] filled;
+    private int rows;
+    private long written;
+
+    private ColumnWriter(FileChannel ch, int version, List<Column> columns, int groupRows) {
+        this.ch = ch;
+        this.version = version;
+        this.columns = List.copyOf(columns);
+        this.groupRows = groupRows;
+        this.values = new Object[columns.size()];
+        this.filled = new boolean[columns.size()];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = switch (columns.get(c).type()) {
+                case INT -> new int[groupRows];
+                case LONG -> new long[groupRows];
+                case DOUBLE -> new double[groupRows];
+                case STRING -> new String[groupRows];
+            };
+        }
+    }
+
+    /**
+     * Створити файл або продовжити наявний.
+     *
+     * @param file      файл стовпців
+     * @param columns   стовпці (у наявному файлі мають бути ті самі)
+     * @param groupRows рядків у групі
+     * @return записувач
+     * @throws IOException помилка файлу або інші стовпці у наявному файлі
+     */
+    public static ColumnWriter open(Path file, List<Column> columns, int groupRows) throws IOException {
+        if (groupRows < 1) throw new IllegalArgumentException("Група має містити хоча б один рядок");
+        long end = -1;
+        int version = ColumnReader.VERSION;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (ColumnReader r = ColumnReader.open(file)) {
+                if (!r.columns().equals(columns)) {
+                    throw new IOException("Файл " + file + " має інші стовпці: " + r.columns());
+                }
+                version = r.version();
+                end = r.validEnd();
+                for (ColumnReader.RowGroup g; (g = r.next()) != null && g.verify(); ) end = r.validEnd();
+            }
+        }
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (end < 0) {
+                ch.truncate(0);
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(header);
+                out.writeInt(ColumnReader.MAGIC);
+                out.writeInt(version);
+                out.writeInt(columns.size());
+                for (Column c : columns) {
+                    out.writeUTF(c.name());
+                    out.writeByte(c.type().ordinal());
+                }
+                writeFully(ch, ByteBuffer.wrap(header.toByteArray()));
+            } else {
+                ch.truncate(end);
+                ch.position(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        return new ColumnWriter(ch, version, columns, groupRows);
+    }
+
+    /** @param col індекс @param v значення @return цей записувач */
+    public ColumnWriter set(int col, int v) {
+        switch (columns.get(col).type()) {
+            case INT -> ((int[]) values[col])[rows] = v;
+            case LONG -> ((long[]) values[col])[rows] = v;
+            case DOUBLE -> ((double[]) values[col])[rows] = v;
+            default -> throw new IllegalArgumentException("Стовпець " + columns.get(col).name() + " не числовий");
+        }
+        filled[col] = true;
+        return this;
+    }
+
+    /** @param col індекс @param v значення @return цей записувач */
+    public ColumnWriter set(int col, long v) {
+        switch (columns.get(col).type()) {
+            case LONG -> ((long[]) values[col])[rows] = v;
+            case DOUBLE -> ((double[]) values[col])[rows] = v;
+            default -> throw new IllegalArgumentException("Стовпець " + columns.get(col).name() + " не LONG");
+        }
+        filled[col] = true;
+        return this;
+    }
+
+    /** @param col індекс @param v значення @return цей записувач */
+    public ColumnWriter set(int col, double v) {
+        if (columns.get(col).type() != ColumnType.DOUBLE) {
+            throw new IllegalArgumentException("Стовпець " + columns.get(col).name() + " не DOUBLE");
+        }
+        ((double[]) values[col])[rows] = v;
+        filled[col] = true;
+        return this;
+    }
+
+    /** @param col індекс @param v значення @return цей записувач */
+    public ColumnWriter set(int col, String v) {
+        if (columns.get(col).type() != ColumnType.STRING) {
+            throw new IllegalArgumentException("Стовпець " + columns.get(col).name() + " не STRING");
+        }
+        ((String[]) values[col])[rows] = v;
+        filled[col] = true;
+        return this;
+    }
+
+    /**
+     * Завершити рядок (усі стовпці мають бути задані).
+     *
+     * @throws IOException помилка запису групи
+     */
+    public void endRow() throws IOException {
+        for (int c = 0; c < filled.length; c++) {
+            if (!filled[c]) throw new IllegalStateException("Не задано стовпець " + columns.get(c).name());
+        }
+        Arrays.fill(filled, false);
+        rows++;
+        written++;
+        if (rows == groupRows) flush();
+    }
+
+    /** @return скільки рядків записано цим записувачем */
+    public long written() { return written; }
+
+    /** @return рядків, що чекають на запис групою */
+    public int pending() { return rows; }
+
+    /**
+     * @return довжина файлу з усіма записаними групами (без рядків, що чекають)
+     * @throws IOException помилка каналу
+     */
+    public long length() throws IOException { return ch.position(); }
+
+    /**
+     * Записати накопичені рядки групою.
+     *
+     * @throws IOException помилка запису
+     */
+    @Override
+    public void flush() throws IOException {
+        if (rows == 0) return;
+        if (version == 1) {
+            flushPlain();
+        } else {
+            flushEncoded();
+        }
+        ch.force(false);
+        rows = 0;
+    }
+
+    /** Група версії 2: заголовок з кодуваннями і межами стовпців, далі блоки стовпців. */
+    private void flushEncoded() throws IOException {
+        ColumnCodec.Chunk[] chunks = new ColumnCodec.Chunk[values.length];
+        ByteArrayOutputStream header = new ByteArrayOutputStream(values.length * 32);
+        DataOutputStream out = new DataOutputStream(header);
+        int total = 0;
+        for (int c = 0; c < values.length; c++) {
+            ColumnType type = columns.get(c).type();
+            ColumnCodec.Chunk chunk = chunks[c] = ColumnCodec.encode(type, values[c], rows);
+            CRC32 crc = new CRC32();
+            crc.update(chunk.data());
+            out.writeByte(chunk.encoding());
+            ColumnCodec.writeStats(out, type, chunk.stats());
+            out.writeInt(chunk.data().length);
+            out.writeInt(chunk.rawLength());
+            out.writeInt((int) crc.getValue());
+            total += chunk.data().length;
+        }
+        byte[] h = header.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(h);
+        ByteBuffer group = ByteBuffer.allocate(16 + h.length + total);
+        group.putInt(ColumnReader.GROUP_MAGIC).putInt(rows).putInt(h.length).putInt((int) crc.getValue()).put(h);
+        for (ColumnCodec.Chunk chunk : chunks) group.put(chunk.data());
+        group.flip();
+        writeFully(ch, group);
+    }
+
+    /** Група версії 1: значення стовпців підряд як є. */
+    private void flushPlain() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(rows * columns.size() * 8);
+        DataOutputStream out = new DataOutputStream(body);
+        for (int c = 0; c < values.length; c++) {
+            switch (columns.get(c).type()) {
+                case INT -> { for (int r = 0; r < rows; r++) out.writeInt(((int[]) values[c])[r]); }
+                case LONG -> { for (int r = 0; r < rows; r++) out.writeLong(((long[]) values[c])[r]); }
+                case DOUBLE -> { for (int r = 0; r < rows; r++) out.writeDouble(((double[]) values[c])[r]); }
+                case STRING -> { for (int r = 0; r < rows; r++) out.writeUTF(((String[]) values[c])[r]); }
+            }
+        }
+        byte[] b = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(b);
+        ByteBuffer group = ByteBuffer.allocate(16 + b.length);
+        group.putInt(ColumnReader.GROUP_MAGIC).putInt(rows).putInt(b.length).putInt((int) crc.getValue()).put(b).flip();
+        writeFully(ch, group);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) ch.write(b);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            ch.close();
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package myGame.droid;
 
+import myGame.effect.EffectEngine;
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
@@ -9,7 +15,7 @@ import java.util.Scanner;
  * <p>
  * Містить спільні характеристики (HP, атака, дальність, позиція, стихія) та базову бойову логіку:
  * отримання/нанесення шкоди, перевірка дальності, переміщення.
- * Наслідники мають реалізувати власне меню дій {@link #actionMenu(List, List)}.
+ * Наслідники мають реалізувати власне меню дій {@link #actionMenu(List, List, ConsoleSink)}.
  *
  * <p><b>Безпечні покращення в цій версії:</b></p>
  * <ul>
@@ -18,16 +24,18 @@ import java.util.Scanner;
  *   <li>Коректна перевірка дальності через абсолютну відстань у {@link #inRange(BaseDroid)}.</li>
  *   <li>Хелпер {@link #isAlive()}.</li>
  *   <li>Косметичний фікс {@link #toString()}.</li>
+ *   <li>Один спільний {@code Scanner} консолі замість окремого на кожен екземпляр.</li>
+ *   <li>Скидання до початкових характеристик {@link #resetToTemplate(int)} для {@link DroidPool}.</li>
+ *   <li>Лічильник завданої шкоди {@link #getDamageDealt()} для історії боїв.</li>
  * </ul>
- *
- * <p>Ці зміни не вимагають правок у класах-нащадках.</p>
  */
 public abstract class BaseDroid {
 
     /** Спільний генератор випадкових чисел для всіх екземплярів. */
     private static final Random RNG = new Random();
 
-    Scanner sc = new Scanner(System.in);
+    /** Спільний ввід з консолі для меню дій (один на всі екземпляри). */
+    static final Scanner sc = new Scanner(System.in);
 
     /** (Необов'язково) Константи меж арени — можна використовувати у нащадках. */
     public static int arenaMin = 0;
@@ -57,6 +65,18 @@ public abstract class BaseDroid {
     /** Ім'я/тип дроїда для відображення. */
     protected String name;
 
+    /** Спільний шаблон типу — до нього повертає {@link #resetToTemplate(int)}. */
+    private DroidTemplate template;
+
+    /** Рушій статус-ефектів поточного бою ({@code null} — ефекти діють назавжди). */
+    protected EffectEngine effects;
+
+    /** Скільки шкоди дроїд завдав за поточний бій. */
+    private int damageDealt;
+
+    /** Вузол в індексі поранених союзників команди ({@code null} — дроїд поза індексом). */
+    WoundedIndex.Node wounded;
+
     /**
      * Порожній конструктор за замовчуванням (корисний для серіалізації/тестів).
      * Ініціалізує поля нульовими/дефолтними значеннями.
@@ -70,6 +90,7 @@ public abstract class BaseDroid {
         this.currentPosition = 0;
         this.element = "unknown";
         this.name = "noname";
+        this.template = new DroidTemplate(-1, name, 0, 0, 0, 0, element);
     }
 
     /**
@@ -92,6 +113,62 @@ public abstract class BaseDroid {
         this.attack = attack;
         this.currentPosition = RNG.nextInt((arenaMax - arenaMin) + 1) + arenaMin;
         this.element = element;
+        this.template = new DroidTemplate(-1, name, maxHp, moveSpeed, range, attack, element);
+    }
+
+    /**
+     * Конструктор за спільним шаблоном типу (повний HP, випадкова позиція).
+     *
+     * @param template шаблон характеристик
+     */
+    public BaseDroid(DroidTemplate template) {
+        this.template = template;
+        this.name = template.name();
+        this.maxHp = template.maxHp();
+        this.currentHp = template.maxHp();
+        this.moveSpeed = template.moveSpeed();
+        this.range = template.range();
+        this.attack = template.attack();
+        this.currentPosition = RNG.nextInt((arenaMax - arenaMin) + 1) + arenaMin;
+        this.element = template.element();
+    }
+
+    /** @return шаблон, з якого створено дроїда */
+    public DroidTemplate getTemplate() { return template; }
+
+    /**
+     * Повернути дроїда до стану щойно створеного екземпляра без виділення пам'яті:
+     * ім'я, HP (повний), швидкість, дальність, атака — з шаблону типу.
+     * Дроїд від'єднується від рушія ефектів та індексу поранених попереднього бою.
+     *
+     * @param position нова позиція
+     */
+    public void resetToTemplate(int position) {
+        if (wounded != null) wounded.index.remove(this);
+        this.effects = null;
+        this.name = template.name();
+        this.maxHp = template.maxHp();
+        this.currentHp = template.maxHp();
+        this.moveSpeed = template.moveSpeed();
+        this.range = template.range();
+        this.attack = template.attack();
+        this.currentPosition = position;
+        this.damageDealt = 0;
+    }
+
+    /**
+     * Скинути дроїда до іншого шаблону того самого типу (наприклад, зміненого балансуванням).
+     *
+     * @param template новий шаблон (стихія має збігатися)
+     * @param position нова позиція
+     * @throws IllegalArgumentException якщо стихія шаблону інша
+     */
+    public void resetToTemplate(DroidTemplate template, int position) {
+        if (!template.element().equals(element)) {
+            throw new IllegalArgumentException("Шаблон " + template.name() + " не підходить для " + name);
+        }
+        this.template = template;
+        resetToTemplate(position);
     }
 
     /** @return базова сила атаки дроїда */
@@ -110,7 +187,10 @@ public abstract class BaseDroid {
      * Примусово встановити позицію (без перевірки меж).
      * @param currentPosition нова позиція
      */
-    public void setCurrentPosition(int currentPosition) { this.currentPosition = currentPosition; }
+    public void setCurrentPosition(int currentPosition) {
+        this.currentPosition = currentPosition;
+        if (wounded != null) wounded.index.positionChanged(wounded);
+    }
 
     /** @return максимальний HP */
     public int getMaxHp() { return maxHp; }
@@ -140,6 +220,7 @@ public abstract class BaseDroid {
 
     public void setMaxHp(int maxHp) {
         this.maxHp = maxHp;
+        if (wounded != null) wounded.index.hpChanged(wounded);
     }
 
     public void setName(String name) {
@@ -152,6 +233,7 @@ public abstract class BaseDroid {
      */
     public void setCurrentHp(int currentHp) {
         this.currentHp = Math.max(0, Math.min(currentHp, maxHp));
+        if (wounded != null) wounded.index.hpChanged(wounded);
     }
 
     /** @return швидкість переміщення у клітинках за крок */
@@ -172,6 +254,18 @@ public abstract class BaseDroid {
     /** @return ім'я/тип дроїда */
     public String getName() { return name; }
 
+    /** @return рушій статус-ефектів поточного бою або {@code null} */
+    public EffectEngine getEffects() { return effects; }
+
+    /** @return індекс поранених союзників команди або {@code null} */
+    public WoundedIndex getWoundedIndex() { return wounded != null ? wounded.index : null; }
+
+    /**
+     * Під'єднати дроїда до рушія статус-ефектів бою.
+     * @param effects рушій ефектів (або {@code null}, щоб ефекти діяли назавжди)
+     */
+    public void setEffects(EffectEngine effects) { this.effects = effects; }
+
     /**
      * Чи живий дроїд.
      * @return true якщо поточний HP більше 0
@@ -185,8 +279,31 @@ public abstract class BaseDroid {
     public void receiveDamage(int damage) {
         int safe = Math.max(0, damage);
         currentHp = Math.max(0, currentHp - safe);
+        if (wounded != null) wounded.index.hpChanged(wounded);
     }
 
+    /**
+     * Завдати шкоди цілі без перевірок і врахувати її у {@link #getDamageDealt()}.
+     * Для атак і здібностей, що б'ють кількох чи за власними правилами.
+     *
+     * @param target ціль
+     * @param damage величина шкоди
+     */
+    public void hit(BaseDroid target, int damage) {
+        target.receiveDamage(damage);
+        addDamageDealt(damage);
+    }
+
+    /** @return скільки шкоди дроїд завдав за поточний бій */
+    public int getDamageDealt() { return damageDealt; }
+
+    /**
+     * Врахувати шкоду, завдану в обхід {@link #hit} (одночасні ходи зливають її самі).
+     *
+     * @param damage величина шкоди
+     */
+    public void addDamageDealt(int damage) { damageDealt += Math.max(0, damage); }
+
     /**
      * Перевірити, чи ціль у радіусі атаки (за модулем різниці позицій).
      * @param defender цільовий дроїд
@@ -205,7 +322,7 @@ public abstract class BaseDroid {
     public boolean giveDamage(BaseDroid defender) {
         if (!isAlive()) return false;
         if (inRange(defender)) {
-            defender.receiveDamage(this.attack);
+            hit(defender, this.attack);
             return true;
         }
         return false;
@@ -217,7 +334,7 @@ public abstract class BaseDroid {
     public void changePosition() {
         int dir = RNG.nextInt(2) == 0 ? -1 : 1;
         int next = this.currentPosition + dir * this.moveSpeed;
-        this.currentPosition = Math.max(arenaMin, Math.min(arenaMax, next));
+        setCurrentPosition(Math.max(arenaMin, Math.min(arenaMax, next)));
     }
 
     /**
@@ -226,12 +343,102 @@ public abstract class BaseDroid {
      *
      * @param attackers команда, до якої належить поточний дроїд (союзники)
      * @param defenders команда супротивника (цілі)
+     * @param console   вивід режиму гри для меню і повідомлень
      */
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders){
-        System.out.println("Введіть 0 для закінчення гри");
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console){
+        console.prompt("Введіть 0 для закінчення гри" + System.lineSeparator());
         return "";
     }
 
+    /**
+     * Зібрати текст меню дій наперед, щоб {@link #actionMenu(List, List, ConsoleSink)} виводив його одним записом.
+     *
+     * @param title   назва дроїда в заголовку меню
+     * @param actions пункти меню (нумеруються з 1)
+     * @return готовий текст меню разом із запрошенням до вводу
+     */
+    protected static String menu(String title, String... actions) {
+        String sep = System.lineSeparator();
+        StringBuilder sb = new StringBuilder();
+        sb.append(sep).append(" Дії ").append(title).append(':').append(sep);
+        sb.append("Введіть 0 для закінчення гри").append(sep);
+        for (int i = 0; i < actions.length; i++) sb.append(i + 1).append(". ").append(actions[i]).append(sep);
+        return sb.append("Оберіть дію: ").toString();
+    }
+
+    // ---------- Планування для одночасних ходів ----------
+
+    /**
+     * Спланувати дію для одночасного ходу, не змінюючи стан жодного дроїда.
+     * Номери дій збігаються з {@link #actionMenu(List, List, ConsoleSink)}: 1 — атака, 2 — здібність, 3 — переміщення.
+     *
+     * @param choice номер дії
+     * @param self   індекс цього дроїда у знімку
+     * @param s      знімок раунду (лише читання)
+     * @param t      індекс цілей поблизу (сегмент арени з гало або все поле)
+     * @param out    буфер намірів поточного потоку
+     * @param rng    генератор випадкових чисел дроїда на цей раунд
+     */
+    public void planAction(int choice, int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        switch (choice) {
+            case 1 -> planStrike(self, s, t, out);
+            case 2 -> planAbility(self, s, t, out, rng);
+            default -> planMove(self, s, out, rng);
+        }
+    }
+
+    /**
+     * Чи діє особлива здібність лише поблизу дроїда (у межах гало сегмента).
+     * Глобальні здібності (землетрус, виверження тощо) плануються з видом на все поле.
+     *
+     * @return true для локальної здібності
+     */
+    public boolean isAbilityLocal() { return true; }
+
+    /**
+     * Звичайна атака: шкода кожному живому ворогу в радіусі (як цикл по defenders у меню).
+     *
+     * @param self індекс цього дроїда
+     * @param s    знімок раунду
+     * @param t    індекс цілей поблизу
+     * @param out  буфер намірів
+     */
+    protected void planStrike(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out) {
+        int enemy = 1 - s.team(self);
+        int lo = t.lowerBound(enemy, (long) s.position(self) - s.range(self));
+        int hi = t.upperBound(enemy, (long) s.position(self) + s.range(self));
+        for (int k = lo; k < hi; k++) out.damage(t.id(enemy, k), s.attack(self));
+        if (out.verbose()) out.message(name + " атакує (влучань: " + (hi - lo) + ")");
+    }
+
+    /**
+     * Особлива здібність. За замовчуванням — звичайна атака; нащадки перевизначають.
+     *
+     * @param self індекс цього дроїда
+     * @param s    знімок раунду
+     * @param t    індекс цілей поблизу (усе поле, якщо {@link #isAbilityLocal()} == false)
+     * @param out  буфер намірів
+     * @param rng  генератор випадкових чисел
+     */
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        planStrike(self, s, t, out);
+    }
+
+    /**
+     * Переміщення на {@link #moveSpeed} ліворуч або праворуч у межах арени (як {@link #changePosition()}).
+     *
+     * @param self індекс цього дроїда
+     * @param s    знімок раунду
+     * @param out  буфер намірів
+     * @param rng  генератор випадкових чисел
+     */
+    protected void planMove(int self, RoundSnapshot s, ActionBuffer out, Random rng) {
+        int dir = rng.nextInt(2) == 0 ? -1 : 1;
+        int next = s.clamp(s.position(self) + dir * s.moveSpeed(self));
+        out.move(self, next);
+        if (out.verbose()) out.message(name + " переміщується на позицію " + next);
+    }
+
     /**
      * Текстове представлення стану дроїда (для логів/дебагу).
      * @return рядок з основними параметрами
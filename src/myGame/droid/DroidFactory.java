@@ -12,6 +12,10 @@ public class DroidFactory {
      * Надає статичні методи для роботи з дроїдами.
      */
     public class DroidConstruct {
+
+        /** Кількість типів дроїдів у каталозі (індекси 0..TYPES-1). */
+        public static final int TYPES = 8;
+
         /**
          * Створює та повертає екземпляр дроїда за вказаним індексом.
          *
@@ -20,41 +24,82 @@ public class DroidFactory {
          * @see BaseDroid
          */
         public static BaseDroid yourDroid(int i) {
-            switch (i) {
-                case 0: return new EarthHammerDroid();
-                case 1: return new EarthBoerDroid();
-                case 2: return new FireBurningDroid();
-                case 3: return new FireFlashDroid();
-                case 4: return new WaterStormDroid();
-                case 5: return new WaterSubmarineDroid();
-                case 6: return new WindFlyingDroid();
-                default: return new WindShadowDroid();
+            return yourDroid(DroidTemplate.of(Math.max(0, Math.min(TYPES - 1, i))));
+        }
+
+        /**
+         * Створює дроїда типу шаблону з характеристиками цього шаблону
+         * (для засобів балансування зі зміненими шаблонами).
+         *
+         * @param t шаблон (індекс типу 0-7)
+         * @return екземпляр відповідного дроїда
+         */
+        public static BaseDroid yourDroid(DroidTemplate t) {
+            switch (t.type()) {
+                case 0: return new EarthHammerDroid(t);
+                case 1: return new EarthBoerDroid(t);
+                case 2: return new FireBurningDroid(t);
+                case 3: return new FireFlashDroid(t);
+                case 4: return new WaterStormDroid(t);
+                case 5: return new WaterSubmarineDroid(t);
+                case 6: return new WindFlyingDroid(t);
+                default: return new WindShadowDroid(t);
             }
         }
 
+        /**
+         * Індекс типу дроїда у каталозі — обернене до {@link #yourDroid(int)}.
+         *
+         * @param d дроїд
+         * @return індекс у діапазоні 0-7
+         */
+        public static int typeOf(BaseDroid d) {
+            int type = d.getTemplate().type();
+            if (type >= 0) return type;
+            if (d instanceof EarthHammerDroid) return 0;
+            if (d instanceof EarthBoerDroid) return 1;
+            if (d instanceof FireBurningDroid) return 2;
+            if (d instanceof FireFlashDroid) return 3;
+            if (d instanceof WaterStormDroid) return 4;
+            if (d instanceof WaterSubmarineDroid) return 5;
+            if (d instanceof WindFlyingDroid) return 6;
+            return 7;
+        }
+
+        /**
+         * Текст каталогу всіх доступних дроїдів. Будується з шаблонів один раз
+         * і далі лише повторно виводиться (консоль, лог).
+         *
+         * @return готовий текст каталогу
+         * @see DroidTemplate#toString()
+         */
+        public static String catalogText() {
+            return Catalog.TEXT;
+        }
+
         /**
          * Виводить у консоль каталог всіх доступних дроїдів з їх характеристиками.
          * Включає інформацію про здоров'я, атаку, швидкість, дальність та елемент кожного дроїда.
          *
-         * @see BaseDroid#toString()
+         * @see #catalogText()
          */
         public static void catalogDroid() {
-            BaseDroid[] droids = {
-                    new EarthHammerDroid(),
-                    new EarthBoerDroid(),
-                    new FireBurningDroid(),
-                    new FireFlashDroid(),
-                    new WaterStormDroid(),
-                    new WaterSubmarineDroid(),
-                    new WindFlyingDroid(),
-                    new WindShadowDroid()
-            };
-
-            System.out.println("Каталог доступних дроїдів:\n");
-            for (int i = 0; i < droids.length; i++) {
-                System.out.println(i + ". " + droids[i]);
-                System.out.println("----------------------------");
+            System.out.print(catalogText());
+        }
+    }
+
+    /** Лінива ініціалізація тексту каталогу (при першому зверненні). */
+    private static final class Catalog {
+        static final String TEXT = render();
+
+        private static String render() {
+            String sep = System.lineSeparator();
+            StringBuilder sb = new StringBuilder("Каталог доступних дроїдів:\n").append(sep);
+            for (DroidTemplate t : DroidTemplate.CATALOG) {
+                sb.append(t.type()).append(". ").append(t).append(sep);
+                sb.append("----------------------------").append(sep);
             }
+            return sb.toString();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package myGame.droid;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static myGame.droid.DroidFactory.DroidConstruct.TYPES;
+import static myGame.droid.DroidFactory.DroidConstruct.typeOf;
+import static myGame.droid.DroidFactory.DroidConstruct.yourDroid;
+
+/**
+ * Пул дроїдів для масових симуляцій: окремий на кожен потік, з ключем за типом.
+ *
+ * <p>Замість створення нових дроїдів на кожен бій ({@link DroidFactory.DroidConstruct#yourDroid(int)})
+ * пакетний запуск бере дроїда з пулу і повертає його після бою. Повторно виданий дроїд
+ * скидається до шаблону свого типу ({@link BaseDroid#resetToTemplate(DroidTemplate, int)}), тож у сталому
+ * режимі бій не виділяє пам'яті на дроїдів.</p>
+ *
+ * <p>Пул не потокобезпечний — кожен потік отримує власний через {@link #local()}.</p>
+ */
+public final class DroidPool {
+
+    private static final ThreadLocal<DroidPool> LOCAL = ThreadLocal.withInitial(DroidPool::new);
+
+    /** Вільні дроїди за індексом типу. */
+    private final List<ArrayDeque<BaseDroid>> free = new ArrayList<>(TYPES);
+
+    private long created;
+    private long reused;
+
+    /** Створити окремий пул (зазвичай достатньо {@link #local()}). */
+    public DroidPool() {
+        for (int t = 0; t < TYPES; t++) free.add(new ArrayDeque<>());
+    }
+
+    /** @return пул поточного потоку */
+    public static DroidPool local() { return LOCAL.get(); }
+
+    /**
+     * Взяти дроїда вказаного типу з випадковою позицією в межах арени.
+     * Генератор передає викликач, тож бій із зерном відтворюється.
+     *
+     * @param type індекс типу 0-7
+     * @param rng  генератор бою
+     * @return дроїд у стані щойно створеного
+     */
+    public BaseDroid acquire(int type, Random rng) {
+        int pos = rng.nextInt(BaseDroid.getArenaMin(), BaseDroid.getArenaMax() + 1);
+        return acquire(type, pos);
+    }
+
+    /**
+     * Взяти дроїда вказаного типу на заданій позиції.
+     *
+     * @param type     індекс типу 0-7
+     * @param position позиція
+     * @return дроїд у стані щойно створеного
+     */
+    public BaseDroid acquire(int type, int position) {
+        return acquire(DroidTemplate.of(type), position);
+    }
+
+    /**
+     * Взяти дроїда типу шаблону з характеристиками цього шаблону
+     * (стандартного або зміненого балансуванням).
+     *
+     * @param template шаблон
+     * @param position позиція
+     * @return дроїд у стані щойно створеного за шаблоном
+     */
+    public BaseDroid acquire(DroidTemplate template, int position) {
+        BaseDroid d = free.get(template.type()).pollLast();
+        if (d == null) {
+            created++;
+            d = yourDroid(template);
+        } else {
+            reused++;
+        }
+        d.resetToTemplate(template, position);
+        return d;
+    }
+
+    /**
+     * Повернути дроїда до пулу. Після цього дроїда не можна використовувати.
+     *
+     * @param d дроїд
+     */
+    public void release(BaseDroid d) {
+        if (d != null) free.get(typeOf(d)).addLast(d);
+    }
+
+    /**
+     * Повернути до пулу всю команду.
+     *
+     * @param team команда
+     */
+    public void releaseAll(List<BaseDroid> team) {
+        for (BaseDroid d : team) release(d);
+    }
+
+    /** @return скільки дроїдів пул створив (промахи) */
+    public long created() { return created; }
+
+    /** @return скільки разів дроїда видано повторно (влучання) */
+    public long reused() { return reused; }
+}
@@ -0,0 +1,68 @@
+package myGame.droid;
+
+import java.util.List;
+
+/**
+ * Незмінний шаблон характеристик типу дроїда (flyweight).
+ *
+ * <p>Один шаблон на тип спільно використовують усі екземпляри цього типу:
+ * конструктори дроїдів, каталог, пул ({@link DroidPool}) і засоби балансування.
+ * Для експериментів з балансом можна створити змінену копію через {@code with...}
+ * і передати її у {@link DroidFactory.DroidConstruct#yourDroid(DroidTemplate)}.</p>
+ *
+ * @param type      індекс типу у каталозі (0-7)
+ * @param name      ім'я для відображення
+ * @param maxHp     максимальний HP
+ * @param moveSpeed швидкість переміщення
+ * @param range     дальність атаки
+ * @param attack    сила атаки
+ * @param element   стихія
+ */
+public record DroidTemplate(int type, String name, int maxHp, int moveSpeed, int range, int attack, String element) {
+
+    public static final DroidTemplate HAMMER = new DroidTemplate(0, "HammerDroid", 150, 2, 1, 50, "earth");
+    public static final DroidTemplate BOER = new DroidTemplate(1, "BoerDroid", 200, 1, 1, 70, "earth");
+    public static final DroidTemplate BURNING = new DroidTemplate(2, "BurningDroid", 100, 2, 2, 75, "fire");
+    public static final DroidTemplate FLASH = new DroidTemplate(3, "FlashDroid", 75, 1, 2, 100, "fire");
+    public static final DroidTemplate STORM = new DroidTemplate(4, "StormDroid", 125, 2, 2, 70, "water");
+    public static final DroidTemplate SUBMARINE = new DroidTemplate(5, "SubmarineDroid", 175, 1, 2, 80, "water");
+    public static final DroidTemplate FLYING = new DroidTemplate(6, "FlyingDroid ", 105, 2, 3, 50, "wind");
+    public static final DroidTemplate SHADOW = new DroidTemplate(7, "ShadowDroid", 105, 3, 2, 60, "wind");
+
+    /** Каталог шаблонів у порядку індексів типів. */
+    public static final List<DroidTemplate> CATALOG =
+            List.of(HAMMER, BOER, BURNING, FLASH, STORM, SUBMARINE, FLYING, SHADOW);
+
+    /**
+     * @param type індекс типу 0-7
+     * @return стандартний шаблон типу
+     */
+    public static DroidTemplate of(int type) { return CATALOG.get(type); }
+
+    /** @param v новий максимальний HP @return копія шаблону */
+    public DroidTemplate withMaxHp(int v) { return new DroidTemplate(type, name, v, moveSpeed, range, attack, element); }
+
+    /** @param v нова швидкість @return копія шаблону */
+    public DroidTemplate withMoveSpeed(int v) { return new DroidTemplate(type, name, maxHp, v, range, attack, element); }
+
+    /** @param v нова дальність @return копія шаблону */
+    public DroidTemplate withRange(int v) { return new DroidTemplate(type, name, maxHp, moveSpeed, v, attack, element); }
+
+    /** @param v нова атака @return копія шаблону */
+    public DroidTemplate withAttack(int v) { return new DroidTemplate(type, name, maxHp, moveSpeed, range, v, element); }
+
+    /**
+     * Рядок каталогу (як {@link BaseDroid#toString()}, але без позиції).
+     *
+     * @return текстове представлення шаблону
+     */
+    @Override
+    public String toString() {
+        return name +
+                " HP=" + maxHp + "/" + maxHp +
+                " ms=" + moveSpeed +
+                " range=" + range +
+                " atk=" + attack +
+                " element=" + element;
+    }
+}
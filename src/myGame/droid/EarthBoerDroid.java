@@ -1,5 +1,10 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
 import java.util.Random;
 
@@ -19,6 +24,12 @@ import java.util.Random;
  */
 public class EarthBoerDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Earth Boer Droid",
+            "Др-дрррр (нанести шкоду буром)",
+            "Пробурити тунель (опинитись на новому випадковому місці)",
+            "Підійти");
+
     /**
      * Створює нового дроїда "BoerDroid" із фіксованими характеристиками:
      * <ul>
@@ -30,7 +41,16 @@ public class EarthBoerDroid extends BaseDroid {
      * </ul>
      */
     public EarthBoerDroid() {
-        super("BoerDroid", 200, 200, 1, 1, 70, "earth");
+        this(DroidTemplate.BOER);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public EarthBoerDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
@@ -43,6 +63,16 @@ public class EarthBoerDroid extends BaseDroid {
         this.setCurrentPosition(rand.nextInt(10));
     }
 
+    /**
+     * Тунель у одночасному ході: перехід на випадкову позицію в межах арени.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        int next = s.arenaMin() + rng.nextInt(s.arenaMax() - s.arenaMin() + 1);
+        out.move(self, next);
+        if (out.verbose()) out.message(name + " бурить тунель на позицію " + next);
+    }
+
     /**
      * Відображає меню доступних дій і виконує обрану.
      * <p>
@@ -55,16 +85,12 @@ public class EarthBoerDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда супротивників (потенційні цілі для атаки)
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Earth Boer Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Др-дрррр (нанести шкоду буром)");
-        System.out.println("2. Пробурити тунель (опинитись на новому випадковому місці)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -101,7 +127,7 @@ public class EarthBoerDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
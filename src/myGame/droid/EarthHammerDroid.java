@@ -1,7 +1,13 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 
 /**
  * Клас {@code earthHammerDroid} — наземний дроїд-воїн з величезним молотом.
@@ -21,6 +27,12 @@ import java.util.Objects;
  */
 public class EarthHammerDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Earth Hammer Droid",
+            "Hammer (нанести шкоду молотом)",
+            "Зробити землетрус (шкода всім нелітаючим юнітам)",
+            "Підійти");
+
     /**
      * Створює нового дроїда "HammerDroid" із фіксованими характеристиками:
      * <ul>
@@ -32,7 +44,16 @@ public class EarthHammerDroid extends BaseDroid {
      * </ul>
      */
     public EarthHammerDroid() {
-        super("HammerDroid", 150, 150, 2, 1, 50, "earth");
+        this(DroidTemplate.HAMMER);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public EarthHammerDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
@@ -57,9 +78,28 @@ public class EarthHammerDroid extends BaseDroid {
         for (BaseDroid droid : receivers) {
             String el = droid.getElement();
             if (!Objects.equals(el, "wind")) {
-                droid.receiveDamage(this.getAttack());
+                hit(droid, this.getAttack());
+            }
+        }
+    }
+
+    /** Глобальна здібність: землетрус зачіпає все поле. */
+    @Override
+    public boolean isAbilityLocal() { return false; }
+
+    /**
+     * Землетрус у одночасному ході: шкода всім живим нелітаючим дроїдам обох команд
+     * (включно із союзниками), як {@link #earthquake(List, List)}.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        for (int team = 0; team < 2; team++) {
+            for (int k = 0; k < t.size(team); k++) {
+                int j = t.id(team, k);
+                if (!Objects.equals(s.element(j), "wind")) out.damage(j, s.attack(self));
             }
         }
+        if (out.verbose()) out.message(name + " спричиняє землетрус!");
     }
 
     /**
@@ -74,16 +114,12 @@ public class EarthHammerDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд (союзники)
      * @param defenders команда супротивників
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Earth Hammer Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Hammer (нанести шкоду молотом)");
-        System.out.println("2. Зробити землетрус (шкода всім нелітаючим юнітам)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -122,7 +158,7 @@ public class EarthHammerDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
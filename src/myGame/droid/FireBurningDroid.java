@@ -1,6 +1,12 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
+import java.util.Random;
 
 /**
  * Клас {@code fireBurningDroid} — вогняний дроїд-дамер.
@@ -21,6 +27,12 @@ import java.util.List;
  */
 public class FireBurningDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Fire Burning Droid",
+            "Атака вогняним кулаком",
+            "Вогнемет (нанести шкоду вогнем всім невогняним героям на дистанції атаки)",
+            "Підійти");
+
     /**
      * Створює дроїда "BurningDroid" з фіксованими параметрами:
      * <ul>
@@ -33,7 +45,16 @@ public class FireBurningDroid extends BaseDroid {
      * </ul>
      */
     public FireBurningDroid() {
-        super("BurningDroid", 100, 100, 2, 2, 75, "fire");
+        this(DroidTemplate.BURNING);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public FireBurningDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
@@ -51,6 +72,25 @@ public class FireBurningDroid extends BaseDroid {
         }
     }
 
+    /**
+     * Вогнемет у одночасному ході: шкода всім живим невогняним ворогам у радіусі,
+     * як {@link #flameThrower(List)}.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        int enemy = 1 - s.team(self);
+        int lo = t.lowerBound(enemy, (long) s.position(self) - s.range(self));
+        int hi = t.upperBound(enemy, (long) s.position(self) + s.range(self));
+        int hits = 0;
+        for (int k = lo; k < hi; k++) {
+            int j = t.id(enemy, k);
+            if ("fire".equals(s.element(j))) continue;
+            out.damage(j, s.attack(self));
+            hits++;
+        }
+        if (out.verbose()) out.message(name + " випускає вогнемет (влучань: " + hits + ")");
+    }
+
     /**
      * Відображає меню дій і виконує обрану дію.
      * <ol>
@@ -61,16 +101,12 @@ public class FireBurningDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда противника
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Fire Burning Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Атака вогняним кулаком");
-        System.out.println("2. Вогнемет (нанести шкоду вогнем всім невогняним героям на дистанції атаки)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -109,7 +145,7 @@ public class FireBurningDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
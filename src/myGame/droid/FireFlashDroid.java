@@ -1,5 +1,10 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
 import java.util.Random;
 
@@ -21,6 +26,12 @@ import java.util.Random;
  */
 public class FireFlashDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Fire Flash Droid",
+            "Атака вогняним кулаком",
+            "Виверження (сильний урон юнітам рандомної позиції)",
+            "Підійти");
+
     /**
      * Створює дроїда "FlashDroid" з фіксованими параметрами:
      * <ul>
@@ -33,7 +44,16 @@ public class FireFlashDroid extends BaseDroid {
      * </ul>
      */
     public FireFlashDroid() {
-        super("FlashDroid", 75, 75, 1, 2, 100, "fire");
+        this(DroidTemplate.FLASH);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public FireFlashDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
@@ -46,7 +66,7 @@ public class FireFlashDroid extends BaseDroid {
     public void giveVolcanicEruptionDamage(List<BaseDroid> team, int position) {
         for (BaseDroid temp : team) {
             if (temp.getCurrentPosition() == position) {
-                temp.receiveDamage(this.getAttack());
+                hit(temp, this.getAttack());
             }
         }
     }
@@ -57,13 +77,32 @@ public class FireFlashDroid extends BaseDroid {
      *
      * @param team1 перша команда (зазвичай союзники)
      * @param team2 друга команда (зазвичай супротивники)
+     * @return позиція, по якій пройшло виверження
      */
-    public void volcanicEruption(List<BaseDroid> team1, List<BaseDroid> team2) {
+    public int volcanicEruption(List<BaseDroid> team1, List<BaseDroid> team2) {
         Random rand = new Random();
         int randomNum = rand.nextInt(10); // позиції 0..9
-        System.out.println(this.name + " атакує позицію " + randomNum);
         giveVolcanicEruptionDamage(team1, randomNum);
         giveVolcanicEruptionDamage(team2, randomNum);
+        return randomNum;
+    }
+
+    /** Глобальна здібність: виверження б'є у випадкову точку всієї арени. */
+    @Override
+    public boolean isAbilityLocal() { return false; }
+
+    /**
+     * Виверження у одночасному ході: шкода всім живим дроїдам обох команд
+     * на випадковій позиції арени.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        int target = s.arenaMin() + rng.nextInt(s.arenaMax() - s.arenaMin() + 1);
+        for (int team = 0; team < 2; team++) {
+            int hi = t.upperBound(team, target);
+            for (int k = t.lowerBound(team, target); k < hi; k++) out.damage(t.id(team, k), s.attack(self));
+        }
+        if (out.verbose()) out.message(name + " спричиняє виверження на позиції " + target);
     }
 
     /**
@@ -76,16 +115,12 @@ public class FireFlashDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда супротивників
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Fire Flash Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Атака вогняним кулаком");
-        System.out.println("2. Виверження (сильний урон юнітам рандомної позиції)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -112,7 +147,8 @@ public class FireFlashDroid extends BaseDroid {
                 break;
 
             case 2:
-                volcanicEruption(attackers, defenders);
+                int position = volcanicEruption(attackers, defenders);
+                actionResult.append(this.getName()).append(" атакує позицію ").append(position).append('\n');
                 actionResult.append(this.getName())
                         .append(" спричиняє виверження лави! Земля тремтить!\n");
                 break;
@@ -124,7 +160,7 @@ public class FireFlashDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
@@ -0,0 +1,50 @@
+package myGame.droid;
+
+/**
+ * Політика вибору союзника для лікування.
+ *
+ * <p>Ваговий порядок ({@link #MOST_MISSING}, {@link #LOWEST_PERCENT}) обслуговує
+ * індексована купа у {@link WoundedIndex}; {@link #NEAREST} — впорядкований
+ * за позицією набір поранених.</p>
+ */
+public enum HealPolicy {
+
+    /** Найбільше втраченого HP (maxHp - currentHp). */
+    MOST_MISSING {
+        @Override
+        int compare(BaseDroid a, BaseDroid b) {
+            return Integer.compare(b.getMaxHp() - b.getCurrentHp(), a.getMaxHp() - a.getCurrentHp());
+        }
+    },
+
+    /** Найменший відсоток HP (currentHp / maxHp). */
+    LOWEST_PERCENT {
+        @Override
+        int compare(BaseDroid a, BaseDroid b) {
+            return Long.compare((long) a.getCurrentHp() * b.getMaxHp(), (long) b.getCurrentHp() * a.getMaxHp());
+        }
+    },
+
+    /** Найближчий до цілителя поранений союзник. */
+    NEAREST {
+        @Override
+        int compare(BaseDroid a, BaseDroid b) {
+            return Integer.compare(a.getCurrentPosition(), b.getCurrentPosition());
+        }
+
+        @Override
+        boolean spatial() { return true; }
+    };
+
+    /**
+     * Порядок пріоритету: від'ємне значення — {@code a} лікується раніше за {@code b}.
+     *
+     * @param a перший дроїд
+     * @param b другий дроїд
+     * @return результат порівняння
+     */
+    abstract int compare(BaseDroid a, BaseDroid b);
+
+    /** @return чи залежить вибір від позиції цілителя */
+    boolean spatial() { return false; }
+}
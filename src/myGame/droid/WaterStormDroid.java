@@ -1,6 +1,12 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
+import java.util.Random;
 
 /**
  * Клас {@code waterStormDroid} — дроїд стихії води з балансом між атакою та підтримкою.
@@ -11,7 +17,7 @@ import java.util.List;
  * <p>Меню дій:
  * <ul>
  *   <li>Хвиля — завдає шкоди ворогу у радіусі атаки</li>
- *   <li>Хіл — повністю відновлює здоров'я першого пораненого союзника</li>
+ *   <li>Хіл — повністю відновлює здоров'я пораненого союзника (за {@link HealPolicy} команди)</li>
  *   <li>Переміщення — випадкове зміщення {@link #changePosition()}</li>
  * </ul>
  *
@@ -20,6 +26,12 @@ import java.util.List;
  */
 public class WaterStormDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Water Storm Droid",
+            "Хвиля (нанести шкоду стихією)",
+            "Хіл (повністю відновити здоров'я союзника)",
+            "Підійти");
+
     /**
      * Створює дроїда "StormDroid" з фіксованими параметрами:
      * <ul>
@@ -32,25 +44,76 @@ public class WaterStormDroid extends BaseDroid {
      * </ul>
      */
     public WaterStormDroid() {
-        super("StormDroid", 125, 125, 2, 2, 70, "water");
+        this(DroidTemplate.STORM);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public WaterStormDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
-     * Лікує першого союзника у списку, який має неповний запас здоров'я,
-     * відновлюючи його HP до максимального.
-     * <p>Як тільки перший поранений знайдений і вилікуваний, метод завершується.</p>
+     * Лікує пораненого союзника, відновлюючи його HP до максимального.
+     * <p>Якщо дроїд належить до {@link WoundedIndex} команди, ціль обирає індекс
+     * за його {@link HealPolicy} (O(log N), без перебору команди). Інакше лікується
+     * перший союзник у списку з неповним запасом здоров'я.</p>
      *
      * @param friends список союзних дроїдів, серед яких шукається поранений
      */
     public String heal(List<BaseDroid> friends) {
+        WoundedIndex index = getWoundedIndex();
+        if (index != null) {
+            BaseDroid temp = index.best(currentPosition);
+            if (temp == null) return this.getName() + " не підіймає нікому здоров'я";
+            temp.setCurrentHp(temp.getMaxHp());
+            return this.getName() + " підіймає здоров'я " + temp.getName();
+        }
         for (BaseDroid temp : friends) {
             if (temp.getMaxHp() != temp.getCurrentHp()) {
                 temp.setCurrentHp(temp.getMaxHp());
-                System.out.println(this.getName() + " підіймає здоров'я " + temp.getName());
                 return this.getName() + " підіймає здоров'я " + temp.getName();
             }
         }
-        return this.getName() + "не підіймає нікому здоров'я";
+        return this.getName() + " не підіймає нікому здоров'я";
+    }
+
+    /** Глобальна здібність: лікує першого пораненого союзника будь-де на полі. */
+    @Override
+    public boolean isAbilityLocal() { return false; }
+
+    /**
+     * Хіл у одночасному ході: повністю відновлює союзника, обраного {@link WoundedIndex} команди
+     * (або першого за позицією пораненого живого союзника, якщо індексу немає)
+     * (HP на початок раунду), як {@link #heal(List)}.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        WoundedIndex index = getWoundedIndex();
+        if (index != null) {
+            BaseDroid best = index.best(s.position(self));
+            int j = best == null ? -1 : s.indexOf(best);
+            if (j >= 0) {
+                out.heal(j, s.maxHp(j) - s.hp(j));
+                if (out.verbose()) out.message(name + " підіймає здоров'я " + best.getName());
+            } else if (out.verbose()) {
+                out.message(name + " не підіймає нікому здоров'я");
+            }
+            return;
+        }
+        int ally = s.team(self);
+        for (int k = 0; k < t.size(ally); k++) {
+            int j = t.id(ally, k);
+            if (s.hp(j) != s.maxHp(j)) {
+                out.heal(j, s.maxHp(j) - s.hp(j));
+                if (out.verbose()) out.message(name + " підіймає здоров'я " + s.droid(j).getName());
+                return;
+            }
+        }
+        if (out.verbose()) out.message(name + " не підіймає нікому здоров'я");
     }
 
     /**
@@ -63,16 +126,12 @@ public class WaterStormDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда супротивників
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Water Storm Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Хвиля (нанести шкоду стихією)");
-        System.out.println("2. Хіл (повністю відновити здоров'я союзника)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -110,7 +169,7 @@ public class WaterStormDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
@@ -1,5 +1,10 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
 import java.util.Random;
 
@@ -8,13 +13,13 @@ import java.util.Random;
  * <p>
  * Має високий запас здоров'я та підвищену атаку.
  * Його унікальна здатність — {@link #positionNearEnemy(List)},
- * яка дозволяє переміститися ближче до випадкового ворога
+ * яка дозволяє переміститися ближче до найближчого живого ворога
  * (на відстань у 2 позиції).
  *
  * <p>Меню дій:
  * <ul>
  *   <li>Торпеда — завдає шкоди цілі в радіусі</li>
- *   <li>Приплив — переміщує дроїда на 2 клітинки від випадкового супротивника</li>
+ *   <li>Приплив — переміщує дроїда на 2 клітинки від найближчого супротивника</li>
  *   <li>Переміщення — випадкове зміщення {@link #changePosition()}</li>
  * </ul>
  *
@@ -23,6 +28,12 @@ import java.util.Random;
  */
 public class WaterSubmarineDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Water Submarine Droid",
+            "Торпеда (нанести шкоду ракетою)",
+            "Приплив (стає на 2 позиції від противника)",
+            "Підійти");
+
     /**
      * Створює дроїда "SubmarineDroid" з фіксованими параметрами:
      * <ul>
@@ -35,42 +46,69 @@ public class WaterSubmarineDroid extends BaseDroid {
      * </ul>
      */
     public WaterSubmarineDroid() {
-        super("SubmarineDroid", 175, 175, 1, 2, 80, "water");
+        this(DroidTemplate.SUBMARINE);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public WaterSubmarineDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
-     * Переміщує дроїда на 2 клітинки від випадково обраного ворога.
-     * <p>Використовується як унікальна здатність "приплив".</p>
+     * Переміщує дроїда на 2 клітинки від найближчого живого ворога.
+     * <p>Використовується як унікальна здатність "приплив".
+     * Якщо живих ворогів немає, дроїд лишається на місці.</p>
      *
      * @param enemys список ворожих дроїдів
      */
     public void positionNearEnemy(List<BaseDroid> enemys) {
-        Random rand = new Random();
-        this.setCurrentPosition(
-                enemys.get(rand.nextInt(enemys.size())).getCurrentPosition() - 2
-        );
+        BaseDroid nearest = null;
+        for (BaseDroid e : enemys) {
+            if (!e.isAlive()) continue;
+            if (nearest == null || Math.abs(e.getCurrentPosition() - currentPosition)
+                    < Math.abs(nearest.getCurrentPosition() - currentPosition)) {
+                nearest = e;
+            }
+        }
+        if (nearest != null) this.setCurrentPosition(nearest.getCurrentPosition() - 2);
+    }
+
+    /** Глобальна здібність: найближчий ворог може бути будь-де на полі. */
+    @Override
+    public boolean isAbilityLocal() { return false; }
+
+    /**
+     * Приплив у одночасному ході: стає на 2 позиції лівіше найближчого живого ворога
+     * (запит до індексу цілей за O(log N)), як {@link #positionNearEnemy(List)}.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        int j = t.nearest(1 - s.team(self), s.position(self));
+        if (j < 0) return;
+        out.move(self, s.clamp(s.position(j) - 2));
+        if (out.verbose()) out.message(name + " виринає поруч із " + s.droid(j).getName());
     }
 
     /**
      * Відображає меню дій та виконує вибір гравця.
      * <ol>
      *   <li>Торпеда — одиночна атака по першій доступній цілі</li>
-     *   <li>Приплив — переміщення на 2 клітинки від випадкового ворога {@link #positionNearEnemy(List)}</li>
+     *   <li>Приплив — переміщення на 2 клітинки від найближчого ворога {@link #positionNearEnemy(List)}</li>
      *   <li>Підійти — переміщення {@link #changePosition()}</li>
      * </ol>
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда супротивників
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Water Submarine Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Торпеда (нанести шкоду ракетою)");
-        System.out.println("2. Приплив (стає на 2 позиції від противника)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -109,7 +147,7 @@ public class WaterSubmarineDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
@@ -1,6 +1,12 @@
 package myGame.droid;
 
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
+import java.util.Random;
 
 /**
  * Клас {@code windFlyingDroid} — швидкий повітряний дроїд стихії вітру.
@@ -21,6 +27,12 @@ import java.util.List;
  */
 public class WindFlyingDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Wind Flying Droid",
+            "Порив вітру (нанести шкоду стихією)",
+            "Бомбардування (пролітає 3 позиції та наносить шкоду)",
+            "Підійти");
+
     /**
      * Створює дроїда "FlyingDroid" з фіксованими параметрами:
      * <ul>
@@ -33,7 +45,16 @@ public class WindFlyingDroid extends BaseDroid {
      * </ul>
      */
     public WindFlyingDroid() {
-        super("FlyingDroid ", 105, 105, 2, 3, 50, "wind");
+        this(DroidTemplate.FLYING);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public WindFlyingDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
@@ -45,7 +66,7 @@ public class WindFlyingDroid extends BaseDroid {
     public void bombAttack(List<BaseDroid> team) {
         for (BaseDroid d : team) {
             if (this.getCurrentPosition() == d.getCurrentPosition() && this != d) {
-                d.receiveDamage(this.getAttack());
+                hit(d, this.getAttack());
             }
         }
     }
@@ -82,6 +103,30 @@ public class WindFlyingDroid extends BaseDroid {
         }
     }
 
+    /**
+     * Бомбардування у одночасному ході: проліт на 3 клітинки до центру арени
+     * з шкодою всім живим дроїдам на кожній пройденій позиції, як {@link #bombingPath(List, List)}.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        int step = s.position(self) > (s.arenaMin() + s.arenaMax()) / 2 ? -1 : 1;
+        int p = s.position(self);
+        for (int hop = 0; hop < 3; hop++) {
+            int next = s.clamp(p + step);
+            if (next == p) break; // край арени (вузька арена): далі летіти нікуди
+            p = next;
+            for (int team = 0; team < 2; team++) {
+                int hi = t.upperBound(team, p);
+                for (int k = t.lowerBound(team, p); k < hi; k++) {
+                    int j = t.id(team, k);
+                    if (j != self) out.damage(j, s.attack(self));
+                }
+            }
+        }
+        out.move(self, p);
+        if (out.verbose()) out.message(name + " бомбить позиції до " + p);
+    }
+
     /**
      * Відображає меню дій і виконує обрану дію гравця.
      * <ol>
@@ -92,16 +137,12 @@ public class WindFlyingDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда супротивників
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
 
-        System.out.println("\n Дії Wind Flying Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Порив вітру (нанести шкоду стихією)");
-        System.out.println("2. Бомбардування (пролітає 3 позиції та наносить шкоду)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -140,7 +181,7 @@ public class WindFlyingDroid extends BaseDroid {
                 break;
 
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
 
         return actionResult.toString();
@@ -1,6 +1,13 @@
 package myGame.droid;
 
+import myGame.effect.StatusEffect;
+import myGame.mode.ConsoleSink;
+import myGame.sim.ActionBuffer;
+import myGame.sim.RoundSnapshot;
+import myGame.sim.TargetingIndex;
+
 import java.util.List;
+import java.util.Random;
 
 /**
  * Клас {@code windShadowDroid} — вітряний дроїд-скритник.
@@ -11,7 +18,7 @@ import java.util.List;
  * <p>Меню дій:
  * <ul>
  *   <li>Тіньовий удар — одиночна атака по цілі в радіусі</li>
- *   <li>Затемнення — знижує дальність атаки вибраної групи дроїдів до 1</li>
+ *   <li>Затемнення — знижує дальність атаки вибраної групи дроїдів до 1 на кілька раундів</li>
  *   <li>Переміщення — випадкове зміщення {@link #changePosition()}</li>
  * </ul>
  *
@@ -20,6 +27,12 @@ import java.util.List;
  */
 public class WindShadowDroid extends BaseDroid {
 
+    /** Меню дій, зібране один раз. */
+    private static final String MENU = menu("Wind Shadow Droid",
+            "Тіньовий удар ",
+            "Затемнення (зменшує дальність атаки противнику до 1 на " + StatusEffect.BLINDNESS_ROUNDS + " раунди)",
+            "Підійти");
+
     /**
      * Створює дроїда "ShadowDroid" з фіксованими параметрами:
      * <ul>
@@ -32,21 +45,49 @@ public class WindShadowDroid extends BaseDroid {
      * </ul>
      */
     public WindShadowDroid() {
-        super("ShadowDroid", 105, 105, 3, 2, 60, "wind");
+        this(DroidTemplate.SHADOW);
+    }
+
+    /**
+     * Створює дроїда за заданим шаблоном (наприклад, зміненим під час балансування).
+     *
+     * @param template шаблон характеристик цього типу
+     */
+    public WindShadowDroid(DroidTemplate template) {
+        super(template);
     }
 
     /**
      * Зменшує дальність атаки ({@code range}) усім дроїдам зі списку до 1.
-     * <p>Використовується як ефект "затемнення".</p>
+     * <p>Використовується як ефект "затемнення": у бою з рушієм ефектів дальність
+     * повертається через {@link StatusEffect#BLINDNESS_ROUNDS} раунди, без нього — діє назавжди.</p>
      *
      * @param receivers список дроїдів, на яких накладається ефект
      */
     public void makeBasVision(List<BaseDroid> receivers) {
         for (BaseDroid droid : receivers) {
-            droid.setRange(1);
+            if (effects != null) {
+                effects.apply(droid, StatusEffect.BLINDNESS);
+            } else {
+                droid.setRange(1);
+            }
         }
     }
 
+    /** Глобальна здібність: затемнення накриває всю команду супротивника. */
+    @Override
+    public boolean isAbilityLocal() { return false; }
+
+    /**
+     * Затемнення у одночасному ході: накладає {@link StatusEffect#BLINDNESS} на всіх живих ворогів.
+     */
+    @Override
+    protected void planAbility(int self, RoundSnapshot s, TargetingIndex t, ActionBuffer out, Random rng) {
+        int enemy = 1 - s.team(self);
+        for (int k = 0; k < t.size(enemy); k++) out.effect(t.id(enemy, k), StatusEffect.BLINDNESS);
+        if (out.verbose()) out.message(name + " зменшує видимість!");
+    }
+
     /**
      * Відображає меню дій і виконує обрану дію гравця.
      * <ol>
@@ -57,15 +98,11 @@ public class WindShadowDroid extends BaseDroid {
      *
      * @param attackers команда, до якої належить цей дроїд
      * @param defenders команда супротивників
+     * @param console   вивід режиму гри для меню і повідомлень
      */
     @Override
-    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders) {
-        System.out.println("\n Дії Wind Shadow Droid:");
-        super.actionMenu(attackers, defenders);
-        System.out.println("1. Тіньовий удар ");
-        System.out.println("2. Затемнення (зменшує дальність атаки противнику до 1)");
-        System.out.println("3. Підійти");
-        System.out.print("Оберіть дію: ");
+    public String actionMenu(List<BaseDroid> attackers, List<BaseDroid> defenders, ConsoleSink console) {
+        console.prompt(MENU);
 
         int choice = sc.nextInt();
         if (choice == 0) {
@@ -92,7 +129,7 @@ public class WindShadowDroid extends BaseDroid {
                 actionResult.append(this.getName()).append(" міняє позицію!").append("\n");
                 break;
             default:
-                System.out.println("Невірний вибір!");
+                console.println("Невірний вибір!");
         }
         return actionResult.toString();
     }
@@ -0,0 +1,204 @@
+package myGame.droid;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Індекс поранених союзників однієї команди для вибору цілі лікування.
+ *
+ * <p>Містить лише живих дроїдів з неповним HP. Дроїди самі повідомляють індекс
+ * про зміну HP ({@link BaseDroid#receiveDamage(int)}, {@link BaseDroid#setCurrentHp(int)})
+ * та позиції, тож оновлення коштує O(log N), а вибір цілі — O(1) для купи
+ * або O(log N) для {@link HealPolicy#NEAREST}, без перебору команди.</p>
+ *
+ * <p>Клас не потокобезпечний: змінюється лише там, де змінюється стан дроїдів
+ * (покроковий хід або етап злиття одночасного ходу). Запит {@link #best(int)} нічого
+ * не змінює, тож його можна викликати з кількох потоків планування одночасно.</p>
+ */
+public final class WoundedIndex {
+
+    /**
+     * Стан дроїда в індексі. Дроїд тримає лише посилання на свій вузол;
+     * усі поля належать індексу і змінюються лише ним.
+     */
+    static final class Node {
+        final WoundedIndex index;
+        final BaseDroid droid;
+        /** Порядковий номер для стабільного порядку. */
+        final int serial;
+        /** Позиція у купі (-1 — не в купі). */
+        int slot = -1;
+        /** Позиція, під якою дроїд лежить у просторовому наборі. */
+        int key;
+        /** Чи лежить дроїд у просторовому наборі. */
+        boolean inSet;
+
+        private Node(WoundedIndex index, BaseDroid droid, int serial) {
+            this.index = index;
+            this.droid = droid;
+            this.serial = serial;
+        }
+    }
+
+    private final HealPolicy policy;
+
+    /** Індексована купа для вагових політик. */
+    private Node[] heap = new Node[8];
+    private int size;
+
+    /** Поранені за ключем {@link #key(int, int)} (позиція, порядковий номер) для {@link HealPolicy#NEAREST}. */
+    private final TreeMap<Long, Node> byPosition;
+
+    private int nextSerial;
+
+    /**
+     * @param policy політика вибору цілі
+     */
+    public WoundedIndex(HealPolicy policy) {
+        this.policy = policy;
+        this.byPosition = policy.spatial() ? new TreeMap<>() : null;
+    }
+
+    /** @return політика вибору цілі */
+    public HealPolicy policy() { return policy; }
+
+    /** @return кількість поранених живих союзників */
+    public int size() { return byPosition != null ? byPosition.size() : size; }
+
+    /**
+     * Додати дроїда до команди індексу. Дроїд може належати лише одному індексу.
+     *
+     * @param d дроїд
+     */
+    public void add(BaseDroid d) {
+        if (d.wounded != null) d.wounded.index.remove(d);
+        d.wounded = new Node(this, d, nextSerial++);
+        hpChanged(d.wounded);
+    }
+
+    /**
+     * Вилучити дроїда з індексу.
+     *
+     * @param d дроїд
+     */
+    public void remove(BaseDroid d) {
+        if (d.wounded == null || d.wounded.index != this) return;
+        detach(d.wounded);
+        d.wounded = null;
+    }
+
+    /**
+     * Найкраща ціль лікування за політикою.
+     *
+     * @param healerPosition позиція цілителя (важлива лише для {@link HealPolicy#NEAREST})
+     * @return поранений живий союзник або {@code null}, якщо таких немає
+     */
+    public BaseDroid best(int healerPosition) {
+        if (byPosition == null) return size == 0 ? null : heap[0].droid;
+        if (byPosition.isEmpty()) return null;
+        long probe = key(healerPosition, 0);
+        Map.Entry<Long, Node> l = byPosition.lowerEntry(probe);
+        Map.Entry<Long, Node> r = byPosition.ceilingEntry(probe);
+        if (l == null) return r.getValue().droid;
+        if (r == null) return l.getValue().droid;
+        Node left = l.getValue();
+        Node right = r.getValue();
+        return healerPosition - left.key <= right.key - healerPosition ? left.droid : right.droid;
+    }
+
+    /** Ключ просторового набору: позиція у старших 32 бітах, порядковий номер — у молодших. */
+    private static long key(int position, int serial) {
+        return ((long) position << 32) | (serial & 0xFFFFFFFFL);
+    }
+
+    // ---------- Сповіщення від дроїдів ----------
+
+    /** HP або maxHp дроїда змінився. */
+    void hpChanged(Node n) {
+        BaseDroid d = n.droid;
+        boolean wounded = d.isAlive() && d.getCurrentHp() < d.getMaxHp();
+        boolean indexed = byPosition != null ? n.inSet : n.slot >= 0;
+        if (!wounded) {
+            if (indexed) detach(n);
+            return;
+        }
+        if (byPosition != null) {
+            if (!indexed) {
+                n.key = d.getCurrentPosition();
+                byPosition.put(key(n.key, n.serial), n);
+                n.inSet = true;
+            }
+            return;
+        }
+        if (!indexed) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            heap[size] = n;
+            n.slot = size++;
+            siftUp(n.slot);
+        } else {
+            siftDown(siftUp(n.slot));
+        }
+    }
+
+    /** Позиція дроїда змінилась. */
+    void positionChanged(Node n) {
+        if (byPosition == null || !n.inSet || n.key == n.droid.getCurrentPosition()) return;
+        byPosition.remove(key(n.key, n.serial));
+        n.key = n.droid.getCurrentPosition();
+        byPosition.put(key(n.key, n.serial), n);
+    }
+
+    private void detach(Node n) {
+        if (byPosition != null) {
+            if (n.inSet) byPosition.remove(key(n.key, n.serial));
+            n.inSet = false;
+            return;
+        }
+        int slot = n.slot;
+        if (slot < 0) return;
+        n.slot = -1;
+        Node last = heap[--size];
+        heap[size] = null;
+        if (slot == size) return;
+        heap[slot] = last;
+        last.slot = slot;
+        siftDown(siftUp(slot));
+    }
+
+    // ---------- Купа ----------
+
+    private boolean before(Node a, Node b) {
+        int c = policy.compare(a.droid, b.droid);
+        return c != 0 ? c < 0 : a.serial < b.serial;
+    }
+
+    private int siftUp(int i) {
+        Node x = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(x, heap[parent])) break;
+            heap[i] = heap[parent];
+            heap[i].slot = i;
+            i = parent;
+        }
+        heap[i] = x;
+        x.slot = i;
+        return i;
+    }
+
+    private void siftDown(int i) {
+        Node x = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && before(heap[child + 1], heap[child])) child++;
+            if (!before(heap[child], x)) break;
+            heap[i] = heap[child];
+            heap[i].slot = i;
+            i = child;
+        }
+        heap[i] = x;
+        x.slot = i;
+    }
+}
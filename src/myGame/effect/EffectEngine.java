@@ -0,0 +1,184 @@
+package myGame.effect;
+
+import myGame.droid.BaseDroid;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Рушій статус-ефектів одного бою.
+ *
+ * <p>Накладає ефекти на дроїдів, пам'ятає фактичну зміну кожної характеристики
+ * і відкочує її, коли ефект закінчується. Закінчення обслуговує
+ * {@link TimingWheel}, тому {@link #tick()} коштує амортизовано O(1) на ефект,
+ * що спрацював, і не переглядає дроїдів без активних ефектів.</p>
+ *
+ * <p>Відкат адитивний: знімається рівно та зміна, яку ефект вніс при накладанні,
+ * тож кілька ефектів на одну характеристику можна знімати в довільному порядку.</p>
+ *
+ * <p>Для контрольної точки бою активні накладання можна вивантажити ({@link #active()})
+ * і відновити в новому рушії ({@link #restore(Applied)}).</p>
+ */
+public final class EffectEngine {
+
+    /** Одне накладання ефекту на конкретного дроїда. */
+    private static final class ActiveEffect extends TimingWheel.Timer {
+        final BaseDroid target;
+        final StatusEffect effect;
+        /** Фактична зміна характеристики, внесена ефектом. */
+        int appliedDelta;
+
+        ActiveEffect(BaseDroid target, StatusEffect effect) {
+            this.target = target;
+            this.effect = effect;
+        }
+    }
+
+    /**
+     * Активне накладання ефекту (для контрольної точки бою).
+     *
+     * @param target       дроїд
+     * @param effect       опис ефекту
+     * @param remaining    раундів до закінчення або {@link StatusEffect#PERMANENT}
+     * @param appliedDelta зміна характеристики, яку відкотить закінчення ефекту
+     */
+    public record Applied(BaseDroid target, StatusEffect effect, int remaining, int appliedDelta) { }
+
+    private final TimingWheel<ActiveEffect> wheel = new TimingWheel<>();
+    private final Map<BaseDroid, List<ActiveEffect>> byDroid = new IdentityHashMap<>();
+
+    /**
+     * Накласти ефект на дроїда з урахуванням правила накладання.
+     *
+     * @param target дроїд
+     * @param effect опис ефекту
+     * @return true, якщо ефект накладено або оновлено; false, якщо проігноровано
+     */
+    public boolean apply(BaseDroid target, StatusEffect effect) {
+        if (target == null || effect == null) return false;
+        List<ActiveEffect> list = byDroid.computeIfAbsent(target, k -> new ArrayList<>(2));
+
+        if (effect.stacking() != StackingRule.STACK) {
+            for (ActiveEffect a : list) {
+                if (!a.effect.id().equals(effect.id())) continue;
+                if (effect.stacking() == StackingRule.IGNORE) return false;
+                // REFRESH: характеристику не чіпаємо, лише переносимо таймер
+                if (!effect.isPermanent()) {
+                    wheel.cancel(a);
+                    wheel.schedule(a, effect.duration());
+                }
+                return true;
+            }
+        }
+
+        ActiveEffect a = new ActiveEffect(target, effect);
+        StatType stat = effect.stat();
+        int before = stat.read(target);
+        stat.write(target, effect.absolute() ? effect.value() : before + effect.value());
+        a.appliedDelta = stat.read(target) - before;
+        list.add(a);
+        if (!effect.isPermanent()) wheel.schedule(a, effect.duration());
+        return true;
+    }
+
+    /**
+     * Завершити раунд: зняти всі ефекти, чия тривалість вичерпалась.
+     *
+     * @return кількість знятих ефектів
+     */
+    public int tick() {
+        int[] expired = {0};
+        wheel.advance(a -> {
+            revert(a);
+            detach(a);
+            expired[0]++;
+        });
+        return expired[0];
+    }
+
+    /**
+     * Зняти з дроїда всі ефекти (включно з постійними) та відкотити їхні зміни.
+     *
+     * @param target дроїд
+     */
+    public void clear(BaseDroid target) {
+        List<ActiveEffect> list = byDroid.remove(target);
+        if (list == null) return;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            ActiveEffect a = list.get(i);
+            wheel.cancel(a);
+            revert(a);
+        }
+    }
+
+    /**
+     * Забути всі ефекти дроїда без відкату (наприклад, після скидання стату до шаблону).
+     *
+     * @param target дроїд
+     */
+    public void forget(BaseDroid target) {
+        List<ActiveEffect> list = byDroid.remove(target);
+        if (list == null) return;
+        for (ActiveEffect a : list) wheel.cancel(a);
+    }
+
+    /**
+     * Чи діє на дроїда ефект з вказаним ідентифікатором.
+     *
+     * @param target дроїд
+     * @param id     ідентифікатор ефекту
+     * @return true, якщо ефект активний
+     */
+    public boolean has(BaseDroid target, String id) {
+        List<ActiveEffect> list = byDroid.get(target);
+        if (list == null) return false;
+        for (ActiveEffect a : list) if (a.effect.id().equals(id)) return true;
+        return false;
+    }
+
+    /** @return кількість тимчасових ефектів, що очікують на закінчення */
+    public int pending() { return wheel.size(); }
+
+    /** @return номер поточного раунду колеса (кількість викликів {@link #tick()}) */
+    public long rounds() { return wheel.now(); }
+
+    /** @return усі активні накладання (для кожного дроїда — у порядку накладання) */
+    public List<Applied> active() {
+        List<Applied> out = new ArrayList<>();
+        for (List<ActiveEffect> list : byDroid.values()) {
+            for (ActiveEffect a : list) {
+                int remaining = a.effect.isPermanent() ? StatusEffect.PERMANENT : (int) (a.deadline - wheel.now());
+                out.add(new Applied(a.target, a.effect, remaining, a.appliedDelta));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Відновити накладання з контрольної точки. Характеристика дроїда не змінюється —
+     * вона вже містить {@code appliedDelta}; відновлюється лише таймер і відкат.
+     *
+     * @param applied накладання, вивантажене {@link #active()}
+     */
+    public void restore(Applied applied) {
+        ActiveEffect a = new ActiveEffect(applied.target(), applied.effect());
+        a.appliedDelta = applied.appliedDelta();
+        byDroid.computeIfAbsent(applied.target(), k -> new ArrayList<>(2)).add(a);
+        if (!applied.effect().isPermanent()) wheel.schedule(a, applied.remaining());
+    }
+
+    private static void revert(ActiveEffect a) {
+        StatType stat = a.effect.stat();
+        if (!stat.revertible() || a.appliedDelta == 0) return;
+        stat.write(a.target, stat.read(a.target) - a.appliedDelta);
+    }
+
+    private void detach(ActiveEffect a) {
+        List<ActiveEffect> list = byDroid.get(a.target);
+        if (list == null) return;
+        list.remove(a);
+        if (list.isEmpty()) byDroid.remove(a.target);
+    }
+}
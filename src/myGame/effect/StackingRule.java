@@ -0,0 +1,16 @@
+package myGame.effect;
+
+/**
+ * Правило накладання повторного ефекту з тим самим ідентифікатором на того ж дроїда.
+ */
+public enum StackingRule {
+
+    /** Кожне накладання — окремий екземпляр зі своєю тривалістю. */
+    STACK,
+
+    /** Повторне накладання лише оновлює тривалість уже активного ефекту. */
+    REFRESH,
+
+    /** Повторне накладання ігнорується, поки діє попередній ефект. */
+    IGNORE
+}
@@ -0,0 +1,76 @@
+package myGame.effect;
+
+import myGame.droid.BaseDroid;
+
+/**
+ * Характеристика дроїда, на яку може впливати статус-ефект.
+ *
+ * <p>Кожен елемент уміє прочитати та записати "свою" характеристику,
+ * тому {@link EffectEngine} не потребує окремої логіки для кожного стату.</p>
+ *
+ * <p>{@link #HP} — витратний ресурс: ефект на HP застосовується, але при закінченні
+ * не відкочується (інакше сплив бонусу "вбивав" би пошкодженого дроїда).</p>
+ */
+public enum StatType {
+
+    /** Поточний HP (обрізається до [0..maxHp]). */
+    HP {
+        @Override public int read(BaseDroid d) { return d.getCurrentHp(); }
+        @Override public void write(BaseDroid d, int v) { d.setCurrentHp(v); }
+        @Override public boolean revertible() { return false; }
+    },
+
+    /** Сила атаки. */
+    ATTACK {
+        @Override public int read(BaseDroid d) { return d.getAttack(); }
+        @Override public void write(BaseDroid d, int v) { d.setAttack(v); }
+    },
+
+    /** Дальність атаки. */
+    RANGE {
+        @Override public int read(BaseDroid d) { return d.getRange(); }
+        @Override public void write(BaseDroid d, int v) { d.setRange(v); }
+    },
+
+    /** Швидкість переміщення. */
+    MOVE_SPEED {
+        @Override public int read(BaseDroid d) { return d.getMoveSpeed(); }
+        @Override public void write(BaseDroid d, int v) { d.setMoveSpeed(v); }
+    };
+
+    /**
+     * Прочитати значення характеристики.
+     *
+     * @param d дроїд
+     * @return поточне значення
+     */
+    public abstract int read(BaseDroid d);
+
+    /**
+     * Записати значення характеристики.
+     *
+     * @param d дроїд
+     * @param v нове значення
+     */
+    public abstract void write(BaseDroid d, int v);
+
+    /** @return чи відкочується ефект на цю характеристику після закінчення */
+    public boolean revertible() { return true; }
+
+    /**
+     * Характеристика, яку підсилює бонус карти відповідної стихії.
+     *
+     * @param element стихія карти ("earth", "fire", "water", "wind")
+     * @return відповідна характеристика або {@code null} для невідомої стихії
+     */
+    public static StatType forElement(String element) {
+        if (element == null) return null;
+        return switch (element.toLowerCase()) {
+            case "earth" -> HP;
+            case "fire" -> ATTACK;
+            case "water" -> MOVE_SPEED;
+            case "wind" -> RANGE;
+            default -> null;
+        };
+    }
+}
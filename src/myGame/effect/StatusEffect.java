@@ -0,0 +1,59 @@
+package myGame.effect;
+
+import myGame.map.BaseMap;
+
+/**
+ * Незмінний опис статус-ефекту: що змінюється, на скільки і як довго.
+ *
+ * <p>Один і той самий опис можна накладати на багатьох дроїдів —
+ * стан конкретного накладання зберігає {@link EffectEngine}.</p>
+ *
+ * @param id       ідентифікатор ефекту (для правил накладання)
+ * @param stat     характеристика, на яку діє ефект
+ * @param absolute true — встановити значення {@code value}; false — додати {@code value}
+ * @param value    величина зміни або нове значення
+ * @param duration тривалість у раундах; {@link #PERMANENT} — до кінця бою
+ * @param stacking правило повторного накладання
+ */
+public record StatusEffect(String id, StatType stat, boolean absolute, int value,
+                           int duration, StackingRule stacking) {
+
+    /** Тривалість "до кінця бою". */
+    public static final int PERMANENT = -1;
+
+    /** Тривалість "Затемнення" {@code ShadowDroid} у раундах. */
+    public static final int BLINDNESS_ROUNDS = 3;
+
+    /** "Затемнення": дальність атаки = 1 на {@link #BLINDNESS_ROUNDS} раунди, повтор оновлює таймер. */
+    public static final StatusEffect BLINDNESS =
+            new StatusEffect("blindness", StatType.RANGE, true, 1, BLINDNESS_ROUNDS, StackingRule.REFRESH);
+
+    /**
+     * Ефект-модифікатор, що додає {@code delta} до характеристики.
+     *
+     * @param id       ідентифікатор
+     * @param stat     характеристика
+     * @param delta    зміна
+     * @param duration тривалість у раундах або {@link #PERMANENT}
+     * @param stacking правило накладання
+     * @return опис ефекту
+     */
+    public static StatusEffect add(String id, StatType stat, int delta, int duration, StackingRule stacking) {
+        return new StatusEffect(id, stat, false, delta, duration, stacking);
+    }
+
+    /**
+     * Постійний бонус карти для дроїдів її стихії.
+     *
+     * @param map карта
+     * @return опис ефекту або {@code null}, якщо стихія карти невідома
+     */
+    public static StatusEffect mapBonus(BaseMap map) {
+        StatType stat = StatType.forElement(map.getElement());
+        if (stat == null) return null;
+        return add("map-bonus", stat, map.getBonus(), PERMANENT, StackingRule.IGNORE);
+    }
+
+    /** @return true, якщо ефект діє до кінця бою */
+    public boolean isPermanent() { return duration == PERMANENT; }
+}
@@ -0,0 +1,155 @@
+package myGame.effect;
+
+import java.util.function.Consumer;
+
+/**
+ * Ієрархічне колесо таймерів (hierarchical timing wheel).
+ *
+ * <p>Чотири рівні по 64 слоти покривають 2<sup>24</sup> тіків; довші таймери чекають
+ * у списку переповнення. Кожен таймер за життя переноситься між рівнями не більше
+ * чотирьох разів, тому постановка, скасування і спрацювання мають амортизовану
+ * складність O(1), а крок {@link #advance(Consumer)} не переглядає неактивні таймери.</p>
+ *
+ * <p>Клас не потокобезпечний: одне колесо обслуговує один бій.</p>
+ *
+ * @param <T> тип таймера
+ */
+final class TimingWheel<T extends TimingWheel.Timer> {
+
+    /**
+     * Вузол інтрузивного двозв'язного списку слоту.
+     * Спадкоємці зберігають корисне навантаження таймера.
+     */
+    abstract static class Timer {
+        /** Тік, на якому таймер спрацьовує. */
+        long deadline;
+        Timer prev;
+        Timer next;
+        /** Список, у якому зараз лежить таймер ({@code null} — не заплановано). */
+        Slot owner;
+
+        /** @return чи запланований таймер */
+        boolean scheduled() { return owner != null; }
+    }
+
+    /** Голова списку таймерів одного слоту. */
+    static final class Slot {
+        Timer head;
+    }
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final Slot[][] wheel = new Slot[LEVELS][SLOTS];
+    private final Slot overflow = new Slot();
+
+    /** Поточний тік колеса. */
+    private long now;
+    /** Кількість запланованих таймерів. */
+    private int size;
+
+    TimingWheel() {
+        for (int l = 0; l < LEVELS; l++) {
+            for (int s = 0; s < SLOTS; s++) wheel[l][s] = new Slot();
+        }
+    }
+
+    /** @return поточний тік */
+    long now() { return now; }
+
+    /** @return кількість запланованих таймерів */
+    int size() { return size; }
+
+    /**
+     * Запланувати таймер через {@code delay} тіків (мінімум 1).
+     *
+     * @param t     таймер (не повинен бути вже запланований)
+     * @param delay затримка у тіках
+     */
+    void schedule(T t, long delay) {
+        t.deadline = now + Math.max(1, delay);
+        insert(t);
+        size++;
+    }
+
+    /**
+     * Скасувати таймер за O(1). Незапланований таймер ігнорується.
+     *
+     * @param t таймер
+     */
+    void cancel(T t) {
+        if (!t.scheduled()) return;
+        unlink(t);
+        size--;
+    }
+
+    /**
+     * Перейти на наступний тік і віддати всі таймери, що спрацювали.
+     *
+     * @param expired обробник таймерів, що спрацювали (вже зняті з колеса)
+     */
+    @SuppressWarnings("unchecked")
+    void advance(Consumer<? super T> expired) {
+        now++;
+        cascade();
+        Slot slot = wheel[0][(int) (now & MASK)];
+        while (slot.head != null) {
+            Timer t = slot.head;
+            unlink(t);
+            size--;
+            expired.accept((T) t);
+        }
+    }
+
+    /**
+     * Перенести таймери з вищих рівнів, чиї слоти стали поточними.
+     * Обробка йде згори вниз, щоб перенесені таймери одразу потрапили в нижчі слоти.
+     */
+    private void cascade() {
+        if ((now & MASK) != 0) return;
+        int top = 1;
+        while (top < LEVELS && ((now >>> (SLOT_BITS * top)) & MASK) == 0) top++;
+        if (top == LEVELS) rehash(overflow);
+        for (int l = Math.min(top, LEVELS - 1); l >= 1; l--) {
+            rehash(wheel[l][(int) ((now >>> (SLOT_BITS * l)) & MASK)]);
+        }
+    }
+
+    private void rehash(Slot slot) {
+        Timer t = slot.head;
+        slot.head = null;
+        while (t != null) {
+            Timer next = t.next;
+            t.prev = t.next = null;
+            t.owner = null;
+            insert(t);
+            t = next;
+        }
+    }
+
+    private void insert(Timer t) {
+        long diff = t.deadline ^ now;
+        Slot slot = overflow;
+        for (int l = 0; l < LEVELS; l++) {
+            if ((diff >>> (SLOT_BITS * (l + 1))) == 0) {
+                slot = wheel[l][(int) ((t.deadline >>> (SLOT_BITS * l)) & MASK)];
+                break;
+            }
+        }
+        t.owner = slot;
+        t.prev = null;
+        t.next = slot.head;
+        if (slot.head != null) slot.head.prev = t;
+        slot.head = t;
+    }
+
+    private void unlink(Timer t) {
+        if (t.prev != null) t.prev.next = t.next;
+        else t.owner.head = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.owner = null;
+    }
+}
@@ -0,0 +1,210 @@
+package myGame.history;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Незмінний відсортований прогін вторинного індексу історії.
+ *
+ * <p>Запис прогону — три {@code long}: ключ (вид індексу і хеш значення), час бою
+ * і зміщення запису у файлі даних; записи впорядковані за (ключ, час, зміщення).
+ * Заголовок містить, до якого зміщення файлу даних прогони вже покривають бої,
+ * і найбільший номер бою — з них відновлюється стан без перегляду всієї історії.</p>
+ *
+ * <p>Прогін, злитий з кількох ({@link #merge}), позначається у заголовку: він
+ * містить усі записи прогонів з меншими номерами, тож ті вже зайві. Вхідні прогони
+ * видаляються після злиття, а якщо файл ще відображений (Windows) — при наступному
+ * відкритті бази ({@link #isMerged(Path)}).</p>
+ *
+ * <p>Файл відображається у пам'ять і шукається двійковим пошуком.</p>
+ */
+final class IndexRun {
+
+    static final int ENTRY = 24;
+    private static final int MAGIC = 0x48495258; // "HIRX"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    /** Позначка злитого прогону у заголовку (зміщення 12). */
+    private static final int MERGED = 1;
+
+    final Path file;
+    final long seq;
+    final int count;
+    final long covered;
+    final long maxId;
+    private final MappedByteBuffer map;
+
+    private IndexRun(Path file, long seq, MappedByteBuffer map) throws IOException {
+        this.file = file;
+        this.seq = seq;
+        this.map = map;
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) throw new IOException("Не прогін індексу: " + file);
+        this.count = map.getInt(8);
+        this.covered = map.getLong(16);
+        this.maxId = map.getLong(24);
+    }
+
+    /**
+     * Прочитати лише заголовок, не відображаючи файл у пам'ять (щоб зайвий прогін можна
+     * було одразу видалити).
+     *
+     * @param file файл прогону
+     * @return чи це злитий прогін, що заміняє всі прогони з меншими номерами
+     * @throws IOException помилка читання або не прогін
+     */
+    static boolean isMerged(Path file) throws IOException {
+        return readHeader(file).getInt(12) == MERGED;
+    }
+
+    /**
+     * Прочитати лише заголовок, не відображаючи файл у пам'ять.
+     *
+     * @param file файл прогону
+     * @return до якого зміщення файлу даних прогін покриває бої
+     * @throws IOException помилка читання або не прогін
+     */
+    static long covered(Path file) throws IOException {
+        return readHeader(file).getLong(16);
+    }
+
+    private static ByteBuffer readHeader(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer h = ByteBuffer.allocate(HEADER);
+            while (h.hasRemaining() && ch.read(h) >= 0) { }
+            if (h.position() < HEADER || h.getInt(0) != MAGIC || h.getInt(4) != VERSION) {
+                throw new IOException("Не прогін індексу: " + file);
+            }
+            return h;
+        }
+    }
+
+    static IndexRun open(Path file, long seq) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new IndexRun(file, seq, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    long key(int i) { return map.getLong(HEADER + i * ENTRY); }
+
+    long time(int i) { return map.getLong(HEADER + i * ENTRY + 8); }
+
+    long offset(int i) { return map.getLong(HEADER + i * ENTRY + 16); }
+
+    /** @return індекс першого запису, більшого за (key, time, +∞) */
+    int upperBound(long key, long time) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = key(mid);
+            if (k < key || k == key && time(mid) <= time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Записати прогін з уже відсортованих записів (тимчасовий файл і перейменування).
+     *
+     * @param entries трійки (ключ, час, зміщення), відсортовані
+     * @param n       кількість трійок
+     */
+    static IndexRun write(Path dir, long seq, long[] entries, int n, long covered, long maxId) throws IOException {
+        Path file = dir.resolve(name(seq));
+        Path tmp = dir.resolve(name(seq) + ".tmp");
+        try (DataOutputStream out = header(tmp, n, 0, covered, maxId)) {
+            for (int i = 0; i < n * 3; i++) out.writeLong(entries[i]);
+        }
+        move(tmp, file);
+        return open(file, seq);
+    }
+
+    /**
+     * Злити кілька прогонів в один (потоково, пам'ять не залежить від розміру).
+     */
+    static IndexRun merge(Path dir, long seq, List<IndexRun> runs) throws IOException {
+        long total = 0, covered = 0, maxId = 0;
+        for (IndexRun r : runs) {
+            total += r.count;
+            covered = Math.max(covered, r.covered);
+            maxId = Math.max(maxId, r.maxId);
+        }
+        if (total > (Integer.MAX_VALUE - HEADER) / ENTRY) throw new IOException("Прогін індексу завеликий");
+        Path file = dir.resolve(name(seq));
+        Path tmp = dir.resolve(name(seq) + ".tmp");
+        // курсори: [прогін, позиція]
+        PriorityQueue<int[]> heap = new PriorityQueue<>((x, y) -> compare(runs.get(x[0]), x[1], runs.get(y[0]), y[1]));
+        for (int r = 0; r < runs.size(); r++) if (runs.get(r).count > 0) heap.add(new int[]{r, 0});
+        long lastKey = 0, lastTime = 0, lastOffset = -1;
+        int written = 0;
+        try (DataOutputStream out = header(tmp, (int) total, MERGED, covered, maxId)) {
+            while (!heap.isEmpty()) {
+                int[] c = heap.poll();
+                IndexRun r = runs.get(c[0]);
+                long k = r.key(c[1]), t = r.time(c[1]), o = r.offset(c[1]);
+                // однакові записи з'являються, якщо попереднє злиття перервали до видалення вхідних прогонів
+                if (k != lastKey || t != lastTime || o != lastOffset) {
+                    out.writeLong(k);
+                    out.writeLong(t);
+                    out.writeLong(o);
+                    written++;
+                    lastKey = k;
+                    lastTime = t;
+                    lastOffset = o;
+                }
+                if (++c[1] < r.count) heap.add(c);
+            }
+        }
+        if (written != total) {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.write(ByteBuffer.allocate(4).putInt(0, written), 8);
+                ch.truncate(HEADER + (long) written * ENTRY);
+            }
+        }
+        move(tmp, file);
+        return open(file, seq);
+    }
+
+    private static int compare(IndexRun a, int i, IndexRun b, int j) {
+        int c = Long.compare(a.key(i), b.key(j));
+        if (c == 0) c = Long.compare(a.time(i), b.time(j));
+        if (c == 0) c = Long.compare(a.offset(i), b.offset(j));
+        return c;
+    }
+
+    private static DataOutputStream header(Path tmp, int n, int flags, long covered, long maxId) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+        out.writeInt(flags);
+        out.writeLong(covered);
+        out.writeLong(maxId);
+        return out;
+    }
+
+    private static void move(Path tmp, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String name(long seq) {
+        return String.format("idx-%08d.run", seq);
+    }
+}
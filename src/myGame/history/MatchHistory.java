@@ -0,0 +1,537 @@
+package myGame.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Вбудована база історії боїв: файл записів і вторинні індекси за дроїдом, мапою і датою.
+ *
+ * <p><b>Дані.</b> {@code matches.dat} — записи підряд: довжина, CRC32 і тіло
+ * ({@link MatchRecord}). Файл лише дописується; обрізаний хвіст після аварії
+ * відкидається при відкритті.</p>
+ *
+ * <p><b>Групова фіксація.</b> {@link #append} серіалізує запис у потоці викликача
+ * і лише копіює байти у спільний буфер групи. Окремий потік забирає всю
+ * накопичену групу, пише її одним викликом і робить один {@code force} на групу,
+ * тож вартість синхронізації з диском ділиться між усіма записами групи.
+ * {@link #sync()} чекає, доки все дописане до нього не опиниться на диску і в індексі,
+ * тож запит одразу після {@code sync} бачить усі дописані бої.</p>
+ *
+ * <p><b>Індекси.</b> Записи індексу (ключ, час, зміщення) спершу накопичуються
+ * у пам'яті, а після {@value #RUN_ENTRIES} записів сортуються і скидаються
+ * незмінним прогоном ({@link IndexRun}); коли прогонів стає більше за
+ * {@value #MAX_RUNS}, вони зливаються в один; вхідні прогони, які не вдалося видалити
+ * одразу, видаляються при наступному відкритті. Пошук — двійковий пошук у кожному
+ * прогоні плюс перегляд ще не скинутих записів. Ключ — хеш значення, тому
+ * знайдені записи додатково перевіряються.</p>
+ *
+ * <pre>
+ * try (MatchHistory h = MatchHistory.open(Paths.get("logs/history"))) {
+ *     h.append(new MatchRecord(h.reserveId(), now, mode, "Cave", seed, 0, 12, a, b, dmgA, dmgB));
+ *     List&lt;MatchRecord&gt; last = h.byDroid("FlashDroid", 0, Long.MAX_VALUE, 20);
+ * }
+ * </pre>
+ */
+public final class MatchHistory implements Closeable {
+
+    /** Директорія бази відносно директорії логів. */
+    public static final String DIR = "history";
+
+    private static final String DATA = "matches.dat";
+    private static final int RUN_ENTRIES = 1 << 18;
+    private static final int MAX_RUNS = 8;
+    /** Більша група — виклики {@link #append} чекають, доки потік фіксації її забере. */
+    private static final int MAX_GROUP = 8 << 20;
+
+    private static final long DATE = 0;
+    private static final long MAP = 1L << 56;
+    private static final long DROID = 2L << 56;
+
+    private final Path dir;
+    private final FileChannel data;
+    private final AtomicLong nextId;
+    private final Thread committer;
+    private final ThreadLocal<ByteArrayOutputStream> scratch =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(256));
+
+    // Група, що набирається (під монітором this).
+    private ByteArrayOutputStream group = new ByteArrayOutputStream(1 << 16);
+    private long[] groupIndex = new long[3 * 1024];
+    private int groupEntries;
+    private long groupMaxId;
+    private long end;
+    private long durable;
+    private boolean closed;
+    private IOException failure;
+
+    // Індекс (під монітором runs).
+    private final List<IndexRun> runs = new ArrayList<>();
+    private long[] fresh = new long[3 * 1024];
+    private int freshEntries;
+    private long maxId;
+    private long nextSeq;
+
+    private MatchHistory(Path dir, FileChannel data) {
+        this.dir = dir;
+        this.data = data;
+        this.nextId = new AtomicLong();
+        this.committer = new Thread(this::commitLoop, "history-commit");
+        this.committer.setDaemon(true);
+    }
+
+    /**
+     * Відкрити або створити базу: прочитати прогони індексу і доіндексувати хвіст даних.
+     *
+     * @param dir директорія бази
+     * @return база
+     * @throws IOException помилка файлів
+     */
+    public static MatchHistory open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel ch = FileChannel.open(dir.resolve(DATA), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MatchHistory h = new MatchHistory(dir, ch);
+        try {
+            h.loadRuns();
+            h.recoverTail();
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        h.committer.start();
+        return h;
+    }
+
+    private void loadRuns() throws IOException {
+        List<Path> files = new ArrayList<>();
+        long mergedSeq = -1;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "idx-*.run*")) {
+            for (Path p : ds) {
+                if (p.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(p);
+                    continue;
+                }
+                files.add(p);
+                if (IndexRun.isMerged(p)) mergedSeq = Math.max(mergedSeq, seq(p));
+            }
+        }
+        for (Path p : files) {
+            long seq = seq(p);
+            nextSeq = Math.max(nextSeq, seq + 1);
+            if (seq < mergedSeq) {
+                // вхідний прогін злиття, який не вдалося видалити, поки він був відображений
+                Files.deleteIfExists(p);
+                continue;
+            }
+            runs.add(IndexRun.open(p, seq));
+        }
+        runs.sort(Comparator.comparingLong(r -> r.seq));
+    }
+
+    /** @return номер прогону з імені файлу {@code idx-<номер>.run} */
+    private static long seq(Path run) {
+        String n = run.getFileName().toString();
+        return Long.parseLong(n.substring(4, n.length() - 4));
+    }
+
+    /** Доіндексувати записи після покритого прогонами зміщення і відкинути обрізаний хвіст. */
+    private void recoverTail() throws IOException {
+        long pos = 0;
+        for (IndexRun r : runs) {
+            pos = Math.max(pos, r.covered);
+            maxId = Math.max(maxId, r.maxId);
+        }
+        long size = data.size();
+        ByteBuffer head = ByteBuffer.allocate(8);
+        while (pos + 8 <= size) {
+            head.clear();
+            readFully(head, pos);
+            int len = head.getInt(0);
+            if (len <= 0 || pos + 8 + len > size) break;
+            byte[] body = new byte[len];
+            readFully(ByteBuffer.wrap(body), pos + 8);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != head.getInt(4)) break;
+            MatchRecord r = MatchRecord.read(new DataInputStream(new ByteArrayInputStream(body)));
+            fresh = ensure(fresh, freshEntries + entries(r));
+            freshEntries = index(r, pos, fresh, freshEntries);
+            maxId = Math.max(maxId, r.id());
+            pos += 8 + len;
+        }
+        if (pos < size) data.truncate(pos);
+        end = durable = pos;
+        nextId.set(maxId + 1);
+        groupMaxId = maxId;
+    }
+
+    /** @return новий номер бою (унікальний, зростає) */
+    public long reserveId() { return nextId.getAndIncrement(); }
+
+    /**
+     * Дописати бій. Запис стане постійним після найближчої фіксації групи (див. {@link #sync()}).
+     *
+     * @param r запис (номер — з {@link #reserveId()})
+     * @throws IOException потік фіксації зупинився з помилкою або базу закрито
+     */
+    public void append(MatchRecord r) throws IOException {
+        ByteArrayOutputStream body = scratch.get();
+        body.reset();
+        r.write(new DataOutputStream(body));
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        synchronized (this) {
+            boolean interrupted = false;
+            while (group.size() > MAX_GROUP && failure == null && !closed) interrupted |= waitUninterruptibly();
+            if (interrupted) Thread.currentThread().interrupt();
+            if (failure != null) throw new IOException("Історія боїв недоступна", failure);
+            if (closed) throw new IOException("Історію боїв закрито");
+            long offset = end;
+            DataOutputStream out = new DataOutputStream(group);
+            out.writeInt(bytes.length);
+            out.writeInt((int) crc.getValue());
+            out.write(bytes);
+            end += 8 + bytes.length;
+            groupIndex = ensure(groupIndex, groupEntries + entries(r));
+            groupEntries = index(r, offset, groupIndex, groupEntries);
+            groupMaxId = Math.max(groupMaxId, r.id());
+            if (group.size() == 8 + bytes.length) notifyAll();
+        }
+    }
+
+    /**
+     * Дочекатися, доки всі дописані до цього моменту бої будуть на диску і в індексі.
+     *
+     * @throws IOException помилка запису
+     */
+    public void sync() throws IOException {
+        synchronized (this) {
+            long target = end;
+            boolean interrupted = false;
+            while (durable < target && failure == null) interrupted |= waitUninterruptibly();
+            if (interrupted) Thread.currentThread().interrupt();
+            if (failure != null) throw new IOException("Історія боїв недоступна", failure);
+        }
+    }
+
+    /** @return кількість боїв у базі (за найбільшим номером) */
+    public long size() { return nextId.get() - 1; }
+
+    /** @return довжина файлу записів, уже записана на диск (після {@link #sync()} — усе дописане) */
+    public synchronized long length() { return durable; }
+
+    /**
+     * Відкотити закриту базу до довжини файлу записів {@code length} (з {@link #length()}):
+     * видалити прогони індексу, що покривають пізніші записи, і обрізати дані.
+     * Записи до цієї межі, не покриті прогонами, доіндексуються при відкритті.
+     *
+     * @param dir    директорія бази
+     * @param length нова довжина файлу записів
+     * @throws IOException помилка файлів
+     */
+    public static void truncate(Path dir, long length) throws IOException {
+        Path dataFile = dir.resolve(DATA);
+        if (!Files.exists(dataFile)) return;
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "idx-*.run")) {
+            for (Path p : ds) files.put(seq(p), p);
+        }
+        for (Map.Entry<Long, Path> e : files.entrySet()) {
+            if (IndexRun.covered(e.getValue()) <= length) continue;
+            // злитий прогін заміняє всі попередні, тож без нього залишки вхідних прогонів неповні
+            boolean all = IndexRun.isMerged(e.getValue());
+            NavigableMap<Long, Path> drop = all ? files : files.tailMap(e.getKey(), true);
+            // спершу вхідні прогони злиття, потім він сам; інакше — з кінця, щоб лишався суцільний префікс
+            for (Path p : all ? drop.values() : drop.descendingMap().values()) Files.deleteIfExists(p);
+            break;
+        }
+        try (FileChannel ch = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            if (ch.size() > length) ch.truncate(length);
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Останні бої з участю дроїда.
+     *
+     * @param droid ім'я дроїда
+     * @param from  час від (мс, включно)
+     * @param to    час до (мс, включно)
+     * @param limit скільки повернути
+     * @return бої від найновішого
+     * @throws IOException помилка читання
+     */
+    public List<MatchRecord> byDroid(String droid, long from, long to, int limit) throws IOException {
+        String name = droid.trim();
+        return query(DROID | hash(name), from, to, limit, r -> r.has(name));
+    }
+
+    /**
+     * Останні бої на мапі.
+     *
+     * @param map   назва мапи
+     * @param from  час від (мс, включно)
+     * @param to    час до (мс, включно)
+     * @param limit скільки повернути
+     * @return бої від найновішого
+     * @throws IOException помилка читання
+     */
+    public List<MatchRecord> byMap(String map, long from, long to, int limit) throws IOException {
+        return query(MAP | hash(map), from, to, limit, r -> r.map().equals(map));
+    }
+
+    /**
+     * Останні бої за проміжок часу.
+     *
+     * @param from  час від (мс, включно)
+     * @param to    час до (мс, включно)
+     * @param limit скільки повернути
+     * @return бої від найновішого
+     * @throws IOException помилка читання
+     */
+    public List<MatchRecord> byDate(long from, long to, int limit) throws IOException {
+        return query(DATE, from, to, limit, r -> true);
+    }
+
+    private List<MatchRecord> query(long key, long from, long to, int limit,
+                                    Predicate<MatchRecord> check) throws IOException {
+        sync();
+        // пари (час, зміщення) кандидатів: з кожного прогону не більше limit найновіших
+        List<long[]> hits = new ArrayList<>();
+        synchronized (runs) {
+            for (IndexRun run : runs) {
+                int taken = 0;
+                for (int i = run.upperBound(key, to) - 1; i >= 0 && taken < limit; i--) {
+                    if (run.key(i) != key || run.time(i) < from) break;
+                    hits.add(new long[]{run.time(i), run.offset(i)});
+                    taken++;
+                }
+            }
+            for (int e = 0; e < freshEntries; e++) {
+                long t = fresh[3 * e + 1];
+                if (fresh[3 * e] == key && t >= from && t <= to) hits.add(new long[]{t, fresh[3 * e + 2]});
+            }
+        }
+        hits.sort((x, y) -> x[0] != y[0] ? Long.compare(y[0], x[0]) : Long.compare(y[1], x[1]));
+        List<MatchRecord> out = new ArrayList<>(Math.min(limit, hits.size()));
+        Set<Long> seen = new HashSet<>();
+        for (long[] h : hits) {
+            if (out.size() == limit) break;
+            if (!seen.add(h[1])) continue;
+            MatchRecord r = read(h[1]);
+            if (check.test(r)) out.add(r);
+        }
+        return out;
+    }
+
+    private MatchRecord read(long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(8);
+        readFully(head, offset);
+        byte[] body = new byte[head.getInt(0)];
+        readFully(ByteBuffer.wrap(body), offset + 8);
+        return MatchRecord.read(new DataInputStream(new ByteArrayInputStream(body)));
+    }
+
+    private void readFully(ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) {
+            int n = data.read(b, pos + b.position());
+            if (n < 0) throw new IOException("Несподіваний кінець історії боїв");
+        }
+    }
+
+    // ---------- Індекс ----------
+
+    /** Дописати записи індексу бою (дата, мапа, кожен різний дроїд) у масив трійок. */
+    private static int index(MatchRecord r, long offset, long[] into, int n) {
+        n = put(into, n, DATE, r.time(), offset);
+        n = put(into, n, MAP | hash(r.map()), r.time(), offset);
+        Set<String> droids = new HashSet<>(r.teamA());
+        droids.addAll(r.teamB());
+        for (String d : droids) n = put(into, n, DROID | hash(d.trim()), r.time(), offset);
+        return n;
+    }
+
+    /** @return найбільше записів індексу для бою */
+    private static int entries(MatchRecord r) {
+        return 2 + r.teamA().size() + r.teamB().size();
+    }
+
+    /** @return масив трійок місткістю не менше {@code entries} */
+    private static long[] ensure(long[] a, int entries) {
+        return 3 * entries <= a.length ? a : Arrays.copyOf(a, Math.max(a.length * 2, 3 * entries));
+    }
+
+    private static int put(long[] into, int n, long key, long time, long offset) {
+        into[3 * n] = key;
+        into[3 * n + 1] = time;
+        into[3 * n + 2] = offset;
+        return n + 1;
+    }
+
+    /** FNV-1a, 56 біт (старший байт ключа — вид індексу). */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte x : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= x & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h & 0x00FF_FFFF_FFFF_FFFFL;
+    }
+
+    // ---------- Потік фіксації ----------
+
+    private void commitLoop() {
+        ByteArrayOutputStream spare = new ByteArrayOutputStream(1 << 16);
+        long[] spareIndex = new long[3 * 1024];
+        try {
+            while (true) {
+                ByteArrayOutputStream batch;
+                long[] batchIndex;
+                int entries;
+                long batchEnd;
+                long batchMaxId;
+                synchronized (this) {
+                    boolean interrupted = false;
+                    while (group.size() == 0 && !closed) interrupted |= waitUninterruptibly();
+                    if (interrupted) Thread.currentThread().interrupt();
+                    if (group.size() == 0) return;
+                    batch = group;
+                    batchIndex = groupIndex;
+                    entries = groupEntries;
+                    batchEnd = end;
+                    batchMaxId = groupMaxId;
+                    spare.reset();
+                    group = spare;
+                    groupIndex = spareIndex;
+                    groupEntries = 0;
+                    notifyAll();
+                }
+                ByteBuffer b = ByteBuffer.wrap(batch.toByteArray());
+                long pos = batchEnd - b.remaining();
+                while (b.hasRemaining()) pos += data.write(b, pos);
+                data.force(false);
+                // спершу індекс: sync() повертається лише тоді, коли групу вже можна знайти
+                addToIndex(batchIndex, entries, batchEnd, batchMaxId);
+                synchronized (this) {
+                    durable = batchEnd;
+                    notifyAll();
+                }
+                spare = batch;
+                spareIndex = batchIndex;
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        }
+    }
+
+    private void addToIndex(long[] entries, int n, long covered, long groupMaxId) throws IOException {
+        synchronized (runs) {
+            fresh = ensure(fresh, freshEntries + n);
+            System.arraycopy(entries, 0, fresh, 3 * freshEntries, 3 * n);
+            freshEntries += n;
+            maxId = Math.max(maxId, groupMaxId);
+            if (freshEntries >= RUN_ENTRIES) flushRun(covered);
+        }
+    }
+
+    /** Відсортувати накопичені записи у новий прогін і, якщо прогонів забагато, злити їх. */
+    private void flushRun(long covered) throws IOException {
+        if (freshEntries == 0) return;
+        Integer[] order = new Integer[freshEntries];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        long[] f = fresh;
+        Arrays.sort(order, (x, y) -> {
+            int c = Long.compare(f[3 * x], f[3 * y]);
+            if (c == 0) c = Long.compare(f[3 * x + 1], f[3 * y + 1]);
+            if (c == 0) c = Long.compare(f[3 * x + 2], f[3 * y + 2]);
+            return c;
+        });
+        long[] sorted = new long[3 * freshEntries];
+        for (int i = 0; i < order.length; i++) System.arraycopy(f, 3 * order[i], sorted, 3 * i, 3);
+        runs.add(IndexRun.write(dir, nextSeq++, sorted, freshEntries, covered, maxId));
+        freshEntries = 0;
+        if (runs.size() > MAX_RUNS) {
+            IndexRun merged = IndexRun.merge(dir, nextSeq++, runs);
+            for (IndexRun r : runs) {
+                try {
+                    Files.deleteIfExists(r.file);
+                } catch (IOException e) {
+                    // файл ще відображений (Windows); злитий прогін його заміняє, видалить наступне відкриття
+                }
+            }
+            runs.clear();
+            runs.add(merged);
+        }
+    }
+
+    /**
+     * Одне очікування на моніторі {@code this}. Переривання не зупиняє очікування:
+     * викликач продовжує цикл і відновлює прапорець переривання, коли дочекається.
+     *
+     * @return {@code true}, якщо потік перервали
+     */
+    private boolean waitUninterruptibly() {
+        try {
+            wait();
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Зафіксувати все дописане, скинути індекс у прогін і закрити файли.
+     *
+     * @throws IOException помилка запису
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            synchronized (this) {
+                if (failure != null) throw new IOException("Історія боїв недоступна", failure);
+            }
+            synchronized (runs) {
+                flushRun(durable);
+            }
+        } finally {
+            data.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package myGame.history;
+
+import myGame.store.MatchEntry;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Запис історії боїв: хто, де і з яким результатом грав.
+ *
+ * @param id      номер бою ({@link MatchHistory#reserveId()})
+ * @param time    час завершення, мс від епохи
+ * @param mode    режим ({@link MatchEntry#ONE_VS_ONE}, {@link MatchEntry#TEAM}, {@link MatchEntry#SIMULTANEOUS})
+ * @param map     назва мапи
+ * @param seed    зерно бою (0 — невідоме, інтерактивний бій)
+ * @param winner  0 — команда A, 1 — команда B, -1 — нічия
+ * @param rounds  зіграно раундів
+ * @param teamA   імена дроїдів команди A
+ * @param teamB   імена дроїдів команди B
+ * @param damageA шкода, завдана кожним дроїдом A
+ * @param damageB шкода, завдана кожним дроїдом B
+ */
+public record MatchRecord(long id, long time, int mode, String map, long seed, int winner, int rounds,
+                          List<String> teamA, List<String> teamB, int[] damageA, int[] damageB) {
+
+    private static final DateTimeFormatter TS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    public MatchRecord {
+        teamA = List.copyOf(teamA);
+        teamB = List.copyOf(teamB);
+        if (damageA.length != teamA.size() || damageB.length != teamB.size()) {
+            throw new IllegalArgumentException("Шкода має бути для кожного дроїда");
+        }
+    }
+
+    /** @return чи є дроїд з таким ім'ям у будь-якій команді */
+    boolean has(String droid) {
+        return teamA.contains(droid) || teamB.contains(droid);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeLong(time);
+        out.writeByte(mode);
+        out.writeUTF(map);
+        out.writeLong(seed);
+        out.writeByte(winner);
+        out.writeInt(rounds);
+        writeTeam(out, teamA, damageA);
+        writeTeam(out, teamB, damageB);
+    }
+
+    private static void writeTeam(DataOutput out, List<String> team, int[] damage) throws IOException {
+        out.writeShort(team.size());
+        for (int i = 0; i < team.size(); i++) {
+            out.writeUTF(team.get(i));
+            out.writeInt(damage[i]);
+        }
+    }
+
+    static MatchRecord read(DataInput in) throws IOException {
+        long id = in.readLong();
+        long time = in.readLong();
+        int mode = in.readByte();
+        String map = in.readUTF();
+        long seed = in.readLong();
+        int winner = in.readByte();
+        int rounds = in.readInt();
+        List<String> a = new ArrayList<>();
+        int[] da = readTeam(in, a);
+        List<String> b = new ArrayList<>();
+        int[] db = readTeam(in, b);
+        return new MatchRecord(id, time, mode, map, seed, winner, rounds, a, b, da, db);
+    }
+
+    private static int[] readTeam(DataInput in, List<String> into) throws IOException {
+        int n = in.readUnsignedShort();
+        int[] damage = new int[n];
+        for (int i = 0; i < n; i++) {
+            into.add(in.readUTF());
+            damage[i] = in.readInt();
+        }
+        return damage;
+    }
+
+    @Override
+    public String toString() {
+        String kind = switch (mode) {
+            case MatchEntry.ONE_VS_ONE -> "1v1";
+            case MatchEntry.TEAM -> "TvT";
+            default -> "TvT sim";
+        };
+        String result = winner == 0 ? "перемога A" : winner == 1 ? "перемога B" : "нічия";
+        return "#" + id + " " + TS.format(Instant.ofEpochMilli(time)) + " " + kind + " " + map
+                + " " + String.join(",", teamA) + " " + Arrays.toString(damageA)
+                + " vs " + String.join(",", teamB) + " " + Arrays.toString(damageB)
+                + " — " + result + ", раундів " + rounds + (seed != 0 ? ", зерно " + seed : "");
+    }
+}
@@ -0,0 +1,237 @@
+package myGame.log;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Читання блочного gzip ({@link BlockGzipOutputStream}) з довільним доступом.
+ *
+ * <p>Блоки читаються по одному; {@link #seek(long)} переходить до будь-якого
+ * віртуального зміщення, розпаковуючи лише один блок; {@link #seekUncompressed(long)} —
+ * до зміщення у нестисненому тексті.</p>
+ */
+public final class BlockGzipInputStream extends InputStream {
+
+    /** Джерело стиснених байтів з довільним доступом. */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * Прочитати байти з позиції.
+         *
+         * @param dst      куди читати
+         * @param position позиція у джерелі
+         * @return кількість байтів або -1 у кінці
+         * @throws IOException помилка читання
+         */
+        int read(ByteBuffer dst, long position) throws IOException;
+    }
+
+    private final Source source;
+    private final AutoCloseable owner;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] block = new byte[BlockGzipOutputStream.MAX_BLOCK];
+    private final byte[] data = new byte[BlockGzipOutputStream.MAX_BLOCK];
+    private long blockAddress;
+    private long nextBlock;
+    private int length;
+    private int pos;
+    private boolean eof;
+
+    /**
+     * @param source джерело стиснених байтів
+     * @param owner  що закрити разом із потоком (може бути {@code null})
+     */
+    public BlockGzipInputStream(Source source, AutoCloseable owner) {
+        this.source = source;
+        this.owner = owner;
+    }
+
+    /**
+     * Відкрити файл.
+     *
+     * @param file файл у форматі блочного gzip
+     * @return потік
+     * @throws IOException помилка відкриття
+     */
+    public static BlockGzipInputStream open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        return new BlockGzipInputStream(ch::read, ch);
+    }
+
+    /**
+     * Читати зі стиснених байтів у пам'яті (наприклад, запис сховища).
+     *
+     * @param compressed стиснені байти (від position до limit)
+     * @return потік
+     */
+    public static BlockGzipInputStream of(ByteBuffer compressed) {
+        ByteBuffer src = compressed.slice();
+        return new BlockGzipInputStream((dst, position) -> {
+            if (position >= src.limit()) return -1;
+            int n = (int) Math.min(dst.remaining(), src.limit() - position);
+            dst.put(src.duplicate().position((int) position).limit((int) position + n));
+            return n;
+        }, null);
+    }
+
+    /**
+     * @return віртуальне зміщення наступного байта
+     */
+    public long tell() {
+        return pos < length ? (blockAddress << 16) | pos : nextBlock << 16;
+    }
+
+    /**
+     * Перейти до віртуального зміщення, отриманого від
+     * {@link BlockGzipOutputStream#virtualOffset()} або {@link #tell()}.
+     *
+     * @param virtualOffset {@code (зміщення блоку << 16) | зміщення в блоці}
+     * @throws IOException помилка читання або зміщення поза блоком
+     */
+    public void seek(long virtualOffset) throws IOException {
+        nextBlock = virtualOffset >>> 16;
+        int within = (int) (virtualOffset & 0xffff);
+        eof = false;
+        length = pos = 0;
+        if (!readBlock() && within > 0) throw new EOFException("Зміщення поза файлом: " + virtualOffset);
+        if (within > length) throw new IOException("Зміщення поза блоком: " + virtualOffset);
+        pos = within;
+    }
+
+    /**
+     * Перейти до зміщення у нестисненому тексті (наприклад, знайденого пошуком
+     * у ще не стисненому лозі). Попередні блоки пропускаються за заголовком і
+     * розміром даних у кінцівці, без розпакування; розпаковується лише цільовий блок.
+     *
+     * @param offset зміщення від початку нестисненого тексту
+     * @throws IOException помилка читання або зміщення поза файлом
+     */
+    public void seekUncompressed(long offset) throws IOException {
+        long address = 0;
+        long start = 0;
+        while (true) {
+            int total = blockLength(address);
+            if (total < 0) {
+                if (offset != start) throw new EOFException("Зміщення поза файлом: " + offset);
+                seek(address << 16);
+                return;
+            }
+            if (!fill(ByteBuffer.wrap(block, 0, 4), address + total - 4)) throw new EOFException("Обірваний блок");
+            int size = getInt(0);
+            if (offset < start + size) {
+                seek((address << 16) | (offset - start));
+                return;
+            }
+            start += size;
+            address += total;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == length && !readBlock()) return -1;
+        return data[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pos == length && !readBlock()) return -1;
+        int n = Math.min(len, length - pos);
+        System.arraycopy(data, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return length - pos;
+    }
+
+    /** Прочитати наступний непорожній блок. */
+    private boolean readBlock() throws IOException {
+        while (!eof) {
+            int total = blockLength(nextBlock);
+            if (total < 0) {
+                eof = true;
+                return false;
+            }
+            ByteBuffer rest = ByteBuffer.wrap(block, BlockGzipOutputStream.HEADER, total - BlockGzipOutputStream.HEADER);
+            if (!fill(rest, nextBlock + BlockGzipOutputStream.HEADER)) throw new EOFException("Обірваний блок");
+            int size = getInt(total - 4);
+            int expected = getInt(total - 8);
+            blockAddress = nextBlock;
+            nextBlock += total;
+            pos = 0;
+            length = 0;
+            if (size == 0) continue;
+            inflater.reset();
+            inflater.setInput(block, BlockGzipOutputStream.HEADER,
+                    total - BlockGzipOutputStream.HEADER - BlockGzipOutputStream.FOOTER);
+            try {
+                while (length < size && !inflater.finished()) {
+                    int n = inflater.inflate(data, length, size - length);
+                    if (n == 0 && inflater.needsInput()) throw new EOFException("Обірваний блок");
+                    length += n;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Пошкоджений блок на зміщенні " + blockAddress, e);
+            }
+            crc.reset();
+            crc.update(data, 0, length);
+            if ((int) crc.getValue() != expected) throw new IOException("CRC не збігається на зміщенні " + blockAddress);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Прочитати заголовок блоку в {@link #block}.
+     *
+     * @return повний розмір стисненого блоку або -1 у кінці файлу
+     */
+    private int blockLength(long address) throws IOException {
+        if (!fill(ByteBuffer.wrap(block, 0, BlockGzipOutputStream.HEADER), address)) return -1;
+        if ((block[0] & 0xff) != 0x1f || (block[1] & 0xff) != 0x8b || block[12] != 'B' || block[13] != 'C') {
+            throw new IOException("Не блочний gzip на зміщенні " + address);
+        }
+        return ((block[16] & 0xff) | (block[17] & 0xff) << 8) + 1;
+    }
+
+    private boolean fill(ByteBuffer dst, long at) throws IOException {
+        long p = at;
+        while (dst.hasRemaining()) {
+            int n = source.read(dst, p);
+            if (n < 0) return false;
+            p += n;
+        }
+        return true;
+    }
+
+    private int getInt(int at) {
+        return (block[at] & 0xff) | (block[at + 1] & 0xff) << 8 | (block[at + 2] & 0xff) << 16 | (block[at + 3] & 0xff) << 24;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        if (owner != null) {
+            try {
+                owner.close();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
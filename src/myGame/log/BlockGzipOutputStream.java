@@ -0,0 +1,179 @@
+package myGame.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Блочне gzip-стиснення (формат BGZF).
+ *
+ * <p>Текст ріжеться на блоки до {@value #BLOCK_DATA} байтів, кожен блок — окремий
+ * gzip-член із додатковим полем {@code BC} (розмір стисненого блоку). Результат
+ * читає будь-який gzip-декодер ({@link java.util.zip.GZIPInputStream}), а
+ * {@link BlockGzipInputStream} може переходити одразу до потрібного місця за
+ * віртуальним зміщенням {@code (зміщення блоку << 16) | зміщення в блоці}.</p>
+ *
+ * <p>Deflater і буфери використовуються повторно для всіх блоків.</p>
+ */
+public final class BlockGzipOutputStream extends OutputStream {
+
+    /** Максимум нестиснених даних у блоці (як у BGZF). */
+    public static final int BLOCK_DATA = 0xff00;
+
+    static final int HEADER = 18;
+    static final int FOOTER = 8;
+    static final int MAX_BLOCK = 1 << 16;
+
+    /** Порожній блок-маркер кінця файлу. */
+    static final byte[] EOF_BLOCK = {
+            0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+            0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final int level;
+    private final CRC32 crc = new CRC32();
+    private final byte[] data = new byte[BLOCK_DATA];
+    private final byte[] block = new byte[MAX_BLOCK];
+    private int count;
+    private long blockAddress;
+    private boolean closed;
+
+    /**
+     * @param out куди писати стиснені блоки
+     */
+    public BlockGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param out   куди писати стиснені блоки
+     * @param level рівень стиснення {@link Deflater}
+     */
+    public BlockGzipOutputStream(OutputStream out, int level) {
+        this.out = out;
+        this.level = level;
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * Віртуальне зміщення наступного байта — його можна передати у
+     * {@link BlockGzipInputStream#seek(long)}.
+     *
+     * @return {@code (зміщення блоку << 16) | зміщення в блоці}
+     */
+    public long virtualOffset() {
+        return (blockAddress << 16) | count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == data.length) writeBlock();
+        data[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == data.length) writeBlock();
+            int n = Math.min(len, data.length - count);
+            System.arraycopy(b, off, data, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Закрити поточний блок (якщо він не порожній) і скинути потік.
+     * Часті виклики погіршують стиснення — краще раз на раунд або рідше.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) writeBlock();
+        out.flush();
+    }
+
+    /**
+     * Завершити поточний gzip-файл (останній блок і маркер кінця), не закриваючи
+     * потік. Подальший запис починає новий файл з віртуальним зміщенням 0 — так
+     * один екземпляр стискає по черзі багато окремих логів.
+     *
+     * @throws IOException помилка запису
+     */
+    public void finish() throws IOException {
+        if (count > 0) writeBlock();
+        out.write(EOF_BLOCK);
+        blockAddress = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            finish();
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(data, 0, count);
+        deflater.finish();
+        int limit = MAX_BLOCK - HEADER - FOOTER;
+        int size = 0;
+        while (!deflater.finished() && size < limit) {
+            size += deflater.deflate(block, HEADER + size, limit - size);
+        }
+        if (!deflater.finished()) {
+            // Нестисливі дані: зберегти блок без стиснення (вміщується завжди)
+            deflater.reset();
+            deflater.setLevel(Deflater.NO_COMPRESSION);
+            deflater.setInput(data, 0, count);
+            deflater.finish();
+            size = 0;
+            while (!deflater.finished()) size += deflater.deflate(block, HEADER + size, limit - size);
+            deflater.setLevel(level);
+        }
+        int total = HEADER + size + FOOTER;
+        crc.reset();
+        crc.update(data, 0, count);
+        header(block, total);
+        putInt(block, HEADER + size, (int) crc.getValue());
+        putInt(block, HEADER + size + 4, count);
+        out.write(block, 0, total);
+        blockAddress += total;
+        count = 0;
+    }
+
+    private static void header(byte[] b, int total) {
+        b[0] = 0x1f;
+        b[1] = (byte) 0x8b;
+        b[2] = 8;            // deflate
+        b[3] = 4;            // FEXTRA
+        b[4] = b[5] = b[6] = b[7] = 0;
+        b[8] = 0;
+        b[9] = (byte) 0xff;  // OS невідома
+        b[10] = 6;           // XLEN
+        b[11] = 0;
+        b[12] = 'B';
+        b[13] = 'C';
+        b[14] = 2;
+        b[15] = 0;
+        b[16] = (byte) (total - 1);
+        b[17] = (byte) ((total - 1) >>> 8);
+    }
+
+    private static void putInt(byte[] b, int at, int v) {
+        b[at] = (byte) v;
+        b[at + 1] = (byte) (v >>> 8);
+        b[at + 2] = (byte) (v >>> 16);
+        b[at + 3] = (byte) (v >>> 24);
+    }
+}
@@ -0,0 +1,259 @@
+package myGame.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Стеження за файлами, що дописуються (як {@code tail -f}).
+ *
+ * <p>Один потік чекає на події {@link WatchService} для всіх директорій і
+ * після кожної зміни дочитує з кожного файлу лише нові байти — від
+ * запам'ятаної позиції до поточного кінця ({@link FileChannel#read(ByteBuffer, long)}).
+ * Файл, якого ще немає, починає читатись з початку, щойно з'явиться;
+ * обрізаний або перестворений файл — теж з початку.</p>
+ *
+ * <p>Слухачі викликаються з потоку стеження; буфер дійсний лише під час виклику.
+ * Слухач може сам викликати {@link #follow}, {@link #unfollow} тощо: монітор
+ * стежника — останній у порядку блокувань (буфер, файл, стежник), тобто під ним
+ * ніколи не береться монітор файлу, тож такі виклики не призводять до взаємного блокування.</p>
+ */
+public final class LogFollower implements Closeable {
+
+    /** Отримувач нових байтів. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param file     файл
+         * @param position зміщення першого з байтів у файлі (0 після обрізання чи перестворення)
+         * @param bytes    щойно дописані байти (від position до limit буфера)
+         * @throws IOException помилка обробки — стеження за файлом припиняється
+         */
+        void appended(Path file, long position, ByteBuffer bytes) throws IOException;
+    }
+
+    private final WatchService watcher;
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private final Map<Path, Map<Path, Followed>> byDir = new HashMap<>();
+    private final Map<Path, List<NewFiles>> newFiles = new HashMap<>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Створити і запустити потік стеження.
+     *
+     * @throws IOException файлова система не підтримує стеження
+     */
+    public LogFollower() throws IOException {
+        watcher = FileSystems.getDefault().newWatchService();
+        thread = new Thread(this::loop, "log-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Стежити за файлом.
+     *
+     * @param file     файл (може ще не існувати)
+     * @param position з якої позиції читати (0 — з початку; розмір файлу — лише нове)
+     * @param listener отримувач нових байтів
+     * @throws IOException помилка реєстрації директорії
+     */
+    public void follow(Path file, long position, Listener listener) throws IOException {
+        Path abs = file.toAbsolutePath().normalize();
+        Followed f = new Followed(abs, position, listener);
+        Followed old;
+        synchronized (this) {
+            register(abs.getParent());
+            old = byDir.computeIfAbsent(abs.getParent(), d -> new HashMap<>()).put(abs.getFileName(), f);
+        }
+        if (old != null) old.close();
+        drain(f);
+    }
+
+    /**
+     * Автоматично стежити (з початку) за кожним новим файлом директорії, ім'я якого підходить.
+     *
+     * @param dir      директорія
+     * @param names    фільтр імен файлів
+     * @param listener отримувач нових байтів
+     * @throws IOException помилка реєстрації директорії
+     */
+    public synchronized void followNew(Path dir, Predicate<String> names, Listener listener) throws IOException {
+        Path abs = dir.toAbsolutePath().normalize();
+        register(abs);
+        newFiles.computeIfAbsent(abs, d -> new ArrayList<>()).add(new NewFiles(names, listener));
+    }
+
+    /**
+     * Припинити стеження за файлом.
+     *
+     * @param file файл
+     */
+    public void unfollow(Path file) {
+        Path abs = file.toAbsolutePath().normalize();
+        Followed f;
+        synchronized (this) {
+            Map<Path, Followed> files = byDir.get(abs.getParent());
+            f = files == null ? null : files.remove(abs.getFileName());
+        }
+        if (f != null) f.close();
+    }
+
+    private void register(Path dir) throws IOException {
+        if (keys.containsKey(dir)) return;
+        keys.put(dir, dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+    }
+
+    // ---------- Потік стеження ----------
+
+    private void loop() {
+        try {
+            while (!closed) {
+                WatchKey key = watcher.take();
+                Path dir = (Path) key.watchable();
+                List<Followed> changed = new ArrayList<>();
+                List<Followed> deleted = new ArrayList<>();
+                for (WatchEvent<?> ev : key.pollEvents()) {
+                    handle(dir, ev, changed, deleted);
+                }
+                key.reset();
+                for (Followed f : deleted) f.reopen();
+                for (Followed f : changed) drain(f);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // закриття
+        }
+    }
+
+    /** Розібрати подію; видалені файли лише збираються — їх монітори беруться вже без монітора стежника. */
+    private synchronized void handle(Path dir, WatchEvent<?> ev, List<Followed> changed, List<Followed> deleted) {
+        Map<Path, Followed> files = byDir.computeIfAbsent(dir, d -> new HashMap<>());
+        if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+            for (Followed f : files.values()) if (!changed.contains(f)) changed.add(f);
+            return;
+        }
+        Path name = (Path) ev.context();
+        Followed f = files.get(name);
+        if (ev.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            if (f != null) deleted.add(f);
+            return;
+        }
+        if (f == null && ev.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+            for (NewFiles n : newFiles.getOrDefault(dir, List.of())) {
+                if (n.names.test(name.toString())) {
+                    f = new Followed(dir.resolve(name), 0, n.listener);
+                    files.put(name, f);
+                    break;
+                }
+            }
+        }
+        if (f != null && !changed.contains(f)) changed.add(f);
+    }
+
+    /** Дочитати нові байти файлу (буфер спільний, тому по одному файлу за раз). */
+    private void drain(Followed f) {
+        synchronized (buffer) {
+            drainLocked(f);
+        }
+    }
+
+    private void drainLocked(Followed f) {
+        synchronized (f) {
+            if (f.stopped) return;
+            try {
+                if (f.channel == null) {
+                    if (!Files.exists(f.file)) return;
+                    f.channel = FileChannel.open(f.file, StandardOpenOption.READ);
+                }
+                long size = f.channel.size();
+                if (size < f.position) f.position = 0; // файл обрізано
+                while (f.position < size && !f.stopped) {
+                    buffer.clear();
+                    int n = f.channel.read(buffer, f.position);
+                    if (n <= 0) break;
+                    buffer.flip();
+                    f.listener.appended(f.file, f.position, buffer);
+                    f.position += n;
+                }
+            } catch (NoSuchFileException e) {
+                f.reopen();
+            } catch (IOException e) {
+                f.close();
+            }
+        }
+    }
+
+    /**
+     * Зупинити потік стеження і закрити всі файли.
+     *
+     * @throws IOException помилка закриття
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watcher.close();
+        thread.interrupt();
+        List<Followed> all = new ArrayList<>();
+        synchronized (this) {
+            for (Map<Path, Followed> files : byDir.values()) all.addAll(files.values());
+            byDir.clear();
+        }
+        for (Followed f : all) f.close();
+    }
+
+    /** Стан одного файлу. */
+    private static final class Followed {
+        final Path file;
+        final Listener listener;
+        long position;
+        FileChannel channel;
+        boolean stopped;
+
+        Followed(Path file, long position, Listener listener) {
+            this.file = file;
+            this.position = position;
+            this.listener = listener;
+        }
+
+        /** Файл видалено: наступний файл з цим ім'ям читається з початку. */
+        synchronized void reopen() {
+            closeChannel();
+            position = 0;
+        }
+
+        synchronized void close() {
+            stopped = true;
+            closeChannel();
+        }
+
+        private void closeChannel() {
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private record NewFiles(Predicate<String> names, Listener listener) { }
+}
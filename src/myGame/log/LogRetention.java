@@ -0,0 +1,149 @@
+package myGame.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ротація та зберігання окремих лог-файлів боїв у директорії логів.
+ *
+ * <p>{@link #apply(Path)} стискає нестиснені {@code one_vs_one_*.log} і
+ * {@code team_vs_team_*.log} у {@code *.log.gz} (блочний gzip, час зміни
+ * зберігається), а потім видаляє найстаріші {@code .log.gz}: спершу старші
+ * за {@code maxAgeMillis}, далі — поки загальний розмір перевищує {@code maxBytes}.
+ * Сегменти сховища боїв обслуговує {@code MatchStore.retain}.</p>
+ */
+public final class LogRetention {
+
+    /** Розширення стиснених логів. */
+    public static final String GZ = ".gz";
+
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final byte[] copy = new byte[BlockGzipOutputStream.BLOCK_DATA];
+
+    /**
+     * @param maxBytes     межа загального розміру стиснених логів (≤ 0 — без межі)
+     * @param maxAgeMillis межа віку лог-файлу (≤ 0 — без межі)
+     */
+    public LogRetention(long maxBytes, long maxAgeMillis) {
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /** Підсумок одного проходу. */
+    public record Result(int compressed, int deleted, long savedBytes) {
+        @Override
+        public String toString() {
+            return "стиснено " + compressed + ", видалено " + deleted + ", звільнено " + savedBytes / 1024 + " КіБ";
+        }
+    }
+
+    /**
+     * Стиснути нові лог-файли і видалити застарілі.
+     *
+     * @param dir директорія логів
+     * @return підсумок
+     * @throws IOException помилка читання, стиснення або видалення
+     */
+    public Result apply(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return new Result(0, 0, 0);
+        int compressed = 0;
+        long saved = 0;
+        for (Path p : list(dir, LogRetention::isPlainLog)) {
+            saved += compress(p);
+            compressed++;
+        }
+
+        List<Path> gz = list(dir, LogRetention::isCompressedLog);
+        List<FileTime> times = new ArrayList<>(gz.size());
+        long total = 0;
+        for (Path p : gz) {
+            times.add(Files.getLastModifiedTime(p));
+            total += Files.size(p);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < gz.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(times::get));
+
+        long cutoff = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        int deleted = 0;
+        for (int i : order) {
+            boolean old = times.get(i).toMillis() < cutoff;
+            boolean over = maxBytes > 0 && total > maxBytes;
+            if (!old && !over) break;
+            long size = Files.size(gz.get(i));
+            Files.deleteIfExists(gz.get(i));
+            total -= size;
+            saved += size;
+            deleted++;
+        }
+        return new Result(compressed, deleted, saved);
+    }
+
+    /**
+     * Стиснути файл у {@code <ім'я>.gz} і видалити оригінал.
+     *
+     * @param file нестиснений лог
+     * @return на скільки байтів зменшився розмір
+     * @throws IOException помилка стиснення
+     */
+    public long compress(Path file) throws IOException {
+        Path gz = file.resolveSibling(file.getFileName() + GZ);
+        Path tmp = file.resolveSibling(file.getFileName() + GZ + ".tmp");
+        FileTime modified = Files.getLastModifiedTime(file);
+        long before = Files.size(file);
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new BlockGzipOutputStream(Files.newOutputStream(tmp))) {
+            int n;
+            while ((n = in.read(copy)) > 0) out.write(copy, 0, n);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        try {
+            Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.setLastModifiedTime(gz, modified);
+        Files.delete(file);
+        return before - Files.size(gz);
+    }
+
+    /**
+     * @param name ім'я файлу
+     * @return чи це лог бою (стиснений чи ні)
+     */
+    public static boolean isMatchLog(String name) {
+        String n = name.endsWith(GZ) ? name.substring(0, name.length() - GZ.length()) : name;
+        return n.endsWith(".log") && (n.startsWith("one_vs_one_") || n.startsWith("team_vs_team_"));
+    }
+
+    private static boolean isPlainLog(String name) {
+        return !name.endsWith(GZ) && isMatchLog(name);
+    }
+
+    private static boolean isCompressedLog(String name) {
+        return name.endsWith(GZ) && isMatchLog(name);
+    }
+
+    private static List<Path> list(Path dir, Predicate<String> names) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(Files::isRegularFile)
+                    .filter(p -> names.test(p.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package myGame.mode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Буферизований вивід у консоль для режимів гри.
+ *
+ * <p>Замість {@code System.out.println} на кожен рядок весь текст раунду
+ * накопичується в одному буфері, що використовується повторно, і виводиться
+ * одним записом у {@link #endRound(int, boolean)}. Вивід раундів можна
+ * проріджувати: лише кожен N-й раунд та/або лише раунди, в яких щось змінилося.
+ * Пропущені раунди не потрапляють у консоль, але лог-файл режиму їх зберігає.</p>
+ *
+ * <p>Перед блокуючим вводом під час налаштування треба викликати {@link #flush()},
+ * щоб користувач бачив усе, що було до запиту. Меню дій у ході бою виводяться
+ * через {@link #prompt(CharSequence)}: спершу виводиться накопичений текст раунду
+ * (заголовок, результат попереднього ходу), потім меню. Раунд, у якому був запит
+ * до гравця, проріджуванням не відкидається — проріджується лише автобій.</p>
+ */
+public final class ConsoleSink {
+
+    private final OutputStream out;
+    private final CharsetEncoder encoder;
+    private final int every;
+    private final boolean onlyOnChange;
+
+    private final StringBuilder text = new StringBuilder(4096);
+    /** Чи був у поточному раунді запит до гравця (тоді раунд виводиться повністю). */
+    private boolean interactive;
+    private ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private final String newline = System.lineSeparator();
+
+    /** Консоль без проріджування. */
+    public ConsoleSink() { this(1, false); }
+
+    /**
+     * @param every        виводити лише кожен N-й раунд (1 — кожен)
+     * @param onlyOnChange виводити лише раунди, в яких змінився стан
+     */
+    public ConsoleSink(int every, boolean onlyOnChange) {
+        this(System.out, consoleCharset(), every, onlyOnChange);
+    }
+
+    /**
+     * @param out          куди виводити
+     * @param charset      кодування
+     * @param every        виводити лише кожен N-й раунд (1 — кожен)
+     * @param onlyOnChange виводити лише раунди, в яких змінився стан
+     */
+    public ConsoleSink(OutputStream out, Charset charset, int every, boolean onlyOnChange) {
+        this.out = out;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.every = Math.max(1, every);
+        this.onlyOnChange = onlyOnChange;
+    }
+
+    /**
+     * Кодування консолі: {@code stdout.encoding}, якщо задано, інакше кодування за замовчуванням.
+     */
+    private static Charset consoleCharset() {
+        String enc = System.getProperty("stdout.encoding");
+        try {
+            return enc != null ? Charset.forName(enc) : Charset.defaultCharset();
+        } catch (RuntimeException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    /**
+     * Додати текст без переходу на новий рядок.
+     *
+     * @param s текст
+     */
+    public void print(CharSequence s) { text.append(s); }
+
+    /**
+     * Додати рядок.
+     *
+     * @param s рядок
+     */
+    public void println(String s) { text.append(s).append(newline); }
+
+    /**
+     * Додати рядок з об'єкта без проміжного {@code String} там, де це можливо.
+     *
+     * @param o об'єкт ({@link Object#toString()})
+     */
+    public void println(Object o) { text.append(o).append(newline); }
+
+    /** @return чи є невиведений текст */
+    public boolean pending() { return text.length() > 0; }
+
+    /**
+     * Завершити раунд: вивести накопичене одним записом або відкинути,
+     * якщо раунд не проходить проріджування. Раунд із запитом до гравця
+     * виводиться завжди.
+     *
+     * @param round   номер раунду
+     * @param changed чи змінився стан у цьому раунді
+     */
+    public void endRound(int round, boolean changed) {
+        if (interactive || round % every == 0 && (!onlyOnChange || changed)) flush();
+        else text.setLength(0);
+        interactive = false;
+    }
+
+    /**
+     * Вивести запрошення до вводу (меню дій тощо): спершу накопичений текст раунду,
+     * щоб гравець бачив результати попередніх ходів, потім саме запрошення.
+     *
+     * @param s текст запрошення
+     */
+    public void prompt(CharSequence s) {
+        interactive = true;
+        flush();
+        write(s);
+    }
+
+    /** Вивести все накопичене негайно (без проріджування). */
+    public void flush() {
+        if (text.length() == 0) return;
+        write(text);
+        text.setLength(0);
+    }
+
+    /** Закодувати текст у буфер, що використовується повторно, і вивести одним записом. */
+    private void write(CharSequence s) {
+        if (s.length() == 0) return;
+        int need = (int) (s.length() * (double) encoder.maxBytesPerChar()) + 16;
+        if (bytes.capacity() < need) bytes = ByteBuffer.allocate(Math.max(need, bytes.capacity() * 2));
+        bytes.clear();
+        encoder.reset();
+        CharBuffer chars = CharBuffer.wrap(s);
+        CoderResult r = encoder.encode(chars, bytes, true);
+        if (!r.isError()) encoder.flush(bytes);
+        try {
+            out.write(bytes.array(), 0, bytes.position());
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Помилка виводу в консоль: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package myGame.mode;
+
+import myGame.droid.BaseDroid;
+import myGame.droid.DroidTemplate;
+import myGame.effect.EffectEngine;
+import myGame.effect.StackingRule;
+import myGame.effect.StatType;
+import myGame.effect.StatusEffect;
+import myGame.map.BaseMap;
+import myGame.map.Cave;
+import myGame.map.Ocean;
+import myGame.map.Sky;
+import myGame.map.Volcano;
+import myGame.store.MatchEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static myGame.droid.DroidFactory.DroidConstruct.yourDroid;
+
+/**
+ * Контрольна точка інтерактивного бою: усе, що потрібно, щоб продовжити бій
+ * після завершення процесу, — режим, мапа, раунд, зерно одночасних ходів,
+ * шаблони і поточні характеристики кожного дроїда, активні статус-ефекти
+ * з рештою тривалості.
+ *
+ * <p>Файл (по одному на режим, {@link #file(Path, int)}) — магія, версія, довжина
+ * і CRC32 тіла, тіло. Запис іде у тимчасовий файл, що потім атомарно
+ * перейменовується, тож після будь-якого переривання на диску лежить або
+ * попередня, або нова ціла точка. Випадковість одночасних ходів виводиться із
+ * зерна і номера раунду, тож продовжений бій іде так само, як ішов би без перерви;
+ * у покрокових режимах дії обирає гравець.</p>
+ */
+public final class MatchCheckpoint {
+
+    private static final int MAGIC = 0x4D434B50; // "MCKP"
+    private static final int VERSION = 1;
+
+    private final int mode;
+    private final long seed;
+    private final int round;
+    private final BaseMap map;
+    private final List<BaseDroid> teamA;
+    private final List<BaseDroid> teamB;
+    private final EffectEngine effects;
+
+    private MatchCheckpoint(int mode, long seed, int round, BaseMap map,
+                            List<BaseDroid> teamA, List<BaseDroid> teamB, EffectEngine effects) {
+        this.mode = mode;
+        this.seed = seed;
+        this.round = round;
+        this.map = map;
+        this.teamA = teamA;
+        this.teamB = teamB;
+        this.effects = effects;
+    }
+
+    /**
+     * @param dir  директорія логів
+     * @param mode режим ({@link MatchEntry#ONE_VS_ONE}, {@link MatchEntry#TEAM}, {@link MatchEntry#SIMULTANEOUS})
+     * @return файл контрольної точки режиму
+     */
+    public static Path file(Path dir, int mode) {
+        return dir.resolve(switch (mode) {
+            case MatchEntry.ONE_VS_ONE -> ".checkpoint-1v1";
+            case MatchEntry.TEAM -> ".checkpoint-tvt";
+            default -> ".checkpoint-sim";
+        });
+    }
+
+    /** @return режим бою */
+    public int mode() { return mode; }
+
+    /** @return зерно одночасних ходів (0 у покрокових режимах) */
+    public long seed() { return seed; }
+
+    /** @return раунд, з якого продовжувати */
+    public int round() { return round; }
+
+    /** @return мапа */
+    public BaseMap map() { return map; }
+
+    /** @return відновлена команда A */
+    public List<BaseDroid> teamA() { return teamA; }
+
+    /** @return відновлена команда B */
+    public List<BaseDroid> teamB() { return teamB; }
+
+    /** @return рушій ефектів з відновленими накладаннями (дроїдам його ще треба призначити) */
+    public EffectEngine effects() { return effects; }
+
+    /** @return короткий опис для запиту "продовжити?" */
+    public String describe() {
+        return names(teamA) + " vs " + names(teamB) + ", " + map.getClass().getSimpleName() + ", раунд " + round;
+    }
+
+    private static String names(List<BaseDroid> team) {
+        List<String> out = new ArrayList<>(team.size());
+        for (BaseDroid d : team) out.add(d.getName().trim());
+        return String.join(", ", out);
+    }
+
+    /**
+     * Атомарно записати стан бою.
+     *
+     * @param file    файл контрольної точки
+     * @param mode    режим
+     * @param seed    зерно одночасних ходів
+     * @param round   наступний раунд
+     * @param map     мапа
+     * @param teamA   команда A
+     * @param teamB   команда B
+     * @param effects рушій ефектів бою
+     * @throws IOException помилка запису
+     */
+    public static void save(Path file, int mode, long seed, int round, BaseMap map,
+                            List<BaseDroid> teamA, List<BaseDroid> teamB, EffectEngine effects) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(mode);
+        out.writeLong(seed);
+        out.writeInt(round);
+        out.writeUTF(map.getClass().getSimpleName());
+        out.writeInt(map.getMaxPosition());
+        Map<BaseDroid, Integer> ids = new IdentityHashMap<>();
+        for (List<BaseDroid> team : List.of(teamA, teamB)) {
+            out.writeInt(team.size());
+            for (BaseDroid d : team) {
+                ids.put(d, ids.size());
+                writeDroid(out, d);
+            }
+        }
+        List<EffectEngine.Applied> active = effects.active();
+        out.writeInt(active.size());
+        for (EffectEngine.Applied a : active) {
+            Integer id = ids.get(a.target());
+            if (id == null) throw new IllegalArgumentException("Ефект на дроїді поза командами: " + a.target().getName());
+            StatusEffect e = a.effect();
+            out.writeInt(id);
+            out.writeUTF(e.id());
+            out.writeUTF(e.stat().name());
+            out.writeBoolean(e.absolute());
+            out.writeInt(e.value());
+            out.writeInt(e.duration());
+            out.writeUTF(e.stacking().name());
+            out.writeInt(a.remaining());
+            out.writeInt(a.appliedDelta());
+        }
+        byte[] b = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(b);
+        ByteBuffer buf = ByteBuffer.allocate(16 + b.length);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(b.length).putInt((int) crc.getValue()).put(b).flip();
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeDroid(DataOutputStream out, BaseDroid d) throws IOException {
+        DroidTemplate t = d.getTemplate();
+        out.writeInt(t.type());
+        out.writeUTF(t.name());
+        out.writeInt(t.maxHp());
+        out.writeInt(t.moveSpeed());
+        out.writeInt(t.range());
+        out.writeInt(t.attack());
+        out.writeUTF(t.element());
+        out.writeUTF(d.getName());
+        out.writeInt(d.getMaxHp());
+        out.writeInt(d.getCurrentHp());
+        out.writeInt(d.getMoveSpeed());
+        out.writeInt(d.getRange());
+        out.writeInt(d.getAttack());
+        out.writeInt(d.getCurrentPosition());
+        out.writeInt(d.getDamageDealt());
+    }
+
+    /**
+     * Прочитати контрольну точку.
+     *
+     * @param file файл контрольної точки
+     * @return відновлений стан або {@code null}, якщо файлу немає
+     * @throws IOException помилка читання або пошкоджений файл
+     */
+    public static MatchCheckpoint load(Path file) throws IOException {
+        byte[] all;
+        try {
+            all = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer head = ByteBuffer.wrap(all);
+        if (all.length < 16 || head.getInt() != MAGIC || head.getInt() != VERSION) {
+            throw new IOException("Не контрольна точка бою: " + file);
+        }
+        int len = head.getInt();
+        int sum = head.getInt();
+        if (len != all.length - 16) throw new IOException("Обрізана контрольна точка бою: " + file);
+        CRC32 crc = new CRC32();
+        crc.update(all, 16, len);
+        if ((int) crc.getValue() != sum) throw new IOException("Пошкоджена контрольна точка бою: " + file);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(all, 16, len));
+        try {
+            int mode = in.readUnsignedByte();
+            long seed = in.readLong();
+            int round = in.readInt();
+            BaseMap map = map(in.readUTF());
+            map.setMaxPosition(in.readInt());
+            List<BaseDroid> droids = new ArrayList<>();
+            List<BaseDroid> teamA = readTeam(in, droids);
+            List<BaseDroid> teamB = readTeam(in, droids);
+            EffectEngine effects = new EffectEngine();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                BaseDroid target = droids.get(in.readInt());
+                StatusEffect e = new StatusEffect(in.readUTF(), StatType.valueOf(in.readUTF()), in.readBoolean(),
+                        in.readInt(), in.readInt(), StackingRule.valueOf(in.readUTF()));
+                effects.restore(new EffectEngine.Applied(target, e, in.readInt(), in.readInt()));
+            }
+            return new MatchCheckpoint(mode, seed, round, map, teamA, teamB, effects);
+        } catch (EOFException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Пошкоджена контрольна точка бою: " + file, e);
+        }
+    }
+
+    private static List<BaseDroid> readTeam(DataInputStream in, List<BaseDroid> all) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > 64) throw new IOException("Пошкоджена контрольна точка бою");
+        List<BaseDroid> team = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            DroidTemplate t = new DroidTemplate(in.readInt(), in.readUTF(), in.readInt(), in.readInt(),
+                    in.readInt(), in.readInt(), in.readUTF());
+            BaseDroid d = yourDroid(t);
+            d.setName(in.readUTF());
+            d.setMaxHp(in.readInt());
+            d.setCurrentHp(in.readInt());
+            d.setMoveSpeed(in.readInt());
+            d.setRange(in.readInt());
+            d.setAttack(in.readInt());
+            d.setCurrentPosition(in.readInt());
+            d.addDamageDealt(in.readInt());
+            team.add(d);
+            all.add(d);
+        }
+        return team;
+    }
+
+    private static BaseMap map(String name) throws IOException {
+        return switch (name) {
+            case "Cave" -> new Cave();
+            case "Ocean" -> new Ocean();
+            case "Sky" -> new Sky();
+            case "Volcano" -> new Volcano();
+            default -> throw new IOException("Невідома мапа у контрольній точці: " + name);
+        };
+    }
+
+    /**
+     * Видалити контрольну точку (бій завершено).
+     *
+     * @param file файл контрольної точки
+     * @throws IOException помилка видалення
+     */
+    public static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -1,12 +1,21 @@
 package myGame.mode;
 
 import myGame.droid.*;
+import myGame.effect.EffectEngine;
+import myGame.effect.StatusEffect;
 import myGame.map.*;
+import myGame.history.MatchHistory;
+import myGame.history.MatchRecord;
+import myGame.rating.RatingLadder;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
 
@@ -26,6 +35,8 @@ import static myGame.droid.DroidFactory.DroidConstruct.*;
  *   <li>Система бонусів за відповідність елементу дроїда та карти</li>
  *   <li>Покрокова битва з логуванням у файл</li>
  *   <li>Максимум 200 раундів для запобігання нескінченним битвам</li>
+ *   <li>Опційно — контрольна точка після кожного раунду ({@link MatchCheckpoint}),
+ *       з якої перерваний бій можна продовжити</li>
  * </ul>
  */
 public class OneVsOne {
@@ -42,6 +53,18 @@ public class OneVsOne {
      * Поточна карта гри
      */
     private final BaseMap map;
+    /**
+     * Статус-ефекти бою (бонуси карти, затемнення тощо)
+     */
+    private final EffectEngine effects;
+    /**
+     * Індекс пораненого першого дроїда (ціль для лікування)
+     */
+    private final WoundedIndex wounded1 = new WoundedIndex(HealPolicy.MOST_MISSING);
+    /**
+     * Індекс пораненого другого дроїда (ціль для лікування)
+     */
+    private final WoundedIndex wounded2 = new WoundedIndex(HealPolicy.MOST_MISSING);
 
     /**
      * Максимальний індекс дроїда у каталозі
@@ -68,6 +91,32 @@ public class OneVsOne {
      * Буфер для зберігання повідомлень до ініціалізації логера
      */
     private final StringBuilder preLogBuffer = new StringBuilder();
+    /**
+     * Буферизований вивід у консоль (один запис на раунд)
+     */
+    private ConsoleSink console = new ConsoleSink();
+    /**
+     * Рейтинги, куди йде результат бою (може бути {@code null})
+     */
+    private RatingLadder ratings;
+    private String playerA;
+    private String playerB;
+    /**
+     * Історія боїв, куди йде підсумок бою (може бути {@code null})
+     */
+    private MatchHistory history;
+    /**
+     * Скільки раундів зіграно
+     */
+    private int rounds;
+    /**
+     * Рендерер стану (повний стан на початку, далі лише зміни)
+     */
+    private StatusRenderer renderer;
+    /**
+     * Буфер тексту стану раунду
+     */
+    private final StringBuilder status = new StringBuilder();
 
     /**
      * Директорія для збереження лог-файлів
@@ -77,6 +126,22 @@ public class OneVsOne {
      * Чи додавати до існуючого лог-файлу
      */
     private final boolean appendIfExists;
+    /**
+     * Сховище боїв (null — окремий лог-файл на бій)
+     */
+    private final MatchStore store;
+    /**
+     * Лог бою для сховища (null, якщо пишемо у файл)
+     */
+    private StoreLogger storeLog;
+    /**
+     * Файл контрольної точки (null — не зберігати)
+     */
+    private Path checkpoint;
+    /**
+     * Раунд, з якого починається (продовжується) бій
+     */
+    private int firstRound = 1;
 
     /**
      * Конструктор за замовчуванням, використовує поточну директорію для логів.
@@ -92,8 +157,54 @@ public class OneVsOne {
      * @param appendIfExists чи додавати до існуючого лог-файлу (true) чи перезаписувати (false)
      */
     public OneVsOne(String logDirectory, boolean appendIfExists) {
+        this(logDirectory, appendIfExists, null);
+    }
+
+    /**
+     * Конструктор, що записує лог бою у сховище боїв замість окремого файлу.
+     *
+     * @param store відкрите для запису сховище
+     */
+    public OneVsOne(MatchStore store) {
+        this(store.directory().toString(), false, store);
+    }
+
+    /**
+     * Продовжити перерваний бій з контрольної точки; лог продовження пишеться у сховище.
+     *
+     * @param store відкрите для запису сховище
+     * @param saved відновлений стан бою
+     */
+    public OneVsOne(MatchStore store, MatchCheckpoint saved) {
+        this.logDirectory = store.directory().toString();
+        this.appendIfExists = false;
+        this.store = store;
+        this.effects = saved.effects();
+        this.droid1 = saved.teamA().get(0);
+        this.droid2 = saved.teamB().get(0);
+        this.map = saved.map();
+        this.firstRound = saved.round();
+        BaseDroid.arenaMin = map.getMinPosition();
+        BaseDroid.arenaMax = map.getMaxPosition();
+
+        droid1.setEffects(effects);
+        droid2.setEffects(effects);
+        wounded1.add(droid1);
+        wounded2.add(droid2);
+
+        initLoggerWithUniqueName();
+
+        logln("Продовження перерваного бою з раунду " + firstRound);
+        logln("Мапа: " + map.getClass().getName()
+                + " (element=" + map.getElement() + ", bonus=" + map.getBonus() + ")");
+        logln("Арена: [" + map.getMinPosition() + " .. " + map.getMaxPosition() + "]");
+    }
+
+    private OneVsOne(String logDirectory, boolean appendIfExists, MatchStore store) {
         this.logDirectory = (logDirectory == null || logDirectory.isBlank()) ? "." : logDirectory;
         this.appendIfExists = appendIfExists;
+        this.store = store;
+        this.effects = new EffectEngine();
 
         Scanner sc = new Scanner(System.in);
 
@@ -115,6 +226,10 @@ public class OneVsOne {
         BaseDroid.arenaMin = map.getMinPosition();
         BaseDroid.arenaMax = map.getMaxPosition();
 
+        droid1.setEffects(effects);
+        droid2.setEffects(effects);
+        wounded1.add(droid1);
+        wounded2.add(droid2);
         applyBonus(droid1, this.map);
         applyBonus(droid2, this.map);
 
@@ -146,6 +261,10 @@ public class OneVsOne {
      * Автоматично переносить попередні повідомлення з буфера у файл.
      */
     private void initLoggerWithUniqueName() {
+        if (store != null) {
+            initStoreLogger();
+            return;
+        }
         String n1 = sanitizeFileName(droid1.getName());
         String n2 = sanitizeFileName(droid2.getName());
         String ts = LocalDateTime.now().format(TS);
@@ -161,8 +280,8 @@ public class OneVsOne {
 
         try {
             this.log = new PrintWriter(
-                    new OutputStreamWriter(new FileOutputStream(f, appendIfExists), StandardCharsets.UTF_8),
-                    true
+                    new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f, appendIfExists), StandardCharsets.UTF_8)),
+                    false
             );
             this.writingToFile = true;
             this.loggerReady = true;
@@ -182,6 +301,22 @@ public class OneVsOne {
         }
     }
 
+    /**
+     * Ініціалізує логер у пам'яті; після бою лог дописується у сховище.
+     */
+    private void initStoreLogger() {
+        this.storeLog = new StoreLogger(store);
+        this.log = storeLog.writer();
+        this.writingToFile = true;
+        this.loggerReady = true;
+        if (preLogBuffer.length() > 0) {
+            log.print(preLogBuffer);
+            preLogBuffer.setLength(0);
+        }
+        logln("\n=== Лог бою буде збережено у сховище: " + store.directory().toAbsolutePath()
+                + " (бій #" + storeLog.id() + ") ===");
+    }
+
     /**
      * Очищає рядок для використання в імені файлу.
      *
@@ -199,7 +334,7 @@ public class OneVsOne {
      * @param s рядок для логування
      */
     private void logln(String s) {
-        System.out.println(s);
+        console.println(s);
         if (!loggerReady) {
             preLogBuffer.append(s).append(System.lineSeparator());
         } else if (log != null) {
@@ -213,7 +348,8 @@ public class OneVsOne {
      * @param s рядок для логування
      */
     private void logRaw(String s) {
-        System.out.print(s);
+        console.print(s);
+        console.flush();
         if (!loggerReady) {
             preLogBuffer.append(s);
         } else if (log != null) {
@@ -225,8 +361,16 @@ public class OneVsOne {
      * Закриває лог-файл, якщо ведеться запис у файл.
      */
     private void closeLog() {
+        console.flush();
         if (log != null && writingToFile) {
             log.flush();
+            if (storeLog != null) {
+                try {
+                    storeLog.commit(MatchEntry.ONE_VS_ONE, map.getClass().getSimpleName(), asList(droid1), asList(droid2));
+                } catch (IOException e) {
+                    System.err.println("Не вдалося записати бій у сховище: " + e.getMessage());
+                }
+            }
             log.close();
         }
     }
@@ -234,20 +378,10 @@ public class OneVsOne {
 
     /**
      * Відображає каталог дроїдів та записує його у лог.
-     * Використовує перехоплення System.out для запису виводу у буфер.
+     * Текст каталогу будується один раз ({@link DroidFactory.DroidConstruct#catalogText()}).
      */
     private void showAndRecordCatalog() {
-        PrintStream originalOut = System.out;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PrintStream capture = new PrintStream(baos, true);
-        try {
-            System.setOut(capture);
-            catalogDroid();
-        } finally {
-            System.setOut(originalOut);
-        }
-        String menu = baos.toString();
-        logRaw(menu);
+        logRaw(catalogText());
     }
 
     /**
@@ -288,27 +422,18 @@ public class OneVsOne {
             return;
         }
 
-        int bonus = map.getBonus();
-        String element = map.getElement().toLowerCase();
+        StatusEffect bonus = StatusEffect.mapBonus(map);
+        if (bonus == null) {
+            logln("Невідомий елемент карти: " + map.getElement());
+            return;
+        }
+        effects.apply(droid, bonus);
 
-        switch (element) {
-            case "earth" -> {
-                droid.setCurrentHp(droid.getCurrentHp() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " HP від карти Earth!");
-            }
-            case "fire" -> {
-                droid.setAttack(droid.getAttack() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " до атаки від карти Fire!");
-            }
-            case "water" -> {
-                droid.setMoveSpeed(droid.getMoveSpeed() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " до швидкості від карти Water!");
-            }
-            case "wind" -> {
-                droid.setRange(droid.getRange() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " до дальності від карти Wind!");
-            }
-            default -> logln("Невідомий елемент карти: " + element);
+        switch (map.getElement().toLowerCase()) {
+            case "earth" -> logln(droid.getName() + " отримує +" + map.getBonus() + " HP від карти Earth!");
+            case "fire" -> logln(droid.getName() + " отримує +" + map.getBonus() + " до атаки від карти Fire!");
+            case "water" -> logln(droid.getName() + " отримує +" + map.getBonus() + " до швидкості від карти Water!");
+            default -> logln(droid.getName() + " отримує +" + map.getBonus() + " до дальності від карти Wind!");
         }
     }
 
@@ -319,13 +444,16 @@ public class OneVsOne {
     public void start() {
         logln("\n=== Бій 1 на 1 ===");
         logln("Мапа: " + map.getClass().getSimpleName());
-        printStatus();
+        printStatus(true);
+        console.flush();
 
         final int MAX_ROUNDS = 200;
-        int round = 1;
+        int round = firstRound;
+        saveCheckpoint(round);
 
         while (alive(droid1) && alive(droid2) && round <= MAX_ROUNDS) {
             logln("\n--- Раунд " + round + " ---");
+            rounds = round;
             if(step(droid1, droid2)== 1) {
                 break;
             }
@@ -334,25 +462,31 @@ public class OneVsOne {
                 break;
             }
             if (!alive(droid1)) break;
-            printStatus();
+            effects.tick();
+            endRound(round, printStatus());
             round++;
+            saveCheckpoint(round);
         }
         printWinnerWithRoundLimit();
         closeLog();
+        deleteCheckpoint();
     }
 
     /**
      * Виконує хід одного дроїда проти іншого.
+     * Перед меню дій виводиться накопичений текст раунду ({@link ConsoleSink#prompt(CharSequence)}),
+     * тож гравець бачить заголовок раунду і результат попереднього ходу.
      *
      * @param attacker дроїд, який атакує
      * @param defender дроїд, який захищається
      */
     private int step(BaseDroid attacker, BaseDroid defender) {
-        String res = attacker.actionMenu(asList(attacker), asList(defender));
+        String res = attacker.actionMenu(asList(attacker), asList(defender), console);
         log.println(res);
         if (res == "stop") {
             return 1;
         }
+        console.println(res);
         return 0;
     }
 
@@ -365,28 +499,137 @@ public class OneVsOne {
     private boolean alive(BaseDroid d) { return d != null && d.isAlive(); }
 
     /**
-     * Виводить поточний статус обох дроїдів.
+     * Виводить зміни стану обох дроїдів з попереднього виводу.
+     *
+     * @return чи змінився стан з попереднього виводу
+     */
+    private boolean printStatus() {
+        return printStatus(false);
+    }
+
+    /**
+     * Вивести стан у консоль і лог.
+     *
+     * @param full true — повний стан усіх дроїдів; false — лише зміни з попереднього виводу
+     * @return чи було що виводити
+     */
+    private boolean printStatus(boolean full) {
+        if (renderer == null) renderer = new StatusRenderer(asList(droid1), asList(droid2), false);
+        status.setLength(0);
+        boolean changed = true;
+        if (full) renderer.full(status);
+        else changed = renderer.render(status);
+        console.print(status);
+        if (log != null) log.print(status);
+        return changed;
+    }
+
+    /**
+     * Завершити раунд: один запис у консоль (з урахуванням проріджування) і скидання логу на диск.
+     *
+     * @param round   номер раунду
+     * @param changed чи змінився стан за раунд
+     */
+    private void endRound(int round, boolean changed) {
+        console.endRound(round, changed);
+        if (log != null) log.flush();
+    }
+
+    /**
+     * Замінити консольний вивід (наприклад, на проріджений для довгих боїв).
+     *
+     * @param console новий вивід
      */
-    private void printStatus() {
-        logln("\nПоточний стан:");
-        System.out.println(droid1);
-        if (log != null) log.println(droid1);
-        System.out.println(droid2);
-        if (log != null) log.println(droid2);
+    public void setConsole(ConsoleSink console) {
+        this.console.flush();
+        this.console = console;
+    }
+
+    /**
+     * Зберігати стан бою у файл після кожного раунду; коли бій завершено, файл видаляється.
+     *
+     * @param checkpoint файл контрольної точки ({@link MatchCheckpoint#file})
+     */
+    public void setCheckpoint(Path checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Записати контрольну точку перед раундом. Помилка запису не зупиняє бій.
+     *
+     * @param round раунд, з якого продовжувати
+     */
+    private void saveCheckpoint(int round) {
+        if (checkpoint == null) return;
+        try {
+            MatchCheckpoint.save(checkpoint, MatchEntry.ONE_VS_ONE, 0, round, map,
+                    asList(droid1), asList(droid2), effects);
+        } catch (IOException e) {
+            System.err.println("Не вдалося зберегти контрольну точку бою: " + e.getMessage());
+            checkpoint = null;
+        }
+    }
+
+    private void deleteCheckpoint() {
+        if (checkpoint == null) return;
+        try {
+            MatchCheckpoint.delete(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Не вдалося видалити контрольну точку бою: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Передавати результат бою у рейтинги.
+     *
+     * @param ratings рейтинги
+     * @param playerA гравець A або {@code null}
+     * @param playerB гравець B або {@code null}
+     */
+    public void setRatings(RatingLadder ratings, String playerA, String playerB) {
+        this.ratings = ratings;
+        this.playerA = playerA;
+        this.playerB = playerB;
+    }
+
+    /**
+     * Записувати підсумок бою в історію боїв.
+     *
+     * @param history історія боїв
+     */
+    public void setHistory(MatchHistory history) {
+        this.history = history;
     }
 
     /**
      * Визначає та виводить переможця гри з урахуванням ліміту раундів.
      */
     private void printWinnerWithRoundLimit() {
+        int winner = -1;
         if (alive(droid1) && !alive(droid2)) {
             logln("\nПереможець: " + droid1.getName());
+            winner = 0;
         } else if (!alive(droid1) && alive(droid2)) {
             logln("\nПереможець: " + droid2.getName());
+            winner = 1;
         } else if (!alive(droid1) && !alive(droid2)) {
             logln("\nНічия — обидва знищені.");
         } else {
             logln("\nНічия — досягнуто ліміту раундів.");
         }
+        if (ratings != null) {
+            ratings.record(List.of(droid1.getName()), List.of(droid2.getName()), playerA, playerB, winner);
+            ratings.publish();
+        }
+        if (history != null) {
+            try {
+                history.append(new MatchRecord(history.reserveId(), System.currentTimeMillis(), MatchEntry.ONE_VS_ONE,
+                        map.getClass().getSimpleName(), 0, winner, rounds,
+                        List.of(droid1.getName().trim()), List.of(droid2.getName().trim()),
+                        new int[]{droid1.getDamageDealt()}, new int[]{droid2.getDamageDealt()}));
+            } catch (IOException e) {
+                System.err.println("Не вдалося записати бій в історію: " + e.getMessage());
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,23 @@
 package myGame.mode;
 
+import myGame.log.BlockGzipInputStream;
+import myGame.log.LogFollower;
+import myGame.log.LogRetention;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
+import myGame.store.MatchTail;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Утилітарний клас для читання файлів з автоматичним визначенням кодування.
@@ -13,6 +29,8 @@ import java.nio.charset.StandardCharsets;
  *   <li>Підтримка BOM (Byte Order Mark) для UTF-8</li>
  *   <li>Паузи при виведенні порожніх рядків для кращої читабельності</li>
  *   <li>Обробка кирилиці у різних кодуваннях</li>
+ *   <li>Прозоре розпакування стиснених ({@code .gz}) логів</li>
+ *   <li>Режим стеження за логами, що дописуються іншим процесом</li>
  * </ul>
  */
 public final class ReadFromFile {
@@ -33,13 +51,180 @@ public final class ReadFromFile {
      *   <li>Автоматично закриває потік після читання</li>
      * </ul>
      *
-     * @param file файл для читання та виведення
+     * @param file файл для читання та виведення (стиснений gzip розпаковується)
      * @throws IOException якщо виникають проблеми з читанням файлу
      * @throws RuntimeException якщо потік було перервано під час паузи
      */
     public static void printToConsole(File file) throws IOException {
+        printToConsole(open(file));
+    }
+
+    /**
+     * Виводить файл у консоль, починаючи з байтового зміщення нестисненого тексту
+     * (наприклад, початку раунду, знайденого пошуком). У блочному gzip
+     * ({@link BlockGzipInputStream}) розпаковується лише блок зі зміщенням і наступні.
+     *
+     * @param file   файл (стиснений gzip розпаковується)
+     * @param offset зміщення у нестисненому тексті
+     * @throws IOException якщо виникають проблеми з читанням файлу
+     */
+    public static void printToConsole(File file, long offset) throws IOException {
+        InputStream in;
+        if (isBlockGzip(file)) {
+            BlockGzipInputStream gz = BlockGzipInputStream.open(file.toPath());
+            in = gz;
+            try {
+                gz.seekUncompressed(offset);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        } else {
+            in = open(file);
+            try {
+                in.skipNBytes(offset);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        printToConsole(in);
+    }
+
+    /** Чи файл — блочний gzip (сигнатура gzip і додаткове поле {@code BC}). */
+    private static boolean isBlockGzip(File file) throws IOException {
+        byte[] head = new byte[14];
+        try (InputStream in = new FileInputStream(file)) {
+            if (in.readNBytes(head, 0, head.length) < head.length) return false;
+        }
+        return (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b && head[12] == 'B' && head[13] == 'C';
+    }
+
+    /**
+     * Режим стеження: виводить у консоль усе, що дописується в директорію логів
+     * після виклику, — нові рядки окремих лог-файлів (зокрема щойно створених),
+     * раунди боїв, що ще тривають (живі файли {@link StoreLogger}), і кожен бій,
+     * дописаний у сховище (якщо його вже показано наживо — лише позначка про
+     * завершення). Один потік стеження на всі файли; при зміні джерела
+     * друкується заголовок {@code ==> ім'я <==}.
+     *
+     * @param dir директорія логів
+     * @return стеження; {@link Closeable#close()} зупиняє його
+     * @throws IOException помилка доступу до директорії
+     */
+    public static Closeable follow(Path dir) throws IOException {
+        LogFollower follower = new LogFollower();
+        Sink sink = new Sink();
+        try {
+            LogFollower.Listener text = (file, position, bytes) -> sink.text(file.getFileName().toString(), bytes);
+            List<Path> plain;
+            try (Stream<Path> s = Files.list(dir)) {
+                plain = s.filter(p -> isPlainMatchLog(p.getFileName().toString())).collect(Collectors.toList());
+            }
+            for (Path p : plain) follower.follow(p, Files.size(p), text);
+            follower.followNew(dir, ReadFromFile::isPlainMatchLog, text);
+            LogFollower.Listener live = (file, position, bytes) ->
+                    sink.live(StoreLogger.liveId(file.getFileName().toString()), bytes);
+            List<Path> running;
+            try (Stream<Path> s = Files.list(dir)) {
+                running = s.filter(p -> isLiveLog(p.getFileName().toString())).collect(Collectors.toList());
+            }
+            // бій, що вже йде, показується з початку
+            for (Path p : running) follower.follow(p, 0, live);
+            follower.followNew(dir, ReadFromFile::isLiveLog, live);
+            followStore(follower, MatchStore.openReadOnly(dir).tail(), sink);
+        } catch (IOException | RuntimeException e) {
+            follower.close();
+            throw e;
+        }
+        return follower;
+    }
+
+    /** Стежити за активним сегментом сховища, переходячи до наступного після його закриття. */
+    private static void followStore(LogFollower follower, MatchTail tail, Sink sink) throws IOException {
+        Path segment = tail.file();
+        follower.follow(segment, tail.position(), (file, position, bytes) -> {
+            if (!tail.file().equals(segment)) return;
+            boolean sealed = tail.feed(position, bytes, sink::match);
+            if (sealed) {
+                follower.unfollow(segment);
+                followStore(follower, tail, sink);
+            }
+        });
+    }
+
+    private static boolean isLiveLog(String name) {
+        return StoreLogger.liveId(name) >= 0;
+    }
+
+    private static boolean isPlainMatchLog(String name) {
+        return !name.endsWith(LogRetention.GZ) && LogRetention.isMatchLog(name);
+    }
+
+    /** Вивід режиму стеження: байти як є (UTF-8 може розрізатись між порціями). */
+    private static final class Sink {
+        private String source;
+        /** Бої, показані наживо: із запису сховища друкується лише позначка завершення. */
+        private final Set<Long> streamed = new HashSet<>();
+
+        synchronized void text(String name, ByteBuffer bytes) {
+            header(name);
+            byte[] b = new byte[bytes.remaining()];
+            bytes.get(b);
+            System.out.write(b, 0, b.length);
+            System.out.flush();
+        }
+
+        synchronized void live(long id, ByteBuffer bytes) {
+            streamed.add(id);
+            text("бій #" + id + " (триває)", bytes);
+        }
+
+        synchronized void match(MatchEntry e, byte[] log) {
+            header("бій " + e);
+            if (streamed.remove(e.id())) {
+                System.out.println("--- бій завершено ---");
+            } else {
+                System.out.write(log, 0, log.length);
+            }
+            System.out.flush();
+        }
+
+        private void header(String name) {
+            if (name.equals(source)) return;
+            source = name;
+            System.out.println("\n==> " + name + " <==");
+        }
+    }
+
+    /**
+     * Відкриває файл для читання; gzip (зокрема блочний, з кількох членів)
+     * розпізнається за сигнатурою і розпаковується.
+     *
+     * @param file файл
+     * @return потік нестисненого вмісту
+     * @throws IOException якщо файл не вдалося відкрити
+     */
+    public static InputStream open(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        in.mark(2);
+        int b0 = in.read();
+        int b1 = in.read();
+        in.reset();
+        if (b0 == 0x1f && b1 == 0x8b) return new GZIPInputStream(in, 1 << 16);
+        return in;
+    }
+
+    /**
+     * Виводить у консоль лог з потоку (наприклад, бій зі сховища) так само,
+     * як {@link #printToConsole(File)}. Потік закривається після читання.
+     *
+     * @param in потік з текстом у UTF-8
+     * @throws IOException якщо виникають проблеми з читанням
+     */
+    public static void printToConsole(InputStream in) throws IOException {
         try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                new InputStreamReader(in, StandardCharsets.UTF_8))) {
 
             String line;
             while ((line = reader.readLine()) != null) {
@@ -0,0 +1,131 @@
+package myGame.mode;
+
+import myGame.droid.BaseDroid;
+
+import java.util.List;
+
+/**
+ * Вивід стану бою у вигляді змін.
+ *
+ * <p>Перший виклик {@link #render(StringBuilder)} друкує повний стан усіх дроїдів
+ * (як раніше {@code printStatus}). Далі рендерер пам'ятає останні виведені значення
+ * кожного дроїда і друкує лише тих, у кого щось змінилося, у стислому записі:</p>
+ * <pre>
+ * A1 HammerDroid: HP 150→120 pos 3→5
+ * B0 StormDroid: знищено
+ * </pre>
+ * <p>Тож обсяг логу пропорційний подіям бою, а не розміру команд × раунди.
+ * Мітка дроїда — команда (A/B) та його номер у команді.</p>
+ */
+public final class StatusRenderer {
+
+    private static final int HP = 0, MAX_HP = 1, ATTACK = 2, RANGE = 3, MOVE_SPEED = 4, POSITION = 5;
+    private static final int FIELDS = 6;
+    private static final String[] LABELS = {"HP", "maxHP", "atk", "range", "ms", "pos"};
+
+    private final BaseDroid[] droids;
+    private final String[] tags;
+    private final int sizeA;
+    private final boolean teamHeaders;
+    private final int[] last;
+    private final String newline = System.lineSeparator();
+    private boolean started;
+
+    /**
+     * @param teamA       команда A
+     * @param teamB       команда B
+     * @param teamHeaders чи друкувати заголовки команд у повному стані
+     */
+    public StatusRenderer(List<BaseDroid> teamA, List<BaseDroid> teamB, boolean teamHeaders) {
+        this.sizeA = teamA.size();
+        this.droids = new BaseDroid[sizeA + teamB.size()];
+        this.tags = new String[droids.length];
+        this.teamHeaders = teamHeaders;
+        this.last = new int[droids.length * FIELDS];
+        for (int i = 0; i < droids.length; i++) {
+            boolean a = i < sizeA;
+            droids[i] = a ? teamA.get(i) : teamB.get(i - sizeA);
+            tags[i] = (a ? "A" : "B") + (a ? i : i - sizeA) + " " + droids[i].getName();
+        }
+    }
+
+    /**
+     * Дописати стан раунду: повний при першому виклику, далі — лише зміни.
+     *
+     * @param out куди дописати текст
+     * @return чи було що виводити (перший виклик або хоч одна зміна)
+     */
+    public boolean render(StringBuilder out) {
+        if (!started) {
+            full(out);
+            return true;
+        }
+        int mark = out.length();
+        out.append(newline).append("Зміни:").append(newline);
+        int header = out.length();
+        for (int i = 0; i < droids.length; i++) diff(i, out);
+        if (out.length() == header) {
+            out.setLength(mark);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Дописати повний стан усіх дроїдів і запам'ятати його як виведений.
+     *
+     * @param out куди дописати текст
+     */
+    public void full(StringBuilder out) {
+        out.append(newline).append("Поточний стан:").append(newline);
+        for (int i = 0; i < droids.length; i++) {
+            if (teamHeaders && (i == 0 || i == sizeA)) {
+                out.append(i < sizeA ? "[Команда A]" : "[Команда B]").append(newline);
+            }
+            out.append(droids[i]).append(newline);
+            read(droids[i], last, i * FIELDS);
+        }
+        if (teamHeaders && sizeA == droids.length) out.append("[Команда B]").append(newline);
+        started = true;
+    }
+
+    private void diff(int i, StringBuilder out) {
+        BaseDroid d = droids[i];
+        int base = i * FIELDS;
+        int hp = d.getCurrentHp();
+        boolean wasAlive = last[base + HP] > 0;
+        if (!wasAlive && hp <= 0) return;
+        if (wasAlive && hp <= 0) {
+            last[base + HP] = hp;
+            out.append(tags[i]).append(": знищено").append(newline);
+            return;
+        }
+        int mark = out.length();
+        out.append(tags[i]).append(':');
+        int start = out.length();
+        change(out, base + HP, hp);
+        change(out, base + MAX_HP, d.getMaxHp());
+        change(out, base + ATTACK, d.getAttack());
+        change(out, base + RANGE, d.getRange());
+        change(out, base + MOVE_SPEED, d.getMoveSpeed());
+        change(out, base + POSITION, d.getCurrentPosition());
+        if (out.length() == start) out.setLength(mark);
+        else out.append(newline);
+    }
+
+    private void change(StringBuilder out, int slot, int now) {
+        int was = last[slot];
+        if (was == now) return;
+        out.append(' ').append(LABELS[slot % FIELDS]).append(' ').append(was).append('→').append(now);
+        last[slot] = now;
+    }
+
+    private static void read(BaseDroid d, int[] dst, int base) {
+        dst[base + HP] = d.getCurrentHp();
+        dst[base + MAX_HP] = d.getMaxHp();
+        dst[base + ATTACK] = d.getAttack();
+        dst[base + RANGE] = d.getRange();
+        dst[base + MOVE_SPEED] = d.getMoveSpeed();
+        dst[base + POSITION] = d.getCurrentPosition();
+    }
+}
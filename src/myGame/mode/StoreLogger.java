@@ -0,0 +1,192 @@
+package myGame.mode;
+
+import myGame.droid.BaseDroid;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Лог одного бою, що накопичується в пам'яті і після бою дописується
+ * у {@link MatchStore} одним записом (замість окремого файлу на бій).
+ *
+ * <p>Поки бій іде, той самий текст дописується ще й у живий файл
+ * {@code live-<номер>.log} у директорії сховища (щоразу, коли лог скидається —
+ * щонайменше раз на раунд), тож режим стеження показує бій, що ще триває.
+ * Після запису бою у сховище живий файл видаляється.</p>
+ *
+ * <p>Поки бій пише живий файл, його канал тримає блокування одного байта далеко за
+ * кінцем файлу ({@link #LOCK_POSITION}) — вміст файлу лишається доступним для читання
+ * режиму стеження навіть там, де блокування обов'язкові. Новий бій видаляє лише ті
+ * чужі живі файли, блокування яких ніхто не тримає: вони лишилися від перерваних боїв.
+ * Файли боїв, що ще пишуться іншим процесом чи пакетом, не чіпаються.</p>
+ */
+final class StoreLogger {
+
+    /** Префікс імені живого файлу бою. */
+    static final String LIVE_PREFIX = "live-";
+    /** Суфікс імені живого файлу бою. */
+    static final String LIVE_SUFFIX = ".log";
+    /** Позиція байта, блокування якого позначає, що живий файл ще пишеться. */
+    private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    private final MatchStore store;
+    private final long id;
+    private final Path liveFile;
+    private final Buffer buffer;
+    private final PrintWriter writer;
+
+    /**
+     * @param store сховище боїв
+     */
+    StoreLogger(MatchStore store) {
+        this.store = store;
+        this.id = store.reserveId();
+        this.liveFile = store.directory().resolve(LIVE_PREFIX + id + LIVE_SUFFIX);
+        removeStaleLive(store.directory(), liveFile);
+        this.buffer = new Buffer(openLive(liveFile));
+        this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8)), false);
+    }
+
+    /**
+     * @param name ім'я файлу
+     * @return номер бою живого файлу або -1, якщо це не живий файл
+     */
+    static long liveId(String name) {
+        if (!name.startsWith(LIVE_PREFIX) || !name.endsWith(LIVE_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(LIVE_PREFIX.length(), name.length() - LIVE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void removeStaleLive(Path dir, Path own) {
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : s.filter(p -> liveId(p.getFileName().toString()) >= 0).collect(Collectors.toList())) {
+                if (!p.equals(own) && abandoned(p)) Files.deleteIfExists(p);
+            }
+        } catch (IOException ignored) {
+            // живі файли — лише для стеження
+        }
+    }
+
+    /**
+     * @param file живий файл
+     * @return {@code true}, якщо блокування файлу ніхто не тримає (бій перервано)
+     */
+    private static boolean abandoned(Path file) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            FileLock lock = ch.tryLock(LOCK_POSITION, 1, false);
+            if (lock == null) return false;
+            lock.release();
+            return true;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static FileChannel openLive(Path file) {
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            // блокування звільниться разом із закриттям каналу
+            ch.tryLock(LOCK_POSITION, 1, false);
+        } catch (IOException | OverlappingFileLockException ignored) {
+            // без блокування файл лише може бути видалений як покинутий
+        }
+        return ch;
+    }
+
+    /** @return номер бою у сховищі */
+    long id() { return id; }
+
+    /** @return writer для тексту логу */
+    PrintWriter writer() { return writer; }
+
+    /**
+     * Дописати лог бою у сховище.
+     *
+     * @param mode  режим ({@link MatchEntry#ONE_VS_ONE} тощо)
+     * @param map   назва мапи
+     * @param teamA команда A
+     * @param teamB команда B
+     * @return запис індексу
+     * @throws IOException помилка запису
+     */
+    MatchEntry commit(int mode, String map, List<BaseDroid> teamA, List<BaseDroid> teamB) throws IOException {
+        writer.flush();
+        MatchEntry e = store.append(id, mode, map, names(teamA), names(teamB), buffer.array(), 0, buffer.size());
+        buffer.closeLive();
+        Files.deleteIfExists(liveFile);
+        return e;
+    }
+
+    private static List<String> names(List<BaseDroid> team) {
+        List<String> out = new ArrayList<>(team.size());
+        for (BaseDroid d : team) out.add(d.getName().trim());
+        return out;
+    }
+
+    /** Буфер логу, доступний без копіювання; усе записане дописується й у живий файл. */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private FileChannel live;
+
+        Buffer(FileChannel live) {
+            super(16 * 1024);
+            this.live = live;
+        }
+
+        byte[] array() { return buf; }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            if (live == null) return;
+            try {
+                ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+                while (bb.hasRemaining()) live.write(bb);
+            } catch (IOException e) {
+                closeLive();
+            }
+        }
+
+        synchronized void closeLive() {
+            if (live == null) return;
+            try {
+                live.close();
+            } catch (IOException ignored) {
+                // живий файл лише для стеження
+            }
+            live = null;
+        }
+    }
+}
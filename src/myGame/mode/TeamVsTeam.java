@@ -1,10 +1,20 @@
 package myGame.mode;
 
 import myGame.droid.*;
+import myGame.effect.EffectEngine;
+import myGame.effect.StatusEffect;
 import myGame.map.*;
+import myGame.history.MatchHistory;
+import myGame.history.MatchRecord;
+import myGame.rating.RatingLadder;
+import myGame.sim.ActionPolicy;
+import myGame.sim.SimultaneousResolver;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -24,6 +34,10 @@ import static myGame.droid.DroidFactory.DroidConstruct.*;
  *   <li>Система бонусів за відповідність елементу дроїда та карти</li>
  *   <li>Автоматична розстановка команд на карті</li>
  *   <li>Покрокова битва з логуванням у файл</li>
+ *   <li>Опційно — одночасні ходи: усі дроїди діють проти знімка раунду,
+ *       дії плануються паралельно ({@link SimultaneousResolver})</li>
+ *   <li>Опційно — контрольна точка після кожного раунду ({@link MatchCheckpoint}),
+ *       з якої перерваний бій можна продовжити</li>
  * </ul>
  */
 public class TeamVsTeam {
@@ -43,15 +57,51 @@ public class TeamVsTeam {
     private final List<BaseDroid> teamB = new ArrayList<>();
     /** Поточна карта гри */
     private final BaseMap map;
+    /** Статус-ефекти бою (бонуси карти, затемнення тощо) */
+    private final EffectEngine effects;
+    /** Поранені союзники команди A (ціль для лікування) */
+    private final WoundedIndex woundedA = new WoundedIndex(HealPolicy.MOST_MISSING);
+    /** Поранені союзники команди B (ціль для лікування) */
+    private final WoundedIndex woundedB = new WoundedIndex(HealPolicy.MOST_MISSING);
 
     // ---------- Логер ----------
     private PrintWriter log;
     private boolean writingToFile = false;
     private boolean loggerReady = false;
     private final StringBuilder preLogBuffer = new StringBuilder();
+    /** Буферизований вивід у консоль (один запис на раунд) */
+    private ConsoleSink console = new ConsoleSink();
+    /** Рейтинги, куди йде результат бою (може бути {@code null}) */
+    private RatingLadder ratings;
+    private String playerA;
+    private String playerB;
+    /** Історія боїв, куди йде підсумок бою (може бути {@code null}) */
+    private MatchHistory history;
+    /** Зерно одночасних ходів (0 — покрокові ходи, зерна немає) */
+    private long seed;
+    /** Скільки раундів зіграно */
+    private int rounds;
+    /** Рендерер стану (повний стан на початку, далі лише зміни) */
+    private StatusRenderer renderer;
+    /** Буфер тексту стану раунду */
+    private final StringBuilder status = new StringBuilder();
 
     private final String logDirectory;
     private final boolean appendIfExists;
+    /** Сховище боїв (null — окремий лог-файл на бій) */
+    private final MatchStore store;
+    /** Лог бою для сховища (null, якщо пишемо у файл) */
+    private StoreLogger storeLog;
+    /** Файл контрольної точки (null — не зберігати) */
+    private Path checkpoint;
+    /** Раунд, з якого починається (продовжується) бій */
+    private int firstRound = 1;
+
+    // ---------- Одночасні ходи ----------
+    /** Чи розігрувати раунди одночасно (автоматичні дії) замість покрокового меню */
+    private final boolean simultaneous;
+    /** Розв'язувач одночасних ходів (null у покроковому режимі) */
+    private SimultaneousResolver resolver;
 
     // ---------- Конструктори ----------
 
@@ -74,8 +124,75 @@ public class TeamVsTeam {
      * @param appendIfExists чи додавати до існуючого лог-файлу (true) чи перезаписувати (false)
      */
     public TeamVsTeam(String logDirectory, boolean appendIfExists) {
+        this(logDirectory, appendIfExists, false);
+    }
+
+    /**
+     * Конструктор з вибором способу розіграшу раундів.
+     *
+     * @param logDirectory директорія для збереження лог-файлів
+     * @param appendIfExists чи додавати до існуючого лог-файлу (true) чи перезаписувати (false)
+     * @param simultaneous true — одночасні автоматичні ходи; false — покрокове меню для кожного дроїда
+     */
+    public TeamVsTeam(String logDirectory, boolean appendIfExists, boolean simultaneous) {
+        this(logDirectory, appendIfExists, simultaneous, null);
+    }
+
+    /**
+     * Конструктор, що записує лог бою у сховище боїв замість окремого файлу.
+     *
+     * @param store відкрите для запису сховище
+     * @param simultaneous true — одночасні автоматичні ходи; false — покрокове меню для кожного дроїда
+     */
+    public TeamVsTeam(MatchStore store, boolean simultaneous) {
+        this(store.directory().toString(), false, simultaneous, store);
+    }
+
+    /**
+     * Продовжити перерваний бій з контрольної точки; лог продовження пишеться у сховище.
+     * Режим (покроковий чи одночасний) і зерно одночасних ходів беруться з точки.
+     *
+     * @param store відкрите для запису сховище
+     * @param saved відновлений стан бою
+     */
+    public TeamVsTeam(MatchStore store, MatchCheckpoint saved) {
+        this.logDirectory = store.directory().toString();
+        this.appendIfExists = false;
+        this.store = store;
+        this.simultaneous = saved.mode() == MatchEntry.SIMULTANEOUS;
+        this.effects = saved.effects();
+        this.map = saved.map();
+        this.firstRound = saved.round();
+        BaseDroid.arenaMin = map.getMinPosition();
+        BaseDroid.arenaMax = map.getMaxPosition();
+
+        teamA.addAll(saved.teamA());
+        teamB.addAll(saved.teamB());
+        teamA.forEach(d -> d.setEffects(effects));
+        teamB.forEach(d -> d.setEffects(effects));
+        teamA.forEach(woundedA::add);
+        teamB.forEach(woundedB::add);
+
+        if (simultaneous) {
+            seed = saved.seed();
+            resolver = new SimultaneousResolver(teamA, teamB, ActionPolicy.GREEDY, seed, true);
+        }
+
+        initLoggerWithUniqueName();
+
+        logln("Продовження перерваного бою з раунду " + firstRound);
+        logln("Мапа: " + map.getClass().getSimpleName()
+                + " (element=" + map.getElement() + ", bonus=" + map.getBonus() + ")");
+        logln("Арена: [" + map.getMinPosition() + " .. " + map.getMaxPosition() + "]");
+        console.flush();
+    }
+
+    private TeamVsTeam(String logDirectory, boolean appendIfExists, boolean simultaneous, MatchStore store) {
         this.logDirectory = (logDirectory == null || logDirectory.isBlank()) ? "." : logDirectory;
         this.appendIfExists = appendIfExists;
+        this.store = store;
+        this.simultaneous = simultaneous;
+        this.effects = new EffectEngine();
 
         this.map = chooseMap();
         BaseDroid.arenaMin = map.getMinPosition();
@@ -99,9 +216,18 @@ public class TeamVsTeam {
 
         // Розстановка і бонуси — як доповнення до oneVsOne
         spawnTeams();
+        teamA.forEach(d -> d.setEffects(effects));
+        teamB.forEach(d -> d.setEffects(effects));
+        teamA.forEach(woundedA::add);
+        teamB.forEach(woundedB::add);
         teamA.forEach(this::applyBonus);
         teamB.forEach(this::applyBonus);
 
+        if (simultaneous) {
+            seed = new Random().nextLong();
+            resolver = new SimultaneousResolver(teamA, teamB, ActionPolicy.GREEDY, seed, true);
+        }
+
         // Ініціалізуємо логер з унікальною назвою та зливаємо пролог
         initLoggerWithUniqueName();
 
@@ -109,6 +235,7 @@ public class TeamVsTeam {
                 + " (element=" + map.getElement() + ", bonus=" + map.getBonus() + ")");
         logln("Арена: [" + map.getMinPosition() + " .. " + map.getMaxPosition() + "]");
         printStatus();
+        console.flush();
     }
 
     // ---------- Вибір карти ----------
@@ -135,6 +262,10 @@ public class TeamVsTeam {
      * Автоматично переносить попередні повідомлення з буфера у файл.
      */
     private void initLoggerWithUniqueName() {
+        if (store != null) {
+            initStoreLogger();
+            return;
+        }
         String firstA = teamA.isEmpty() ? "A" : sanitizeFileName(teamA.get(0).getName());
         String firstB = teamB.isEmpty() ? "B" : sanitizeFileName(teamB.get(0).getName());
         String ts = LocalDateTime.now().format(TS);
@@ -154,8 +285,8 @@ public class TeamVsTeam {
 
         try {
             this.log = new PrintWriter(
-                    new OutputStreamWriter(new FileOutputStream(f, appendIfExists), StandardCharsets.UTF_8),
-                    true
+                    new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f, appendIfExists), StandardCharsets.UTF_8)),
+                    false
             );
             this.writingToFile = true;
             this.loggerReady = true;
@@ -177,6 +308,23 @@ public class TeamVsTeam {
         }
     }
 
+    /**
+     * Ініціалізує логер у пам'яті; після бою лог дописується у сховище.
+     */
+    private void initStoreLogger() {
+        this.storeLog = new StoreLogger(store);
+        this.log = storeLog.writer();
+        this.writingToFile = true;
+        this.loggerReady = true;
+        if (preLogBuffer.length() > 0) {
+            log.print(preLogBuffer);
+            preLogBuffer.setLength(0);
+        }
+        logln("\n=== Логи бою буде збережено у сховище: " + store.directory().toAbsolutePath()
+                + " (бій #" + storeLog.id() + ") ===");
+        logln("Склади: A=" + teamA.size() + ", B=" + teamB.size());
+    }
+
     /**
      * Очищає рядок для використання в імені файлу.
      *
@@ -194,7 +342,7 @@ public class TeamVsTeam {
      * @param s рядок для логування
      */
     private void logln(String s) {
-        System.out.println(s);
+        console.println(s);
         if (!loggerReady) {
             preLogBuffer.append(s).append(System.lineSeparator());
         } else if (log != null) {
@@ -208,12 +356,12 @@ public class TeamVsTeam {
      * @param s рядок для логування
      */
     private void logRaw(String s) {
-        System.out.print(s);
+        console.print(s);
+        console.flush();
         if (!loggerReady) {
             preLogBuffer.append(s);
         } else if (log != null) {
             log.print(s);
-            log.flush();
         }
     }
 
@@ -221,29 +369,29 @@ public class TeamVsTeam {
      * Закриває лог-файл, якщо ведеться запис у файл.
      */
     private void closeLog() {
+        console.flush();
         if (log != null && writingToFile) {
             log.flush();
+            if (storeLog != null) {
+                try {
+                    storeLog.commit(simultaneous ? MatchEntry.SIMULTANEOUS : MatchEntry.TEAM,
+                            map.getClass().getSimpleName(), teamA, teamB);
+                } catch (IOException e) {
+                    System.err.println("Не вдалося записати бій у сховище: " + e.getMessage());
+                }
+            }
             log.close();
         }
     }
 
-    // ---------- Перехоплення і запис меню каталогу (як у oneVsOne) ----------
+    // ---------- Запис меню каталогу (як у oneVsOne) ----------
 
     /**
      * Відображає каталог дроїдів та записує його у лог.
-     * Використовує перехоплення System.out для запису виводу у буфер.
+     * Текст каталогу будується один раз ({@link DroidFactory.DroidConstruct#catalogText()}).
      */
     private void showAndRecordCatalog() {
-        PrintStream originalOut = System.out;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (PrintStream capture = new PrintStream(baos, true, StandardCharsets.UTF_8)) {
-            System.setOut(capture);
-            catalogDroid();              // друкує в «підмінений» System.out
-        } finally {
-            System.setOut(originalOut);  // повертаємо консоль
-        }
-        String menu = baos.toString(StandardCharsets.UTF_8);
-        logRaw(menu);                    // показати і записати у лог/буфер, як у oneVsOne
+        logRaw(catalogText());
     }
 
     // ---------- Інтерактивний ввід з логуванням ----------
@@ -298,35 +446,48 @@ public class TeamVsTeam {
 
     /**
      * Запускає бій між командами. У кожному раунді спочатку ходить команда A,
-     * потім команда B. Гра триває до знищення однієї з команд або досягнення ліміту раундів.
+     * потім команда B (або обидві одночасно в режимі одночасних ходів).
+     * Гра триває до знищення однієї з команд або досягнення ліміту раундів.
      */
     public void start() {
         logln("\n=== Автобій Команда vs Команда ===");
         logln("Мапа: " + map.getClass().getSimpleName());
-        printStatus();
+        printStatus(true);
+        console.flush();
 
-        int round = 1;
+        int round = firstRound;
+        saveCheckpoint(round);
         while (teamAlive(teamA) && teamAlive(teamB) && round <= MAX_ROUNDS) {
             logln("\n--- Раунд " + round + " ---");
-
-            if(teamStep(teamA, teamB) == 1){
-                break;
+            rounds = round;
+
+            if (simultaneous) {
+                for (String line : resolver.resolveRound(round)) logln(line);
+            } else {
+                if(teamStep(teamA, teamB) == 1){
+                    break;
+                }
+                if (!teamAlive(teamB)) break;
+
+                if(teamStep(teamB, teamA) == 1) {
+                    break;
+                }
             }
-            if (!teamAlive(teamB)) break;
 
-            if(teamStep(teamB, teamA) == 1) {
-                break;
-            }
-
-            printStatus();
+            effects.tick();
+            endRound(round, printStatus());
             round++;
+            saveCheckpoint(round);
         }
         printWinnerWithRoundLimit();
         closeLog();
+        deleteCheckpoint();
     }
 
     /**
      * Виконує ходи всіх живих дроїдів команди.
+     * Перед меню дій виводиться накопичений текст раунду ({@link ConsoleSink#prompt(CharSequence)}),
+     * тож гравець бачить заголовок раунду і результат попереднього ходу.
      *
      * @param attackers команда, яка атакує
      * @param defenders команда, яка захищається
@@ -336,14 +497,14 @@ public class TeamVsTeam {
             if (atk == null || !atk.isAlive()) continue;
             if (!teamAlive(defenders)) break;
 
-            String out = atk.actionMenu(asList(atk), defenders);
+            String out = atk.actionMenu(asList(atk), defenders, console);
             if (log != null) {
                 log.println(out);
             }
             if(out == "stop"){
                 return 1;
             }
-            System.out.println(out);
+            console.println(out);
         }
         return 0;
     }
@@ -368,39 +529,144 @@ public class TeamVsTeam {
     }
 
     /**
-     * Виводить поточний статус обох команд.
+     * Виводить зміни стану обох команд з попереднього виводу.
+     *
+     * @return чи змінився стан з попереднього виводу
      */
-    private void printStatus() {
-        logln("\nПоточний стан:");
+    private boolean printStatus() {
+        return printStatus(false);
+    }
+
+    /**
+     * Вивести стан у консоль і лог.
+     *
+     * @param full true — повний стан усіх дроїдів; false — лише зміни з попереднього виводу
+     * @return чи було що виводити
+     */
+    private boolean printStatus(boolean full) {
+        if (renderer == null) renderer = new StatusRenderer(teamA, teamB, true);
+        status.setLength(0);
+        boolean changed = true;
+        if (full) renderer.full(status);
+        else changed = renderer.render(status);
+        console.print(status);
+        if (log != null) log.print(status);
+        return changed;
+    }
 
-        logln("[Команда A]");
-        for (BaseDroid d : teamA) {
-            System.out.println(d);
-            if (log != null) log.println(d);
+    /**
+     * Завершити раунд: один запис у консоль (з урахуванням проріджування) і скидання логу на диск.
+     *
+     * @param round   номер раунду
+     * @param changed чи змінився стан за раунд
+     */
+    private void endRound(int round, boolean changed) {
+        console.endRound(round, changed);
+        if (log != null) log.flush();
+    }
+
+    /**
+     * Замінити консольний вивід (наприклад, на проріджений для довгих боїв).
+     *
+     * @param console новий вивід
+     */
+    public void setConsole(ConsoleSink console) {
+        this.console.flush();
+        this.console = console;
+    }
+
+    /**
+     * Зберігати стан бою у файл після кожного раунду; коли бій завершено, файл видаляється.
+     *
+     * @param checkpoint файл контрольної точки ({@link MatchCheckpoint#file})
+     */
+    public void setCheckpoint(Path checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Записати контрольну точку перед раундом. Помилка запису не зупиняє бій.
+     *
+     * @param round раунд, з якого продовжувати
+     */
+    private void saveCheckpoint(int round) {
+        if (checkpoint == null) return;
+        try {
+            MatchCheckpoint.save(checkpoint, simultaneous ? MatchEntry.SIMULTANEOUS : MatchEntry.TEAM, seed, round,
+                    map, teamA, teamB, effects);
+        } catch (IOException e) {
+            System.err.println("Не вдалося зберегти контрольну точку бою: " + e.getMessage());
+            checkpoint = null;
         }
+    }
 
-        logln("[Команда B]");
-        for (BaseDroid d : teamB) {
-            System.out.println(d);
-            if (log != null) log.println(d);
+    private void deleteCheckpoint() {
+        if (checkpoint == null) return;
+        try {
+            MatchCheckpoint.delete(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Не вдалося видалити контрольну точку бою: " + e.getMessage());
         }
     }
 
+    /**
+     * Передавати результат бою у рейтинги.
+     *
+     * @param ratings рейтинги
+     * @param playerA гравець A або {@code null}
+     * @param playerB гравець B або {@code null}
+     */
+    public void setRatings(RatingLadder ratings, String playerA, String playerB) {
+        this.ratings = ratings;
+        this.playerA = playerA;
+        this.playerB = playerB;
+    }
+
+    /**
+     * Записувати підсумок бою в історію боїв.
+     *
+     * @param history історія боїв
+     */
+    public void setHistory(MatchHistory history) {
+        this.history = history;
+    }
+
     /**
      * Визначає та виводить переможця гри з урахуванням ліміту раундів.
      */
     private void printWinnerWithRoundLimit() {
         boolean aAlive = teamAlive(teamA);
         boolean bAlive = teamAlive(teamB);
+        int winner = -1;
         if (aAlive && !bAlive) {
             logln("\nПереможець: Команда A 🎉");
+            winner = 0;
         } else if (!aAlive && bAlive) {
             logln("\nПереможець: Команда B 🎉");
+            winner = 1;
         } else if (!aAlive && !bAlive) {
             logln("\nНічия — обидві команди знищені.");
         } else {
             logln("\nНічия — досягнуто ліміту раундів.");
         }
+        if (ratings != null) {
+            ratings.record(teamA.stream().map(BaseDroid::getName).toList(),
+                    teamB.stream().map(BaseDroid::getName).toList(), playerA, playerB, winner);
+            ratings.publish();
+        }
+        if (history != null) {
+            try {
+                history.append(new MatchRecord(history.reserveId(), System.currentTimeMillis(),
+                        simultaneous ? MatchEntry.SIMULTANEOUS : MatchEntry.TEAM, map.getClass().getSimpleName(),
+                        seed, winner, rounds,
+                        teamA.stream().map(d -> d.getName().trim()).toList(),
+                        teamB.stream().map(d -> d.getName().trim()).toList(),
+                        teamA.stream().mapToInt(BaseDroid::getDamageDealt).toArray(),
+                        teamB.stream().mapToInt(BaseDroid::getDamageDealt).toArray()));
+            } catch (IOException e) {
+                System.err.println("Не вдалося записати бій в історію: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -411,24 +677,14 @@ public class TeamVsTeam {
     private void applyBonus(BaseDroid droid) {
         if (!droid.getElement().equalsIgnoreCase(map.getElement())) return;
 
-        int bonus = map.getBonus();
+        StatusEffect bonus = StatusEffect.mapBonus(map);
+        if (bonus == null) return;
+        effects.apply(droid, bonus);
         switch (map.getElement().toLowerCase()) {
-            case "earth" -> {
-                droid.setCurrentHp(droid.getCurrentHp() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " HP від карти Earth!");
-            }
-            case "fire" -> {
-                droid.setAttack(droid.getAttack() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " до атаки від карти Fire!");
-            }
-            case "water" -> {
-                droid.setMoveSpeed(droid.getMoveSpeed() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " до швидкості від карти Water!");
-            }
-            case "wind" -> {
-                droid.setRange(droid.getRange() + bonus);
-                logln(droid.getName() + " отримує +" + bonus + " до дальності від карти Wind!");
-            }
+            case "earth" -> logln(droid.getName() + " отримує +" + map.getBonus() + " HP від карти Earth!");
+            case "fire" -> logln(droid.getName() + " отримує +" + map.getBonus() + " до атаки від карти Fire!");
+            case "water" -> logln(droid.getName() + " отримує +" + map.getBonus() + " до швидкості від карти Water!");
+            case "wind" -> logln(droid.getName() + " отримує +" + map.getBonus() + " до дальності від карти Wind!");
         }
     }
 
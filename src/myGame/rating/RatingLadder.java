@@ -0,0 +1,509 @@
+package myGame.rating;
+
+import myGame.droid.DroidTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Рейтинги Glicko типів дроїдів, складів команд і гравців за результатами боїв.
+ *
+ * <p>Бій 1 на 1 оновлює рейтинги двох типів дроїдів, командний бій — рейтинги
+ * двох складів (склад — мультимножина типів, порядок дроїдів не важливий).
+ * Якщо відомі гравці, оновлюються й їхні рейтинги. Бій суб'єкта із самим собою
+ * (дзеркальний склад, той самий гравець) рейтинг не змінює.</p>
+ *
+ * <p>{@link #record} лише дописує результат у буфер свого потоку, без блокувань.
+ * Повний буфер (або буфер, старший за пів секунди) передається у спільну
+ * неблокуючу чергу, і той потік, якому вдалося взяти блокування без очікування,
+ * застосовує всі передані буфери. Решта потоків продовжують грати.
+ * {@link #publish()} передає буфер поточного потоку негайно — його викликають
+ * у кінці роботи потоку.</p>
+ *
+ * <p>Рейтинги зберігаються у {@value #FILE} у директорії логів (стиснений
+ * двійковий формат, заміна файлу атомарним перейменуванням). Таблиці лідерів
+ * тримаються впорядкованими у пам'яті й оновлюються разом з рейтингами, тож
+ * запит не переглядає історію боїв.</p>
+ */
+public final class RatingLadder {
+
+    /** Ім'я файлу рейтингів у директорії логів. */
+    public static final String FILE = ".ratings";
+
+    /** Рейтинг нового суб'єкта. */
+    public static final double INITIAL = 1500;
+    /** Відхилення рейтингу нового суб'єкта. */
+    public static final double INITIAL_RD = 350;
+    /** Найменше відхилення: рейтинг не «застигає» назавжди. */
+    private static final double MIN_RD = 30;
+    /** Зростання відхилення за день без боїв (до початкового — приблизно за 100 днів). */
+    private static final double RD_PER_DAY = 34.6;
+    private static final double Q = Math.log(10) / 400;
+
+    private static final int MAGIC = 0x52415445; // "RATE"
+    private static final int VERSION = 1;
+    /** Найменший запис у файлі: вид, порожнє ім'я, два float і чотири int. */
+    private static final int MIN_ENTRY = 1 + 2 + 2 * 4 + 4 * 4;
+    /** Результатів у буфері потоку до передачі. */
+    private static final int BUFFER = 1024;
+    private static final long BUFFER_AGE = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /** Чий рейтинг. */
+    public enum Kind { DROID, TEAM, PLAYER }
+
+    /**
+     * Рейтинг суб'єкта.
+     *
+     * @param kind   тип суб'єкта
+     * @param name   ім'я (тип дроїда, склад або гравець)
+     * @param rating рейтинг
+     * @param rd     відхилення рейтингу
+     * @param wins   перемог
+     * @param losses поразок
+     * @param draws  нічиїх
+     */
+    public record Rating(Kind kind, String name, double rating, double rd, int wins, int losses, int draws) {
+
+        /** @return боїв усього */
+        public int games() { return wins + losses + draws; }
+
+        /** @return обережна оцінка (рейтинг мінус два відхилення), за нею впорядковано таблицю */
+        public double conservative() { return rating - 2 * rd; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %6.0f ±%3.0f  %d/%d/%d",
+                    name, rating, rd, wins, losses, draws);
+        }
+    }
+
+    /** Буфер результатів одного потоку: пари суб'єктів і очки першого (2 — перемога, 1 — нічия, 0 — поразка). */
+    private static final class Accumulator {
+        final byte[] kind = new byte[BUFFER];
+        final String[] a = new String[BUFFER];
+        final String[] b = new String[BUFFER];
+        final byte[] score = new byte[BUFFER];
+        int size;
+        long since = System.nanoTime();
+    }
+
+    /** Переданий буфер. */
+    private record Batch(byte[] kind, String[] a, String[] b, byte[] score, int size) { }
+
+    private final Path dir;
+    private final ThreadLocal<Accumulator> local = ThreadLocal.withInitial(Accumulator::new);
+    private final ConcurrentLinkedQueue<Batch> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Далі — лише під lock.
+    private final Map<Kind, Map<String, Integer>> ids = new EnumMap<>(Kind.class);
+    private final List<Kind> kinds = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private double[] rating = new double[64];
+    private double[] rd = new double[64];
+    private int[] wins = new int[64];
+    private int[] losses = new int[64];
+    private int[] draws = new int[64];
+    private int[] day = new int[64];
+    private final Map<Kind, TreeSet<Integer>> boards = new EnumMap<>(Kind.class);
+    private long applied;
+
+    private RatingLadder(Path dir) {
+        this.dir = dir;
+        for (Kind k : Kind.values()) {
+            ids.put(k, new HashMap<>());
+            Comparator<Integer> order = Comparator.<Integer>comparingDouble(i -> -(rating[i] - 2 * rd[i]))
+                    .thenComparing(i -> i);
+            boards.put(k, new TreeSet<>(order));
+        }
+    }
+
+    /**
+     * Прочитати рейтинги з директорії (порожні, якщо файлу ще немає).
+     *
+     * @param dir директорія логів
+     * @return рейтинги
+     * @throws IOException помилка читання, чужий формат або пошкоджений (обрізаний) файл
+     */
+    public static RatingLadder open(Path dir) throws IOException {
+        Path f = dir.resolve(FILE);
+        if (!Files.exists(f)) return new RatingLadder(dir);
+        long size = Files.size(f);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f), 1 << 16))) {
+            return read(dir, in, size, f);
+        }
+    }
+
+    /**
+     * Відновити рейтинги зі знімка {@link #image()}.
+     *
+     * @param dir    директорія логів, куди їх потім зберігатиме {@link #save()}
+     * @param image  знімок
+     * @param source звідки знімок (для повідомлення про помилку)
+     * @return рейтинги
+     * @throws IOException пошкоджений знімок
+     */
+    public static RatingLadder restore(Path dir, byte[] image, Path source) throws IOException {
+        return read(dir, new DataInputStream(new ByteArrayInputStream(image)), image.length, source);
+    }
+
+    private static RatingLadder read(Path dir, DataInputStream in, long size, Path f) throws IOException {
+        RatingLadder r = new RatingLadder(dir);
+        try {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC) throw corrupt(f, "не файл рейтингів");
+            if (version != VERSION) throw corrupt(f, "невідома версія " + version);
+            int n = in.readInt();
+            if (n < 0 || n > (size - 12) / MIN_ENTRY) throw corrupt(f, "кількість записів " + n);
+            Kind[] kinds = Kind.values();
+            for (int i = 0; i < n; i++) {
+                int kind = in.readUnsignedByte();
+                if (kind >= kinds.length) throw corrupt(f, "вид рейтингу " + kind);
+                Kind k = kinds[kind];
+                String name = in.readUTF();
+                if (r.ids.get(k).containsKey(name)) throw corrupt(f, "повторний запис " + name);
+                double rating = in.readFloat();
+                double rd = in.readFloat();
+                int wins = in.readInt();
+                int losses = in.readInt();
+                int draws = in.readInt();
+                int day = in.readInt();
+                if (!Double.isFinite(rating) || !(rd > 0) || !Double.isFinite(rd)
+                        || wins < 0 || losses < 0 || draws < 0) {
+                    throw corrupt(f, "значення запису " + name);
+                }
+                int id = r.add(k, name);
+                r.rating[id] = rating;
+                r.rd[id] = rd;
+                r.wins[id] = wins;
+                r.losses[id] = losses;
+                r.draws[id] = draws;
+                r.day[id] = day;
+                r.boards.get(k).add(id);
+            }
+            if (in.read() >= 0) throw corrupt(f, "зайві байти в кінці");
+        } catch (EOFException e) {
+            throw corrupt(f, "файл обрізано");
+        }
+        return r;
+    }
+
+    private static IOException corrupt(Path f, String what) {
+        return new IOException("Пошкоджений файл рейтингів " + f + ": " + what);
+    }
+
+    /**
+     * Записати результат бою (без блокувань; застосовується пізніше, див. опис класу).
+     *
+     * @param teamA   імена дроїдів команди A
+     * @param teamB   імена дроїдів команди B
+     * @param playerA гравець A або {@code null}
+     * @param playerB гравець B або {@code null}
+     * @param winner  0 — перемогла A, 1 — B, інше — нічия
+     */
+    public void record(List<String> teamA, List<String> teamB, String playerA, String playerB, int winner) {
+        Accumulator acc = local.get();
+        byte score = (byte) (winner == 0 ? 2 : winner == 1 ? 0 : 1);
+        if (teamA.size() == 1 && teamB.size() == 1) {
+            put(acc, Kind.DROID, teamA.get(0).trim(), teamB.get(0).trim(), score);
+        } else {
+            put(acc, Kind.TEAM, team(teamA), team(teamB), score);
+        }
+        if (playerA != null && playerB != null) put(acc, Kind.PLAYER, playerA, playerB, score);
+        if (acc.size > BUFFER - 2 || System.nanoTime() - acc.since > BUFFER_AGE) publish();
+    }
+
+    private static void put(Accumulator acc, Kind kind, String a, String b, byte score) {
+        if (a.equals(b)) return;
+        int i = acc.size++;
+        acc.kind[i] = (byte) kind.ordinal();
+        acc.a[i] = a;
+        acc.b[i] = b;
+        acc.score[i] = score;
+    }
+
+    /**
+     * Передати буфер поточного потоку і, якщо блокування вільне, застосувати
+     * всі передані результати.
+     */
+    public void publish() {
+        Accumulator acc = local.get();
+        if (acc.size > 0) {
+            pending.add(new Batch(Arrays.copyOf(acc.kind, acc.size), Arrays.copyOf(acc.a, acc.size),
+                    Arrays.copyOf(acc.b, acc.size), Arrays.copyOf(acc.score, acc.size), acc.size));
+            Arrays.fill(acc.a, 0, acc.size, null);
+            Arrays.fill(acc.b, 0, acc.size, null);
+            acc.size = 0;
+        }
+        acc.since = System.nanoTime();
+        if (lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Склад команди: кількість кожного типу в порядку каталогу, наприклад {@code 2×HammerDroid + FlashDroid}.
+     *
+     * @param team імена дроїдів
+     * @return ім'я складу
+     */
+    public static String team(List<String> team) {
+        Map<String, Integer> count = new TreeMap<>(Comparator.comparingInt(RatingLadder::catalogIndex)
+                .thenComparing(Comparator.naturalOrder()));
+        for (String n : team) count.merge(n.trim(), 1, Integer::sum);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> e : count.entrySet()) {
+            if (sb.length() > 0) sb.append(" + ");
+            if (e.getValue() > 1) sb.append(e.getValue()).append('×');
+            sb.append(e.getKey());
+        }
+        return sb.toString();
+    }
+
+    private static int catalogIndex(String name) {
+        for (DroidTemplate t : DroidTemplate.CATALOG) if (t.name().trim().equals(name)) return t.type();
+        return DroidTemplate.CATALOG.size();
+    }
+
+    /**
+     * Найкращі за обережною оцінкою.
+     *
+     * @param kind  тип суб'єктів
+     * @param limit скільки показати
+     * @return рейтинги від найкращого
+     */
+    public List<Rating> leaderboard(Kind kind, int limit) {
+        lock.lock();
+        try {
+            drain();
+            List<Rating> out = new ArrayList<>(Math.min(limit, boards.get(kind).size()));
+            for (int id : boards.get(kind)) {
+                if (out.size() == limit) break;
+                out.add(snapshot(id));
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param kind тип суб'єкта
+     * @param name ім'я (склад — у вигляді {@link #team(List)})
+     * @return рейтинг або {@code null}, якщо суб'єкт ще не грав
+     */
+    public Rating rating(Kind kind, String name) {
+        lock.lock();
+        try {
+            drain();
+            Integer id = ids.get(kind).get(name);
+            return id == null ? null : snapshot(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return скільки попарних оновлень застосовано з моменту відкриття */
+    public long applied() {
+        lock.lock();
+        try {
+            return applied;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Застосувати передані результати і записати рейтинги у файл.
+     * Буфери інших потоків, що ще грають, не чіпаються — вони мають викликати {@link #publish()}.
+     *
+     * @throws IOException помилка запису
+     */
+    public void save() throws IOException {
+        publish();
+        lock.lock();
+        try {
+            drain();
+            Files.createDirectories(dir);
+            Path f = dir.resolve(FILE);
+            Path tmp = dir.resolve(FILE + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+                write(out);
+                out.flush();
+                // на диск до перейменування: інакше після збою файл рейтингів може лишитися порожнім
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Застосувати передані результати і повернути рейтинги у форматі файлу,
+     * не записуючи його (для {@link #restore}).
+     *
+     * @return знімок
+     * @throws IOException помилка серіалізації
+     */
+    public byte[] image() throws IOException {
+        publish();
+        lock.lock();
+        try {
+            drain();
+            ByteArrayOutputStream b = new ByteArrayOutputStream(64 + names.size() * 48);
+            write(new DataOutputStream(b));
+            return b.toByteArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------- Під блокуванням ----------
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            out.writeByte(kinds.get(i).ordinal());
+            out.writeUTF(names.get(i));
+            out.writeFloat((float) rating[i]);
+            out.writeFloat((float) rd[i]);
+            out.writeInt(wins[i]);
+            out.writeInt(losses[i]);
+            out.writeInt(draws[i]);
+            out.writeInt(day[i]);
+        }
+    }
+
+    private void drain() {
+        int today = (int) TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis());
+        Batch b;
+        while ((b = pending.poll()) != null) {
+            for (int i = 0; i < b.size(); i++) {
+                Kind k = Kind.values()[b.kind()[i]];
+                update(k, id(k, b.a()[i]), id(k, b.b()[i]), b.score()[i] / 2.0, today);
+            }
+        }
+    }
+
+    private int id(Kind kind, String name) {
+        Integer id = ids.get(kind).get(name);
+        if (id != null) return id;
+        int n = add(kind, name);
+        rating[n] = INITIAL;
+        rd[n] = INITIAL_RD;
+        day[n] = -1;
+        boards.get(kind).add(n);
+        return n;
+    }
+
+    private int add(Kind kind, String name) {
+        int n = names.size();
+        if (n == rating.length) {
+            int cap = n * 2;
+            rating = Arrays.copyOf(rating, cap);
+            rd = Arrays.copyOf(rd, cap);
+            wins = Arrays.copyOf(wins, cap);
+            losses = Arrays.copyOf(losses, cap);
+            draws = Arrays.copyOf(draws, cap);
+            day = Arrays.copyOf(day, cap);
+        }
+        names.add(name);
+        kinds.add(kind);
+        ids.get(kind).put(name, n);
+        return n;
+    }
+
+    /** Оновлення Glicko для однієї гри: обидва боки рахуються від значень до бою. */
+    private void update(Kind kind, int a, int b, double scoreA, int today) {
+        TreeSet<Integer> board = boards.get(kind);
+        board.remove(a);
+        board.remove(b);
+        double rdA = inflate(rd[a], day[a], today);
+        double rdB = inflate(rd[b], day[b], today);
+        double ra = rating[a];
+        double rb = rating[b];
+        rating[a] = ra + delta(ra, rdA, rb, rdB, scoreA);
+        rating[b] = rb + delta(rb, rdB, ra, rdA, 1 - scoreA);
+        rd[a] = newRd(ra, rdA, rb, rdB);
+        rd[b] = newRd(rb, rdB, ra, rdA);
+        day[a] = day[b] = today;
+        if (scoreA == 1) { wins[a]++; losses[b]++; }
+        else if (scoreA == 0) { losses[a]++; wins[b]++; }
+        else { draws[a]++; draws[b]++; }
+        board.add(a);
+        board.add(b);
+        applied++;
+    }
+
+    private static double inflate(double rd, int last, int today) {
+        if (last < 0 || today <= last) return rd;
+        return Math.min(INITIAL_RD, Math.sqrt(rd * rd + RD_PER_DAY * RD_PER_DAY * (today - last)));
+    }
+
+    private static double g(double rd) {
+        return 1 / Math.sqrt(1 + 3 * Q * Q * rd * rd / (Math.PI * Math.PI));
+    }
+
+    private static double expected(double r, double ro, double rdo) {
+        return 1 / (1 + Math.pow(10, -g(rdo) * (r - ro) / 400));
+    }
+
+    private static double dInv(double r, double ro, double rdo) {
+        double g = g(rdo);
+        double e = expected(r, ro, rdo);
+        return Q * Q * g * g * e * (1 - e);
+    }
+
+    private static double delta(double r, double rd, double ro, double rdo, double score) {
+        double denom = 1 / (rd * rd) + dInv(r, ro, rdo);
+        return Q / denom * g(rdo) * (score - expected(r, ro, rdo));
+    }
+
+    private static double newRd(double r, double rd, double ro, double rdo) {
+        return Math.max(MIN_RD, Math.sqrt(1 / (1 / (rd * rd) + dInv(r, ro, rdo))));
+    }
+
+    private Rating snapshot(int id) {
+        return new Rating(kinds.get(id), names.get(id), rating[id], rd[id], wins[id], losses[id], draws[id]);
+    }
+}
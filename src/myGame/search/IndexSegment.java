@@ -0,0 +1,243 @@
+package myGame.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Незмінний сегмент індексу на диску: списки входжень ({@link Postings}) слів
+ * для боїв, доданих одним оновленням індексу (або злиттям кількох сегментів).
+ *
+ * <p>Файл — магія, версія, списки входжень один за одним у порядку слів, словник
+ * (слово, кількість боїв, довжина списку) і в кінці зміщення словника. У пам'яті
+ * тримається лише словник; список слова читається з диска, коли його потребує запит.</p>
+ */
+final class IndexSegment {
+
+    private static final int MAGIC = 0x4C534547; // "LSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    /** Довші слова не індексуються (довжина слова у словнику — два байти). */
+    static final int MAX_TERM = 0x3FFF;
+
+    private final int id;
+    private final Path file;
+    private final String[] terms;
+    private final int[] docs;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private IndexSegment(int id, Path file, String[] terms, int[] docs, long[] offsets, int[] lengths) {
+        this.id = id;
+        this.file = file;
+        this.terms = terms;
+        this.docs = docs;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Прочитати словник сегмента.
+     *
+     * @param id   номер сегмента
+     * @param file файл сегмента
+     * @return сегмент
+     * @throws IOException помилка читання або пошкоджений файл
+     */
+    static IndexSegment open(int id, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            ByteBuffer head = read(ch, 0, HEADER);
+            if (size < HEADER + 12 || head.getInt() != MAGIC || head.getInt() != VERSION) {
+                throw new IOException("Не сегмент індексу: " + file);
+            }
+            long dict = read(ch, size - 8, 8).getLong();
+            if (dict < HEADER || dict > size - 12) throw new IOException("Пошкоджений сегмент індексу: " + file);
+            ByteBuffer b = read(ch, dict, (int) (size - 8 - dict));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(b.array()));
+            int n = in.readInt();
+            if (n < 0) throw new IOException("Пошкоджений сегмент індексу: " + file);
+            String[] terms = new String[n];
+            int[] docs = new int[n];
+            long[] offsets = new long[n];
+            int[] lengths = new int[n];
+            long at = HEADER;
+            for (int i = 0; i < n; i++) {
+                byte[] t = new byte[in.readUnsignedShort()];
+                in.readFully(t);
+                terms[i] = new String(t, StandardCharsets.UTF_8);
+                docs[i] = in.readInt();
+                lengths[i] = in.readInt();
+                offsets[i] = at;
+                at += lengths[i];
+            }
+            if (at != dict) throw new IOException("Пошкоджений сегмент індексу: " + file);
+            return new IndexSegment(id, file, terms, docs, offsets, lengths);
+        } catch (EOFException e) {
+            throw new IOException("Пошкоджений сегмент індексу: " + file, e);
+        }
+    }
+
+    /** @return номер сегмента */
+    int id() { return id; }
+
+    /** @return файл сегмента */
+    Path file() { return file; }
+
+    /** @return кількість слів */
+    int termCount() { return terms.length; }
+
+    /** @return i-те слово за абеткою */
+    String term(int i) { return terms[i]; }
+
+    /**
+     * @param term слово
+     * @return індекс слова або -1, якщо його немає
+     */
+    int find(String term) {
+        int i = Arrays.binarySearch(terms, term);
+        return i >= 0 ? i : -1;
+    }
+
+    /**
+     * @param prefix префікс
+     * @return діапазон індексів слів з префіксом {@code [from, to)}
+     */
+    int[] range(String prefix) {
+        int from = insertion(prefix);
+        int to = insertion(prefix + Character.MAX_VALUE);
+        return new int[]{from, to};
+    }
+
+    private int insertion(String key) {
+        int i = Arrays.binarySearch(terms, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** @return відкритий для читання файл сегмента (закриває викликач) */
+    FileChannel channel() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Прочитати з диска список входжень слова.
+     *
+     * @param ch канал з {@link #channel()}
+     * @param t  індекс слова
+     * @return список (лише для читання)
+     * @throws IOException помилка читання
+     */
+    Postings postings(FileChannel ch, int t) throws IOException {
+        return Postings.of(read(ch, offsets[t], lengths[t]).array(), docs[t]);
+    }
+
+    private static ByteBuffer read(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining()) {
+            if (ch.read(b, position + b.position()) < 0) throw new EOFException();
+        }
+        return b.flip();
+    }
+
+    /**
+     * Запис нового сегмента: слова додаються у порядку абетки, списки пишуться
+     * на диск одразу, словник — у {@link #finish()}. Незавершений файл видаляє {@link #close()}.
+     */
+    static final class Writer implements Closeable {
+        private final int id;
+        private final Path file;
+        private final FileChannel ch;
+        private final DataOutputStream out;
+        private final List<String> terms = new ArrayList<>();
+        private int[] docs = new int[256];
+        private int[] lengths = new int[256];
+        private boolean finished;
+
+        /**
+         * @param id   номер сегмента
+         * @param file файл сегмента (перезаписується)
+         * @throws IOException помилка створення файлу
+         */
+        Writer(int id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        /**
+         * Дописати список слова (слова — у зростаючому порядку, порожні списки пропускаються).
+         *
+         * @param term слово
+         * @param p    список входжень
+         * @throws IOException помилка запису
+         */
+        void add(String term, Postings p) throws IOException {
+            if (p.docs() == 0 || term.length() > MAX_TERM) return;
+            int n = terms.size();
+            if (n == docs.length) {
+                docs = Arrays.copyOf(docs, n * 2);
+                lengths = Arrays.copyOf(lengths, n * 2);
+            }
+            terms.add(term);
+            docs[n] = p.docs();
+            lengths[n] = p.bytes();
+            p.writeTo(out);
+        }
+
+        /**
+         * Дописати словник, скинути файл на диск і відкрити сегмент.
+         *
+         * @return записаний сегмент
+         * @throws IOException помилка запису
+         */
+        IndexSegment finish() throws IOException {
+            int n = terms.size();
+            long[] offsets = new long[n];
+            long dict = HEADER;
+            for (int i = 0; i < n; i++) {
+                offsets[i] = dict;
+                dict += lengths[i];
+            }
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                byte[] t = terms.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(t.length);
+                out.write(t);
+                out.writeInt(docs[i]);
+                out.writeInt(lengths[i]);
+            }
+            out.writeLong(dict);
+            out.flush();
+            ch.force(false);
+            ch.close();
+            finished = true;
+            return new IndexSegment(id, file, terms.toArray(new String[0]), Arrays.copyOf(docs, n), offsets,
+                    Arrays.copyOf(lengths, n));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) return;
+            ch.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
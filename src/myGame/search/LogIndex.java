@@ -0,0 +1,593 @@
+package myGame.search;
+
+import myGame.log.LogRetention;
+import myGame.mode.ReadFromFile;
+import myGame.store.MatchStore;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Інвертований індекс слів з логів боїв (імена дроїдів, дії, мапа, номери раундів).
+ *
+ * <p>Для кожного слова зберігається {@link Postings} — бої і раунди, де воно є.
+ * Рядки до першого раунду (вибір дроїдів, мапа) — це раунд 0; блоки стану
+ * в раундах не індексуються, щоб ім'я дроїда знаходилось лише там, де він діяв.
+ * Для кожного бою також зберігаються байтові зміщення початку раундів — переглядач
+ * відкриває лог одразу з потрібного раунду.</p>
+ *
+ * <p>Індекс лежить у піддиректорії {@value #FILE} директорії логів і оновлюється
+ * інкрементально: {@link #update()} додає лише нові бої сховища та нові лог-файли.
+ * Ключі боїв і зміщення раундів дописуються у файл боїв, а слова нових боїв —
+ * в окремий незмінний сегмент ({@link IndexSegment}); коли сегментів більше
+ * {@value #MAX_SEGMENTS}, вони зливаються в один. Який стан зафіксовано, визначає
+ * маніфест (кількість боїв, довжина файлу боїв, сегменти), що атомарно
+ * перезаписується після кожного оновлення, тож перерване оновлення нічого не псує.
+ * У пам'яті тримаються лише ключі боїв і словники сегментів; списки входжень і
+ * зміщення раундів читаються з диска під час пошуку.</p>
+ */
+public final class LogIndex {
+
+    /** Ім'я директорії індексу у директорії логів. */
+    public static final String FILE = ".search-index";
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 2;
+    private static final String MANIFEST = "manifest";
+    private static final String DOCS = "docs";
+    private static final String SEGMENT = "seg-";
+    /** Найбільша кількість сегментів до злиття. */
+    private static final int MAX_SEGMENTS = 8;
+    private static final String STORE_KEY = "#";
+
+    private static final byte[] ROUND = utf8("--- Раунд ");
+    private static final byte[] STATE = utf8("Поточний стан:");
+    private static final byte[] CHANGES = utf8("Зміни:");
+
+    private final Path dir;
+    private final Path home;
+    private final List<String> docs = new ArrayList<>();
+    /** Позиція зміщень раундів кожного бою у файлі боїв. */
+    private long[] docPos = new long[64];
+    private final Set<String> known = new HashSet<>();
+    private final List<IndexSegment> segments = new ArrayList<>();
+    private int nextSegment;
+    /** Довжина зафіксованої частини файлу боїв. */
+    private long docsLength;
+
+    /** Слова і записи боїв, доданих поточним оновленням (ще не збережені). */
+    private final TreeMap<String, Postings> fresh = new TreeMap<>();
+    private final ByteArrayOutputStream freshDocs = new ByteArrayOutputStream(4096);
+
+    /** Раунди слів поточного бою. */
+    private final Map<String, int[]> docTerms = new HashMap<>();
+    private final Map<String, Integer> docCounts = new HashMap<>();
+    private long[] offsets = new long[64];
+    private int rounds;
+
+    private LogIndex(Path dir) {
+        this.dir = dir;
+        this.home = dir.resolve(FILE);
+    }
+
+    /** Результат пошуку: бій, раунд (0 — початок логу) і зміщення цього раунду в лозі. */
+    public record Hit(String match, int round, long offset) {
+        /** @return чи це бій зі сховища (ключ {@code #номер}) */
+        public boolean inStore() { return match.startsWith(STORE_KEY); }
+
+        /** @return номер бою у сховищі */
+        public long storeId() { return Long.parseLong(match.substring(STORE_KEY.length())); }
+
+        @Override
+        public String toString() {
+            return round == 0 ? match + " (початок)" : match + " раунд " + round;
+        }
+    }
+
+    /**
+     * Прочитати індекс з директорії (порожній, якщо його ще немає або формат застарів).
+     * Читаються лише маніфест, ключі боїв і словники сегментів.
+     *
+     * @param dir директорія логів
+     * @return індекс
+     * @throws IOException помилка читання
+     */
+    public static LogIndex load(Path dir) throws IOException {
+        LogIndex idx = new LogIndex(dir);
+        // індекс попереднього формату (один файл) просто будується заново
+        if (Files.isRegularFile(idx.home)) Files.delete(idx.home);
+        Path m = idx.home.resolve(MANIFEST);
+        if (!Files.exists(m)) return idx;
+        int count;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(m)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return idx;
+            count = in.readInt();
+            idx.docsLength = in.readLong();
+            idx.nextSegment = in.readInt();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                int id = in.readInt();
+                idx.segments.add(IndexSegment.open(id, idx.segment(id)));
+            }
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(idx.home.resolve(DOCS)), 1 << 16))) {
+            long pos = 0;
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+                pos += 4 + key.length;
+                idx.addDoc(new String(key, StandardCharsets.UTF_8), pos);
+                int rounds = in.readInt();
+                in.skipNBytes(4L * rounds);
+                pos += 4 + 4L * rounds;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Пошкоджений індекс пошуку: " + idx.home, e);
+        }
+        idx.removeOrphans();
+        return idx;
+    }
+
+    /** Видалити сегменти, не записані в маніфест (залишки перерваного оновлення чи злиття). */
+    private void removeOrphans() throws IOException {
+        Set<Path> live = new HashSet<>();
+        for (IndexSegment seg : segments) live.add(seg.file());
+        List<Path> orphans;
+        try (Stream<Path> s = Files.list(home)) {
+            orphans = s.filter(p -> p.getFileName().toString().startsWith(SEGMENT) && !live.contains(p))
+                    .collect(Collectors.toList());
+        }
+        for (Path p : orphans) Files.deleteIfExists(p);
+    }
+
+    /** @return кількість проіндексованих боїв */
+    public int size() { return docs.size(); }
+
+    /** @return кількість різних слів (слово в кількох сегментах рахується один раз) */
+    public int termCount() {
+        int[] at = new int[segments.size()];
+        int n = 0;
+        for (String t; (t = nextTerm(at)) != null; n++) advance(at, t);
+        return n;
+    }
+
+    /** Найменше слово серед поточних позицій {@code at} у словниках сегментів ({@code null} — кінець). */
+    private String nextTerm(int[] at) {
+        String term = null;
+        for (int k = 0; k < at.length; k++) {
+            IndexSegment seg = segments.get(k);
+            if (at[k] < seg.termCount() && (term == null || seg.term(at[k]).compareTo(term) < 0)) term = seg.term(at[k]);
+        }
+        return term;
+    }
+
+    private void advance(int[] at, String term) {
+        for (int k = 0; k < at.length; k++) {
+            IndexSegment seg = segments.get(k);
+            if (at[k] < seg.termCount() && seg.term(at[k]).equals(term)) at[k]++;
+        }
+    }
+
+    /**
+     * Додати нові бої сховища та нові лог-файли і зберегти індекс.
+     *
+     * @return скільки боїв додано
+     * @throws IOException помилка читання логів або запису індексу
+     */
+    public int update() throws IOException {
+        int before = docs.size();
+        if (MatchStore.exists(dir)) {
+            MatchStore store = MatchStore.openReadOnly(dir);
+            for (int seg : store.segments()) {
+                store.forEachLog(seg, (e, log) -> {
+                    String key = STORE_KEY + e.id();
+                    if (!known.contains(key)) add(key, log);
+                });
+            }
+        }
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.filter(Files::isRegularFile)
+                    .filter(p -> LogRetention.isMatchLog(p.getFileName().toString()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path p : files) {
+            String key = fileKey(p);
+            if (known.contains(key)) continue;
+            try (InputStream in = ReadFromFile.open(p.toFile())) {
+                add(key, ByteBuffer.wrap(in.readAllBytes()));
+            }
+        }
+        if (docs.size() != before) save();
+        return docs.size() - before;
+    }
+
+    /**
+     * Знайти бої, де є всі слова запиту. Слово з {@code *} у кінці — префікс.
+     * Для кожного бою повертаються раунди, де всі слова трапляються разом
+     * (слова з початку логу, як-от мапа, підходять до будь-якого раунду);
+     * якщо таких раундів немає — один результат з початку логу.
+     *
+     * @param query слова через пробіл, без урахування регістру
+     * @return результати у порядку боїв
+     * @throws IOException помилка читання індексу
+     */
+    public List<Hit> search(String query) throws IOException {
+        List<String> words = tokens(query, true);
+        if (words.isEmpty()) return List.of();
+        List<Map<Integer, int[]>> perWord = new ArrayList<>(words.size());
+        for (String w : words) {
+            Map<Integer, int[]> m = lookup(w);
+            if (m.isEmpty()) return List.of();
+            perWord.add(m);
+        }
+        perWord.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        List<Integer> matches = new ArrayList<>();
+        outer:
+        for (int doc : perWord.get(0).keySet()) {
+            for (int i = 1; i < perWord.size(); i++) if (!perWord.get(i).containsKey(doc)) continue outer;
+            matches.add(doc);
+        }
+        matches.sort(null);
+
+        List<Hit> hits = new ArrayList<>();
+        if (matches.isEmpty()) return hits;
+        try (FileChannel ch = FileChannel.open(home.resolve(DOCS), StandardOpenOption.READ)) {
+            for (int doc : matches) hit(ch, doc, perWord, hits);
+        }
+        return hits;
+    }
+
+    /** Додати результати бою: раунди, де є всі слова, або початок логу. */
+    private void hit(FileChannel ch, int doc, List<Map<Integer, int[]>> perWord, List<Hit> hits) throws IOException {
+        long[] off = roundOffsets(ch, doc);
+        boolean found = false;
+        for (int r = 1; r < off.length; r++) {
+            boolean all = true;
+            for (Map<Integer, int[]> m : perWord) {
+                int[] rs = m.get(doc);
+                if (Arrays.binarySearch(rs, r) < 0 && Arrays.binarySearch(rs, 0) < 0) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all && !headerOnly(perWord, doc, r)) {
+                hits.add(new Hit(docs.get(doc), r, off[r]));
+                found = true;
+            }
+        }
+        if (!found) hits.add(new Hit(docs.get(doc), 0, 0));
+    }
+
+    /** Прочитати з файлу боїв зміщення раундів бою. */
+    private long[] roundOffsets(FileChannel ch, int doc) throws IOException {
+        ByteBuffer n = read(ch, docPos[doc], 4);
+        ByteBuffer b = read(ch, docPos[doc] + 4, 4 * n.getInt());
+        long[] off = new long[b.remaining() / 4];
+        long prev = 0;
+        for (int r = 0; r < off.length; r++) off[r] = prev += b.getInt();
+        return off;
+    }
+
+    private static ByteBuffer read(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining()) {
+            if (ch.read(b, position + b.position()) < 0) throw new EOFException("Обрізаний індекс пошуку");
+        }
+        return b.flip();
+    }
+
+    /** Чи всі слова знайдено в раунді r лише завдяки початку логу (тоді раунд нічим не особливий). */
+    private static boolean headerOnly(List<Map<Integer, int[]>> perWord, int doc, int r) {
+        for (Map<Integer, int[]> m : perWord) if (Arrays.binarySearch(m.get(doc), r) >= 0) return false;
+        return true;
+    }
+
+    /** Бої і раунди слова (для префікса — об'єднання всіх слів з ним), прочитані з сегментів. */
+    private Map<Integer, int[]> lookup(String word) throws IOException {
+        Map<Integer, int[]> out = new HashMap<>();
+        for (IndexSegment seg : segments) {
+            int from;
+            int to;
+            if (word.endsWith("*")) {
+                int[] r = seg.range(word.substring(0, word.length() - 1));
+                from = r[0];
+                to = r[1];
+            } else {
+                from = seg.find(word);
+                to = from + 1;
+                if (from < 0) continue;
+            }
+            if (from == to) continue;
+            try (FileChannel ch = seg.channel()) {
+                for (int t = from; t < to; t++) {
+                    Postings.Cursor c = seg.postings(ch, t).cursor();
+                    while (c.next()) {
+                        int[] rs = Arrays.copyOf(c.rounds(), c.count());
+                        out.merge(c.doc(), rs, LogIndex::union);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int v = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (n == 0 || out[n - 1] != v) out[n++] = v;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // ---------- Індексування ----------
+
+    private void add(String key, ByteBuffer log) {
+        int doc = docs.size();
+        docTerms.clear();
+        docCounts.clear();
+        rounds = 0;
+        int round = 0;
+        boolean skipping = false;
+        int start = log.position();
+        int end = log.limit();
+        int line = start;
+        while (line < end) {
+            int eol = line;
+            while (eol < end && log.get(eol) != '\n') eol++;
+            if (startsWith(log, line, eol, ROUND)) {
+                round = parseInt(log, line + ROUND.length, eol);
+                if (round > 0) mark(round, line - start);
+                skipping = false;
+            } else if (round > 0 && (startsWith(log, line, eol, STATE) || startsWith(log, line, eol, CHANGES))) {
+                skipping = true;
+            } else if (skipping && blank(log, line, eol)) {
+                skipping = false;
+            }
+            if (!skipping) tokenize(log, line, eol, round);
+            line = eol + 1;
+        }
+        for (Map.Entry<String, int[]> t : docTerms.entrySet()) {
+            fresh.computeIfAbsent(t.getKey(), k -> new Postings()).add(doc, t.getValue(), docCounts.get(t.getKey()));
+        }
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        putInt(k.length);
+        freshDocs.writeBytes(k);
+        addDoc(key, docsLength + freshDocs.size());
+        putInt(rounds + 1);
+        long prev = 0;
+        for (int r = 0; r <= rounds; r++) {
+            putInt((int) (offsets[r] - prev));
+            prev = offsets[r];
+        }
+    }
+
+    /** Дописати int (big-endian, як {@link DataOutputStream}) до записів нових боїв. */
+    private void putInt(int v) {
+        freshDocs.write(v >>> 24);
+        freshDocs.write(v >>> 16);
+        freshDocs.write(v >>> 8);
+        freshDocs.write(v);
+    }
+
+    private void addDoc(String key, long pos) {
+        int doc = docs.size();
+        if (doc == docPos.length) docPos = Arrays.copyOf(docPos, doc * 2);
+        docPos[doc] = pos;
+        docs.add(key);
+        known.add(key);
+    }
+
+    /** Запам'ятати зміщення раунду; пропущені номери отримують зміщення наступного. */
+    private void mark(int round, long offset) {
+        if (round <= rounds) return;
+        if (round >= offsets.length) offsets = Arrays.copyOf(offsets, Math.max(round + 1, offsets.length * 2));
+        for (int r = rounds + 1; r <= round; r++) offsets[r] = offset;
+        rounds = round;
+    }
+
+    private void tokenize(ByteBuffer log, int from, int to, int round) {
+        if (from >= to) return;
+        byte[] bytes = new byte[to - from];
+        log.get(from, bytes);
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        for (String w : tokens(s, false)) addTerm(w, round);
+    }
+
+    private void addTerm(String term, int round) {
+        int[] rs = docTerms.get(term);
+        int n = docCounts.getOrDefault(term, 0);
+        if (rs == null) {
+            rs = new int[4];
+            docTerms.put(term, rs);
+        } else if (rs[n - 1] == round) {
+            return;
+        } else if (n == rs.length) {
+            rs = Arrays.copyOf(rs, n * 2);
+            docTerms.put(term, rs);
+        }
+        rs[n] = round;
+        docCounts.put(term, n + 1);
+    }
+
+    /**
+     * Розбити текст на слова: послідовності літер і цифр у нижньому регістрі.
+     *
+     * @param prefixes зберігати {@code *} в кінці слова (для запитів)
+     */
+    static List<String> tokens(String s, boolean prefixes) {
+        List<String> out = new ArrayList<>();
+        int i = 0, n = s.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(s.charAt(i))) i++;
+            int b = i;
+            while (i < n && Character.isLetterOrDigit(s.charAt(i))) i++;
+            if (i > b) {
+                boolean prefix = prefixes && i < n && s.charAt(i) == '*';
+                out.add(s.substring(b, i).toLowerCase(Locale.ROOT) + (prefix ? "*" : ""));
+            }
+        }
+        return out;
+    }
+
+    private static boolean startsWith(ByteBuffer buf, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) if (buf.get(from + i) != prefix[i]) return false;
+        return true;
+    }
+
+    private static boolean blank(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    private static int parseInt(ByteBuffer buf, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') break;
+            v = v * 10 + (b - '0');
+        }
+        return v;
+    }
+
+    // ---------- Файли ----------
+
+    /** Ключ лог-файлу: ім'я без {@code .gz}, щоб стиснення не створювало новий бій. */
+    private static String fileKey(Path p) {
+        String n = p.getFileName().toString();
+        return n.endsWith(LogRetention.GZ) ? n.substring(0, n.length() - LogRetention.GZ.length()) : n;
+    }
+
+    /**
+     * Знайти лог-файл результату (нестиснений або {@code .gz}).
+     *
+     * @param hit результат пошуку не зі сховища
+     * @return шлях або {@code null}, якщо файл уже видалено
+     */
+    public Path file(Hit hit) {
+        Path p = dir.resolve(hit.match());
+        if (Files.exists(p)) return p;
+        p = dir.resolve(hit.match() + LogRetention.GZ);
+        return Files.exists(p) ? p : null;
+    }
+
+    private Path segment(int id) {
+        return home.resolve(SEGMENT + id);
+    }
+
+    /**
+     * Зафіксувати бої поточного оновлення: новий сегмент, дописаний файл боїв,
+     * потім маніфест. Злиття сегментів — після фіксації.
+     */
+    private void save() throws IOException {
+        Files.createDirectories(home);
+        int id = nextSegment++;
+        try (IndexSegment.Writer w = new IndexSegment.Writer(id, segment(id))) {
+            for (Map.Entry<String, Postings> t : fresh.entrySet()) w.add(t.getKey(), t.getValue());
+            segments.add(w.finish());
+        }
+        fresh.clear();
+        try (FileChannel ch = FileChannel.open(home.resolve(DOCS), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // після перерваного оновлення у кінці можуть лишитися незафіксовані записи
+            ch.truncate(docsLength);
+            ByteBuffer b = ByteBuffer.wrap(freshDocs.toByteArray());
+            while (b.hasRemaining()) ch.write(b, docsLength + b.position());
+            ch.force(false);
+        }
+        docsLength += freshDocs.size();
+        freshDocs.reset();
+        writeManifest();
+        if (segments.size() > MAX_SEGMENTS) merge();
+    }
+
+    /** Злити всі сегменти в один; бої в сегментах ідуть за зростанням, тож списки лише дописуються. */
+    private void merge() throws IOException {
+        List<IndexSegment> old = new ArrayList<>(segments);
+        List<FileChannel> channels = new ArrayList<>(old.size());
+        int id = nextSegment++;
+        IndexSegment merged;
+        try (IndexSegment.Writer w = new IndexSegment.Writer(id, segment(id))) {
+            for (IndexSegment seg : old) channels.add(seg.channel());
+            int[] at = new int[old.size()];
+            for (String term; (term = nextTerm(at)) != null; ) {
+                Postings p = new Postings();
+                for (int k = 0; k < at.length; k++) {
+                    IndexSegment seg = old.get(k);
+                    if (at[k] >= seg.termCount() || !seg.term(at[k]).equals(term)) continue;
+                    Postings.Cursor c = seg.postings(channels.get(k), at[k]++).cursor();
+                    while (c.next()) p.add(c.doc(), c.rounds(), c.count());
+                }
+                w.add(term, p);
+            }
+            merged = w.finish();
+        } finally {
+            for (FileChannel ch : channels) ch.close();
+        }
+        segments.clear();
+        segments.add(merged);
+        writeManifest();
+        for (IndexSegment seg : old) Files.deleteIfExists(seg.file());
+    }
+
+    private void writeManifest() throws IOException {
+        Path f = home.resolve(MANIFEST);
+        Path tmp = home.resolve(MANIFEST + ".tmp");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(docs.size());
+        out.writeLong(docsLength);
+        out.writeInt(nextSegment);
+        out.writeInt(segments.size());
+        for (IndexSegment seg : segments) out.writeInt(seg.id());
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray());
+            while (b.hasRemaining()) ch.write(b);
+            ch.force(false);
+        }
+        try {
+            Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
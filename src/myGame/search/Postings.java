@@ -0,0 +1,116 @@
+package myGame.search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Список входжень одного слова: для кожного бою — номери раундів, де воно трапилось.
+ *
+ * <p>Формат (усе — varint без знака):
+ * {@code {дельта номера бою, кількість раундів, дельти раундів...}*}.
+ * Бої додаються лише у зростаючому порядку, тому список можна дописувати.
+ * Список, прочитаний із сегмента ({@link #of(byte[], int)}), — лише для читання.</p>
+ */
+final class Postings {
+
+    private byte[] data = new byte[8];
+    private int size;
+    private int docs;
+    private int lastDoc = -1;
+
+    /**
+     * Список з байтів, прочитаних із сегмента індексу.
+     *
+     * @param data закодований список
+     * @param docs кількість боїв у ньому
+     * @return список лише для читання
+     */
+    static Postings of(byte[] data, int docs) {
+        Postings p = new Postings();
+        p.data = data;
+        p.size = data.length;
+        p.docs = docs;
+        return p;
+    }
+
+    /** @return кількість боїв зі словом */
+    int docs() { return docs; }
+
+    /** @return розмір закодованого списку в байтах */
+    int bytes() { return size; }
+
+    /**
+     * Дописати бій.
+     *
+     * @param doc    номер бою (більший за попередній)
+     * @param rounds раунди у зростаючому порядку
+     * @param n      скільки з них узяти
+     */
+    void add(int doc, int[] rounds, int n) {
+        put(doc - lastDoc);
+        put(n);
+        int prev = 0;
+        for (int i = 0; i < n; i++) {
+            put(rounds[i] - prev);
+            prev = rounds[i];
+        }
+        lastDoc = doc;
+        docs++;
+    }
+
+    /** Курсор для читання списку. */
+    Cursor cursor() { return new Cursor(); }
+
+    final class Cursor {
+        private int at;
+        private int doc = -1;
+        private int left = docs;
+        private int[] rounds = new int[8];
+        private int count;
+
+        /** @return чи є наступний бій */
+        boolean next() {
+            if (left == 0) return false;
+            left--;
+            doc += get();
+            count = get();
+            if (rounds.length < count) rounds = new int[Math.max(count, rounds.length * 2)];
+            int prev = 0;
+            for (int i = 0; i < count; i++) {
+                prev += get();
+                rounds[i] = prev;
+            }
+            return true;
+        }
+
+        int doc() { return doc; }
+
+        int[] rounds() { return rounds; }
+
+        int count() { return count; }
+
+        private int get() {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[at++];
+                v |= (b & 0x7f) << shift;
+                if (b >= 0) return v;
+            }
+        }
+    }
+
+    private void put(int v) {
+        if (size + 5 > data.length) data = Arrays.copyOf(data, Math.max(size + 5, data.length * 2));
+        while ((v & ~0x7f) != 0) {
+            data[size++] = (byte) (v | 0x80);
+            v >>>= 7;
+        }
+        data[size++] = (byte) v;
+    }
+
+    /** Записати закодований список як є. */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(data, 0, size);
+    }
+}
@@ -0,0 +1,169 @@
+package myGame.sim;
+
+import myGame.effect.StatusEffect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Буфер намірів, зібраних одним потоком під час планування раунду.
+ *
+ * <p>Дроїди не змінюють стан під час одночасного ходу — вони лише записують сюди
+ * шкоду, лікування, переміщення та ефекти. Потім {@link SimultaneousResolver}
+ * зливає буфери в детермінованому порядку (за індексом дроїда-виконавця).</p>
+ *
+ * <p>Буфер повторно використовується між раундами і не виділяє пам'ять,
+ * поки не зросте до розміру найбільшого раунду.</p>
+ */
+public final class ActionBuffer {
+
+    private int[] dmgTarget = new int[16];
+    private int[] dmgAmount = new int[16];
+    private int[] dmgSource = new int[16];
+    private int dmgCount;
+    /** Дроїд, що зараз планує дію (-1 — невідомо). */
+    private int actor = -1;
+
+    private int[] healTarget = new int[4];
+    private int[] healAmount = new int[4];
+    private int healCount;
+
+    private int[] moveActor = new int[16];
+    private int[] movePos = new int[16];
+    private int moveCount;
+
+    private int[] effTarget = new int[4];
+    private int[] effActor = new int[4];
+    private StatusEffect[] effects = new StatusEffect[4];
+    private int effCount;
+
+    private final List<String> messages;
+    private int[] msgActor = new int[16];
+
+    /**
+     * @param verbose чи збирати текстові повідомлення для логу
+     */
+    public ActionBuffer(boolean verbose) {
+        this.messages = verbose ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Записати шкоду цілі.
+     *
+     * @param target індекс цілі у знімку
+     * @param amount величина шкоди
+     */
+    public void damage(int target, int amount) {
+        if (dmgCount == dmgTarget.length) {
+            dmgTarget = Arrays.copyOf(dmgTarget, dmgCount * 2);
+            dmgAmount = Arrays.copyOf(dmgAmount, dmgCount * 2);
+            dmgSource = Arrays.copyOf(dmgSource, dmgCount * 2);
+        }
+        dmgSource[dmgCount] = actor;
+        dmgTarget[dmgCount] = target;
+        dmgAmount[dmgCount++] = Math.max(0, amount);
+    }
+
+    /**
+     * Записати лікування цілі.
+     *
+     * @param target індекс цілі у знімку
+     * @param amount кількість відновленого HP
+     */
+    public void heal(int target, int amount) {
+        if (healCount == healTarget.length) {
+            healTarget = Arrays.copyOf(healTarget, healCount * 2);
+            healAmount = Arrays.copyOf(healAmount, healCount * 2);
+        }
+        healTarget[healCount] = target;
+        healAmount[healCount++] = Math.max(0, amount);
+    }
+
+    /**
+     * Записати переміщення дроїда.
+     *
+     * @param actor    індекс дроїда у знімку
+     * @param position нова позиція
+     */
+    public void move(int actor, int position) {
+        if (moveCount == moveActor.length) {
+            moveActor = Arrays.copyOf(moveActor, moveCount * 2);
+            movePos = Arrays.copyOf(movePos, moveCount * 2);
+        }
+        moveActor[moveCount] = actor;
+        movePos[moveCount++] = position;
+    }
+
+    /**
+     * Записати накладання статус-ефекту.
+     *
+     * @param target індекс цілі у знімку
+     * @param effect ефект
+     */
+    public void effect(int target, StatusEffect effect) {
+        if (effCount == effTarget.length) {
+            effTarget = Arrays.copyOf(effTarget, effCount * 2);
+            effActor = Arrays.copyOf(effActor, effCount * 2);
+            effects = Arrays.copyOf(effects, effCount * 2);
+        }
+        effActor[effCount] = actor;
+        effTarget[effCount] = target;
+        effects[effCount++] = effect;
+    }
+
+    /**
+     * Записати повідомлення для логу (ігнорується, якщо буфер не "балакучий").
+     *
+     * @param text текст
+     */
+    public void message(String text) {
+        if (messages == null) return;
+        if (messages.size() == msgActor.length) msgActor = Arrays.copyOf(msgActor, msgActor.length * 2);
+        msgActor[messages.size()] = actor;
+        messages.add(text);
+    }
+
+    /** @return чи збирає буфер повідомлення (щоб не будувати рядки даремно) */
+    public boolean verbose() { return messages != null; }
+
+    /**
+     * Позначити дроїда, чиї наміри записуються далі (для обліку завданої шкоди).
+     *
+     * @param index індекс дроїда у знімку
+     */
+    void actor(int index) { actor = index; }
+
+    /** Очистити буфер перед новим раундом (ємність зберігається). */
+    public void clear() {
+        dmgCount = healCount = moveCount = 0;
+        actor = -1;
+        Arrays.fill(effects, 0, effCount, null);
+        effCount = 0;
+        if (messages != null) messages.clear();
+    }
+
+    // ---------- Читання для злиття ----------
+
+    int damageCount() { return dmgCount; }
+    int damageTarget(int k) { return dmgTarget[k]; }
+    int damageAmount(int k) { return dmgAmount[k]; }
+    int damageSource(int k) { return dmgSource[k]; }
+
+    int healCount() { return healCount; }
+    int healTarget(int k) { return healTarget[k]; }
+    int healAmount(int k) { return healAmount[k]; }
+
+    int moveCount() { return moveCount; }
+    int moveActor(int k) { return moveActor[k]; }
+    int movePosition(int k) { return movePos[k]; }
+
+    int effectCount() { return effCount; }
+    int effectTarget(int k) { return effTarget[k]; }
+    int effectActor(int k) { return effActor[k]; }
+    StatusEffect effectAt(int k) { return effects[k]; }
+
+    int messageCount() { return messages == null ? 0 : messages.size(); }
+    String message(int k) { return messages.get(k); }
+    int messageActor(int k) { return msgActor[k]; }
+}
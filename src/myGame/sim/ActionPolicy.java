@@ -0,0 +1,34 @@
+package myGame.sim;
+
+import java.util.Random;
+
+/**
+ * Політика автоматичного вибору дії дроїда (замість вводу з консолі).
+ *
+ * <p>Повертає той самий номер дії, що й меню {@code actionMenu}:
+ * 1 — звичайна атака, 2 — особлива здібність, 3 — переміщення.
+ * Політика викликається паралельно, тому не повинна мати змінного стану.</p>
+ */
+@FunctionalInterface
+public interface ActionPolicy {
+
+    /**
+     * Обрати дію дроїда на основі знімка раунду.
+     *
+     * @param self індекс дроїда у знімку
+     * @param s    знімок раунду (лише читання)
+     * @param t    індекс цілей поблизу (сегмент арени з гало або все поле)
+     * @param rng  генератор випадкових чисел цього дроїда на цей раунд
+     * @return номер дії (1..3)
+     */
+    int choose(int self, RoundSnapshot s, TargetingIndex t, Random rng);
+
+    /** Рівномірно випадкова дія. */
+    ActionPolicy RANDOM = (self, s, t, rng) -> 1 + rng.nextInt(3);
+
+    /** Атакує, якщо хтось із ворогів у радіусі; інакше здібність (1/3) або переміщення. */
+    ActionPolicy GREEDY = (self, s, t, rng) -> {
+        if (t.countWithin(1 - s.team(self), s.position(self), s.range(self)) > 0) return 1;
+        return rng.nextInt(3) == 0 ? 2 : 3;
+    };
+}
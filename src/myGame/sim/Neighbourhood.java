@@ -0,0 +1,58 @@
+package myGame.sim;
+
+import java.util.Arrays;
+
+/**
+ * Набір індексів дроїдів, яких "бачить" дроїд під час планування.
+ *
+ * <p>Без поділу арени це всі дроїди знімка. При поділі на сегменти
+ * ({@link SegmentedArena}) — дроїди власного сегмента плюс гало біля його меж,
+ * тож локальні здібності не переглядають усе поле бою. З сусідства будується
+ * {@link TargetingIndex}, через який дроїди шукають цілі.</p>
+ */
+public final class Neighbourhood {
+
+    private int[] idx;
+    private int size;
+
+    /**
+     * @param capacity початкова ємність
+     */
+    public Neighbourhood(int capacity) {
+        this.idx = new int[Math.max(4, capacity)];
+    }
+
+    /**
+     * Сусідство з усіх дроїдів знімка.
+     *
+     * @param n кількість дроїдів
+     * @return сусідство з індексами 0..n-1
+     */
+    public static Neighbourhood all(int n) {
+        Neighbourhood h = new Neighbourhood(n);
+        for (int i = 0; i < n; i++) h.add(i);
+        return h;
+    }
+
+    /** @return кількість дроїдів у сусідстві */
+    public int size() { return size; }
+
+    /**
+     * @param k порядковий номер (0..size-1)
+     * @return індекс дроїда у знімку
+     */
+    public int get(int k) { return idx[k]; }
+
+    /**
+     * Додати дроїда.
+     *
+     * @param i індекс дроїда у знімку
+     */
+    public void add(int i) {
+        if (size == idx.length) idx = Arrays.copyOf(idx, size * 2);
+        idx[size++] = i;
+    }
+
+    /** Очистити (ємність зберігається). */
+    public void clear() { size = 0; }
+}
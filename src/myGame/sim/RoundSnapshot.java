@@ -0,0 +1,173 @@
+package myGame.sim;
+
+import myGame.droid.BaseDroid;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Знімок стану раунду для одночасного розв'язання ходів.
+ *
+ * <p>Під час планування знімок лише читається (з будь-якої кількості потоків),
+ * тому всі дроїди бачать однаковий стан незалежно від порядку ходів.
+ * Між раундами {@link SimultaneousResolver} перечитує в нього нові значення,
+ * повторно використовуючи ті самі масиви.</p>
+ *
+ * <p>Дроїди нумеруються підряд: спочатку команда A, потім команда B.</p>
+ */
+public final class RoundSnapshot {
+
+    private final BaseDroid[] droids;
+    private final int[] team;
+    private final int[] pos;
+    private final int[] hp;
+    private final int[] maxHp;
+    private final int[] attack;
+    private final int[] range;
+    private final int[] moveSpeed;
+    private final String[] element;
+    private final Map<BaseDroid, Integer> indexOf;
+    private int arenaMin;
+    private int arenaMax;
+    private boolean fixedArena;
+    private int round;
+
+    /**
+     * Створити знімок двох команд.
+     *
+     * @param teamA команда A (індекс команди 0)
+     * @param teamB команда B (індекс команди 1)
+     */
+    public RoundSnapshot(List<BaseDroid> teamA, List<BaseDroid> teamB) {
+        int n = teamA.size() + teamB.size();
+        droids = new BaseDroid[n];
+        team = new int[n];
+        pos = new int[n];
+        hp = new int[n];
+        maxHp = new int[n];
+        attack = new int[n];
+        range = new int[n];
+        moveSpeed = new int[n];
+        element = new String[n];
+        indexOf = new IdentityHashMap<>(n * 2);
+        int i = 0;
+        for (BaseDroid d : teamA) { droids[i] = d; team[i++] = 0; }
+        for (BaseDroid d : teamB) { droids[i] = d; team[i++] = 1; }
+        for (int k = 0; k < n; k++) indexOf.put(droids[k], k);
+    }
+
+    /**
+     * Задати межі арени цього бою замість спільних {@link BaseDroid#getArenaMin()}/{@link BaseDroid#getArenaMax()}
+     * (потрібно, коли кілька боїв на різних мапах ідуть паралельно).
+     *
+     * @param min ліва межа
+     * @param max права межа
+     */
+    public void fixArena(int min, int max) {
+        this.fixedArena = true;
+        this.arenaMin = min;
+        this.arenaMax = max;
+    }
+
+    /**
+     * Перечитати стан усіх дроїдів перед новим раундом.
+     *
+     * @param round номер раунду
+     */
+    public void refresh(int round) {
+        this.round = round;
+        if (!fixedArena) {
+            this.arenaMin = BaseDroid.getArenaMin();
+            this.arenaMax = BaseDroid.getArenaMax();
+        }
+        for (int i = 0; i < droids.length; i++) {
+            BaseDroid d = droids[i];
+            pos[i] = d.getCurrentPosition();
+            hp[i] = d.getCurrentHp();
+            maxHp[i] = d.getMaxHp();
+            attack[i] = d.getAttack();
+            range[i] = d.getRange();
+            moveSpeed[i] = d.getMoveSpeed();
+            element[i] = d.getElement();
+        }
+    }
+
+    /** @return кількість дроїдів у знімку */
+    public int size() { return droids.length; }
+
+    /** @return номер раунду знімка */
+    public int round() { return round; }
+
+    /** @return ліва межа арени */
+    public int arenaMin() { return arenaMin; }
+
+    /** @return права межа арени */
+    public int arenaMax() { return arenaMax; }
+
+    /**
+     * @param i індекс дроїда
+     * @return сам дроїд (лише для читання імені/типу під час планування)
+     */
+    public BaseDroid droid(int i) { return droids[i]; }
+
+    /**
+     * @param d дроїд
+     * @return індекс дроїда у знімку або -1, якщо його немає
+     */
+    public int indexOf(BaseDroid d) {
+        Integer i = indexOf.get(d);
+        return i == null ? -1 : i;
+    }
+
+    /** @param i індекс дроїда @return індекс команди (0 — A, 1 — B) */
+    public int team(int i) { return team[i]; }
+
+    /** @param i індекс дроїда @return позиція */
+    public int position(int i) { return pos[i]; }
+
+    /** @param i індекс дроїда @return поточний HP */
+    public int hp(int i) { return hp[i]; }
+
+    /** @param i індекс дроїда @return максимальний HP */
+    public int maxHp(int i) { return maxHp[i]; }
+
+    /** @param i індекс дроїда @return сила атаки */
+    public int attack(int i) { return attack[i]; }
+
+    /** @param i індекс дроїда @return дальність атаки */
+    public int range(int i) { return range[i]; }
+
+    /** @param i індекс дроїда @return швидкість переміщення */
+    public int moveSpeed(int i) { return moveSpeed[i]; }
+
+    /** @param i індекс дроїда @return стихія */
+    public String element(int i) { return element[i]; }
+
+    /** @param i індекс дроїда @return чи живий дроїд на початок раунду */
+    public boolean alive(int i) { return hp[i] > 0; }
+
+    /**
+     * @param i перший дроїд
+     * @param j другий дроїд
+     * @return true, якщо дроїди з різних команд
+     */
+    public boolean enemies(int i, int j) { return team[i] != team[j]; }
+
+    /**
+     * Чи знаходиться ціль у радіусі атаки дроїда (як {@link BaseDroid#inRange(BaseDroid)}).
+     *
+     * @param i атакувальник
+     * @param j ціль
+     * @return true, якщо відстань &le; дальності атакувальника
+     */
+    public boolean inRange(int i, int j) { return Math.abs(pos[j] - pos[i]) <= range[i]; }
+
+    /**
+     * Обрізати позицію до меж арени.
+     *
+     * @param p позиція
+     * @return позиція в межах [arenaMin..arenaMax]
+     */
+    public int clamp(int p) { return Math.max(arenaMin, Math.min(arenaMax, p)); }
+}
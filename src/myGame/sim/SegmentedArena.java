@@ -0,0 +1,218 @@
+package myGame.sim;
+
+import java.util.Arrays;
+
+/**
+ * Поділ арени на суміжні сегменти для паралельного планування великих боїв.
+ *
+ * <p>Кожен сегмент володіє дроїдами, що стоять у його клітинках, і бачить
+ * додатково гало — дроїдів сусідніх сегментів на відстані не більше
+ * {@link #halo()} від своїх меж. Ширина гало дорівнює найбільшій дальності атаки
+ * живих дроїдів (але не менше {@link #MIN_HALO}), тому локальні здібності
+ * (удар, вогнемет, бомбардування) дають той самий результат, що й на всьому полі.</p>
+ *
+ * <p>Після кожного раунду виконується обмін: дроїди, що перетнули межу,
+ * переходять до нового сегмента, загиблі вибувають. Списки власників завжди
+ * впорядковані за індексом дроїда, тож планування детерміноване.</p>
+ */
+public final class SegmentedArena {
+
+    /** Мінімальна ширина гало — довжина прольоту бомбардування {@code FlyingDroid}. */
+    public static final int MIN_HALO = 3;
+
+    /** Мінімальна кількість клітинок на сегмент відносно {@link #MIN_HALO}. */
+    private static final int MIN_WIDTH_IN_HALOS = 8;
+
+    /** Дроїдів на сегмент у середньому — як блок поділу за індексом. */
+    private static final int DROIDS_PER_SEGMENT = 256;
+
+    private final int segments;
+    private final int[][] owned;
+    private final int[] ownedCount;
+    private final boolean[] dirty;
+    private final Neighbourhood[] views;
+    private int[] segmentOf;
+
+    private int arenaMin = Integer.MIN_VALUE;
+    private int arenaMax = Integer.MIN_VALUE;
+    private int width;
+    private int halo = MIN_HALO;
+    private int migrated;
+
+    private int[] migrants = new int[16];
+    private int migrantCount;
+
+    /**
+     * @param segments кількість сегментів (не менше 1)
+     */
+    public SegmentedArena(int segments) {
+        this.segments = Math.max(1, segments);
+        this.owned = new int[this.segments][16];
+        this.ownedCount = new int[this.segments];
+        this.dirty = new boolean[this.segments];
+        this.views = new Neighbourhood[this.segments];
+        for (int k = 0; k < this.segments; k++) views[k] = new Neighbourhood(16);
+        this.segmentOf = new int[0];
+    }
+
+    /**
+     * Рекомендована кількість сегментів для арени та кількості дроїдів. Від кількості
+     * потоків не залежить: поділ — частина налаштувань бою, а не машини.
+     *
+     * @param arenaWidth кількість клітинок арени
+     * @param droids     кількість дроїдів
+     * @return кількість сегментів (1 — поділ не має сенсу)
+     */
+    public static int suggest(int arenaWidth, int droids) {
+        if (droids < 1024) return 1;
+        int byWidth = arenaWidth / (MIN_HALO * MIN_WIDTH_IN_HALOS);
+        return Math.max(1, Math.min(byWidth, droids / DROIDS_PER_SEGMENT));
+    }
+
+    /** @return кількість сегментів */
+    public int segments() { return segments; }
+
+    /** @return поточна ширина гало у клітинках */
+    public int halo() { return halo; }
+
+    /** @return скільки дроїдів перейшло між сегментами під час останнього обміну */
+    public int migrated() { return migrated; }
+
+    /**
+     * @param k номер сегмента
+     * @return дроїди, що ходять у цьому сегменті (власні + гало для пошуку цілей)
+     */
+    public Neighbourhood view(int k) { return views[k]; }
+
+    /**
+     * @param k номер сегмента
+     * @return кількість дроїдів, якими володіє сегмент
+     */
+    public int ownedCount(int k) { return ownedCount[k]; }
+
+    /**
+     * @param k номер сегмента
+     * @param m порядковий номер (0..ownedCount-1)
+     * @return індекс дроїда у знімку
+     */
+    public int owned(int k, int m) { return owned[k][m]; }
+
+    /**
+     * Підготувати сегменти до планування раунду: обмін дроїдами через межі
+     * (або первинний розподіл) і перебудова гало.
+     *
+     * @param s щойно оновлений знімок раунду
+     */
+    public void prepare(RoundSnapshot s) {
+        if (s.arenaMin() != arenaMin || s.arenaMax() != arenaMax || segmentOf.length != s.size()) {
+            assignAll(s);
+        } else {
+            exchange(s);
+        }
+
+        int maxRange = MIN_HALO;
+        for (int i = 0; i < s.size(); i++) {
+            if (s.alive(i)) maxRange = Math.max(maxRange, s.range(i));
+        }
+        halo = maxRange;
+
+        for (int k = 0; k < segments; k++) buildView(s, k);
+    }
+
+    /**
+     * Номер сегмента для позиції (позиції за межами арени належать крайнім сегментам).
+     *
+     * @param position позиція
+     * @return номер сегмента
+     */
+    public int segmentFor(int position) {
+        long k = ((long) position - arenaMin) / width;
+        return (int) Math.max(0, Math.min(segments - 1, k));
+    }
+
+    private int segmentLo(int k) { return arenaMin + k * width; }
+
+    private int segmentHi(int k) { return k == segments - 1 ? Integer.MAX_VALUE : arenaMin + (k + 1) * width - 1; }
+
+    private void assignAll(RoundSnapshot s) {
+        arenaMin = s.arenaMin();
+        arenaMax = s.arenaMax();
+        width = Math.max(1, (int) (((long) arenaMax - arenaMin + segments) / segments));
+        segmentOf = new int[s.size()];
+        Arrays.fill(ownedCount, 0);
+        for (int i = 0; i < s.size(); i++) {
+            if (!s.alive(i)) {
+                segmentOf[i] = -1;
+                continue;
+            }
+            int k = segmentFor(s.position(i));
+            segmentOf[i] = k;
+            append(k, i);
+        }
+        migrated = 0;
+    }
+
+    private void exchange(RoundSnapshot s) {
+        migrantCount = 0;
+        for (int k = 0; k < segments; k++) {
+            int[] list = owned[k];
+            int keep = 0;
+            for (int m = 0; m < ownedCount[k]; m++) {
+                int i = list[m];
+                if (!s.alive(i)) {
+                    segmentOf[i] = -1;
+                    continue;
+                }
+                int nk = segmentFor(s.position(i));
+                if (nk != k) {
+                    segmentOf[i] = nk;
+                    if (migrantCount == migrants.length) migrants = Arrays.copyOf(migrants, migrantCount * 2);
+                    migrants[migrantCount++] = i;
+                    continue;
+                }
+                list[keep++] = i;
+            }
+            ownedCount[k] = keep;
+        }
+
+        for (int m = 0; m < migrantCount; m++) {
+            int i = migrants[m];
+            append(segmentOf[i], i);
+            dirty[segmentOf[i]] = true;
+        }
+        for (int k = 0; k < segments; k++) {
+            if (dirty[k]) {
+                Arrays.sort(owned[k], 0, ownedCount[k]);
+                dirty[k] = false;
+            }
+        }
+        migrated = migrantCount;
+    }
+
+    private void append(int k, int i) {
+        if (ownedCount[k] == owned[k].length) owned[k] = Arrays.copyOf(owned[k], ownedCount[k] * 2);
+        owned[k][ownedCount[k]++] = i;
+    }
+
+    private void buildView(RoundSnapshot s, int k) {
+        Neighbourhood v = views[k];
+        v.clear();
+        for (int m = 0; m < ownedCount[k]; m++) v.add(owned[k][m]);
+
+        long left = (long) segmentLo(k) - halo;
+        for (int j = k - 1; j >= 0 && segmentHi(j) >= left; j--) {
+            for (int m = 0; m < ownedCount[j]; m++) {
+                int i = owned[j][m];
+                if (s.position(i) >= left) v.add(i);
+            }
+        }
+        if (k == segments - 1) return;
+        long right = (long) segmentHi(k) + halo;
+        for (int j = k + 1; j < segments && segmentLo(j) <= right; j++) {
+            for (int m = 0; m < ownedCount[j]; m++) {
+                int i = owned[j][m];
+                if (s.position(i) <= right) v.add(i);
+            }
+        }
+    }
+}
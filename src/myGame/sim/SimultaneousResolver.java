@@ -0,0 +1,324 @@
+package myGame.sim;
+
+import myGame.droid.BaseDroid;
+import myGame.effect.EffectEngine;
+import myGame.effect.StatType;
+import myGame.effect.StatusEffect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Одночасне розв'язання ходів двох команд.
+ *
+ * <p>Кожен раунд проходить у три етапи:</p>
+ * <ol>
+ *   <li>стан дроїдів копіюється у {@link RoundSnapshot};</li>
+ *   <li>усі живі дроїди паралельно (fork/join) обирають дію через {@link ActionPolicy}
+ *       і планують її наслідки у власний {@link ActionBuffer} свого блоку;</li>
+ *   <li>буфери зливаються у масиви наступного стану, після чого наступний стан
+ *       записується в дроїдів.</li>
+ * </ol>
+ *
+ * <p>Шкода і лікування підсумовуються, тому результат не залежить від порядку
+ * виконання потоків і від поділу на блоки. Ефекти і повідомлення застосовуються
+ * і повертаються в порядку індексів дроїдів-виконавців (у межах дроїда — в порядку
+ * запису), хоч би як дроїди розподілились між буферами. Випадковість кожного дроїда
+ * задається зерном бою, номером раунду та індексом дроїда, тож однакове зерно дає
+ * однаковий бій.</p>
+ *
+ * <p>На великих аренах дроїди діляться не блоками за індексом, а сегментами
+ * арени ({@link SegmentedArena}): кожне завдання планує дроїдів свого сегмента
+ * і шукає цілі лише серед них та гало. Глобальні здібності
+ * ({@link BaseDroid#isAbilityLocal()} == false) усе ще бачать усе поле.</p>
+ *
+ * <p>{@link #resolveTeamTurn} розігрує хід лише однієї команди — так покрокові
+ * режими (спершу ходить A, потім B) грають без вводу з консолі.</p>
+ */
+public final class SimultaneousResolver {
+
+    /** Розмір блоку дроїдів, що планується одним завданням fork/join. */
+    private static final int CHUNK = 256;
+
+    private final RoundSnapshot snapshot;
+    private final ActionPolicy policy;
+    private final long seed;
+    private final boolean verbose;
+    private final ForkJoinPool pool;
+
+    private final ActionBuffer[] buffers;
+    private final Random[] rngs;
+    private final int[] nextHp;
+    private final int[] nextPos;
+    /** Команда, що ходить (-1 — обидві). */
+    private int acting = -1;
+
+    /** Записи ефектів чи повідомлень усіх буферів для впорядкування за виконавцем. */
+    private long[] order = new long[16];
+
+    /** Сусідство "усе поле". */
+    private final Neighbourhood everyone;
+    /** Індекс цілей усього поля (будується до паралельного етапу, далі лише читається). */
+    private final TargetingIndex everyoneTargets = new TargetingIndex();
+    /** Поділ арени на сегменти або {@code null} для поділу блоками за індексом. */
+    private final SegmentedArena arena;
+    /** Індекси цілей сегментів (кожен будує і читає лише потік свого сегмента). */
+    private final TargetingIndex[] segmentTargets;
+
+    /**
+     * @param teamA   команда A
+     * @param teamB   команда B
+     * @param policy  політика вибору дій
+     * @param seed    зерно бою
+     * @param verbose чи збирати текстові повідомлення про дії
+     */
+    public SimultaneousResolver(List<BaseDroid> teamA, List<BaseDroid> teamB,
+                                ActionPolicy policy, long seed, boolean verbose) {
+        this(teamA, teamB, policy, seed, verbose, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param teamA   команда A
+     * @param teamB   команда B
+     * @param policy  політика вибору дій
+     * @param seed    зерно бою
+     * @param verbose чи збирати текстові повідомлення про дії
+     * @param pool    пул потоків для паралельного планування
+     */
+    public SimultaneousResolver(List<BaseDroid> teamA, List<BaseDroid> teamB,
+                                ActionPolicy policy, long seed, boolean verbose, ForkJoinPool pool) {
+        this(teamA, teamB, policy, seed, verbose, pool,
+                SegmentedArena.suggest(BaseDroid.getArenaMax() - BaseDroid.getArenaMin() + 1,
+                        teamA.size() + teamB.size()));
+    }
+
+    /**
+     * @param teamA    команда A
+     * @param teamB    команда B
+     * @param policy   політика вибору дій
+     * @param seed     зерно бою
+     * @param verbose  чи збирати текстові повідомлення про дії
+     * @param pool     пул потоків для паралельного планування
+     * @param segments кількість сегментів арени (1 — без поділу арени)
+     */
+    public SimultaneousResolver(List<BaseDroid> teamA, List<BaseDroid> teamB,
+                                ActionPolicy policy, long seed, boolean verbose, ForkJoinPool pool, int segments) {
+        this.snapshot = new RoundSnapshot(teamA, teamB);
+        this.policy = policy;
+        this.seed = seed;
+        this.verbose = verbose;
+        this.pool = pool;
+
+        int n = snapshot.size();
+        this.everyone = Neighbourhood.all(n);
+        this.arena = segments > 1 ? new SegmentedArena(segments) : null;
+        int chunks = arena != null ? segments : Math.max(1, (n + CHUNK - 1) / CHUNK);
+        this.segmentTargets = new TargetingIndex[arena != null ? segments : 0];
+        for (int k = 0; k < segmentTargets.length; k++) segmentTargets[k] = new TargetingIndex();
+        this.buffers = new ActionBuffer[chunks];
+        this.rngs = new Random[chunks];
+        for (int c = 0; c < chunks; c++) {
+            buffers[c] = new ActionBuffer(verbose);
+            rngs[c] = new Random();
+        }
+        this.nextHp = new int[n];
+        this.nextPos = new int[n];
+    }
+
+    /**
+     * Розіграти один раунд.
+     *
+     * @param round номер раунду (впливає на випадковість)
+     * @return повідомлення про дії у детермінованому порядку (порожньо, якщо не verbose)
+     */
+    public List<String> resolveRound(int round) {
+        snapshot.refresh(round);
+        if (arena != null) arena.prepare(snapshot);
+        everyoneTargets.build(snapshot, everyone);
+
+        if (buffers.length == 1) {
+            planChunk(0);
+        } else {
+            pool.invoke(new PlanTask(0, buffers.length));
+        }
+
+        return merge();
+    }
+
+    /**
+     * Розіграти хід однієї команди: планують лише її дроїди, проти поточного стану.
+     *
+     * @param round номер раунду (впливає на випадковість)
+     * @param team  команда (0 — A, 1 — B)
+     * @return повідомлення про дії (порожньо, якщо не verbose)
+     */
+    public List<String> resolveTeamTurn(int round, int team) {
+        acting = team;
+        try {
+            return resolveRound(round);
+        } finally {
+            acting = -1;
+        }
+    }
+
+    /**
+     * Задати межі арени бою (замість спільних статичних меж {@link BaseDroid}).
+     *
+     * @param min ліва межа
+     * @param max права межа
+     */
+    public void setArenaBounds(int min, int max) {
+        snapshot.fixArena(min, max);
+    }
+
+    /** @return знімок останнього раунду */
+    public RoundSnapshot snapshot() { return snapshot; }
+
+    /** @return поділ арени на сегменти або {@code null}, якщо арена не ділиться */
+    public SegmentedArena arena() { return arena; }
+
+    /**
+     * Спланувати одну одиницю роботи: блок дроїдів за індексом або сегмент арени.
+     *
+     * @param c номер блоку/сегмента
+     */
+    private void planChunk(int c) {
+        ActionBuffer out = buffers[c];
+        Random rng = rngs[c];
+        out.clear();
+        if (arena != null) {
+            TargetingIndex near = segmentTargets[c];
+            near.build(snapshot, arena.view(c));
+            for (int m = 0; m < arena.ownedCount(c); m++) {
+                int i = arena.owned(c, m);
+                if (acts(i)) planOne(i, near, out, rng);
+            }
+            return;
+        }
+        int from = c * CHUNK;
+        int to = Math.min(snapshot.size(), from + CHUNK);
+        for (int i = from; i < to; i++) {
+            if (snapshot.alive(i) && acts(i)) planOne(i, everyoneTargets, out, rng);
+        }
+    }
+
+    private boolean acts(int i) {
+        return acting < 0 || snapshot.team(i) == acting;
+    }
+
+    private void planOne(int i, TargetingIndex near, ActionBuffer out, Random rng) {
+        rng.setSeed(mix(seed, snapshot.round(), i));
+        int choice = policy.choose(i, snapshot, near, rng);
+        BaseDroid d = snapshot.droid(i);
+        TargetingIndex view = (choice == 2 && !d.isAbilityLocal()) ? everyoneTargets : near;
+        out.actor(i);
+        d.planAction(choice, i, snapshot, view, out, rng);
+    }
+
+    private List<String> merge() {
+        int n = snapshot.size();
+        for (int i = 0; i < n; i++) {
+            nextHp[i] = snapshot.hp(i);
+            nextPos[i] = snapshot.position(i);
+        }
+
+        for (ActionBuffer b : buffers) {
+            for (int k = 0; k < b.damageCount(); k++) {
+                nextHp[b.damageTarget(k)] -= b.damageAmount(k);
+                if (b.damageSource(k) >= 0) snapshot.droid(b.damageSource(k)).addDamageDealt(b.damageAmount(k));
+            }
+            for (int k = 0; k < b.healCount(); k++) nextHp[b.healTarget(k)] += b.healAmount(k);
+            for (int k = 0; k < b.moveCount(); k++) nextPos[b.moveActor(k)] = b.movePosition(k);
+        }
+
+        for (int i = 0; i < n; i++) {
+            BaseDroid d = snapshot.droid(i);
+            d.setCurrentHp(Math.max(0, Math.min(snapshot.maxHp(i), nextHp[i])));
+            d.setCurrentPosition(nextPos[i]);
+        }
+
+        int effects = sortByActor(false);
+        for (int e = 0; e < effects; e++) {
+            ActionBuffer b = buffers[buffer(order[e])];
+            int k = entry(order[e]);
+            BaseDroid target = snapshot.droid(b.effectTarget(k));
+            StatusEffect effect = b.effectAt(k);
+            EffectEngine engine = target.getEffects();
+            if (engine != null) {
+                engine.apply(target, effect);
+            } else {
+                // без рушія ефекти діють назавжди, як у покроковому режимі
+                StatType stat = effect.stat();
+                stat.write(target, effect.absolute() ? effect.value() : stat.read(target) + effect.value());
+            }
+        }
+        if (!verbose) return List.of();
+        int count = sortByActor(true);
+        List<String> messages = new ArrayList<>(count);
+        for (int e = 0; e < count; e++) messages.add(buffers[buffer(order[e])].message(entry(order[e])));
+        return messages;
+    }
+
+    /**
+     * Упорядкувати ефекти або повідомлення всіх буферів за індексом виконавця у {@link #order}.
+     * Ключ — виконавець (старші 24 біти), буфер (16 біт) і номер запису в буфері (24 біти):
+     * дроїд пише лише в один буфер, тож записи одного дроїда лишаються в порядку запису.
+     *
+     * @param messages повідомлення замість ефектів
+     * @return кількість записів
+     */
+    private int sortByActor(boolean messages) {
+        int total = 0;
+        for (int c = 0; c < buffers.length; c++) {
+            ActionBuffer b = buffers[c];
+            int n = messages ? b.messageCount() : b.effectCount();
+            if (total + n > order.length) order = Arrays.copyOf(order, Math.max(order.length * 2, total + n));
+            for (int k = 0; k < n; k++) {
+                long actor = (messages ? b.messageActor(k) : b.effectActor(k)) + 1;
+                order[total++] = actor << 40 | (long) c << 24 | k;
+            }
+        }
+        Arrays.sort(order, 0, total);
+        return total;
+    }
+
+    private static int buffer(long key) { return (int) (key >>> 24) & 0xFFFF; }
+
+    private static int entry(long key) { return (int) key & 0xFFFFFF; }
+
+    /**
+     * Зерно генератора дроїда на раунд (SplitMix64 від зерна бою, раунду та індексу).
+     */
+    static long mix(long seed, int round, int index) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) round << 32) ^ index);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Рекурсивний поділ діапазону блоків між потоками fork/join (задачі не серіалізуються). */
+    @SuppressWarnings("serial")
+    private final class PlanTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        PlanTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                planChunk(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PlanTask(from, mid), new PlanTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package myGame.sim;
+
+import java.util.Arrays;
+
+/**
+ * Просторовий індекс цілей: живі дроїди кожної команди, відсортовані за позицією.
+ *
+ * <p>Зберігається у примітивних масивах ({@code long} = позиція у старших 32 бітах,
+ * індекс дроїда у молодших), тож побудова — це одне сортування, а запити
+ * "найближчий ворог", "усі в радіусі r" і "скільки в радіусі r" — двійковий пошук
+ * за O(log N + k) замість перебору всієї команди.</p>
+ *
+ * <p>Індекс будується заново на кожен раунд з {@link Neighbourhood} (усе поле або
+ * сегмент з гало) і далі лише читається, тому його можна спільно використовувати
+ * з кількох потоків.</p>
+ */
+public final class TargetingIndex {
+
+    /** Розмір, з якого побудова використовує паралельне сортування. */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private final long[][] keys = {new long[16], new long[16]};
+    private final int[] count = new int[2];
+
+    /**
+     * Перебудувати індекс з живих дроїдів сусідства.
+     *
+     * @param s       знімок раунду
+     * @param members дроїди, що потрапляють в індекс
+     */
+    public void build(RoundSnapshot s, Neighbourhood members) {
+        count[0] = count[1] = 0;
+        for (int k = 0; k < members.size(); k++) {
+            int i = members.get(k);
+            if (!s.alive(i)) continue;
+            int t = s.team(i);
+            if (count[t] == keys[t].length) keys[t] = Arrays.copyOf(keys[t], count[t] * 2);
+            keys[t][count[t]++] = ((long) s.position(i) << 32) | i;
+        }
+        for (int t = 0; t < 2; t++) {
+            if (count[t] >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(keys[t], 0, count[t]);
+            else Arrays.sort(keys[t], 0, count[t]);
+        }
+    }
+
+    /**
+     * @param team індекс команди
+     * @return кількість живих дроїдів команди в індексі
+     */
+    public int size(int team) { return count[team]; }
+
+    /**
+     * @param team індекс команди
+     * @param k    порядковий номер у порядку зростання позиції
+     * @return індекс дроїда у знімку
+     */
+    public int id(int team, int k) { return (int) keys[team][k]; }
+
+    /**
+     * @param team індекс команди
+     * @param k    порядковий номер у порядку зростання позиції
+     * @return позиція дроїда
+     */
+    public int position(int team, int k) { return (int) (keys[team][k] >> 32); }
+
+    /**
+     * Перший порядковий номер дроїда з позицією &ge; {@code position}.
+     *
+     * @param team     індекс команди
+     * @param position позиція
+     * @return порядковий номер (size, якщо таких немає)
+     */
+    public int lowerBound(int team, long position) {
+        long[] a = keys[team];
+        int lo = 0, hi = count[team];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if ((a[mid] >> 32) < position) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Перший порядковий номер дроїда з позицією &gt; {@code position}.
+     *
+     * @param team     індекс команди
+     * @param position позиція
+     * @return порядковий номер (size, якщо таких немає)
+     */
+    public int upperBound(int team, long position) {
+        return lowerBound(team, position + 1);
+    }
+
+    /**
+     * Кількість дроїдів команди на відстані не більше {@code r} від позиції.
+     *
+     * @param team     індекс команди
+     * @param position центр
+     * @param r        радіус
+     * @return кількість дроїдів
+     */
+    public int countWithin(int team, int position, int r) {
+        return upperBound(team, (long) position + r) - lowerBound(team, (long) position - r);
+    }
+
+    /**
+     * Найближчий до позиції дроїд команди (при рівній відстані — лівіший).
+     *
+     * @param team     індекс команди
+     * @param position позиція
+     * @return індекс дроїда у знімку або -1, якщо команда порожня
+     */
+    public int nearest(int team, int position) {
+        int n = count[team];
+        if (n == 0) return -1;
+        int k = lowerBound(team, position);
+        if (k == n) return id(team, n - 1);
+        if (k == 0) return id(team, 0);
+        long left = (long) position - position(team, k - 1);
+        long right = (long) position(team, k) - position;
+        return left <= right ? id(team, k - 1) : id(team, k);
+    }
+}
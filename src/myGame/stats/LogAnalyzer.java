@@ -0,0 +1,183 @@
+package myGame.stats;
+
+import myGame.log.LogRetention;
+import myGame.store.MatchStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Паралельний аналіз усіх логів боїв у директорії.
+ *
+ * <p>Файли {@code one_vs_one_*.log} та {@code team_vs_team_*.log} (зокрема стиснені
+ * {@code .log.gz} — вони вважаються тим самим файлом, що й до стиснення), а також бої
+ * зі сховища {@link MatchStore} у тій самій директорії (по сегменту на задачу)
+ * розбираються паралельно ({@link LogScanner} на кожен потік), часткові результати зливаються.
+ * Після запуску у директорії зберігається контрольна точка {@value #CHECKPOINT}:
+ * список уже оброблених файлів і накопичена статистика. Наступний запуск
+ * обробляє лише нові файли.</p>
+ */
+public final class LogAnalyzer {
+
+    /** Ім'я файлу контрольної точки у директорії логів. */
+    public static final String CHECKPOINT = ".stats-checkpoint";
+
+    private static final int MAGIC = 0x4C475354; // "LGST"
+    private static final int VERSION = 1;
+
+    /** Префікс ключа бою зі сховища у контрольній точці. */
+    private static final String STORE_KEY = "#";
+
+    private static final ThreadLocal<LogScanner> SCANNER = ThreadLocal.withInitial(LogScanner::new);
+
+    private final Path dir;
+    private int scanned;
+
+    /**
+     * @param dir директорія з логами
+     */
+    public LogAnalyzer(Path dir) {
+        this.dir = dir;
+    }
+
+    /** @return скільки файлів і боїв сховища оброблено останнім запуском */
+    public int scanned() { return scanned; }
+
+    /**
+     * Проаналізувати логи.
+     *
+     * @param incremental true — продовжити з контрольної точки (лише нові файли);
+     *                    false — перерахувати все заново
+     * @return накопичена статистика
+     * @throws IOException помилка читання директорії або контрольної точки
+     */
+    public LogStats run(boolean incremental) throws IOException {
+        Set<String> done = new HashSet<>();
+        LogStats total = incremental ? readCheckpoint(done) : new LogStats();
+        if (total == null) total = new LogStats();
+
+        List<Path> fresh;
+        try (Stream<Path> s = Files.list(dir)) {
+            fresh = s.filter(Files::isRegularFile)
+                    .filter(LogAnalyzer::isMatchLog)
+                    .filter(p -> !done.contains(key(p)))
+                    .collect(Collectors.toList());
+        }
+
+        LogStats added;
+        try {
+            added = fresh.parallelStream()
+                    .collect(LogStats::new, LogAnalyzer::scanInto, LogStats::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        total.merge(added);
+        scanned = fresh.size();
+        for (Path p : fresh) done.add(key(p));
+        if (MatchStore.exists(dir)) total.merge(scanStore(done));
+        writeCheckpoint(done, total);
+        return total;
+    }
+
+    /**
+     * Розібрати нові бої сховища: сегменти паралельно, логи — зрізами відображених сегментів.
+     */
+    private LogStats scanStore(Set<String> done) throws IOException {
+        MatchStore store = MatchStore.openReadOnly(dir);
+        Set<String> added = ConcurrentHashMap.newKeySet();
+        LogStats stats;
+        try {
+            stats = store.segments().parallelStream().collect(LogStats::new, (into, seg) -> {
+                LogScanner scanner = SCANNER.get();
+                try {
+                    store.forEachLog(seg, (e, log) -> {
+                        String key = STORE_KEY + e.id();
+                        if (done.contains(key)) return;
+                        scanner.scan(log, into);
+                        added.add(key);
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, LogStats::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        done.addAll(added);
+        scanned += added.size();
+        return stats;
+    }
+
+    private static void scanInto(LogStats into, Path file) {
+        try {
+            if (file.getFileName().toString().endsWith(LogRetention.GZ)) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+                    SCANNER.get().scan(ByteBuffer.wrap(in.readAllBytes()), into);
+                }
+            } else {
+                SCANNER.get().scan(file, into);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param p шлях до файлу
+     * @return чи схоже ім'я на лог бою
+     */
+    static boolean isMatchLog(Path p) {
+        return LogRetention.isMatchLog(p.getFileName().toString());
+    }
+
+    /** Ключ файлу у контрольній точці: ім'я без {@code .gz}, щоб стиснення не призводило до повторного підрахунку. */
+    private static String key(Path p) {
+        String n = p.getFileName().toString();
+        return n.endsWith(LogRetention.GZ) ? n.substring(0, n.length() - LogRetention.GZ.length()) : n;
+    }
+
+    private LogStats readCheckpoint(Set<String> done) throws IOException {
+        Path cp = dir.resolve(CHECKPOINT);
+        if (!Files.exists(cp)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cp)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) done.add(in.readUTF());
+            return LogStats.read(in);
+        }
+    }
+
+    private void writeCheckpoint(Set<String> done, LogStats total) throws IOException {
+        Path cp = dir.resolve(CHECKPOINT);
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(done.size());
+            for (String name : done) out.writeUTF(name);
+            total.write(out);
+        }
+        try {
+            Files.move(tmp, cp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, cp, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package myGame.stats;
+
+import myGame.droid.DroidTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Потоковий розбір лог-файлу бою прямо з байтів (UTF-8), без {@code String} на кожен рядок.
+ *
+ * <p>Великі файли відображаються у пам'ять ({@link FileChannel#map}), малі читаються
+ * у буфер потоку, що використовується повторно. Рядки розпізнаються за байтовими
+ * префіксами; рядки повідомлень створюються лише для нових назв дій.</p>
+ *
+ * <p>Екземпляр не потокобезпечний — по одному на потік.</p>
+ */
+final class LogScanner {
+
+    /** Файли, менші за цей розмір, читаються без відображення у пам'ять. */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    private static final byte[] MAP = utf8("Мапа: ");
+    private static final byte[] ROUND = utf8("--- Раунд ");
+    private static final byte[] WINNER = utf8("Переможець: ");
+    private static final byte[] DRAW = utf8("Нічия");
+    private static final byte[] STATE = utf8("Поточний стан:");
+    private static final byte[] TEAM_A = utf8("[Команда A]");
+    private static final byte[] TEAM_B = utf8("[Команда B]");
+    private static final byte[] WINNER_A = utf8("Команда A");
+    private static final byte[] WINNER_B = utf8("Команда B");
+    private static final byte[] HP_EQ = utf8("HP=");
+    private static final byte[] HP_DIFF = utf8(" HP ");
+    private static final byte[] KILLED = utf8("знищено");
+    private static final byte[] ARROW = utf8("→");
+
+    private static final byte[][] NAMES = new byte[LogStats.TYPES][];
+    private static final String[] SHORT_NAMES = new String[LogStats.TYPES];
+    private static final byte[][] MAP_NAMES = new byte[LogStats.MAPS.length][];
+
+    /** Дієслова дій, що не завдають шкоди (переміщення, промахи, лікування, ефекти). */
+    private static final Set<String> NO_DAMAGE = Set.of(
+            "змінює", "переміщується", "пересувається", "міняє", "бурить", "виринає", "несподівано",
+            "намагається", "махає", "замахнувся", "промахнувся", "спробував", "не",
+            "підіймає", "зменшує");
+
+    static {
+        for (int t = 0; t < NAMES.length; t++) {
+            NAMES[t] = utf8(DroidTemplate.of(t).name().trim());
+            SHORT_NAMES[t] = DroidTemplate.of(t).name().trim();
+        }
+        for (int m = 0; m < MAP_NAMES.length; m++) MAP_NAMES[m] = utf8(LogStats.MAPS[m]);
+    }
+
+    private ByteBuffer small = ByteBuffer.allocate(MAP_THRESHOLD);
+
+    /** Інтернування назв дій: ключ — тип і байти дієслова. */
+    private final Map<VerbKey, Verb> verbs = new HashMap<>();
+    private final VerbKey probe = new VerbKey();
+
+    // ---------- Стан поточного файлу ----------
+    private ByteBuffer buf;
+    private int mapIdx;
+    private int maxRound;
+    private int result;           // 0 — невідомо, 1 — A, 2 — B, 3 — нічия
+    private boolean teamHeaders;
+    private int[] typesA = new int[8], typesB = new int[8];
+    private int sizeA, sizeB;
+    private int[] hpA = new int[8], hpB = new int[8];
+    private boolean composed;
+    private boolean inState;
+    private boolean stateTeamB;
+    private int stateIndex;
+    private long roundDamage;
+    private Verb[] roundActions = new Verb[16];
+    private int roundCount;
+
+    /**
+     * Розібрати файл і додати результат до статистики.
+     *
+     * @param file лог-файл бою
+     * @param into статистика потоку
+     * @throws IOException помилка читання
+     */
+    void scan(Path file, LogStats into) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < MAP_THRESHOLD) {
+                small.clear();
+                while (small.hasRemaining() && ch.read(small) >= 0) { }
+                small.flip();
+                buf = small;
+            } else {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            parse(into);
+        } finally {
+            buf = null;
+        }
+    }
+
+    /**
+     * Розібрати лог бою, що вже лежить у буфері (наприклад, зріз сегмента сховища).
+     *
+     * @param log  текст логу в UTF-8 (від position до limit)
+     * @param into статистика потоку
+     */
+    void scan(ByteBuffer log, LogStats into) {
+        buf = log.position() == 0 ? log : log.slice();
+        try {
+            parse(into);
+        } finally {
+            buf = null;
+        }
+    }
+
+    private void parse(LogStats into) {
+        mapIdx = -1;
+        maxRound = 0;
+        result = 0;
+        teamHeaders = false;
+        sizeA = sizeB = 0;
+        composed = false;
+        inState = false;
+        roundDamage = 0;
+        roundCount = 0;
+
+        int n = buf.limit();
+        int i = 0;
+        while (i < n) {
+            int end = i;
+            while (end < n && buf.get(end) != '\n') end++;
+            int lineEnd = end > i && buf.get(end - 1) == '\r' ? end - 1 : end;
+            line(i, lineEnd, into);
+            i = end + 1;
+        }
+        endRound(into);
+        finish(into);
+    }
+
+    private void line(int from, int to, LogStats into) {
+        if (from == to) {
+            if (inState && stateIndex > 0) inState = false;
+            return;
+        }
+        if (startsWith(from, to, ROUND)) {
+            endRound(into);
+            inState = false;
+            int r = parseInt(from + ROUND.length, to);
+            if (r > maxRound) maxRound = r;
+            return;
+        }
+        if (startsWith(from, to, STATE)) {
+            inState = true;
+            stateTeamB = false;
+            stateIndex = 0;
+            return;
+        }
+        if (inState && startsWith(from, to, TEAM_A)) {
+            teamHeaders = true;
+            stateTeamB = false;
+            stateIndex = 0;
+            return;
+        }
+        if (inState && startsWith(from, to, TEAM_B)) {
+            teamHeaders = true;
+            stateTeamB = true;
+            stateIndex = 0;
+            return;
+        }
+        if (mapIdx < 0 && startsWith(from, to, MAP)) {
+            mapName(from + MAP.length, to);
+            return;
+        }
+        if (startsWith(from, to, WINNER)) {
+            winner(from + WINNER.length, to);
+            return;
+        }
+        if (startsWith(from, to, DRAW)) {
+            result = 3;
+            return;
+        }
+        byte c = buf.get(from);
+        if ((c == 'A' || c == 'B') && from + 1 < to && isDigit(buf.get(from + 1))) {
+            diffLine(from, to);
+            return;
+        }
+        int type = droidAt(from, to);
+        if (type < 0) return;
+        int p = from + NAMES[type].length;
+        while (p < to && buf.get(p) == ' ') p++;
+        if (startsWith(p, to, HP_EQ)) stateLine(type, p + HP_EQ.length, to);
+        else actionLine(type, p, to);
+    }
+
+    // ---------- Рядки стану ----------
+
+    private void stateLine(int type, int p, int to) {
+        if (!inState) return;
+        int hp = parseInt(p, to);
+        boolean b = teamHeaders ? stateTeamB : stateIndex == 1;
+        int k = teamHeaders ? stateIndex : 0;
+        stateIndex++;
+        if (!composed) {
+            if (b) { typesB = put(typesB, k, type); hpB = put(hpB, k, hp); sizeB = Math.max(sizeB, k + 1); }
+            else { typesA = put(typesA, k, type); hpA = put(hpA, k, hp); sizeA = Math.max(sizeA, k + 1); }
+            return;
+        }
+        observe(b, k, hp);
+    }
+
+    private void diffLine(int from, int to) {
+        if (!composed) composed = true;
+        boolean b = buf.get(from) == 'B';
+        int k = parseInt(from + 1, to);
+        int colon = indexOf(from, to, (byte) ':');
+        if (colon < 0) return;
+        if (indexOf(colon, to, KILLED) >= 0) {
+            observe(b, k, 0);
+            return;
+        }
+        int hp = indexOf(colon, to, HP_DIFF);
+        if (hp < 0) return;
+        int arrow = indexOf(hp, to, ARROW);
+        if (arrow < 0) return;
+        observe(b, k, parseInt(arrow + ARROW.length, to));
+    }
+
+    private void observe(boolean teamB, int k, int hp) {
+        int[] arr = teamB ? hpB : hpA;
+        if (k >= (teamB ? sizeB : sizeA)) return;
+        if (hp < arr[k]) roundDamage += arr[k] - hp;
+        arr[k] = hp;
+    }
+
+    // ---------- Дії ----------
+
+    private void actionLine(int type, int p, int to) {
+        if (inState || maxRound == 0) return;
+        if (!composed && (sizeA > 0 || sizeB > 0)) composed = true;
+        int e = p;
+        while (e < to) {
+            byte c = buf.get(e);
+            if (c == ' ' || c == '!' || c == ',' || c == '(') break;
+            e++;
+        }
+        if (e == p) return;
+        Verb v = verb(type, p, e);
+        if (roundCount == roundActions.length) roundActions = Arrays.copyOf(roundActions, roundCount * 2);
+        roundActions[roundCount++] = v;
+    }
+
+    private void endRound(LogStats into) {
+        int damaging = 0;
+        for (int i = 0; i < roundCount; i++) if (roundActions[i].damaging) damaging++;
+        long share = damaging == 0 ? 0 : roundDamage / damaging;
+        long rest = damaging == 0 ? 0 : roundDamage % damaging;
+        for (int i = 0; i < roundCount; i++) {
+            Verb v = roundActions[i];
+            long d = 0;
+            if (v.damaging) {
+                d = share + (rest > 0 ? 1 : 0);
+                if (rest > 0) rest--;
+            }
+            into.action(v.key, d);
+            roundActions[i] = null;
+        }
+        roundCount = 0;
+        roundDamage = 0;
+    }
+
+    private Verb verb(int type, int from, int to) {
+        probe.set(type, buf, from, to);
+        Verb v = verbs.get(probe);
+        if (v == null) {
+            VerbKey key = probe.copy();
+            String word = new String(key.bytes, StandardCharsets.UTF_8);
+            v = new Verb(SHORT_NAMES[type] + " " + word, !NO_DAMAGE.contains(word));
+            verbs.put(key, v);
+        }
+        return v;
+    }
+
+    // ---------- Підсумок бою ----------
+
+    private void mapName(int p, int to) {
+        int e = p;
+        while (e < to && buf.get(e) != ' ') e++;
+        int s = e;
+        while (s > p && buf.get(s - 1) != '.') s--;
+        for (int m = 0; m < MAP_NAMES.length; m++) {
+            if (e - s == MAP_NAMES[m].length && startsWith(s, e, MAP_NAMES[m])) {
+                mapIdx = m;
+                return;
+            }
+        }
+    }
+
+    private void winner(int p, int to) {
+        if (startsWith(p, to, WINNER_A)) { result = 1; return; }
+        if (startsWith(p, to, WINNER_B)) { result = 2; return; }
+        int type = droidAt(p, to);
+        if (type < 0) return;
+        if (sizeA > 0 && typesA[0] == type) result = 1;
+        else if (sizeB > 0 && typesB[0] == type) result = 2;
+    }
+
+    private void finish(LogStats into) {
+        into.files++;
+        if (result == 0 || sizeA == 0 || sizeB == 0) return;
+        into.matches++;
+        if (teamHeaders) into.teamMatches++;
+        else into.oneVsOne++;
+        into.rounds += maxRound;
+        if (result == 3) into.draws++;
+        if (mapIdx >= 0) {
+            into.mapMatches[mapIdx]++;
+            if (result == 3) into.mapDraws[mapIdx]++;
+        }
+        record(into, typesA, sizeA, result == 1);
+        record(into, typesB, sizeB, result == 2);
+    }
+
+    private void record(LogStats into, int[] types, int size, boolean won) {
+        for (int k = 0; k < size; k++) {
+            int t = types[k];
+            into.typeGames[t]++;
+            if (won) into.typeWins[t]++;
+            if (mapIdx >= 0) {
+                int cell = t * LogStats.MAPS.length + mapIdx;
+                into.typeMapGames[cell]++;
+                if (won) into.typeMapWins[cell]++;
+            }
+        }
+    }
+
+    // ---------- Байтові примітиви ----------
+
+    private int droidAt(int from, int to) {
+        for (int t = 0; t < NAMES.length; t++) {
+            byte[] name = NAMES[t];
+            int after = from + name.length;
+            if (after <= to && startsWith(from, to, name) && (after == to || buf.get(after) == ' ' || buf.get(after) == ':')) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int k = 0; k < prefix.length; k++) if (buf.get(from + k) != prefix[k]) return false;
+        return true;
+    }
+
+    private int indexOf(int from, int to, byte b) {
+        for (int i = from; i < to; i++) if (buf.get(i) == b) return i;
+        return -1;
+    }
+
+    private int indexOf(int from, int to, byte[] needle) {
+        for (int i = from; i + needle.length <= to; i++) if (startsWith(i, to, needle)) return i;
+        return -1;
+    }
+
+    private int parseInt(int p, int to) {
+        while (p < to && !isDigit(buf.get(p)) && buf.get(p) != '-') p++;
+        boolean neg = p < to && buf.get(p) == '-';
+        if (neg) p++;
+        int v = 0;
+        while (p < to && isDigit(buf.get(p))) v = v * 10 + (buf.get(p++) - '0');
+        return neg ? -v : v;
+    }
+
+    private static boolean isDigit(byte b) { return b >= '0' && b <= '9'; }
+
+    private static int[] put(int[] arr, int k, int v) {
+        if (k >= arr.length) arr = Arrays.copyOf(arr, Math.max(k + 1, arr.length * 2));
+        arr[k] = v;
+        return arr;
+    }
+
+    private static byte[] utf8(String s) { return s.getBytes(StandardCharsets.UTF_8); }
+
+    /** Назва дії та чи завдає вона шкоди. */
+    private static final class Verb {
+        final String key;
+        final boolean damaging;
+
+        Verb(String key, boolean damaging) {
+            this.key = key;
+            this.damaging = damaging;
+        }
+    }
+
+    /** Ключ інтернування дієслова (тип дроїда + байти слова). */
+    private static final class VerbKey {
+        int type;
+        byte[] bytes = new byte[32];
+        int len;
+        int hash;
+
+        void set(int type, ByteBuffer buf, int from, int to) {
+            this.type = type;
+            this.len = to - from;
+            if (bytes.length < len) bytes = new byte[len];
+            int h = type;
+            for (int i = 0; i < len; i++) {
+                bytes[i] = buf.get(from + i);
+                h = 31 * h + bytes[i];
+            }
+            this.hash = h;
+        }
+
+        VerbKey copy() {
+            VerbKey k = new VerbKey();
+            k.type = type;
+            k.len = len;
+            k.hash = hash;
+            k.bytes = Arrays.copyOf(bytes, len);
+            return k;
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof VerbKey)) return false;
+            VerbKey k = (VerbKey) o;
+            return k.type == type && k.len == len && Arrays.equals(bytes, 0, len, k.bytes, 0, len);
+        }
+    }
+}
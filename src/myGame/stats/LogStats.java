@@ -0,0 +1,181 @@
+package myGame.stats;
+
+import myGame.droid.DroidTemplate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Зведена статистика боїв, зібрана з логів.
+ *
+ * <p>Кожен потік збирає власний екземпляр, потім вони зливаються через
+ * {@link #merge(LogStats)} — тож під час сканування немає спільного стану.
+ * Статистику можна зберегти у контрольну точку ({@link #write(DataOutput)})
+ * і продовжити при наступному запуску лише на нових файлах.</p>
+ *
+ * <p>Шкода за дією — оцінка: втрата HP усіма дроїдами за раунд ділиться порівну
+ * між дієями раунду, що завдають шкоди (переміщення, промахи та лікування не враховуються).</p>
+ */
+public final class LogStats {
+
+    /** Назви мап у порядку індексів статистики. */
+    public static final String[] MAPS = {"Cave", "Ocean", "Sky", "Volcano"};
+
+    static final int TYPES = DroidTemplate.CATALOG.size();
+
+    long files;
+    long matches;
+    long oneVsOne;
+    long teamMatches;
+    long draws;
+    long rounds;
+
+    final long[] typeGames = new long[TYPES];
+    final long[] typeWins = new long[TYPES];
+    final long[] mapMatches = new long[MAPS.length];
+    final long[] mapDraws = new long[MAPS.length];
+    final long[] typeMapGames = new long[TYPES * MAPS.length];
+    final long[] typeMapWins = new long[TYPES * MAPS.length];
+
+    /** Дія ("HammerDroid обрушує") → {кількість, шкода}. */
+    final Map<String, long[]> actions = new TreeMap<>();
+
+    /** @return кількість проаналізованих боїв */
+    public long matches() { return matches; }
+
+    /** @return кількість проаналізованих файлів */
+    public long files() { return files; }
+
+    /** @return частка нічиїх (0..1) */
+    public double drawRate() { return matches == 0 ? 0 : (double) draws / matches; }
+
+    /** @return середня кількість раундів у бою */
+    public double averageRounds() { return matches == 0 ? 0 : (double) rounds / matches; }
+
+    /**
+     * @param type індекс типу дроїда 0-7
+     * @return частка перемог дроїдів цього типу (0..1)
+     */
+    public double winRate(int type) { return typeGames[type] == 0 ? 0 : (double) typeWins[type] / typeGames[type]; }
+
+    void action(String key, long damage) {
+        long[] v = actions.computeIfAbsent(key, k -> new long[2]);
+        v[0]++;
+        v[1] += damage;
+    }
+
+    /**
+     * Додати до цієї статистики іншу.
+     *
+     * @param o статистика іншого потоку/запуску
+     * @return ця статистика
+     */
+    public LogStats merge(LogStats o) {
+        files += o.files;
+        matches += o.matches;
+        oneVsOne += o.oneVsOne;
+        teamMatches += o.teamMatches;
+        draws += o.draws;
+        rounds += o.rounds;
+        add(typeGames, o.typeGames);
+        add(typeWins, o.typeWins);
+        add(mapMatches, o.mapMatches);
+        add(mapDraws, o.mapDraws);
+        add(typeMapGames, o.typeMapGames);
+        add(typeMapWins, o.typeMapWins);
+        for (Map.Entry<String, long[]> e : o.actions.entrySet()) {
+            long[] v = actions.computeIfAbsent(e.getKey(), k -> new long[2]);
+            v[0] += e.getValue()[0];
+            v[1] += e.getValue()[1];
+        }
+        return this;
+    }
+
+    private static void add(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) a[i] += b[i];
+    }
+
+    /**
+     * Записати статистику у двійковому вигляді.
+     *
+     * @param out потік
+     * @throws IOException помилка запису
+     */
+    public void write(DataOutput out) throws IOException {
+        for (long v : new long[]{files, matches, oneVsOne, teamMatches, draws, rounds}) out.writeLong(v);
+        for (long[] arr : new long[][]{typeGames, typeWins, mapMatches, mapDraws, typeMapGames, typeMapWins}) {
+            for (long v : arr) out.writeLong(v);
+        }
+        out.writeInt(actions.size());
+        for (Map.Entry<String, long[]> e : actions.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue()[0]);
+            out.writeLong(e.getValue()[1]);
+        }
+    }
+
+    /**
+     * Прочитати статистику, записану {@link #write(DataOutput)}.
+     *
+     * @param in потік
+     * @return статистика
+     * @throws IOException помилка читання
+     */
+    public static LogStats read(DataInput in) throws IOException {
+        LogStats s = new LogStats();
+        s.files = in.readLong();
+        s.matches = in.readLong();
+        s.oneVsOne = in.readLong();
+        s.teamMatches = in.readLong();
+        s.draws = in.readLong();
+        s.rounds = in.readLong();
+        for (long[] arr : new long[][]{s.typeGames, s.typeWins, s.mapMatches, s.mapDraws, s.typeMapGames, s.typeMapWins}) {
+            for (int i = 0; i < arr.length; i++) arr[i] = in.readLong();
+        }
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            String key = in.readUTF();
+            s.actions.put(key, new long[]{in.readLong(), in.readLong()});
+        }
+        return s;
+    }
+
+    /**
+     * Текстовий звіт для консолі.
+     *
+     * @return звіт
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        String nl = System.lineSeparator();
+        sb.append("=== Статистика логів ===").append(nl);
+        sb.append(String.format("Файлів: %d, боїв: %d (1v1: %d, команди: %d)%n", files, matches, oneVsOne, teamMatches));
+        sb.append(String.format("Нічиїх: %.1f%%, середня кількість раундів: %.1f%n", drawRate() * 100, averageRounds()));
+
+        sb.append(nl).append("Перемоги за типом дроїда:").append(nl);
+        for (int t = 0; t < TYPES; t++) {
+            sb.append(String.format("  %-15s %6d боїв  %5.1f%%", DroidTemplate.of(t).name().trim(), typeGames[t], winRate(t) * 100));
+            for (int m = 0; m < MAPS.length; m++) {
+                int k = t * MAPS.length + m;
+                if (typeMapGames[k] == 0) continue;
+                sb.append(String.format("  %s %.0f%%", MAPS[m], 100.0 * typeMapWins[k] / typeMapGames[k]));
+            }
+            sb.append(nl);
+        }
+
+        sb.append(nl).append("Мапи:").append(nl);
+        for (int m = 0; m < MAPS.length; m++) {
+            sb.append(String.format("  %-8s %6d боїв, нічиїх %d%n", MAPS[m], mapMatches[m], mapDraws[m]));
+        }
+
+        sb.append(nl).append("Дії (кількість, шкода, шкода за дію):").append(nl);
+        for (Map.Entry<String, long[]> e : actions.entrySet()) {
+            long[] v = e.getValue();
+            sb.append(String.format("  %-32s %8d %10d %8.1f%n", e.getKey(), v[0], v[1], v[0] == 0 ? 0.0 : (double) v[1] / v[0]));
+        }
+        return sb.toString();
+    }
+}
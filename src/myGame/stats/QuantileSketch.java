@@ -0,0 +1,227 @@
+package myGame.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Потоковий ескіз квантилів (KLL): пам'ять обмежена параметром {@code k} незалежно
+ * від кількості значень, а ескізи різних потоків зливаються через {@link #merge}.
+ *
+ * <p>Значення лежать на рівнях; значення рівня {@code h} важить {@code 2^h}. Коли
+ * рівень переповнюється, він сортується і кожне друге значення (парні чи непарні —
+ * навмання) переходить на рівень вище, решта відкидається. Місткість рівнів
+ * спадає геометрично донизу, тож усього зберігається не більше приблизно {@code 3k} значень,
+ * а похибка рангу — близько {@code 1.7/k} (при k = 200 — менше 1%).</p>
+ *
+ * <p>Найменше і найбільше значення зберігаються точно. NaN ігноруються.
+ * Випадковість детермінована: ті самі значення в тому самому порядку дають той самий ескіз.</p>
+ *
+ * <p>Екземпляр не потокобезпечний — по одному на потік.</p>
+ */
+public final class QuantileSketch {
+
+    /** Параметр точності за замовчуванням. */
+    public static final int DEFAULT_K = 200;
+
+    /** Коефіцієнт спадання місткості рівнів донизу. */
+    private static final double DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    /** Ескіз з точністю {@value #DEFAULT_K}. */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k параметр точності (не менше 8)
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) throw new IllegalArgumentException("k має бути не менше 8: " + k);
+        this.k = k;
+        this.levels = new double[][]{new double[k]};
+        this.sizes = new int[1];
+    }
+
+    /** @return кількість доданих значень */
+    public long count() { return count; }
+
+    /** @return найменше значення або NaN, якщо ескіз порожній */
+    public double min() { return count == 0 ? Double.NaN : min; }
+
+    /** @return найбільше значення або NaN, якщо ескіз порожній */
+    public double max() { return count == 0 ? Double.NaN : max; }
+
+    /**
+     * Додати значення.
+     *
+     * @param v значення
+     */
+    public void add(double v) {
+        if (Double.isNaN(v)) return;
+        push(0, v);
+        count++;
+        if (v < min) min = v;
+        if (v > max) max = v;
+        if (sizes[0] >= capacity(0)) compress();
+    }
+
+    /**
+     * Додати до цього ескізу інший (з будь-яким k; точність — цього ескізу).
+     *
+     * @param o ескіз іншого потоку
+     * @return цей ескіз
+     */
+    public QuantileSketch merge(QuantileSketch o) {
+        if (o.count == 0) return this;
+        for (int h = 0; h < o.levels.length; h++) {
+            for (int i = 0; i < o.sizes[h]; i++) push(h, o.levels[h][i]);
+        }
+        count += o.count;
+        min = Math.min(min, o.min);
+        max = Math.max(max, o.max);
+        compress();
+        return this;
+    }
+
+    /**
+     * Наближений квантиль.
+     *
+     * @param q частка від 0 до 1 (0.5 — медіана, 0.99 — 99-й процентиль)
+     * @return значення, не менше за яке приблизно частка {@code q} значень; NaN для порожнього ескізу
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Частка поза [0, 1]: " + q);
+        if (count == 0) return Double.NaN;
+        if (q == 0) return min;
+        if (q == 1) return max;
+        for (int h = 0; h < levels.length; h++) Arrays.sort(levels[h], 0, sizes[h]);
+        // злиття відсортованих рівнів, доки накопичена вага не досягне рангу
+        double rank = q * count;
+        int[] at = new int[levels.length];
+        long weight = 0;
+        while (true) {
+            int best = -1;
+            for (int h = 0; h < levels.length; h++) {
+                if (at[h] < sizes[h] && (best < 0 || levels[h][at[h]] < levels[best][at[best]])) best = h;
+            }
+            if (best < 0) return max;
+            double v = levels[best][at[best]++];
+            weight += 1L << best;
+            if (weight >= rank) return v;
+        }
+    }
+
+    /** @return скільки значень зберігається зараз */
+    public int retained() {
+        int n = 0;
+        for (int s : sizes) n += s;
+        return n;
+    }
+
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private void ensureLevels(int n) {
+        while (levels.length < n) {
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            levels[levels.length - 1] = new double[2];
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        }
+    }
+
+    private void push(int level, double v) {
+        ensureLevels(level + 1);
+        double[] buf = levels[level];
+        if (sizes[level] == buf.length) levels[level] = buf = Arrays.copyOf(buf, buf.length * 2);
+        buf[sizes[level]++] = v;
+    }
+
+    /** Стискати переповнені рівні, доки загальний обсяг не влізе в сумарну місткість. */
+    private void compress() {
+        while (true) {
+            int total = 0;
+            for (int h = 0; h < levels.length; h++) total += capacity(h);
+            if (retained() < total) return;
+            for (int h = 0; h < levels.length; h++) {
+                if (sizes[h] >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Половину значень рівня (кожне друге після сортування) підняти на рівень вище. */
+    private void compact(int h) {
+        int n = sizes[h];
+        Arrays.sort(levels[h], 0, n);
+        // при непарній кількості найбільше значення лишається на рівні, щоб вага не губилася
+        int pairs = n & ~1;
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        int offset = (int) (random >>> 63);
+        double[] promoted = new double[pairs / 2];
+        for (int i = 0; i < promoted.length; i++) promoted[i] = levels[h][2 * i + offset];
+        double odd = levels[h][n - 1];
+        sizes[h] = 0;
+        if (n != pairs) push(h, odd);
+        for (double v : promoted) push(h + 1, v);
+    }
+
+    /**
+     * Записати ескіз у двійковому вигляді.
+     *
+     * @param out потік
+     * @throws IOException помилка запису
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeLong(random);
+        out.writeInt(levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            out.writeInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) out.writeDouble(levels[h][i]);
+        }
+    }
+
+    /**
+     * Прочитати ескіз, записаний {@link #write(DataOutput)}.
+     *
+     * @param in потік
+     * @return ескіз
+     * @throws IOException помилка читання або пошкоджені дані
+     */
+    public static QuantileSketch read(DataInput in) throws IOException {
+        int k = in.readInt();
+        if (k < 8) throw new IOException("Пошкоджений ескіз квантилів");
+        QuantileSketch s = new QuantileSketch(k);
+        s.count = in.readLong();
+        s.min = in.readDouble();
+        s.max = in.readDouble();
+        s.random = in.readLong();
+        int n = in.readInt();
+        if (n < 1 || n > 64) throw new IOException("Пошкоджений ескіз квантилів");
+        s.ensureLevels(n);
+        for (int h = 0; h < n; h++) {
+            int size = in.readInt();
+            if (size < 0 || size > 64 * k) throw new IOException("Пошкоджений ескіз квантилів");
+            for (int i = 0; i < size; i++) s.push(h, in.readDouble());
+        }
+        return s;
+    }
+}
@@ -0,0 +1,104 @@
+package myGame.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Запис індексу сховища боїв: метадані бою та місце його логу в сегменті.
+ *
+ * @param id      номер бою (унікальний у сховищі)
+ * @param time    час завершення бою (мс від епохи)
+ * @param mode    режим ({@link #ONE_VS_ONE}, {@link #TEAM}, {@link #SIMULTANEOUS})
+ * @param map     назва мапи
+ * @param teamA   імена дроїдів команди A
+ * @param teamB   імена дроїдів команди B
+ * @param segment номер сегмента
+ * @param offset  зміщення запису в сегменті
+ * @param length  довжина запису (разом із заголовком)
+ */
+public record MatchEntry(long id, long time, int mode, String map, List<String> teamA, List<String> teamB,
+                         int segment, long offset, int length) {
+
+    /** Бій 1 на 1. */
+    public static final int ONE_VS_ONE = 0;
+    /** Командний бій (покрокові ходи). */
+    public static final int TEAM = 1;
+    /** Командний бій з одночасними ходами. */
+    public static final int SIMULTANEOUS = 2;
+
+    private static final DateTimeFormatter TS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    /**
+     * Записати метадані (без розташування в сегменті).
+     *
+     * @param out потік
+     * @throws IOException помилка запису
+     */
+    void writeMeta(DataOutput out) throws IOException {
+        writeMeta(out, id, time, mode, map, teamA, teamB);
+    }
+
+    static void writeMeta(DataOutput out, long id, long time, int mode, String map,
+                          List<String> teamA, List<String> teamB) throws IOException {
+        out.writeLong(id);
+        out.writeLong(time);
+        out.writeByte(mode);
+        out.writeUTF(map);
+        out.writeShort(teamA.size());
+        for (String n : teamA) out.writeUTF(n);
+        out.writeShort(teamB.size());
+        for (String n : teamB) out.writeUTF(n);
+    }
+
+    /**
+     * Прочитати метадані, записані {@link #writeMeta(DataOutput)}.
+     *
+     * @param in      потік
+     * @param segment номер сегмента
+     * @param offset  зміщення запису
+     * @param length  довжина запису
+     * @return запис індексу
+     * @throws IOException помилка читання
+     */
+    static MatchEntry readMeta(DataInput in, int segment, long offset, int length) throws IOException {
+        long id = in.readLong();
+        long time = in.readLong();
+        int mode = in.readByte();
+        String map = in.readUTF();
+        String[] a = new String[in.readShort()];
+        for (int i = 0; i < a.length; i++) a[i] = in.readUTF();
+        String[] b = new String[in.readShort()];
+        for (int i = 0; i < b.length; i++) b[i] = in.readUTF();
+        return new MatchEntry(id, time, mode, map, List.of(a), List.of(b), segment, offset, length);
+    }
+
+    /**
+     * @param name ім'я дроїда
+     * @return чи брав дроїд з таким ім'ям участь у бою
+     */
+    public boolean hasDroid(String name) {
+        return teamA.contains(name) || teamB.contains(name);
+    }
+
+    /**
+     * Рядок для меню перегляду логів.
+     *
+     * @return короткий опис бою
+     */
+    @Override
+    public String toString() {
+        String kind = switch (mode) {
+            case ONE_VS_ONE -> "1v1";
+            case TEAM -> "TvT";
+            default -> "TvT sim";
+        };
+        return "#" + id + " " + TS.format(Instant.ofEpochMilli(time)) + " " + kind + " " + map
+                + " " + String.join(",", teamA) + " vs " + String.join(",", teamB);
+    }
+}
@@ -0,0 +1,696 @@
+package myGame.store;
+
+import myGame.log.BlockGzipInputStream;
+import myGame.log.BlockGzipOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Сегментоване сховище логів боїв (лише дозапис).
+ *
+ * <p>Замість окремого файлу на кожен бій логи багатьох боїв дописуються у великі
+ * файли-сегменти {@code segment-00000001.mst}. Формат сегмента:</p>
+ * <pre>
+ * заголовок:  int MAGIC, int номер сегмента
+ * запис:      int RECORD_MAGIC, int довжина даних, int довжина метаданих, int CRC32 даних,
+ *             дані = метадані ({@link MatchEntry}) + текст логу (UTF-8)
+ *             (для RECORD_MAGIC_GZ текст логу стиснений блочним gzip)
+ * ...
+ * футер:      int FOOTER_MAGIC, int кількість, {long зміщення, int довжина, метадані}*
+ * хвіст:      long початок футера, int FOOTER_MAGIC
+ * </pre>
+ *
+ * <p>Коли сегмент перевищує заданий розмір, до нього дописується футер-індекс
+ * і починається новий сегмент. Закритий сегмент відкривається читанням лише
+ * футера. Останній (активний) сегмент без футера при відкритті перечитується
+ * за записами: перший запис з пошкодженим заголовком або CRC вважається
+ * обірваним при збої, і файл обрізається до останнього цілого запису.</p>
+ *
+ * <p>Якщо сховище відкрите зі стисненням, лог кожного бою пишеться блочним gzip
+ * ({@link BlockGzipOutputStream}); {@link #read} і {@link #forEachLog}
+ * розпаковують його прозоро, а записи обох видів можуть бути в одному сегменті.
+ * {@link #retain} видаляє найстаріші закриті сегменти за віком і загальним розміром.</p>
+ *
+ * <p>{@link #append} потокобезпечний. Індекс (за номером, дроїдами, мапою та часом)
+ * тримається в пам'яті.</p>
+ */
+public final class MatchStore implements Closeable {
+
+    /** Розмір сегмента за замовчуванням. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    static final int MAGIC = 0x4D535431;          // "MST1"
+    static final int RECORD_MAGIC = 0x4D524543;   // "MREC"
+    static final int RECORD_MAGIC_GZ = 0x4D52475A; // "MRGZ"
+    static final int FOOTER_MAGIC = 0x4D465452;   // "MFTR"
+    static final int HEADER = 8;
+    static final int RECORD_HEADER = 16;
+    static final int TRAILER = 12;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".mst";
+    private static final String LOCK = "store.lock";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final boolean readOnly;
+    private final boolean compress;
+
+    private final List<MatchEntry> entries = new ArrayList<>();
+    private final Map<Long, MatchEntry> byId = new HashMap<>();
+    private final Map<String, List<MatchEntry>> byDroid = new HashMap<>();
+    private final Map<String, List<MatchEntry>> byMap = new HashMap<>();
+    private final TreeMap<Long, List<MatchEntry>> byTime = new TreeMap<>();
+    private final Map<Integer, Long> segmentEnd = new TreeMap<>();
+    private final Map<Integer, Boolean> sealedSegments = new HashMap<>();
+
+    private long nextId = 1;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private FileChannel active;
+    private int activeSegment;
+    private long activeSize;
+    private final List<MatchEntry> activeEntries = new ArrayList<>();
+    private final Scratch scratch = new Scratch();
+    private final CRC32 crc = new CRC32();
+    private BlockGzipOutputStream gzip;
+
+    private MatchStore(Path dir, long segmentBytes, boolean readOnly, boolean compress) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.readOnly = readOnly;
+        this.compress = compress;
+    }
+
+    /**
+     * Відкрити сховище для запису (створюється, якщо його немає).
+     *
+     * @param dir директорія сховища
+     * @return сховище
+     * @throws IOException помилка доступу або сховище вже відкрите іншим процесом
+     */
+    public static MatchStore open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Відкрити сховище для запису з власним розміром сегмента.
+     *
+     * @param dir          директорія сховища
+     * @param segmentBytes розмір, після якого сегмент закривається
+     * @return сховище
+     * @throws IOException помилка доступу або сховище вже відкрите іншим процесом
+     */
+    public static MatchStore open(Path dir, long segmentBytes) throws IOException {
+        return open(dir, segmentBytes, false);
+    }
+
+    /**
+     * Відкрити сховище для запису.
+     *
+     * @param dir          директорія сховища
+     * @param segmentBytes розмір, після якого сегмент закривається
+     * @param compress     стискати нові логи блочним gzip
+     * @return сховище
+     * @throws IOException помилка доступу або сховище вже відкрите іншим процесом
+     */
+    public static MatchStore open(Path dir, long segmentBytes, boolean compress) throws IOException {
+        Files.createDirectories(dir);
+        MatchStore s = new MatchStore(dir, segmentBytes, false, compress);
+        s.lockChannel = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        s.lock = s.lockChannel.tryLock();
+        if (s.lock == null) {
+            s.lockChannel.close();
+            throw new IOException("Сховище вже відкрите для запису: " + dir);
+        }
+        try {
+            s.load();
+        } catch (IOException | RuntimeException e) {
+            s.close();
+            throw e;
+        }
+        return s;
+    }
+
+    /**
+     * Відкрити сховище лише для читання (знімок на момент відкриття, без відновлення хвоста).
+     *
+     * @param dir директорія сховища
+     * @return сховище (порожнє, якщо директорії немає)
+     * @throws IOException помилка читання
+     */
+    public static MatchStore openReadOnly(Path dir) throws IOException {
+        MatchStore s = new MatchStore(dir, DEFAULT_SEGMENT_BYTES, true, false);
+        if (Files.isDirectory(dir)) s.load();
+        return s;
+    }
+
+    /**
+     * @param dir директорія
+     * @return чи є в директорії сегменти сховища
+     */
+    public static boolean exists(Path dir) {
+        return !segmentNumbers(dir).isEmpty();
+    }
+
+    /** @return директорія сховища */
+    public Path directory() { return dir; }
+
+    // ---------- Відкриття ----------
+
+    private void load() throws IOException {
+        List<Integer> segs = segmentNumbers(dir);
+        for (int k = 0; k < segs.size(); k++) {
+            int seg = segs.get(k);
+            boolean last = k == segs.size() - 1;
+            try (FileChannel ch = FileChannel.open(segmentPath(seg), StandardOpenOption.READ)) {
+                if (!readFooter(seg, ch)) {
+                    long end = recover(seg, ch);
+                    segmentEnd.put(seg, Math.max(end, 0L));
+                    if (!readOnly && !last && end >= HEADER) seal(seg, end);
+                }
+            }
+        }
+        for (MatchEntry e : entries) nextId = Math.max(nextId, e.id() + 1);
+        if (readOnly) return;
+        if (!segs.isEmpty() && !sealed(segs.get(segs.size() - 1))) {
+            int seg = segs.get(segs.size() - 1);
+            activate(seg, recoveredEnd(seg));
+            for (MatchEntry e : entries) if (e.segment() == seg) activeEntries.add(e);
+        } else {
+            activate(segs.isEmpty() ? 1 : segs.get(segs.size() - 1) + 1, -1);
+        }
+    }
+
+    private long recoveredEnd(int seg) {
+        long end = segmentEnd.getOrDefault(seg, -1L);
+        return end >= HEADER ? end : -1;
+    }
+
+    private boolean sealed(int seg) { return sealedSegments.getOrDefault(seg, false); }
+
+    private boolean readFooter(int seg, FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size < HEADER + TRAILER) return false;
+        ByteBuffer tail = ByteBuffer.allocate(TRAILER);
+        ch.read(tail, size - TRAILER);
+        tail.flip();
+        long footerStart = tail.getLong();
+        if (tail.getInt() != FOOTER_MAGIC || footerStart < HEADER || footerStart > size - TRAILER) return false;
+        ByteBuffer footer = ByteBuffer.allocate((int) (size - TRAILER - footerStart));
+        ch.read(footer, footerStart);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+        if (in.readInt() != FOOTER_MAGIC) return false;
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            long offset = in.readLong();
+            int length = in.readInt();
+            index(MatchEntry.readMeta(in, seg, offset, length));
+        }
+        segmentEnd.put(seg, footerStart);
+        sealedSegments.put(seg, true);
+        return true;
+    }
+
+    /**
+     * Перечитати сегмент без футера за записами.
+     *
+     * @return кінець останнього цілого запису
+     */
+    private long recover(int seg, FileChannel ch) throws IOException {
+        long size = ch.size();
+        ByteBuffer head = ByteBuffer.allocate(RECORD_HEADER);
+        if (size < HEADER || ch.read(head, 0) < 4 || head.getInt(0) != MAGIC) return -1;
+        long pos = HEADER;
+        while (pos + RECORD_HEADER <= size) {
+            head.clear();
+            ch.read(head, pos);
+            head.flip();
+            int magic = head.getInt();
+            int len = head.getInt();
+            int metaLen = head.getInt();
+            int sum = head.getInt();
+            if (!isRecord(magic) || len < 0 || metaLen < 0 || metaLen > len || pos + RECORD_HEADER + len > size) break;
+            ByteBuffer data = ByteBuffer.allocate(len);
+            ch.read(data, pos + RECORD_HEADER);
+            crc.reset();
+            crc.update(data.array(), 0, len);
+            if ((int) crc.getValue() != sum) break;
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data.array(), 0, metaLen));
+            index(MatchEntry.readMeta(in, seg, pos, RECORD_HEADER + len));
+            pos += RECORD_HEADER + len;
+        }
+        return pos;
+    }
+
+    private void activate(int seg, long validEnd) throws IOException {
+        activeSegment = seg;
+        active = FileChannel.open(segmentPath(seg), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (validEnd < HEADER) {
+            active.truncate(0);
+            ByteBuffer h = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(seg);
+            h.flip();
+            while (h.hasRemaining()) active.write(h, HEADER - h.remaining());
+            activeSize = HEADER;
+        } else {
+            if (active.size() > validEnd) active.truncate(validEnd);
+            activeSize = validEnd;
+        }
+        segmentEnd.put(seg, activeSize);
+    }
+
+    // ---------- Запис ----------
+
+    /**
+     * Зарезервувати номер бою (щоб показати його в логу ще до завершення бою).
+     *
+     * @return новий номер
+     */
+    public synchronized long reserveId() {
+        return nextId++;
+    }
+
+    /**
+     * Дописати лог завершеного бою.
+     *
+     * @param id    номер бою з {@link #reserveId()}
+     * @param mode  режим ({@link MatchEntry#ONE_VS_ONE} тощо)
+     * @param map   назва мапи
+     * @param teamA імена дроїдів команди A
+     * @param teamB імена дроїдів команди B
+     * @param log   текст логу (UTF-8)
+     * @param off   початок у масиві
+     * @param len   довжина
+     * @return запис індексу
+     * @throws IOException помилка запису
+     */
+    public synchronized MatchEntry append(long id, int mode, String map, List<String> teamA, List<String> teamB,
+                                          byte[] log, int off, int len) throws IOException {
+        if (readOnly) throw new IllegalStateException("Сховище відкрите лише для читання");
+        long time = System.currentTimeMillis();
+        scratch.reset();
+        DataOutputStream meta = new DataOutputStream(scratch);
+        MatchEntry.writeMeta(meta, id, time, mode, map, teamA, teamB);
+        meta.flush();
+        int metaLen = scratch.size();
+        if (compress) {
+            if (gzip == null) gzip = new BlockGzipOutputStream(scratch);
+            gzip.write(log, off, len);
+            gzip.finish();
+        } else {
+            scratch.write(log, off, len);
+        }
+        byte[] data = scratch.array();
+        int dataLen = scratch.size();
+
+        crc.reset();
+        crc.update(data, 0, dataLen);
+        ByteBuffer head = ByteBuffer.allocate(RECORD_HEADER)
+                .putInt(compress ? RECORD_MAGIC_GZ : RECORD_MAGIC).putInt(dataLen).putInt(metaLen).putInt((int) crc.getValue());
+        head.flip();
+        ByteBuffer body = ByteBuffer.wrap(data, 0, dataLen);
+        long pos = activeSize;
+        long p = pos;
+        while (head.hasRemaining()) p += active.write(head, p);
+        while (body.hasRemaining()) p += active.write(body, p);
+
+        MatchEntry e = new MatchEntry(id, time, mode, map, List.copyOf(teamA), List.copyOf(teamB),
+                activeSegment, pos, RECORD_HEADER + dataLen);
+        activeSize = p;
+        segmentEnd.put(activeSegment, activeSize);
+        index(e);
+        activeEntries.add(e);
+        if (id >= nextId) nextId = id + 1;
+
+        if (activeSize >= segmentBytes) {
+            seal(activeSegment, activeSize);
+            activate(activeSegment + 1, -1);
+        }
+        return e;
+    }
+
+    /**
+     * Кінець сховища: активний сегмент і довжина його записів.
+     *
+     * @param segment номер сегмента
+     * @param offset  кінець останнього запису в ньому
+     */
+    public record Position(int segment, long offset) { }
+
+    /** @return поточний кінець сховища (для {@link #truncate}) */
+    public synchronized Position end() {
+        return new Position(activeSegment, activeSize);
+    }
+
+    /**
+     * Відкотити закрите сховище до кінця {@code end} (з {@link #end()}): видалити пізніші
+     * сегменти й обрізати сегмент {@code end} разом з футером, якщо його вже закрили, —
+     * при відкритті він знову стане активним.
+     *
+     * @param dir директорія сховища
+     * @param end новий кінець
+     * @throws IOException помилка файлів або сховище відкрите для запису
+     */
+    public static void truncate(Path dir, Position end) throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        try (FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+             FileLock lock = lockChannel.tryLock()) {
+            if (lock == null) throw new IOException("Сховище вже відкрите для запису: " + dir);
+            List<Integer> segs = segmentNumbers(dir);
+            // з кінця: перерване відкочування лишає сегменти без пропусків
+            for (int k = segs.size() - 1; k >= 0 && segs.get(k) > end.segment(); k--) {
+                Files.deleteIfExists(segmentFile(dir, segs.get(k)));
+            }
+            Path seg = segmentFile(dir, end.segment());
+            if (!Files.exists(seg)) return;
+            try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+                if (ch.size() > end.offset()) ch.truncate(end.offset());
+                ch.force(true);
+            }
+        }
+    }
+
+    /**
+     * Записати на диск усе дописане (fsync активного сегмента).
+     *
+     * @throws IOException помилка запису
+     */
+    public synchronized void sync() throws IOException {
+        if (active != null) active.force(false);
+    }
+
+    /** Дописати футер і закрити сегмент. */
+    private void seal(int seg, long end) throws IOException {
+        List<MatchEntry> list = new ArrayList<>();
+        for (MatchEntry e : seg == activeSegment && active != null ? activeEntries : entries) {
+            if (e.segment() == seg) list.add(e);
+        }
+        scratch.reset();
+        DataOutputStream out = new DataOutputStream(scratch);
+        out.writeInt(FOOTER_MAGIC);
+        out.writeInt(list.size());
+        for (MatchEntry e : list) {
+            out.writeLong(e.offset());
+            out.writeInt(e.length());
+            e.writeMeta(out);
+        }
+        out.writeLong(end);
+        out.writeInt(FOOTER_MAGIC);
+        out.flush();
+        ByteBuffer buf = ByteBuffer.wrap(scratch.toByteArray());
+        boolean own = !(seg == activeSegment && active != null);
+        FileChannel ch = own ? FileChannel.open(segmentPath(seg), StandardOpenOption.WRITE) : active;
+        try {
+            ch.truncate(end);
+            long p = end;
+            while (buf.hasRemaining()) p += ch.write(buf, p);
+            ch.force(false);
+        } finally {
+            if (own) ch.close();
+            else {
+                active.close();
+                active = null;
+                activeEntries.clear();
+            }
+        }
+        sealedSegments.put(seg, true);
+    }
+
+    // ---------- Зберігання ----------
+
+    /**
+     * Видалити найстаріші закриті сегменти: ті, де всі бої старші за {@code maxAgeMillis},
+     * і далі від найстарішого, поки загальний розмір сегментів більший за {@code maxBytes}.
+     * Активний сегмент не видаляється ніколи.
+     *
+     * @param maxBytes     межа загального розміру (≤ 0 — без межі)
+     * @param maxAgeMillis межа віку бою (≤ 0 — без межі)
+     * @return скільки байтів звільнено
+     * @throws IOException помилка видалення
+     */
+    public synchronized long retain(long maxBytes, long maxAgeMillis) throws IOException {
+        if (readOnly) throw new IllegalStateException("Сховище відкрите лише для читання");
+        long cutoff = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        Map<Integer, Long> newest = new HashMap<>();
+        for (MatchEntry e : entries) newest.merge(e.segment(), e.time(), Math::max);
+        long total = 0;
+        Map<Integer, Long> sizes = new TreeMap<>();
+        for (int seg : segmentEnd.keySet()) {
+            long size = Files.size(segmentPath(seg));
+            sizes.put(seg, size);
+            total += size;
+        }
+        long freed = 0;
+        List<Integer> dropped = new ArrayList<>();
+        for (Map.Entry<Integer, Long> s : sizes.entrySet()) {
+            int seg = s.getKey();
+            if (seg == activeSegment || !sealed(seg)) continue;
+            boolean old = newest.getOrDefault(seg, Long.MIN_VALUE) < cutoff;
+            boolean over = maxBytes > 0 && total - freed > maxBytes;
+            if (!old && !over) break;
+            Files.deleteIfExists(segmentPath(seg));
+            freed += s.getValue();
+            dropped.add(seg);
+        }
+        if (dropped.isEmpty()) return 0;
+        for (int seg : dropped) {
+            segmentEnd.remove(seg);
+            sealedSegments.remove(seg);
+        }
+        List<MatchEntry> kept = new ArrayList<>();
+        for (MatchEntry e : entries) if (!dropped.contains(e.segment())) kept.add(e);
+        entries.clear();
+        byId.clear();
+        byDroid.clear();
+        byMap.clear();
+        byTime.clear();
+        for (MatchEntry e : kept) index(e);
+        return freed;
+    }
+
+    // ---------- Читання ----------
+
+    /** @return усі бої в порядку запису */
+    public synchronized List<MatchEntry> entries() { return List.copyOf(entries); }
+
+    /**
+     * @param id номер бою
+     * @return запис індексу або {@code null}
+     */
+    public synchronized MatchEntry entry(long id) { return byId.get(id); }
+
+    /**
+     * @param droidName ім'я дроїда
+     * @return бої, в яких брав участь дроїд
+     */
+    public synchronized List<MatchEntry> byDroid(String droidName) {
+        return List.copyOf(byDroid.getOrDefault(droidName, List.of()));
+    }
+
+    /**
+     * @param map назва мапи
+     * @return бої на цій мапі
+     */
+    public synchronized List<MatchEntry> byMap(String map) {
+        return List.copyOf(byMap.getOrDefault(map, List.of()));
+    }
+
+    /**
+     * @param from початок (мс від епохи, включно)
+     * @param to   кінець (мс від епохи, не включно)
+     * @return бої, що завершились у проміжку
+     */
+    public synchronized List<MatchEntry> between(long from, long to) {
+        List<MatchEntry> out = new ArrayList<>();
+        for (List<MatchEntry> l : byTime.subMap(from, to).values()) out.addAll(l);
+        return out;
+    }
+
+    /** @return номери сегментів */
+    public synchronized List<Integer> segments() { return new ArrayList<>(segmentEnd.keySet()); }
+
+    /**
+     * Прочитати текст логу бою з перевіркою CRC.
+     *
+     * @param e запис індексу
+     * @return лог у UTF-8
+     * @throws IOException помилка читання або пошкоджений запис
+     */
+    public byte[] read(MatchEntry e) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentPath(e.segment()), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(e.length());
+            while (buf.hasRemaining() && ch.read(buf, e.offset() + buf.position()) >= 0) { }
+            buf.flip();
+            if (buf.remaining() < RECORD_HEADER) throw corrupt(e);
+            int magic = buf.getInt();
+            if (!isRecord(magic)) throw corrupt(e);
+            int len = buf.getInt();
+            int metaLen = buf.getInt();
+            int sum = buf.getInt();
+            CRC32 c = new CRC32();
+            c.update(buf.array(), RECORD_HEADER, len);
+            if ((int) c.getValue() != sum) throw corrupt(e);
+            if (magic == RECORD_MAGIC_GZ) {
+                return inflate(ByteBuffer.wrap(buf.array(), RECORD_HEADER + metaLen, len - metaLen));
+            }
+            byte[] log = new byte[len - metaLen];
+            System.arraycopy(buf.array(), RECORD_HEADER + metaLen, log, 0, log.length);
+            return log;
+        }
+    }
+
+    /**
+     * Пройти логи всіх боїв сегмента без копіювання: сегмент відображається у пам'ять,
+     * споживач отримує зріз із текстом логу (стиснені логи розпаковуються в буфер).
+     *
+     * @param segment номер сегмента
+     * @param visit   споживач (запис індексу, лог у UTF-8)
+     * @throws IOException помилка читання
+     */
+    public void forEachLog(int segment, BiConsumer<MatchEntry, ByteBuffer> visit) throws IOException {
+        List<MatchEntry> list = new ArrayList<>();
+        long end;
+        synchronized (this) {
+            for (MatchEntry e : entries) if (e.segment() == segment) list.add(e);
+            end = segmentEnd.getOrDefault(segment, 0L);
+        }
+        if (list.isEmpty() || end <= HEADER) return;
+        try (FileChannel ch = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(end, ch.size()));
+            for (MatchEntry e : list) {
+                int at = (int) e.offset();
+                int len = map.getInt(at + 4);
+                int metaLen = map.getInt(at + 8);
+                ByteBuffer log = map.duplicate();
+                log.limit(at + RECORD_HEADER + len).position(at + RECORD_HEADER + metaLen);
+                if (map.getInt(at) == RECORD_MAGIC_GZ) visit.accept(e, ByteBuffer.wrap(inflate(log)));
+                else visit.accept(e, log.slice());
+            }
+        }
+    }
+
+    static byte[] inflate(ByteBuffer compressed) throws IOException {
+        try (BlockGzipInputStream in = BlockGzipInputStream.of(compressed)) {
+            return in.readAllBytes();
+        }
+    }
+
+    static boolean isRecord(int magic) {
+        return magic == RECORD_MAGIC || magic == RECORD_MAGIC_GZ;
+    }
+
+    private static IOException corrupt(MatchEntry e) {
+        return new IOException("Пошкоджений запис бою #" + e.id() + " у сегменті " + e.segment());
+    }
+
+    /**
+     * Почати стеження з кінця сховища: {@link MatchTail} розбиратиме лише бої,
+     * дописані після цього моменту.
+     *
+     * @return розбирач нових записів
+     */
+    public synchronized MatchTail tail() {
+        List<Integer> segs = segments();
+        if (segs.isEmpty()) return new MatchTail(dir, 1, 0);
+        int last = segs.get(segs.size() - 1);
+        if (sealed(last)) return new MatchTail(dir, last + 1, 0);
+        return new MatchTail(dir, last, Math.max(segmentEnd.getOrDefault(last, 0L), HEADER));
+    }
+
+    // ---------- Індекс ----------
+
+    private void index(MatchEntry e) {
+        entries.add(e);
+        byId.put(e.id(), e);
+        byMap.computeIfAbsent(e.map(), k -> new ArrayList<>()).add(e);
+        byTime.computeIfAbsent(e.time(), k -> new ArrayList<>()).add(e);
+        for (String n : e.teamA()) addDroid(n, e);
+        for (String n : e.teamB()) addDroid(n, e);
+    }
+
+    private void addDroid(String name, MatchEntry e) {
+        List<MatchEntry> l = byDroid.computeIfAbsent(name, k -> new ArrayList<>());
+        if (l.isEmpty() || l.get(l.size() - 1) != e) l.add(e);
+    }
+
+    // ---------- Файли ----------
+
+    private Path segmentPath(int seg) {
+        return segmentFile(dir, seg);
+    }
+
+    static Path segmentFile(Path dir, int seg) {
+        return dir.resolve(String.format("%s%08d%s", PREFIX, seg, SUFFIX));
+    }
+
+    private static List<Integer> segmentNumbers(Path dir) {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> s = Files.list(dir)) {
+            List<Integer> out = s.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                    .map(n -> n.substring(PREFIX.length(), n.length() - SUFFIX.length()))
+                    .filter(n -> !n.isEmpty() && n.chars().allMatch(Character::isDigit))
+                    .map(Integer::parseInt)
+                    .collect(Collectors.toList());
+            Collections.sort(out);
+            return out;
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Закрити сховище. Активний сегмент лишається без футера і при наступному
+     * відкритті продовжується (а не починається новий маленький сегмент).
+     *
+     * @throws IOException помилка запису
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (gzip != null) gzip.close();
+            gzip = null;
+            if (active != null) {
+                active.force(false);
+                active.close();
+                active = null;
+            }
+        } finally {
+            if (lock != null) lock.release();
+            if (lockChannel != null) lockChannel.close();
+            lock = null;
+            lockChannel = null;
+        }
+    }
+
+    /** Буфер запису, доступний без копіювання. */
+    private static final class Scratch extends ByteArrayOutputStream {
+        Scratch() { super(4096); }
+
+        byte[] array() { return buf; }
+    }
+}
@@ -0,0 +1,108 @@
+package myGame.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Розбір записів, що дописуються у сегменти сховища, прямо з потоку нових байтів
+ * (для стеження за боями з іншого процесу, без перечитування сегментів).
+ *
+ * <p>Байти подаються у {@link #feed} у порядку файлу; незавершений запис чекає
+ * на решту. Коли у сегменті з'являється футер, {@link #feed} повертає {@code true}:
+ * далі слід читати {@link #file()} (наступний сегмент) з позиції 0.</p>
+ */
+public final class MatchTail {
+
+    private final Path dir;
+    private final CRC32 crc = new CRC32();
+    private int segment;
+    /** Зміщення у сегменті першого байта в {@link #pending}. */
+    private long base;
+    /** Записи до цього зміщення вже видані (після обрізання файлу вони не повторюються). */
+    private long emitted;
+    private byte[] pending = new byte[4096];
+    private int length;
+
+    MatchTail(Path dir, int segment, long position) {
+        this.dir = dir;
+        this.segment = segment;
+        this.base = position;
+        this.emitted = position;
+    }
+
+    /** @return файл сегмента, за яким треба стежити */
+    public Path file() { return MatchStore.segmentFile(dir, segment); }
+
+    /** @return позиція у {@link #file()}, з якої чекаються наступні байти */
+    public long position() { return base + length; }
+
+    /**
+     * Подати нові байти сегмента.
+     *
+     * @param position зміщення першого байта у сегменті
+     * @param bytes    байти (від position до limit)
+     * @param visit    отримувач кожного цілого бою (запис індексу, лог у UTF-8)
+     * @return {@code true}, якщо сегмент закрито і треба перейти до {@link #file()}
+     * @throws IOException пошкоджений запис
+     */
+    public boolean feed(long position, ByteBuffer bytes, BiConsumer<MatchEntry, byte[]> visit) throws IOException {
+        if (position != position()) {
+            // файл обрізано при відновленні або перестворено — почати з цього місця
+            base = position;
+            length = 0;
+        }
+        int n = bytes.remaining();
+        if (length + n > pending.length) pending = Arrays.copyOf(pending, Math.max(length + n, pending.length * 2));
+        bytes.get(pending, length, n);
+        length += n;
+
+        int at = 0;
+        if (base < MatchStore.HEADER) {
+            int skip = (int) Math.min(MatchStore.HEADER - base, length);
+            at = skip;
+        }
+        while (length - at >= 4) {
+            ByteBuffer b = ByteBuffer.wrap(pending, at, length - at);
+            int magic = b.getInt();
+            if (magic == MatchStore.FOOTER_MAGIC) {
+                segment++;
+                base = 0;
+                emitted = 0;
+                length = 0;
+                return true;
+            }
+            if (!MatchStore.isRecord(magic)) throw new IOException("Невідомий запис у " + file() + " на зміщенні " + (base + at));
+            if (length - at < MatchStore.RECORD_HEADER) break;
+            int len = b.getInt();
+            int metaLen = b.getInt();
+            int sum = b.getInt();
+            int total = MatchStore.RECORD_HEADER + len;
+            if (length - at < total) break;
+            long offset = base + at;
+            int data = at + MatchStore.RECORD_HEADER;
+            crc.reset();
+            crc.update(pending, data, len);
+            if ((int) crc.getValue() != sum) throw new IOException("Пошкоджений запис у " + file() + " на зміщенні " + offset);
+            if (offset >= emitted) {
+                MatchEntry e = MatchEntry.readMeta(new DataInputStream(
+                        new ByteArrayInputStream(pending, data, metaLen)), segment, offset, total);
+                byte[] log = magic == MatchStore.RECORD_MAGIC_GZ
+                        ? MatchStore.inflate(ByteBuffer.wrap(pending, data + metaLen, len - metaLen))
+                        : Arrays.copyOfRange(pending, data + metaLen, data + len);
+                visit.accept(e, log);
+                emitted = offset + total;
+            }
+            at += total;
+        }
+        System.arraycopy(pending, at, pending, 0, length - at);
+        base += at;
+        length -= at;
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package myGame;
+
+/**
+ * Запуск усіх тестів:
+ * <pre>
+ * javac -encoding UTF-8 -d out $(find src test -name '*.java')
+ * java -cp out myGame.AllTests
+ * </pre>
+ * Перший невдалий випадок зупиняє запуск з ненульовим кодом виходу.
+ */
+public final class AllTests {
+
+    private AllTests() {}
+
+    public static void main(String[] args) throws Exception {
+        myGame.effect.TimingWheelTest.main(args);
+        myGame.sim.SimultaneousResolverTest.main(args);
+        myGame.sim.SegmentedArenaTest.main(args);
+        myGame.sim.TargetingIndexTest.main(args);
+        myGame.droid.WoundedIndexTest.main(args);
+        myGame.store.MatchStoreTest.main(args);
+        myGame.log.BlockGzipTest.main(args);
+        myGame.history.MatchHistoryTest.main(args);
+        myGame.columnar.ColumnarTest.main(args);
+        myGame.stats.SketchTest.main(args);
+        myGame.mode.ConsoleSinkTest.main(args);
+        myGame.rating.RatingLadderTest.main(args);
+        myGame.batch.OutcomeCacheTest.main(args);
+        myGame.batch.BatchCheckpointTest.main(args);
+        myGame.search.LogIndexTest.main(args);
+        myGame.log.LogFollowerTest.main(args);
+    }
+}
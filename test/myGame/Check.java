@@ -0,0 +1,95 @@
+package myGame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Перевірки для тестів без зовнішніх бібліотек.
+ *
+ * <p>Кожен тестовий клас має {@code main}, що запускає свої випадки через
+ * {@link #run(String, Body)}; невдала перевірка кидає {@link AssertionError}.
+ * Усі тести разом запускає {@link AllTests}.</p>
+ */
+public final class Check {
+
+    /** Тіло тестового випадку. */
+    @FunctionalInterface
+    public interface Body {
+        void run() throws Exception;
+    }
+
+    private Check() {}
+
+    /**
+     * Запустити випадок і повідомити про успіх.
+     *
+     * @param name назва випадку
+     * @param body тіло
+     * @throws Exception помилка випадку (тест не пройдено)
+     */
+    public static void run(String name, Body body) throws Exception {
+        body.run();
+        System.out.println("ok   " + name);
+    }
+
+    public static void isTrue(boolean condition, String what) {
+        if (!condition) throw new AssertionError(what);
+    }
+
+    public static void equal(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": очікувалось <" + expected + ">, отримано <" + actual + ">");
+        }
+    }
+
+    public static void equal(long expected, long actual, String what) {
+        if (expected != actual) throw new AssertionError(what + ": очікувалось " + expected + ", отримано " + actual);
+    }
+
+    public static void near(double expected, double actual, double tolerance, String what) {
+        if (!(Math.abs(expected - actual) <= tolerance)) {
+            throw new AssertionError(what + ": очікувалось " + expected + " ± " + tolerance + ", отримано " + actual);
+        }
+    }
+
+    /**
+     * Перевірити, що тіло кидає виняток вказаного типу.
+     *
+     * @param type очікуваний тип
+     * @param body тіло
+     * @param what опис перевірки
+     * @return кинутий виняток
+     */
+    public static <T extends Throwable> T fails(Class<T> type, Body body, String what) {
+        try {
+            body.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) return type.cast(e);
+            throw new AssertionError(what + ": очікувався " + type.getSimpleName() + ", кинуто " + e, e);
+        }
+        throw new AssertionError(what + ": очікувався " + type.getSimpleName());
+    }
+
+    /**
+     * @param prefix префікс імені
+     * @return нова тимчасова директорія (видаляється при завершенні JVM)
+     * @throws IOException помилка створення
+     */
+    public static Path tempDir(String prefix) throws IOException {
+        Path dir = Files.createTempDirectory(prefix);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(dir)));
+        return dir;
+    }
+
+    private static void delete(Path dir) {
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ignored) {
+            // тимчасові файли тесту
+        }
+    }
+}
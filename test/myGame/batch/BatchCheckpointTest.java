@@ -0,0 +1,111 @@
+package myGame.batch;
+
+import myGame.Check;
+import myGame.droid.DroidTemplate;
+import myGame.history.MatchHistory;
+import myGame.rating.RatingLadder;
+import myGame.sim.ActionPolicy;
+import myGame.store.MatchEntry;
+import myGame.store.MatchStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Продовження пакета з контрольної точки: бої, записані після точки, не дублюються. */
+public final class BatchCheckpointTest {
+
+    private static final int MATCHES = 300;
+    /** Малі сегменти: після точки сховище встигає закрити сегмент і почати наступні. */
+    private static final long SEGMENT = 16 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        Check.run("після переривання сховище, історія і рейтинги такі ж, як без нього", BatchCheckpointTest::resume);
+        Check.run("контрольна точка зберігає курсори, кінці і знімок рейтингів", BatchCheckpointTest::roundTrip);
+    }
+
+    private static List<BatchRunner.Job> jobs() {
+        MatchConfig cfg = new MatchConfig(MatchEntry.ONE_VS_ONE, List.of(DroidTemplate.HAMMER),
+                List.of(DroidTemplate.STORM), "Cave", ActionPolicy.GREEDY, 30);
+        return List.of(new BatchRunner.Job("test", cfg, 7, MATCHES, "ann", "bob"));
+    }
+
+    private static void resume() throws Exception {
+        List<BatchRunner.Job> jobs = jobs();
+        Path clean = Check.tempDir("batch-clean");
+        byte[] expected = play(clean, jobs, BatchCheckpoint.fresh(jobs));
+
+        // Перший запуск не видаляє точку: на диску остання з записаних під час пакета (як мінімум
+        // початкова), а всі бої вже в сховищі, історії й рейтингах — як після переривання перед наступною.
+        Path out = Check.tempDir("batch-resume");
+        Path file = out.resolve("batch.ckpt");
+        play(out, jobs, BatchCheckpoint.open(file, jobs, false));
+        BatchCheckpoint stale = BatchCheckpoint.open(file, jobs, false);
+        try (MatchStore store = MatchStore.open(out.resolve("store"), SEGMENT, true)) {
+            Check.equal(MATCHES, store.entries().size(), "боїв у сховищі до продовження");
+            Check.isTrue(store.segments().size() > 2, "бої займають кілька сегментів");
+        }
+
+        stale.rollback(out.resolve("store"), out.resolve("history"));
+        byte[] resumed = play(out, jobs, stale);
+        try (MatchStore store = MatchStore.open(out.resolve("store"), SEGMENT, true);
+             MatchHistory history = MatchHistory.open(out.resolve("history"))) {
+            Check.equal(MATCHES, store.entries().size(), "боїв у сховищі");
+            Check.equal(MATCHES, store.byDroid("HammerDroid").size(), "індекс сховища");
+            Check.equal(MATCHES, history.size(), "боїв в історії");
+            Check.equal(MATCHES, history.byDroid("HammerDroid", 0, Long.MAX_VALUE, 10 * MATCHES).size(),
+                    "індекс історії");
+        }
+        RatingLadder a = RatingLadder.restore(clean, expected, clean);
+        RatingLadder b = RatingLadder.restore(out, resumed, out);
+        for (RatingLadder.Kind kind : RatingLadder.Kind.values()) {
+            List<RatingLadder.Rating> ea = a.leaderboard(kind, 100);
+            List<RatingLadder.Rating> eb = b.leaderboard(kind, 100);
+            Check.equal(ea.size(), eb.size(), "рейтингів " + kind);
+            for (int i = 0; i < ea.size(); i++) {
+                RatingLadder.Rating x = ea.get(i), y = eb.get(i);
+                Check.equal(List.of(x.name(), x.wins(), x.losses(), x.draws()),
+                        List.of(y.name(), y.wins(), y.losses(), y.draws()), "результати " + x.name());
+                // знімок у точці зберігає рейтинги з точністю float
+                Check.near(x.rating(), y.rating(), 0.01, "рейтинг " + x.name());
+            }
+        }
+    }
+
+    /** Зіграти пакет з точки {@code progress} і повернути знімок рейтингів. */
+    private static byte[] play(Path out, List<BatchRunner.Job> jobs, BatchCheckpoint progress) throws Exception {
+        RatingLadder ratings = progress.ratings(out);
+        try (MatchStore store = MatchStore.open(out.resolve("store"), SEGMENT, true);
+             MatchHistory history = MatchHistory.open(out.resolve("history"))) {
+            List<MatchupSummary> s = BatchRunner.execute(jobs, 1, store, ratings, history, null, progress);
+            Check.equal(MATCHES, s.get(0).matches(), "боїв у підсумку");
+        }
+        return ratings.image();
+    }
+
+    private static void roundTrip() throws Exception {
+        List<BatchRunner.Job> jobs = jobs();
+        Path file = Check.tempDir("batch-checkpoint").resolve("batch.ckpt");
+        BatchCheckpoint cp = BatchCheckpoint.open(file, jobs, true);
+        cp.next[0] = 123;
+        cp.columnsLength = 4567;
+        cp.storeEnd = new MatchStore.Position(3, 890);
+        cp.historyLength = 1011;
+        cp.ratings = new byte[] {1, 2, 3};
+        cp.save();
+        BatchCheckpoint back = BatchCheckpoint.open(file, jobs, true);
+        Check.equal(123, back.next[0], "курсор");
+        Check.equal(4567, back.columnsLength, "кінець файлу стовпців");
+        Check.equal(cp.storeEnd, back.storeEnd, "кінець сховища");
+        Check.equal(1011, back.historyLength, "довжина історії");
+        Check.equal(List.of((byte) 1, (byte) 2, (byte) 3),
+                List.of(back.ratings[0], back.ratings[1], back.ratings[2]), "знімок рейтингів");
+        Check.equal(3, back.ratings.length, "довжина знімка");
+
+        BatchCheckpoint empty = BatchCheckpoint.open(file.resolveSibling("other.ckpt"), jobs, true);
+        empty.save();
+        BatchCheckpoint none = BatchCheckpoint.open(file.resolveSibling("other.ckpt"), jobs, true);
+        Check.isTrue(none.storeEnd == null && none.ratings == null && none.historyLength == -1, "без кінців");
+        Check.fails(IOException.class, () -> BatchCheckpoint.open(file, jobs, false), "інший пакет");
+    }
+}
@@ -0,0 +1,125 @@
+package myGame.batch;
+
+import myGame.Check;
+import myGame.droid.DroidTemplate;
+import myGame.sim.ActionPolicy;
+import myGame.store.MatchEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Кеш результатів: розширення через покоління, відновлення за вказівником, повторне використання блоків. */
+public final class OutcomeCacheTest {
+
+    private static final MatchConfig CFG = new MatchConfig(MatchEntry.ONE_VS_ONE,
+            List.of(DroidTemplate.HAMMER), List.of(DroidTemplate.STORM), "Cave", ActionPolicy.GREEDY, 20);
+    /** Більше за 70% початкової таблиці — гарантує хоча б одне розширення. */
+    private static final int SEEDS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        Check.run("розширення лишає одне покоління, а повторне відкриття бачить усі записи", OutcomeCacheTest::growAndReopen);
+        Check.run("файл недобудованого покоління видаляється при відкритті", OutcomeCacheTest::strayGeneration);
+        Check.run("чужий або пошкоджений вказівник дає IOException", OutcomeCacheTest::badPointer);
+        Check.run("зіграні блоки беруться з кешу", OutcomeCacheTest::blocks);
+    }
+
+    private static void growAndReopen() throws Exception {
+        Path file = Check.tempDir("outcomes").resolve("outcomes.bin");
+        List<Integer> winners = new ArrayList<>();
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            for (int s = 0; s < SEEDS; s++) winners.add(c.winner(CFG, s));
+            Check.equal(SEEDS, c.size(), "записів після розширення");
+            Check.equal(SEEDS, c.simulated(), "зіграно боїв");
+        }
+        Check.equal(List.of("outcomes.bin", "outcomes.bin.1"), names(file), "лишився вказівник і одне покоління");
+        Check.equal(1L, pointer(file), "вказівник на нове покоління");
+
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            Check.equal(SEEDS, c.size(), "записів після повторного відкриття");
+            List<Integer> again = new ArrayList<>();
+            for (int s = 0; s < SEEDS; s++) again.add(c.winner(CFG, s));
+            Check.equal(winners, again, "ті самі переможці");
+            Check.equal(0, c.simulated(), "нічого не зіграно вдруге");
+            Check.equal(SEEDS, c.reused(), "усе взято з кешу");
+        }
+    }
+
+    private static void strayGeneration() throws Exception {
+        Path file = Check.tempDir("outcomes").resolve("outcomes.bin");
+        int first;
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            first = c.winner(CFG, 7);
+        }
+        // аварія посеред розширення: наступне покоління записане, вказівник ще старий
+        Files.write(file.resolveSibling("outcomes.bin.1"), new byte[4096]);
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            Check.equal(first, c.winner(CFG, 7), "запис старого покоління на місці");
+            Check.equal(0, c.simulated(), "бій не зіграно вдруге");
+        }
+        Check.equal(List.of("outcomes.bin", "outcomes.bin.0"), names(file), "недобудоване покоління видалено");
+    }
+
+    private static void badPointer() throws Exception {
+        Path dir = Check.tempDir("outcomes");
+        Path foreign = dir.resolve("foreign.bin");
+        Files.write(foreign, "not a cache".getBytes());
+        Check.fails(IOException.class, () -> OutcomeCache.open(foreign), "чужий файл");
+        Check.equal("not a cache", Files.readString(foreign), "чужий файл не змінено");
+
+        Path file = dir.resolve("outcomes.bin");
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            c.winner(CFG, 1);
+        }
+        byte[] ptr = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(ptr, ptr.length - 1));
+        Check.fails(IOException.class, () -> OutcomeCache.open(file), "обрізаний вказівник");
+        Files.write(file, ByteBuffer.allocate(ptr.length).put(ptr, 0, 4).putLong(-5).array());
+        Check.fails(IOException.class, () -> OutcomeCache.open(file), "від'ємне покоління");
+        Files.write(file, Arrays.copyOf(ptr, ptr.length + 1));
+        Check.fails(IOException.class, () -> OutcomeCache.open(file), "зайвий байт у вказівнику");
+        Files.write(file, ptr);
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            Check.equal(1, c.size(), "відновлений вказівник знову читається");
+        }
+    }
+
+    private static void blocks() throws Exception {
+        Path file = Check.tempDir("outcomes").resolve("outcomes.bin");
+        OutcomeCache.Outcomes all;
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            OutcomeCache.Outcomes head = c.outcomes(CFG, 42, 0, 2);
+            Check.equal(2L * OutcomeCache.BLOCK, head.n(), "боїв у двох блоках");
+            Check.equal(2L * OutcomeCache.BLOCK, Arrays.stream(head.rounds()).sum(), "гістограма покриває всі бої");
+            all = c.outcomes(CFG, 42, 5L * OutcomeCache.BLOCK);
+            Check.equal(5L * OutcomeCache.BLOCK, c.simulated(), "перші два блоки не зіграно вдруге");
+            Check.equal(2L * OutcomeCache.BLOCK, c.reused(), "узято з кешу");
+            Check.equal(5, c.size(), "блоків у файлі");
+            Check.equal(5L * OutcomeCache.BLOCK, all.n(), "матчів усього");
+        }
+        try (OutcomeCache c = OutcomeCache.open(file)) {
+            OutcomeCache.Outcomes back = c.outcomes(CFG, 42, 5L * OutcomeCache.BLOCK);
+            Check.equal(List.of(all.winsA(), all.winsB(), all.draws()),
+                    List.of(back.winsA(), back.winsB(), back.draws()), "той самий розподіл");
+            Check.isTrue(Arrays.equals(all.rounds(), back.rounds()), "та сама гістограма");
+            Check.equal(0, c.simulated(), "після відкриття нічого не зіграно");
+            c.outcomes(CFG, 43, 1);
+            Check.equal(OutcomeCache.BLOCK, c.simulated(), "інше зерно — інший ключ");
+        }
+    }
+
+    private static List<String> names(Path file) throws IOException {
+        try (Stream<Path> s = Files.list(file.getParent())) {
+            return s.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static long pointer(Path file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getLong(4);
+    }
+}
@@ -0,0 +1,265 @@
+package myGame.columnar;
+
+import myGame.Check;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/** Формат стовпців версії 2: кодування стовпців, межі значень, відновлення і пропуск груп у запитах. */
+public final class ColumnarTest {
+
+    private static final List<Column> COLUMNS = List.of(
+            Column.ofString("map"), Column.ofInt("rounds"), Column.ofLong("seed"), Column.ofDouble("hp"));
+    private static final String[] MAPS = {"Cave", "Ocean", "Sky", "Volcano"};
+
+    public static void main(String[] args) throws Exception {
+        Check.run("кожне кодування стовпця розкодовується без втрат", ColumnarTest::codecRoundTrip);
+        Check.run("межі значень стовпця", ColumnarTest::stats);
+        Check.run("файл стовпців читається після дописування в кілька сесій", ColumnarTest::fileRoundTrip);
+        Check.run("обрізана і пошкоджена група відкидаються при продовженні", ColumnarTest::recovery);
+        Check.run("файл версії 1 продовжується у версії 1", ColumnarTest::versionOne);
+        Check.run("запит пропускає групи за межами значень і рахує як перебір", ColumnarTest::querySkipsGroups);
+    }
+
+    private static void codecRoundTrip() throws Exception {
+        SplittableRandom rnd = new SplittableRandom(1);
+        int n = 1000;
+        int[] wide = new int[n], few = new int[n];
+        long[] extremes = new long[n];
+        double[] plain = new double[n], dict = new double[n];
+        String[] unique = new String[n], repeated = new String[n];
+        for (int i = 0; i < n; i++) {
+            wide[i] = rnd.nextInt();
+            few[i] = rnd.nextInt(5) * 1000 - 2000;
+            extremes[i] = switch (i % 4) {
+                case 0 -> Long.MIN_VALUE;
+                case 1 -> Long.MAX_VALUE;
+                case 2 -> 0;
+                default -> rnd.nextLong();
+            };
+            plain[i] = i % 50 == 0 ? Double.NaN : rnd.nextDouble() * 1e6 - 5e5;
+            dict[i] = new double[] {0.5, -0.0, Double.POSITIVE_INFINITY, 3}[i % 4];
+            unique[i] = "дроїд-" + i + "-" + Long.toHexString(rnd.nextLong());
+            repeated[i] = MAPS[rnd.nextInt(MAPS.length)];
+        }
+        roundTrip(ColumnType.INT, wide, ColumnCodec.DELTA);
+        roundTrip(ColumnType.INT, few, ColumnCodec.DICT);
+        roundTrip(ColumnType.INT, sequence(n), ColumnCodec.DELTA);
+        roundTrip(ColumnType.LONG, extremes, -1);
+        roundTrip(ColumnType.DOUBLE, plain, ColumnCodec.PLAIN);
+        roundTrip(ColumnType.DOUBLE, dict, ColumnCodec.DICT);
+        roundTrip(ColumnType.STRING, unique, ColumnCodec.PLAIN);
+        roundTrip(ColumnType.STRING, repeated, ColumnCodec.DICT);
+        roundTrip(ColumnType.STRING, new String[] {"", "ї"}, ColumnCodec.PLAIN);
+
+        ColumnCodec.Chunk seq = ColumnCodec.encode(ColumnType.INT, sequence(n), n);
+        Check.isTrue((seq.encoding() & ColumnCodec.DEFLATED) != 0 || seq.data().length < n * 2,
+                "рівномірна послідовність займає менше 2 байтів на значення");
+        ColumnCodec.Chunk small = ColumnCodec.encode(ColumnType.INT, new int[] {7}, 1);
+        Check.equal(0, small.encoding() & ColumnCodec.DEFLATED, "короткий стовпець не стискається");
+    }
+
+    private static void roundTrip(ColumnType type, Object values, int encoding) throws IOException {
+        int rows = Array.getLength(values);
+        ColumnCodec.Chunk c = ColumnCodec.encode(type, values, rows);
+        if (encoding >= 0) Check.equal(encoding, c.encoding() & ~ColumnCodec.DEFLATED, "кодування " + type);
+        Object back = ColumnCodec.decode(type, c.encoding(), c.data(), c.rawLength(), rows);
+        boolean same = switch (type) {
+            case INT -> Arrays.equals((int[]) values, (int[]) back);
+            case LONG -> Arrays.equals((long[]) values, (long[]) back);
+            // порівняння бітів: NaN і -0.0 теж мають зберегтися
+            case DOUBLE -> Arrays.equals(bits((double[]) values), bits((double[]) back));
+            case STRING -> Arrays.equals((String[]) values, (String[]) back);
+        };
+        Check.isTrue(same, "значення " + type + " після розкодування");
+    }
+
+    private static void stats() throws Exception {
+        ColumnStats ints = ColumnCodec.encode(ColumnType.INT, new int[] {5, -3, 9, 0}, 4).stats();
+        Check.equal(new ColumnStats(-3L, 9L), ints, "межі INT");
+        ColumnStats doubles = ColumnCodec.encode(ColumnType.DOUBLE, new double[] {Double.NaN, 2.5, -1}, 3).stats();
+        Check.equal(new ColumnStats(-1.0, 2.5), doubles, "межі DOUBLE без NaN");
+        Check.equal(ColumnStats.UNKNOWN, ColumnCodec.encode(ColumnType.DOUBLE, new double[] {Double.NaN}, 1).stats(),
+                "лише NaN");
+        ColumnStats strings = ColumnCodec.encode(ColumnType.STRING, new String[] {"Sky", "Cave", "Ocean"}, 3).stats();
+        Check.equal(new ColumnStats("Cave", "Sky"), strings, "межі STRING");
+        Check.equal(ColumnStats.UNKNOWN, ColumnCodec.encode(ColumnType.STRING, new String[] {"x".repeat(300)}, 1).stats(),
+                "задовгий рядок");
+        Check.isTrue(!ints.mayContain(10L) && ints.mayContain(9L) && !ints.mayOverlap(null, -4L), "mayOverlap для цілих");
+        Check.isTrue(ints.mayContain(2.5) && !ints.mayContain(9.5), "ціле проти дійсного значення");
+        Check.isTrue(!strings.mayContain("Volcano") && strings.mayOverlap("Ice", null), "mayOverlap для рядків");
+    }
+
+    private static void fileRoundTrip() throws Exception {
+        Path file = Check.tempDir("columnar").resolve("results.col");
+        List<List<Object>> rows = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(2);
+        for (int session = 0; session < 3; session++) {
+            try (ColumnWriter w = ColumnWriter.open(file, COLUMNS, 64)) {
+                for (int i = 0; i < 150; i++) rows.add(write(w, rows.size(), rnd));
+            }
+        }
+        Check.equal(rows, readAll(file), "рядки файлу");
+        try (ColumnReader r = ColumnReader.open(file)) {
+            Check.equal(ColumnReader.VERSION, r.version(), "версія");
+            Check.equal(COLUMNS, r.columns(), "стовпці");
+        }
+        Check.fails(IOException.class, () -> ColumnWriter.open(file, List.of(Column.ofInt("rounds")), 64).close(),
+                "інші стовпці");
+    }
+
+    private static void recovery() throws Exception {
+        Path file = Check.tempDir("columnar").resolve("results.col");
+        List<List<Object>> rows = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(3);
+        long[] ends = new long[4];
+        try (ColumnWriter w = ColumnWriter.open(file, COLUMNS, 50)) {
+            for (int g = 0; g < ends.length; g++) {
+                for (int i = 0; i < 50; i++) rows.add(write(w, rows.size(), rnd));
+                ends[g] = w.length();
+            }
+        }
+        // обрізати останню групу посередині
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(ends[3] - 7);
+        }
+        Check.equal(rows.subList(0, 150), readAll(file), "рядки до обрізаної групи");
+        // зіпсувати останній байт блоку стовпців третьої групи
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, ends[2] - 1);
+            b.put(0, (byte) (b.get(0) ^ 0x3C)).rewind();
+            ch.write(b, ends[2] - 1);
+        }
+        try (ColumnReader r = ColumnReader.open(file)) {
+            r.next();
+            r.next();
+            ColumnReader.RowGroup broken = r.next();
+            Check.isTrue(!broken.verify(), "CRC блоку не збігається");
+            Check.fails(IOException.class, () -> broken.doubles(3), "читання пошкодженого стовпця");
+        }
+        try (ColumnWriter w = ColumnWriter.open(file, COLUMNS, 50)) {
+            Check.equal(ends[1], w.length(), "продовження після останньої цілої групи");
+            rows.subList(100, rows.size()).clear();
+            for (int i = 0; i < 30; i++) rows.add(write(w, rows.size(), rnd));
+        }
+        Check.equal(rows, readAll(file), "рядки після продовження");
+    }
+
+    private static void versionOne() throws Exception {
+        Path file = Check.tempDir("columnar").resolve("old.col");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(ColumnReader.MAGIC);
+            out.writeInt(1);
+            out.writeInt(COLUMNS.size());
+            for (Column c : COLUMNS) {
+                out.writeUTF(c.name());
+                out.writeByte(c.type().ordinal());
+            }
+        }
+        List<List<Object>> rows = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(4);
+        for (int session = 0; session < 2; session++) {
+            try (ColumnWriter w = ColumnWriter.open(file, COLUMNS, 40)) {
+                for (int i = 0; i < 70; i++) rows.add(write(w, rows.size(), rnd));
+            }
+        }
+        try (ColumnReader r = ColumnReader.open(file)) {
+            Check.equal(1, r.version(), "версія лишилася 1");
+            Check.equal(ColumnStats.UNKNOWN, r.next().stats(1), "без меж значень");
+        }
+        Check.equal(rows, readAll(file), "рядки файлу версії 1");
+        ColumnQuery.Result res = ColumnQuery.on(file).where("rounds", "0", "9").run();
+        Check.equal(0, res.groupsSkipped(), "без меж групи не пропускаються");
+        Check.equal(10, res.matched(), "рядки за фільтром");
+    }
+
+    private static void querySkipsGroups() throws Exception {
+        Path file = Check.tempDir("columnar").resolve("results.col");
+        List<List<Object>> rows = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(5);
+        try (ColumnWriter w = ColumnWriter.open(file, COLUMNS, 100)) {
+            for (int i = 0; i < 1000; i++) rows.add(write(w, i, rnd));
+        }
+        // rounds = номер рядка: кожна група покриває свою сотню
+        ColumnQuery.Result res = ColumnQuery.on(file).where("rounds", "250", "420").where("map", "Cave", "Sky")
+                .groupBy("map").aggregate("hp", "rounds").run();
+        Check.equal(3, res.groupsRead(), "прочитано груп");
+        Check.equal(7, res.groupsSkipped(), "пропущено груп");
+
+        Map<String, double[]> expected = new TreeMap<>();
+        for (List<Object> r : rows) {
+            int rounds = (Integer) r.get(1);
+            String map = (String) r.get(0);
+            if (rounds < 250 || rounds > 420 || map.compareTo("Cave") < 0 || map.compareTo("Sky") > 0) continue;
+            double[] s = expected.computeIfAbsent(map, k -> new double[] {0, 0, Double.MAX_VALUE, -Double.MAX_VALUE});
+            s[0]++;
+            s[1] += (Double) r.get(3);
+            s[2] = Math.min(s[2], rounds);
+            s[3] = Math.max(s[3], rounds);
+        }
+        Check.equal(expected.keySet().stream().toList(),
+                res.rows().stream().map(ColumnQuery.Row::key).toList(), "значення групування");
+        long matched = 0;
+        for (ColumnQuery.Row row : res.rows()) {
+            double[] s = expected.get(row.key());
+            Check.equal((long) s[0], row.count(), "рядків " + row.key());
+            Check.near(s[1] / s[0], row.avg(0), 1e-9, "середнє hp " + row.key());
+            Check.near(s[2], row.min()[1], 0, "мін. rounds " + row.key());
+            Check.near(s[3], row.max()[1], 0, "макс. rounds " + row.key());
+            matched += row.count();
+        }
+        Check.equal(matched, res.matched(), "усього рядків");
+
+        ColumnQuery.Result none = ColumnQuery.on(file).where("seed", "-1", "-1").run();
+        Check.equal(10, none.groupsSkipped(), "seed поза межами всіх груп");
+        Check.equal(0, none.matched(), "нічого не знайдено");
+    }
+
+    /** Записати рядок: rounds — номер рядка, решта випадкова. */
+    private static List<Object> write(ColumnWriter w, int i, SplittableRandom rnd) throws IOException {
+        String map = MAPS[rnd.nextInt(MAPS.length)];
+        long seed = rnd.nextLong() >>> 1;
+        double hp = rnd.nextInt(10_000) / 4.0;
+        w.set(0, map).set(1, i).set(2, seed).set(3, hp).endRow();
+        return List.of(map, i, seed, hp);
+    }
+
+    private static List<List<Object>> readAll(Path file) throws IOException {
+        List<List<Object>> out = new ArrayList<>();
+        try (ColumnReader r = ColumnReader.open(file)) {
+            for (ColumnReader.RowGroup g; (g = r.next()) != null; ) {
+                String[] maps = g.strings(0);
+                int[] rounds = g.ints(1);
+                long[] seeds = g.longs(2);
+                double[] hp = g.doubles(3);
+                for (int i = 0; i < g.rows(); i++) out.add(List.of(maps[i], rounds[i], seeds[i], hp[i]));
+            }
+        }
+        return out;
+    }
+
+    private static int[] sequence(int n) {
+        int[] v = new int[n];
+        for (int i = 0; i < n; i++) v[i] = 1_000_000 + 3 * i;
+        return v;
+    }
+
+    private static long[] bits(double[] v) {
+        long[] out = new long[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = Double.doubleToRawLongBits(v[i]);
+        return out;
+    }
+}
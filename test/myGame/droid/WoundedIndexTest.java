@@ -0,0 +1,104 @@
+package myGame.droid;
+
+import myGame.Check;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static myGame.droid.DroidFactory.DroidConstruct.yourDroid;
+
+/** Порядок цілей лікування у {@link WoundedIndex} проти прямого перебору команди. */
+public final class WoundedIndexTest {
+
+    public static void main(String[] args) throws Exception {
+        for (HealPolicy p : HealPolicy.values()) {
+            Check.run("ціль " + p + " збігається з перебором після випадкових змін", () -> againstBruteForce(p));
+        }
+        Check.run("здорові й загиблі дроїди не є цілями", WoundedIndexTest::onlyWoundedAndAlive);
+        Check.run("при рівному пріоритеті першим лікується раніше доданий", WoundedIndexTest::ties);
+    }
+
+    private static void againstBruteForce(HealPolicy policy) {
+        SplittableRandom rnd = new SplittableRandom(policy.ordinal() + 1);
+        WoundedIndex index = new WoundedIndex(policy);
+        List<BaseDroid> team = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            BaseDroid d = yourDroid(DroidTemplate.of(i % DroidTemplate.CATALOG.size()));
+            d.setCurrentPosition(rnd.nextInt(0, 100));
+            index.add(d);
+            team.add(d);
+        }
+        for (int step = 0; step < 5_000; step++) {
+            BaseDroid d = team.get(rnd.nextInt(team.size()));
+            switch (rnd.nextInt(5)) {
+                case 0, 1 -> d.receiveDamage(rnd.nextInt(1, 40));
+                case 2 -> d.setCurrentHp(d.getMaxHp());
+                case 3 -> d.setCurrentPosition(rnd.nextInt(0, 100));
+                default -> d.setCurrentHp(rnd.nextInt(0, d.getMaxHp() + 1));
+            }
+            int healer = rnd.nextInt(0, 100);
+            BaseDroid expected = expected(policy, team, healer);
+            BaseDroid actual = index.best(healer);
+            if (policy == HealPolicy.NEAREST) {
+                Check.equal(expected == null, actual == null, "чи є ціль");
+                if (expected != null) {
+                    Check.equal(expected.getCurrentPosition(), actual.getCurrentPosition(), "позиція найближчої цілі");
+                }
+            } else {
+                Check.isTrue(expected == actual, "ціль " + policy + " на кроці " + step);
+            }
+            Check.equal(wounded(team), index.size(), "кількість поранених");
+        }
+    }
+
+    private static void onlyWoundedAndAlive() {
+        WoundedIndex index = new WoundedIndex(HealPolicy.MOST_MISSING);
+        BaseDroid healthy = yourDroid(DroidTemplate.HAMMER);
+        BaseDroid dead = yourDroid(DroidTemplate.BOER);
+        index.add(healthy);
+        index.add(dead);
+        dead.setCurrentHp(0);
+        Check.isTrue(index.best(0) == null, "немає цілей");
+        healthy.receiveDamage(10);
+        Check.isTrue(index.best(0) == healthy, "поранений стає ціллю");
+        index.remove(healthy);
+        Check.isTrue(index.best(0) == null, "вилучений дроїд не є ціллю");
+    }
+
+    private static void ties() {
+        WoundedIndex index = new WoundedIndex(HealPolicy.MOST_MISSING);
+        BaseDroid first = yourDroid(DroidTemplate.STORM);
+        BaseDroid second = yourDroid(DroidTemplate.STORM);
+        index.add(first);
+        index.add(second);
+        second.receiveDamage(20);
+        first.receiveDamage(20);
+        Check.isTrue(index.best(0) == first, "раніше доданий при рівній втраті HP");
+    }
+
+    /** Очікувана ціль: найкраща за політикою, при рівності — раніше додана (лівіша для NEAREST). */
+    private static BaseDroid expected(HealPolicy policy, List<BaseDroid> team, int healer) {
+        BaseDroid best = null;
+        for (BaseDroid d : team) {
+            if (!d.isAlive() || d.getCurrentHp() >= d.getMaxHp()) continue;
+            if (best == null || better(policy, d, best, healer)) best = d;
+        }
+        return best;
+    }
+
+    private static boolean better(HealPolicy policy, BaseDroid d, BaseDroid best, int healer) {
+        if (policy == HealPolicy.NEAREST) {
+            int dd = Math.abs(d.getCurrentPosition() - healer);
+            int db = Math.abs(best.getCurrentPosition() - healer);
+            return dd < db || dd == db && d.getCurrentPosition() < best.getCurrentPosition();
+        }
+        return policy.compare(d, best) < 0;
+    }
+
+    private static int wounded(List<BaseDroid> team) {
+        int n = 0;
+        for (BaseDroid d : team) if (d.isAlive() && d.getCurrentHp() < d.getMaxHp()) n++;
+        return n;
+    }
+}
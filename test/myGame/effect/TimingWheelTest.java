@@ -0,0 +1,131 @@
+package myGame.effect;
+
+import myGame.Check;
+import myGame.droid.BaseDroid;
+import myGame.droid.DroidTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static myGame.droid.DroidFactory.DroidConstruct.yourDroid;
+
+/** Колесо таймерів і закінчення ефектів у {@link EffectEngine}. */
+public final class TimingWheelTest {
+
+    private static final class Tick extends TimingWheel.Timer {
+        final long due;
+        long fired = -1;
+
+        Tick(long due) { this.due = due; }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Check.run("таймери спрацьовують точно на своєму тіку на всіх рівнях", TimingWheelTest::firesOnDeadline);
+        Check.run("таймери одного тіку спрацьовують разом, раніші — раніше", TimingWheelTest::expiryOrder);
+        Check.run("скасований таймер не спрацьовує", TimingWheelTest::cancel);
+        Check.run("випадкові таймери збігаються з прямим підрахунком", TimingWheelTest::randomAgainstReference);
+        Check.run("ефект знімається після своєї тривалості", TimingWheelTest::effectExpires);
+        Check.run("оновлення ефекту переносить закінчення", TimingWheelTest::refreshMovesExpiry);
+    }
+
+    private static void firesOnDeadline() {
+        long[] delays = {1, 2, 63, 64, 65, 127, 4095, 4096, 4097, 262_143, 262_144, 262_145, (1L << 24) - 1, 1L << 24,
+                (1L << 24) + 7};
+        TimingWheel<Tick> wheel = new TimingWheel<>();
+        List<Tick> ticks = new ArrayList<>();
+        for (long d : delays) {
+            Tick t = new Tick(d);
+            wheel.schedule(t, d);
+            ticks.add(t);
+        }
+        long last = delays[delays.length - 1];
+        while (wheel.now() < last) wheel.advance(t -> t.fired = wheel.now());
+        for (Tick t : ticks) Check.equal(t.due, t.fired, "тік спрацювання таймера з затримкою " + t.due);
+        Check.equal(0, wheel.size(), "таймерів лишилось");
+    }
+
+    private static void expiryOrder() {
+        TimingWheel<Tick> wheel = new TimingWheel<>();
+        long[] delays = {5, 3, 3, 70, 5, 1};
+        for (long d : delays) wheel.schedule(new Tick(d), d);
+        List<Long> order = new ArrayList<>();
+        for (int i = 0; i < 80; i++) wheel.advance(t -> order.add(wheel.now()));
+        Check.equal(List.of(1L, 3L, 3L, 5L, 5L, 70L), order, "порядок спрацювання");
+    }
+
+    private static void cancel() {
+        TimingWheel<Tick> wheel = new TimingWheel<>();
+        Tick keep = new Tick(100);
+        Tick drop = new Tick(100);
+        wheel.schedule(keep, 100);
+        wheel.schedule(drop, 100);
+        wheel.cancel(drop);
+        wheel.cancel(drop);
+        Check.equal(1, wheel.size(), "таймерів після скасування");
+        for (int i = 0; i < 100; i++) wheel.advance(t -> t.fired = wheel.now());
+        Check.equal(100, keep.fired, "залишений таймер");
+        Check.equal(-1, drop.fired, "скасований таймер");
+    }
+
+    private static void randomAgainstReference() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        TimingWheel<Tick> wheel = new TimingWheel<>();
+        List<Tick> live = new ArrayList<>();
+        List<Tick> all = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int op = rnd.nextInt(10);
+            if (op < 4) {
+                long d = rnd.nextInt(4) == 0 ? 1 + rnd.nextLong(300_000) : 1 + rnd.nextInt(200);
+                Tick t = new Tick(wheel.now() + d);
+                wheel.schedule(t, d);
+                live.add(t);
+                all.add(t);
+            } else if (op == 4 && !live.isEmpty()) {
+                Tick t = live.remove(rnd.nextInt(live.size()));
+                wheel.cancel(t);
+                t.fired = -2;
+            } else {
+                wheel.advance(t -> {
+                    t.fired = wheel.now();
+                    live.remove(t);
+                });
+            }
+            Check.equal(live.size(), wheel.size(), "кількість запланованих таймерів");
+        }
+        while (!live.isEmpty()) wheel.advance(t -> {
+            t.fired = wheel.now();
+            live.remove(t);
+        });
+        for (Tick t : all) if (t.fired != -2) Check.equal(t.due, t.fired, "тік спрацювання");
+    }
+
+    private static void effectExpires() {
+        BaseDroid d = yourDroid(DroidTemplate.FLASH);
+        EffectEngine engine = new EffectEngine();
+        int range = d.getRange();
+        engine.apply(d, StatusEffect.add("boost", StatType.RANGE, 3, 2, StackingRule.STACK));
+        Check.equal(range + 3, d.getRange(), "дальність з ефектом");
+        Check.equal(0, engine.tick(), "знято після першого раунду");
+        Check.equal(range + 3, d.getRange(), "дальність після першого раунду");
+        Check.equal(1, engine.tick(), "знято після другого раунду");
+        Check.equal(range, d.getRange(), "дальність після закінчення");
+        Check.isTrue(!engine.has(d, "boost"), "ефект ще активний");
+    }
+
+    private static void refreshMovesExpiry() {
+        BaseDroid d = yourDroid(DroidTemplate.SHADOW);
+        EffectEngine engine = new EffectEngine();
+        int range = d.getRange();
+        engine.apply(d, StatusEffect.BLINDNESS);
+        engine.tick();
+        engine.tick();
+        engine.apply(d, StatusEffect.BLINDNESS);
+        for (int i = 0; i < StatusEffect.BLINDNESS_ROUNDS - 1; i++) {
+            engine.tick();
+            Check.equal(1, d.getRange(), "дальність під затемненням");
+        }
+        engine.tick();
+        Check.equal(range, d.getRange(), "дальність після оновленого затемнення");
+    }
+}
@@ -0,0 +1,183 @@
+package myGame.history;
+
+import myGame.Check;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/** Прогони індексу {@link MatchHistory}: злиття, зайві вхідні прогони, обрізаний хвіст даних. */
+public final class MatchHistoryTest {
+
+    private static final String[] MAPS = {"Cave", "Ocean", "Sky"};
+    private static final String[] DROIDS = {"FlashDroid", "StormDroid", "HammerDroid", "BoerDroid", "FireFlash", "Medic"};
+
+    public static void main(String[] args) throws Exception {
+        Check.run("злиття прогонів у відсортований прогін без повторів", MatchHistoryTest::mergeRuns);
+        Check.run("запити після кожного скидання і злиття прогонів", MatchHistoryTest::sessions);
+        Check.run("вхідні прогони, що лишилися після злиття, видаляються при відкритті", MatchHistoryTest::leftoverInputs);
+        Check.run("обрізаний запис у кінці даних відкидається", MatchHistoryTest::tornTail);
+    }
+
+    private static void mergeRuns() throws Exception {
+        Path dir = Check.tempDir("history");
+        List<IndexRun> runs = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            long[] e = new long[3 * 50];
+            for (int i = 0; i < 50; i++) {
+                e[3 * i] = i / 10;
+                e[3 * i + 1] = i % 10 * 4 + r % 2;
+                e[3 * i + 2] = r % 2;
+            }
+            runs.add(IndexRun.write(dir, r, e, 50, 100L * r, r));
+        }
+        Check.isTrue(!IndexRun.isMerged(runs.get(0).file), "звичайний прогін не позначено");
+        IndexRun merged = IndexRun.merge(dir, 4, runs);
+        Check.isTrue(IndexRun.isMerged(merged.file), "злитий прогін позначено");
+        Check.equal(100, merged.count, "записи без повторів");
+        Check.equal(300, merged.covered, "покрите зміщення");
+        Check.equal(3, merged.maxId, "найбільший номер");
+        for (int i = 1; i < merged.count; i++) {
+            int c = Long.compare(merged.key(i - 1), merged.key(i));
+            if (c == 0) c = Long.compare(merged.time(i - 1), merged.time(i));
+            if (c == 0) c = Long.compare(merged.offset(i - 1), merged.offset(i));
+            Check.isTrue(c < 0, "порядок запису " + i);
+        }
+        Check.equal(20, merged.upperBound(0, Long.MAX_VALUE), "межа першого ключа");
+        Check.equal(20 + 7, merged.upperBound(1, 12), "межа за часом");
+    }
+
+    private static void sessions() throws Exception {
+        Path dir = Check.tempDir("history");
+        List<MatchRecord> all = new ArrayList<>();
+        for (int s = 0; s < 11; s++) {
+            try (MatchHistory h = MatchHistory.open(dir)) {
+                Check.equal(all.size(), h.size(), "бої після відкриття");
+                for (int i = 0; i < 40; i++) {
+                    MatchRecord r = record(h.reserveId());
+                    h.append(r);
+                    all.add(r);
+                }
+                check(h, all);
+            }
+            // кожне закриття скидає прогін; дев'ятий зливається з попередніми
+            int expected = s < 8 ? s + 1 : s - 7;
+            Check.equal(expected, runFiles(dir).size(), "прогонів після сесії " + s);
+        }
+        try (MatchHistory h = MatchHistory.open(dir)) {
+            check(h, all);
+        }
+    }
+
+    private static void leftoverInputs() throws Exception {
+        Path dir = Check.tempDir("history");
+        List<MatchRecord> all = new ArrayList<>();
+        List<byte[]> inputs = new ArrayList<>();
+        for (int s = 0; s < 9; s++) {
+            try (MatchHistory h = MatchHistory.open(dir)) {
+                for (int i = 0; i < 20; i++) {
+                    MatchRecord r = record(h.reserveId());
+                    h.append(r);
+                    all.add(r);
+                }
+            }
+            if (s < 8) inputs.add(Files.readAllBytes(dir.resolve(IndexRun.name(s))));
+        }
+        Check.equal(List.of(dir.resolve(IndexRun.name(9))), runFiles(dir), "лишився злитий прогін");
+        // як на Windows: вхідні прогони не видалилися, поки були відображені
+        for (int s = 0; s < inputs.size(); s++) Files.write(dir.resolve(IndexRun.name(s)), inputs.get(s));
+        try (MatchHistory h = MatchHistory.open(dir)) {
+            Check.equal(List.of(dir.resolve(IndexRun.name(9))), runFiles(dir), "зайві прогони видалено");
+            check(h, all);
+        }
+    }
+
+    private static void tornTail() throws Exception {
+        Path dir = Check.tempDir("history");
+        Path crashed = Check.tempDir("history");
+        List<MatchRecord> all = new ArrayList<>();
+        try (MatchHistory h = MatchHistory.open(dir)) {
+            for (int i = 0; i < 30; i++) {
+                MatchRecord r = record(h.reserveId());
+                h.append(r);
+                all.add(r);
+            }
+        }
+        try (MatchHistory h = MatchHistory.open(dir)) {
+            for (int i = 0; i < 5; i++) {
+                MatchRecord r = record(h.reserveId());
+                h.append(r);
+                all.add(r);
+            }
+            h.sync();
+            // знімок директорії, як після збою посеред дописування останнього бою (без закриття)
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path p : ds) Files.copy(p, crashed.resolve(p.getFileName()));
+            }
+        }
+        all.remove(all.size() - 1);
+        try (FileChannel ch = FileChannel.open(crashed.resolve("matches.dat"), StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+        try (MatchHistory h = MatchHistory.open(crashed)) {
+            Check.equal(34, h.size(), "бої після відновлення");
+            check(h, all);
+            MatchRecord r = record(h.reserveId());
+            Check.equal(35, r.id(), "номер після відновлення");
+            h.append(r);
+            all.add(r);
+            check(h, all);
+        }
+        try (MatchHistory h = MatchHistory.open(crashed)) {
+            check(h, all);
+        }
+    }
+
+    /** Порівняти запити з перебором усіх записів. */
+    private static void check(MatchHistory h, List<MatchRecord> all) throws IOException {
+        for (String d : DROIDS) {
+            same(expected(all, r -> r.has(d), 0, Long.MAX_VALUE, 25), h.byDroid(d, 0, Long.MAX_VALUE, 25), "дроїд " + d);
+        }
+        for (String m : MAPS) {
+            same(expected(all, r -> r.map().equals(m), 0, Long.MAX_VALUE, 1000), h.byMap(m, 0, Long.MAX_VALUE, 1000), "мапа " + m);
+        }
+        same(expected(all, r -> true, 1_050, 1_120, 30), h.byDate(1_050, 1_120, 30), "проміжок часу");
+    }
+
+    private static List<Long> expected(List<MatchRecord> all, Predicate<MatchRecord> p, long from, long to, int limit) {
+        List<Long> out = new ArrayList<>();
+        for (int i = all.size() - 1; i >= 0 && out.size() < limit; i--) {
+            MatchRecord r = all.get(i);
+            if (p.test(r) && r.time() >= from && r.time() <= to) out.add(r.id());
+        }
+        return out;
+    }
+
+    private static void same(List<Long> expected, List<MatchRecord> actual, String what) {
+        List<Long> ids = new ArrayList<>();
+        for (MatchRecord r : actual) ids.add(r.id());
+        Check.equal(expected, ids, what);
+    }
+
+    private static MatchRecord record(long id) {
+        String a = DROIDS[(int) (id % DROIDS.length)];
+        String b = DROIDS[(int) (id * 7 / 3 % DROIDS.length)];
+        return new MatchRecord(id, 1_000 + id, 1, MAPS[(int) (id % MAPS.length)], id * 31, (int) (id % 3),
+                (int) (id % 20), List.of(a), List.of(b, a), new int[]{(int) id}, new int[]{1, 2});
+    }
+
+    private static List<Path> runFiles(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "idx-*.run")) {
+            for (Path p : ds) out.add(p);
+        }
+        out.sort(null);
+        return out;
+    }
+}
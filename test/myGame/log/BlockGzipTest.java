@@ -0,0 +1,145 @@
+package myGame.log;
+
+import myGame.Check;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+
+/** Формат блочного gzip: сумісність зі звичайним gzip, перехід за віртуальним і нестисненим зміщенням. */
+public final class BlockGzipTest {
+
+    public static void main(String[] args) throws Exception {
+        Check.run("блочний gzip читає звичайний GZIPInputStream", BlockGzipTest::plainGzip);
+        Check.run("seek за віртуальним зміщенням рядка", BlockGzipTest::seekVirtual);
+        Check.run("seek за зміщенням у нестисненому тексті", BlockGzipTest::seekUncompressed);
+        Check.run("кілька логів через finish() в одному потоці", BlockGzipTest::finishRestarts);
+        Check.run("пошкоджений блок і зміщення поза файлом дають IOException", BlockGzipTest::corrupt);
+    }
+
+    /** Текст із нерівних рядків (кілька блоків) і віртуальні зміщення початку кожного рядка. */
+    private record Log(byte[] text, List<Integer> starts, List<Long> offsets, byte[] gz) { }
+
+    private static Log write(long seed) throws IOException {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        List<Integer> starts = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        try (BlockGzipOutputStream out = new BlockGzipOutputStream(gz)) {
+            for (int i = 0; i < 8_000; i++) {
+                starts.add(text.size());
+                offsets.add(out.virtualOffset());
+                StringBuilder line = new StringBuilder("Раунд ").append(i).append(": ");
+                int words = rnd.nextInt(1, 12);
+                for (int w = 0; w < words; w++) line.append(Long.toHexString(rnd.nextLong())).append(' ');
+                byte[] b = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+                out.write(b);
+                text.write(b);
+                if (i % 1000 == 999) out.flush();
+            }
+        }
+        return new Log(text.toByteArray(), starts, offsets, gz.toByteArray());
+    }
+
+    private static void plainGzip() throws Exception {
+        Log log = write(1);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(log.gz()))) {
+            Check.isTrue(Arrays.equals(log.text(), in.readAllBytes()), "розпакований текст");
+        }
+        Check.isTrue(log.gz().length < log.text().length, "текст стиснено");
+        Check.isTrue(log.offsets().get(log.offsets().size() - 1) >>> 16 > 0, "кілька блоків");
+    }
+
+    private static void seekVirtual() throws Exception {
+        Log log = write(2);
+        Path file = Check.tempDir("bgzf").resolve("log.gz");
+        Files.write(file, log.gz());
+        SplittableRandom rnd = new SplittableRandom(3);
+        try (BlockGzipInputStream in = BlockGzipInputStream.open(file)) {
+            for (int k = 0; k < 500; k++) {
+                int line = rnd.nextInt(log.starts().size());
+                in.seek(log.offsets().get(line));
+                int from = log.starts().get(line);
+                int to = Math.min(log.text().length, from + 200);
+                Check.isTrue(Arrays.equals(Arrays.copyOfRange(log.text(), from, to), in.readNBytes(to - from)),
+                        "текст після seek до рядка " + line);
+                long at = in.tell();
+                byte[] next = in.readNBytes(50);
+                in.seek(at);
+                Check.isTrue(Arrays.equals(next, in.readNBytes(50)), "seek(tell())");
+            }
+            in.seek(0);
+            Check.isTrue(Arrays.equals(log.text(), in.readAllBytes()), "повний текст після seek(0)");
+            Check.equal(-1, in.read(), "кінець файлу");
+        }
+    }
+
+    private static void seekUncompressed() throws Exception {
+        Log log = write(4);
+        SplittableRandom rnd = new SplittableRandom(5);
+        try (BlockGzipInputStream in = BlockGzipInputStream.of(ByteBuffer.wrap(log.gz()))) {
+            for (int k = 0; k < 300; k++) {
+                int from = rnd.nextInt(log.text().length);
+                int to = Math.min(log.text().length, from + 300);
+                in.seekUncompressed(from);
+                Check.isTrue(Arrays.equals(Arrays.copyOfRange(log.text(), from, to), in.readNBytes(to - from)),
+                        "текст з нестисненого зміщення " + from);
+            }
+            in.seekUncompressed(log.text().length);
+            Check.equal(-1, in.read(), "зміщення в кінці тексту");
+            Check.fails(IOException.class, () -> in.seekUncompressed(log.text().length + 1L), "зміщення поза текстом");
+        }
+    }
+
+    private static void finishRestarts() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        List<byte[]> texts = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        BlockGzipOutputStream out = new BlockGzipOutputStream(sink);
+        for (int i = 0; i < 5; i++) {
+            byte[] text = ("Бій " + i + '\n').repeat(i * 4000 + 1).getBytes(StandardCharsets.UTF_8);
+            int start = sink.size();
+            Check.equal(0, out.virtualOffset(), "новий файл починається з нуля");
+            out.write(text);
+            out.finish();
+            texts.add(text);
+            ranges.add(new int[] {start, sink.size()});
+        }
+        out.close();
+        byte[] all = sink.toByteArray();
+        for (int i = 0; i < texts.size(); i++) {
+            int[] r = ranges.get(i);
+            try (BlockGzipInputStream in = BlockGzipInputStream.of(ByteBuffer.wrap(all, r[0], r[1] - r[0]))) {
+                Check.isTrue(Arrays.equals(texts.get(i), in.readAllBytes()), "лог " + i);
+            }
+        }
+    }
+
+    private static void corrupt() throws Exception {
+        Log log = write(6);
+        byte[] gz = log.gz().clone();
+        long second = log.offsets().stream().filter(o -> o >>> 16 > 0).findFirst().orElseThrow() >>> 16;
+        gz[(int) second + 40] ^= 0x5A;
+        try (BlockGzipInputStream in = BlockGzipInputStream.of(ByteBuffer.wrap(gz))) {
+            in.seek(0);
+            in.readNBytes(100);
+            Check.fails(IOException.class, () -> in.seek(second << 16), "пошкоджений другий блок");
+        }
+        try (BlockGzipInputStream in = BlockGzipInputStream.of(ByteBuffer.wrap(log.gz()))) {
+            Check.fails(IOException.class, () -> in.seek((long) log.gz().length << 16 | 5), "зміщення поза файлом");
+            Check.fails(IOException.class, () -> in.seek(3L << 16), "адреса не на межі блоку");
+        }
+        Check.fails(IOException.class, () -> BlockGzipInputStream.of(ByteBuffer.wrap(new byte[64])).read(),
+                "не блочний gzip");
+    }
+}
@@ -0,0 +1,159 @@
+package myGame.log;
+
+import myGame.Check;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Стеження за файлами: дописані байти по порядку, обрізання і перестворення, нові файли, відписка. */
+public final class LogFollowerTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        Check.run("дописані байти приходять по порядку і з правильними позиціями", LogFollowerTest::appends);
+        Check.run("обрізаний і перестворений файл читається з початку", LogFollowerTest::truncateAndRecreate);
+        Check.run("нові файли за фільтром читаються з початку, відписаний файл — ні", LogFollowerTest::newAndUnfollow);
+    }
+
+    private static void appends() throws Exception {
+        Path dir = Check.tempDir("follow");
+        Path early = dir.resolve("early.log");
+        Path tail = dir.resolve("tail.log");
+        Files.writeString(tail, "старе\n");
+        Collector c = new Collector();
+        try (LogFollower f = new LogFollower()) {
+            f.follow(early, 0, c);
+            c.from(tail, Files.size(tail));
+            f.follow(tail, Files.size(tail), c);
+            StringBuilder expected = new StringBuilder();
+            // більше за буфер стежника — одна зміна приходить кількома викликами
+            String big = "x".repeat(100_000) + "\n";
+            for (int i = 0; i < 20; i++) {
+                String chunk = i == 10 ? big : "--- Раунд " + i + " ---\n";
+                append(early, chunk);
+                append(tail, chunk);
+                expected.append(chunk);
+            }
+            c.await(early, expected.toString());
+            c.await(tail, expected.toString());
+        }
+        c.noErrors();
+    }
+
+    private static void truncateAndRecreate() throws Exception {
+        Path dir = Check.tempDir("follow");
+        Path file = dir.resolve("match.log");
+        Collector c = new Collector();
+        try (LogFollower f = new LogFollower()) {
+            f.follow(file, 0, c);
+            append(file, "a".repeat(100));
+            c.await(file, "a".repeat(100));
+
+            // обрізаний до меншого розміру: читається з початку
+            Files.writeString(file, "короткий");
+            c.await(file, "короткий");
+            append(file, " і далі");
+            c.await(file, "короткий і далі");
+
+            // видалений і створений довшим: теж з початку, хоч розмір і не зменшився
+            Files.delete(file);
+            Files.writeString(file, "новий бій ".repeat(20));
+            c.await(file, "новий бій ".repeat(20));
+        }
+        c.noErrors();
+    }
+
+    private static void newAndUnfollow() throws Exception {
+        Path dir = Check.tempDir("follow");
+        Path barrier = dir.resolve("barrier.log");
+        Path gone = dir.resolve("gone.log");
+        Collector c = new Collector();
+        try (LogFollower f = new LogFollower()) {
+            f.followNew(dir, n -> n.startsWith("one_vs_one_"), c);
+            f.follow(gone, 0, c);
+            f.follow(barrier, 0, c);
+            append(gone, "до відписки\n");
+            c.await(gone, "до відписки\n");
+
+            Files.writeString(dir.resolve("other.txt"), "чужий файл\n");
+            Path created = dir.resolve("one_vs_one_1.log");
+            Files.writeString(created, "вибір дроїдів\n");
+            append(created, "--- Раунд 1 ---\n");
+            c.await(created, "вибір дроїдів\n--- Раунд 1 ---\n");
+
+            f.unfollow(gone);
+            append(gone, "після відписки\n");
+            // події директорії обробляються по порядку: коли дійшов бар'єр, дописане раніше вже розібрано
+            append(barrier, "бар'єр\n");
+            c.await(barrier, "бар'єр\n");
+            Check.equal("до відписки\n", c.text(gone), "після відписки нічого не приходить");
+            Check.equal(List.of("barrier.log", "gone.log", "one_vs_one_1.log"), c.names(),
+                    "файл не за фільтром пропущено");
+        }
+        c.noErrors();
+    }
+
+    private static void append(Path file, String s) throws IOException {
+        Files.writeString(file, s, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Збирає байти кожного файлу; позиція 0 починає вміст заново, інша має бути
+     * кінцем зібраного (з урахуванням позиції, з якої почали стежити).
+     */
+    private static final class Collector implements LogFollower.Listener {
+        private final Map<Path, ByteArrayOutputStream> files = new HashMap<>();
+        private final Map<Path, Long> starts = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+
+        /** Стежимо за файлом не з початку: перші байти прийдуть з позиції {@code position}. */
+        synchronized void from(Path file, long position) {
+            starts.put(file.toAbsolutePath().normalize(), position);
+        }
+
+        @Override
+        public synchronized void appended(Path file, long position, ByteBuffer bytes) {
+            ByteArrayOutputStream out = files.computeIfAbsent(file, k -> new ByteArrayOutputStream());
+            if (position == 0) {
+                out.reset();
+                starts.remove(file);
+            }
+            long end = starts.getOrDefault(file, 0L) + out.size();
+            if (position != end) errors.add(file.getFileName() + ": позиція " + position + ", очікувалась " + end);
+            byte[] b = new byte[bytes.remaining()];
+            bytes.get(b);
+            out.writeBytes(b);
+            notifyAll();
+        }
+
+        synchronized String text(Path file) {
+            ByteArrayOutputStream out = files.get(file.toAbsolutePath().normalize());
+            return out == null ? "" : out.toString(StandardCharsets.UTF_8);
+        }
+
+        synchronized List<String> names() {
+            return files.keySet().stream().map(p -> p.getFileName().toString()).sorted().toList();
+        }
+
+        /** Чекати, поки зібраний вміст файлу стане {@code expected}. */
+        synchronized void await(Path file, String expected) throws InterruptedException {
+            long end = System.currentTimeMillis() + TIMEOUT_MS;
+            for (long left; !text(file).equals(expected) && (left = end - System.currentTimeMillis()) > 0; ) wait(left);
+            Check.equal(expected, text(file), "вміст " + file.getFileName());
+        }
+
+        synchronized void noErrors() {
+            Check.equal(List.of(), errors, "позиції без пропусків");
+        }
+    }
+}
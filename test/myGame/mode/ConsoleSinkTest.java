@@ -0,0 +1,61 @@
+package myGame.mode;
+
+import myGame.Check;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/** Порядок виводу {@link ConsoleSink} у грі з гравцями і проріджування автобою. */
+public final class ConsoleSinkTest {
+
+    private static final String NL = System.lineSeparator();
+
+    public static void main(String[] args) throws Exception {
+        Check.run("меню виводиться після накопиченого тексту раунду", ConsoleSinkTest::promptAfterRoundText);
+        Check.run("раунд із запитом до гравця не проріджується", ConsoleSinkTest::interactiveNotThinned);
+        Check.run("автобій проріджується за номером раунду і змінами", ConsoleSinkTest::thinning);
+    }
+
+    private static void promptAfterRoundText() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleSink sink = new ConsoleSink(out, StandardCharsets.UTF_8, 1, false);
+        sink.println("--- Раунд 1 ---");
+        sink.prompt("меню 1" + NL);
+        sink.println("хід гравця 1");
+        sink.println("Невірний вибір!");
+        sink.prompt("меню 2" + NL);
+        sink.println("хід гравця 2");
+        sink.endRound(1, true);
+        Check.equal(String.join(NL, "--- Раунд 1 ---", "меню 1", "хід гравця 1", "Невірний вибір!",
+                "меню 2", "хід гравця 2", ""), text(out), "порядок виводу");
+    }
+
+    private static void interactiveNotThinned() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleSink sink = new ConsoleSink(out, StandardCharsets.UTF_8, 5, true);
+        sink.println("--- Раунд 1 ---");
+        sink.prompt("меню" + NL);
+        sink.println("хід");
+        sink.endRound(1, false);
+        Check.equal(String.join(NL, "--- Раунд 1 ---", "меню", "хід", ""), text(out), "раунд із меню");
+        out.reset();
+        sink.println("--- Раунд 2 ---");
+        sink.endRound(2, false);
+        Check.equal("", text(out), "наступний раунд без меню проріджується");
+    }
+
+    private static void thinning() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleSink sink = new ConsoleSink(out, StandardCharsets.UTF_8, 2, true);
+        for (int round = 1; round <= 6; round++) {
+            sink.println("раунд " + round);
+            sink.endRound(round, round != 4);
+        }
+        Check.equal(String.join(NL, "раунд 2", "раунд 6", ""), text(out), "виведені раунди");
+        Check.isTrue(!sink.pending(), "пропущені раунди відкинуто");
+    }
+
+    private static String text(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package myGame.rating;
+
+import myGame.Check;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/** Файл рейтингів: запис і читання, відмова читати чужий чи пошкоджений файл. */
+public final class RatingLadderTest {
+
+    private static final List<String> DROIDS = List.of("FlashDroid", "StormDroid", "HammerDroid", "BoerDroid");
+
+    public static void main(String[] args) throws Exception {
+        Check.run("рейтинги однакові після запису і читання", RatingLadderTest::roundTrip);
+        Check.run("чужий, новіший чи пошкоджений файл дає IOException і не перезаписується", RatingLadderTest::rejects);
+    }
+
+    private static void roundTrip() throws Exception {
+        Path dir = Check.tempDir("ratings");
+        RatingLadder ladder = RatingLadder.open(dir);
+        for (int i = 0; i < 200; i++) {
+            String a = DROIDS.get(i % DROIDS.size());
+            String b = DROIDS.get((i * 3 + 1) % DROIDS.size());
+            ladder.record(List.of(a), List.of(b), "гравець-" + i % 3, "гравець-" + (i + 1) % 3, i % 5 == 0 ? 2 : i % 2);
+            ladder.record(List.of(a, b), List.of("FireFlash", "Medic"), null, null, i % 3);
+        }
+        ladder.save();
+        Check.isTrue(!Files.exists(dir.resolve(RatingLadder.FILE + ".tmp")), "тимчасовий файл перейменовано");
+        RatingLadder back = RatingLadder.open(dir);
+        for (RatingLadder.Kind kind : RatingLadder.Kind.values()) {
+            List<RatingLadder.Rating> expected = ladder.leaderboard(kind, 100);
+            List<RatingLadder.Rating> actual = back.leaderboard(kind, 100);
+            Check.isTrue(!expected.isEmpty(), "є рейтинги " + kind);
+            Check.equal(expected.size(), actual.size(), "кількість " + kind);
+            for (int i = 0; i < expected.size(); i++) {
+                RatingLadder.Rating e = expected.get(i), a = actual.get(i);
+                Check.equal(e.name(), a.name(), "порядок " + kind);
+                Check.near(e.rating(), a.rating(), 1e-3, "рейтинг " + e.name());
+                Check.near(e.rd(), a.rd(), 1e-3, "відхилення " + e.name());
+                Check.equal(e.games(), a.games(), "ігри " + e.name());
+            }
+        }
+    }
+
+    private static void rejects() throws Exception {
+        Path dir = Check.tempDir("ratings");
+        RatingLadder ladder = RatingLadder.open(dir);
+        ladder.record(List.of("FlashDroid"), List.of("StormDroid"), null, null, 0);
+        ladder.save();
+        Path f = dir.resolve(RatingLadder.FILE);
+        byte[] good = Files.readAllBytes(f);
+
+        byte[] magic = good.clone();
+        magic[0] ^= 1;
+        byte[] version = good.clone();
+        ByteBuffer.wrap(version).putInt(4, 99);
+        byte[] truncated = Arrays.copyOf(good, good.length - 3);
+        byte[] trailing = Arrays.copyOf(good, good.length + 1);
+        for (byte[] bad : List.of(magic, version, truncated, trailing, new byte[0])) {
+            Files.write(f, bad);
+            Check.fails(IOException.class, () -> RatingLadder.open(dir), "пошкоджений файл");
+            Check.isTrue(Arrays.equals(bad, Files.readAllBytes(f)), "файл не змінено");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package myGame.search;
+
+import myGame.Check;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/** Індекс пошуку: збіг з повним переглядом логів, інкрементальні оновлення, злиття і перервані оновлення. */
+public final class LogIndexTest {
+
+    private static final String[] DROIDS = {"HammerDroid", "FlashDroid", "StormDroid", "BoerDroid", "Submarine"};
+    private static final String[] ACTIONS = {"атакує", "лікує", "бурить", "бомбить", "ухиляється"};
+    private static final String[] MAPS = {"Cave", "Ocean", "Sky", "Volcano"};
+    private static final List<String> QUERIES = List.of(
+            "hammerdroid", "flashdroid лікує", "stormdroid атакує cave", "бур*", "sub*", "volcano",
+            "раунд 3", "hammerdroid flashdroid", "stormdroid бомбить sky", "нічого", "ухиляється ocean");
+
+    public static void main(String[] args) throws Exception {
+        Check.run("пошук збігається з повним переглядом логів після кожного оновлення і злиття",
+                LogIndexTest::matchesScan);
+        Check.run("перерване оновлення не псує індекс і повторюється", LogIndexTest::interruptedUpdate);
+        Check.run("перерване злиття лишає робочий індекс без зайвих сегментів", LogIndexTest::interruptedMerge);
+    }
+
+    private static void matchesScan() throws Exception {
+        Path dir = Check.tempDir("search");
+        Map<String, byte[]> logs = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(17);
+        LogIndex idx = LogIndex.load(dir);
+        // 12 оновлень — більше за межу сегментів, тож принаймні одне злиття
+        for (int batch = 0; batch < 12; batch++) {
+            for (int k = 0; k < 5; k++) write(dir, logs, order, rnd);
+            Check.equal(5, idx.update(), "нових боїв в оновленні " + batch);
+            Check.equal(0, idx.update(), "повторне оновлення нічого не додає");
+            check(idx, logs, order);
+        }
+        // дев'яте оновлення злило 9 сегментів в один, після нього додано ще три
+        Check.equal(4, segments(dir), "сегментів після злиття");
+        LogIndex back = LogIndex.load(dir);
+        Check.equal(order.size(), back.size(), "боїв після читання");
+        Check.equal(idx.termCount(), back.termCount(), "слів після читання");
+        check(back, logs, order);
+        Check.isTrue(back.search("hammerdroid").size() > 10 && back.search("бур*").stream().anyMatch(h -> h.round() > 0),
+                "запити справді знаходять раунди");
+    }
+
+    private static void interruptedUpdate() throws Exception {
+        Path dir = Check.tempDir("search");
+        Map<String, byte[]> logs = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(5);
+        for (int k = 0; k < 6; k++) write(dir, logs, order, rnd);
+        LogIndex.load(dir).update();
+        Path home = dir.resolve(LogIndex.FILE);
+        byte[] manifest = Files.readAllBytes(home.resolve("manifest"));
+
+        // сегмент і записи боїв уже на диску, а маніфест — ще старий
+        for (int k = 0; k < 4; k++) write(dir, logs, order, rnd);
+        LogIndex.load(dir).update();
+        Files.write(home.resolve("manifest"), manifest);
+
+        LogIndex idx = LogIndex.load(dir);
+        Check.equal(6, idx.size(), "зафіксовано лише боїв до перерваного оновлення");
+        Check.equal(1, segments(dir), "незафіксований сегмент видалено");
+        check(idx, logs, order.subList(0, 6));
+        Check.equal(4, idx.update(), "бої перерваного оновлення додано знову");
+        check(idx, logs, order);
+        check(LogIndex.load(dir), logs, order);
+    }
+
+    private static void interruptedMerge() throws Exception {
+        Path dir = Check.tempDir("search");
+        Map<String, byte[]> logs = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        SplittableRandom rnd = new SplittableRandom(9);
+        LogIndex idx = LogIndex.load(dir);
+        for (int batch = 0; batch < 8; batch++) {
+            write(dir, logs, order, rnd);
+            idx.update();
+        }
+        Path home = dir.resolve(LogIndex.FILE);
+        Path before = Check.tempDir("search-before");
+        copy(home, before);
+
+        // дев'яте оновлення зливає сегменти; після нового маніфесту старі сегменти ще не видалено
+        write(dir, logs, order, rnd);
+        idx.update();
+        Check.equal(1, segments(dir), "сегменти злито");
+        try (Stream<Path> s = Files.list(before)) {
+            for (Path p : s.filter(p -> p.getFileName().toString().startsWith("seg-")).toList()) {
+                Files.copy(p, home.resolve(p.getFileName()));
+            }
+        }
+        LogIndex after = LogIndex.load(dir);
+        Check.equal(1, segments(dir), "старі сегменти видалено при читанні");
+        check(after, logs, order);
+
+        // злитий сегмент записано, але маніфест ще перелічує старі сегменти
+        Files.copy(before.resolve("manifest"), home.resolve("manifest"), StandardCopyOption.REPLACE_EXISTING);
+        try (Stream<Path> s = Files.list(before)) {
+            for (Path p : s.filter(p -> p.getFileName().toString().startsWith("seg-")).toList()) {
+                Files.copy(p, home.resolve(p.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        LogIndex rolled = LogIndex.load(dir);
+        Check.equal(8, rolled.size(), "боїв до злиття");
+        Check.equal(8, segments(dir), "злитий сегмент видалено при читанні");
+        check(rolled, logs, order.subList(0, 8));
+        Check.equal(1, rolled.update(), "бій перерваного оновлення додано знову");
+        check(rolled, logs, order);
+    }
+
+    // ---------- Логи ----------
+
+    /** Записати лог нового бою (кожен п'ятий — стиснений) і запам'ятати його байти. */
+    private static void write(Path dir, Map<String, byte[]> logs, List<String> order, SplittableRandom rnd)
+            throws IOException {
+        String key = String.format("one_vs_one_%05d.log", order.size());
+        String a = DROIDS[rnd.nextInt(DROIDS.length)];
+        String b = DROIDS[rnd.nextInt(DROIDS.length)];
+        StringBuilder sb = new StringBuilder();
+        sb.append("Вибір дроїдів: ").append(a).append(" проти ").append(b).append('\n');
+        sb.append("Мапа: ").append(MAPS[rnd.nextInt(MAPS.length)]).append('\n');
+        int rounds = 1 + rnd.nextInt(6);
+        for (int r = 1; r <= rounds; r++) {
+            sb.append("\n--- Раунд ").append(r).append(" ---\n");
+            int actions = rnd.nextInt(3);
+            for (int i = 0; i < actions; i++) {
+                sb.append(DROIDS[rnd.nextInt(DROIDS.length)]).append(' ')
+                        .append(ACTIONS[rnd.nextInt(ACTIONS.length)]).append(' ')
+                        .append(DROIDS[rnd.nextInt(DROIDS.length)]).append('\n');
+            }
+            if (rnd.nextBoolean()) {
+                // стан не індексується: імена тут не мають знаходитись
+                sb.append("Поточний стан:\n").append(DROIDS[rnd.nextInt(DROIDS.length)]).append(" HP 10\n\n");
+            }
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        logs.put(key, bytes);
+        order.add(key);
+        if (order.size() % 5 == 0) {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dir.resolve(key + ".gz")))) {
+                out.write(bytes);
+            }
+        } else {
+            Files.write(dir.resolve(key), bytes);
+        }
+    }
+
+    // ---------- Повний перегляд ----------
+
+    /** Порівняти результати всіх запитів з повним переглядом логів. */
+    private static void check(LogIndex idx, Map<String, byte[]> logs, List<String> order) throws IOException {
+        Check.equal(order.size(), idx.size(), "боїв в індексі");
+        for (String q : QUERIES) Check.equal(scan(q, logs, order), idx.search(q), "запит \"" + q + "\"");
+    }
+
+    private static List<LogIndex.Hit> scan(String query, Map<String, byte[]> logs, List<String> order) {
+        List<String> words = LogIndex.tokens(query, true);
+        List<LogIndex.Hit> hits = new ArrayList<>();
+        for (String key : order) {
+            Parsed p = parse(logs.get(key));
+            List<TreeSet<Integer>> perWord = new ArrayList<>();
+            for (String w : words) {
+                TreeSet<Integer> rs = new TreeSet<>();
+                for (Map.Entry<String, TreeSet<Integer>> t : p.terms.entrySet()) {
+                    boolean match = w.endsWith("*") ? t.getKey().startsWith(w.substring(0, w.length() - 1))
+                            : t.getKey().equals(w);
+                    if (match) rs.addAll(t.getValue());
+                }
+                perWord.add(rs);
+            }
+            if (perWord.stream().anyMatch(TreeSet::isEmpty)) continue;
+            boolean found = false;
+            for (int r = 1; r < p.offsets.size(); r++) {
+                int round = r;
+                boolean all = perWord.stream().allMatch(rs -> rs.contains(round) || rs.contains(0));
+                boolean own = perWord.stream().anyMatch(rs -> rs.contains(round));
+                if (all && own) {
+                    hits.add(new LogIndex.Hit(key, r, p.offsets.get(r)));
+                    found = true;
+                }
+            }
+            if (!found) hits.add(new LogIndex.Hit(key, 0, 0));
+        }
+        return hits;
+    }
+
+    /** Слова логу з раундами (без блоків стану) і зміщення рядків раундів. */
+    private record Parsed(Map<String, TreeSet<Integer>> terms, List<Long> offsets) { }
+
+    private static Parsed parse(byte[] log) {
+        Map<String, TreeSet<Integer>> terms = new HashMap<>();
+        List<Long> offsets = new ArrayList<>(List.of(0L));
+        int round = 0;
+        boolean state = false;
+        int start = 0;
+        for (int i = 0; i <= log.length; i++) {
+            if (i < log.length && log[i] != '\n') continue;
+            String line = new String(log, start, i - start, StandardCharsets.UTF_8);
+            if (line.startsWith("--- Раунд ")) {
+                round++;
+                offsets.add((long) start);
+                state = false;
+            } else if (line.startsWith("Поточний стан:")) {
+                state = true;
+            } else if (line.isBlank()) {
+                state = false;
+            }
+            if (!state) {
+                for (String w : LogIndex.tokens(line, false)) terms.computeIfAbsent(w, k -> new TreeSet<>()).add(round);
+            }
+            start = i + 1;
+        }
+        return new Parsed(terms, offsets);
+    }
+
+    // ---------- Файли ----------
+
+    private static int segments(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir.resolve(LogIndex.FILE))) {
+            return (int) s.filter(p -> p.getFileName().toString().startsWith("seg-")).count();
+        }
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> s = Files.list(from)) {
+            for (Path p : s.toList()) Files.copy(p, to.resolve(p.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
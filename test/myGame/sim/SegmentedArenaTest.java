@@ -0,0 +1,142 @@
+package myGame.sim;
+
+import myGame.Check;
+import myGame.droid.BaseDroid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/** Поділ арени на сегменти: власники, гало і обмін дроїдами між сегментами. */
+public final class SegmentedArenaTest {
+
+    private static final int ARENA = 2_000;
+    private static final int SEGMENTS = 8;
+
+    public static void main(String[] args) throws Exception {
+        Check.run("кожен живий дроїд належить рівно сегменту своєї позиції", SegmentedArenaTest::ownership);
+        Check.run("вид сегмента — власні дроїди і всі дроїди в межах гало", SegmentedArenaTest::haloViews);
+        Check.run("після переміщення дроїди переходять до нових сегментів", SegmentedArenaTest::exchange);
+        Check.run("поділ арени дає той самий бій, що й усе поле", SegmentedArenaTest::sameAsWholeField);
+    }
+
+    private static void ownership() {
+        RoundSnapshot s = snapshot(1);
+        SegmentedArena arena = new SegmentedArena(SEGMENTS);
+        arena.prepare(s);
+        checkOwnership(s, arena);
+    }
+
+    private static void haloViews() {
+        RoundSnapshot s = snapshot(2);
+        SegmentedArena arena = new SegmentedArena(SEGMENTS);
+        arena.prepare(s);
+        checkViews(s, arena);
+    }
+
+    private static void exchange() {
+        List<BaseDroid> a = SimultaneousResolverTest.team(3, 300);
+        List<BaseDroid> b = SimultaneousResolverTest.team(4, 300);
+        RoundSnapshot s = new RoundSnapshot(a, b);
+        s.fixArena(0, ARENA);
+        s.refresh(1);
+        SegmentedArena arena = new SegmentedArena(SEGMENTS);
+        arena.prepare(s);
+
+        SplittableRandom rnd = new SplittableRandom(5);
+        int moved = 0;
+        for (BaseDroid d : a) {
+            int before = arena.segmentFor(d.getCurrentPosition());
+            d.setCurrentPosition(rnd.nextInt(ARENA + 1));
+            if (arena.segmentFor(d.getCurrentPosition()) != before) moved++;
+        }
+        b.get(0).setCurrentHp(0);
+        s.refresh(2);
+        arena.prepare(s);
+        checkOwnership(s, arena);
+        checkViews(s, arena);
+        Check.equal(moved, arena.migrated(), "скільки дроїдів перейшло між сегментами");
+    }
+
+    private static void sameAsWholeField() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> whole = play(pool, 1);
+            List<String> split = play(pool, SEGMENTS);
+            for (int r = 0; r < whole.size(); r++) Check.equal(whole.get(r), split.get(r), "стан раунду " + (r + 1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<String> play(ForkJoinPool pool, int segments) {
+        List<BaseDroid> a = SimultaneousResolverTest.team(11, 300);
+        List<BaseDroid> b = SimultaneousResolverTest.team(12, 300);
+        SimultaneousResolver r = new SimultaneousResolver(a, b, ActionPolicy.GREEDY, 9, false, pool, segments);
+        r.setArenaBounds(0, ARENA);
+        List<String> out = new ArrayList<>();
+        for (int round = 1; round <= 30; round++) {
+            r.resolveRound(round);
+            out.add(SimultaneousResolverTest.state(a, b));
+        }
+        return out;
+    }
+
+    private static RoundSnapshot snapshot(long seed) {
+        RoundSnapshot s = new RoundSnapshot(SimultaneousResolverTest.team(seed, 300),
+                SimultaneousResolverTest.team(seed + 100, 300));
+        s.fixArena(0, ARENA);
+        s.refresh(1);
+        return s;
+    }
+
+    private static void checkOwnership(RoundSnapshot s, SegmentedArena arena) {
+        int[] owner = new int[s.size()];
+        Arrays.fill(owner, -1);
+        for (int k = 0; k < arena.segments(); k++) {
+            int prev = -1;
+            for (int m = 0; m < arena.ownedCount(k); m++) {
+                int i = arena.owned(k, m);
+                Check.isTrue(i > prev, "власники сегмента " + k + " впорядковані за індексом");
+                prev = i;
+                Check.equal(-1, owner[i], "дроїд " + i + " належить лише одному сегменту");
+                owner[i] = k;
+            }
+        }
+        for (int i = 0; i < s.size(); i++) {
+            int expected = s.alive(i) ? arena.segmentFor(s.position(i)) : -1;
+            Check.equal(expected, owner[i], "сегмент дроїда " + i);
+        }
+    }
+
+    private static void checkViews(RoundSnapshot s, SegmentedArena arena) {
+        int[] lo = new int[arena.segments()];
+        int[] hi = new int[arena.segments()];
+        Arrays.fill(lo, Integer.MAX_VALUE);
+        Arrays.fill(hi, Integer.MIN_VALUE);
+        for (int p = 0; p <= ARENA; p++) {
+            int k = arena.segmentFor(p);
+            lo[k] = Math.min(lo[k], p);
+            hi[k] = Math.max(hi[k], p);
+        }
+        int halo = arena.halo();
+        Check.isTrue(halo >= SegmentedArena.MIN_HALO, "гало не менше мінімального");
+        for (int i = 0; i < s.size(); i++) {
+            if (s.alive(i)) Check.isTrue(s.range(i) <= halo, "гало покриває дальність дроїда " + i);
+        }
+        for (int k = 0; k < arena.segments(); k++) {
+            boolean[] inView = new boolean[s.size()];
+            Neighbourhood v = arena.view(k);
+            for (int m = 0; m < v.size(); m++) {
+                Check.isTrue(!inView[v.get(m)], "дроїд у виді сегмента " + k + " двічі");
+                inView[v.get(m)] = true;
+            }
+            for (int i = 0; i < s.size(); i++) {
+                boolean expected = s.alive(i) && s.position(i) >= lo[k] - halo && s.position(i) <= hi[k] + halo;
+                Check.equal(expected, inView[i], "дроїд " + i + " (позиція " + s.position(i) + ") у виді сегмента " + k);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package myGame.sim;
+
+import myGame.Check;
+import myGame.droid.BaseDroid;
+import myGame.droid.DroidTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static myGame.droid.DroidFactory.DroidConstruct.yourDroid;
+
+/** Детерміноване злиття одночасних ходів: результат не залежить від потоків і поділу на блоки. */
+public final class SimultaneousResolverTest {
+
+    private static final int ARENA = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        Check.run("однакове зерно дає однаковий бій при 1 і 4 потоках", SimultaneousResolverTest::sameAcrossPools);
+        Check.run("у покроковому ході рухається лише команда, що ходить", SimultaneousResolverTest::teamTurn);
+        Check.run("поділ арени на сегменти не змінює бій і порядок повідомлень", SimultaneousResolverTest::sameAcrossSegments);
+        Check.run("здібності не виводять дроїдів за межі вузької арени", SimultaneousResolverTest::staysInArena);
+    }
+
+    private static void sameAcrossPools() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            // понад 256 дроїдів на команду — кілька блоків планування
+            List<String> a = play(single, 7, 40);
+            List<String> b = play(four, 7, 40);
+            Check.equal(a.size(), b.size(), "кількість раундів");
+            for (int r = 0; r < a.size(); r++) Check.equal(a.get(r), b.get(r), "стан і повідомлення раунду " + (r + 1));
+            Check.isTrue(!a.equals(play(four, 8, 40)), "інше зерно має давати інший бій");
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+    }
+
+    private static void sameAcrossSegments() {
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            List<String> a = play(four, 11, 40, 1);
+            List<String> b = play(four, 11, 40, 8);
+            Check.equal(a.size(), b.size(), "кількість раундів");
+            for (int r = 0; r < a.size(); r++) Check.equal(a.get(r), b.get(r), "стан і повідомлення раунду " + (r + 1));
+        } finally {
+            four.shutdown();
+        }
+    }
+
+    private static void staysInArena() {
+        List<BaseDroid> a = team(5, 40);
+        List<BaseDroid> b = team(6, 40);
+        for (BaseDroid d : a) d.setCurrentPosition(d.getCurrentPosition() % 5);
+        for (BaseDroid d : b) d.setCurrentPosition(d.getCurrentPosition() % 5);
+        SimultaneousResolver r = new SimultaneousResolver(a, b, ActionPolicy.RANDOM, 9, false, ForkJoinPool.commonPool(), 1);
+        r.setArenaBounds(0, 4);
+        for (int round = 1; round <= 30; round++) {
+            r.resolveRound(round);
+            for (BaseDroid d : a) Check.isTrue(d.getCurrentPosition() >= 0 && d.getCurrentPosition() <= 4, "позиція A у межах");
+            for (BaseDroid d : b) Check.isTrue(d.getCurrentPosition() >= 0 && d.getCurrentPosition() <= 4, "позиція B у межах");
+        }
+    }
+
+    private static void teamTurn() {
+        List<BaseDroid> a = team(1, 50);
+        List<BaseDroid> b = team(2, 50);
+        SimultaneousResolver r = new SimultaneousResolver(a, b, ActionPolicy.GREEDY, 3, false, ForkJoinPool.commonPool(), 1);
+        r.setArenaBounds(0, ARENA);
+        int hpA = hp(a);
+        int[] posA = new int[a.size()];
+        for (int i = 0; i < posA.length; i++) posA[i] = a.get(i).getCurrentPosition();
+        r.resolveTeamTurn(1, 1);
+        Check.isTrue(hp(a) < hpA, "хід команди B завдає шкоди команді A");
+        for (int i = 0; i < a.size(); i++) {
+            Check.equal(posA[i], a.get(i).getCurrentPosition(), "позиція дроїда A, що не ходив");
+        }
+    }
+
+    /** Зіграти бій і повернути стан усіх дроїдів і повідомлення після кожного раунду. */
+    static List<String> play(ForkJoinPool pool, long seed, int rounds) {
+        return play(pool, seed, rounds, 1);
+    }
+
+    private static List<String> play(ForkJoinPool pool, long seed, int rounds, int segments) {
+        List<BaseDroid> a = team(1, 300);
+        List<BaseDroid> b = team(2, 300);
+        SimultaneousResolver r = new SimultaneousResolver(a, b, ActionPolicy.GREEDY, seed, true, pool, segments);
+        r.setArenaBounds(0, ARENA);
+        List<String> out = new ArrayList<>();
+        for (int round = 1; round <= rounds; round++) {
+            List<String> messages = r.resolveRound(round);
+            out.add(state(a, b) + messages);
+        }
+        return out;
+    }
+
+    /** Команда з усіх типів по колу на позиціях, що залежать лише від зерна. */
+    static List<BaseDroid> team(long seed, int size) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<BaseDroid> team = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BaseDroid d = yourDroid(DroidTemplate.of(i % DroidTemplate.CATALOG.size()));
+            d.setCurrentPosition(rnd.nextInt(ARENA + 1));
+            team.add(d);
+        }
+        return team;
+    }
+
+    static String state(List<BaseDroid> a, List<BaseDroid> b) {
+        StringBuilder sb = new StringBuilder();
+        for (BaseDroid d : a) sb.append(d.getCurrentHp()).append('@').append(d.getCurrentPosition()).append(' ');
+        sb.append('|');
+        for (BaseDroid d : b) sb.append(d.getCurrentHp()).append('@').append(d.getCurrentPosition()).append(' ');
+        return sb.toString();
+    }
+
+    private static int hp(List<BaseDroid> team) {
+        int sum = 0;
+        for (BaseDroid d : team) sum += d.getCurrentHp();
+        return sum;
+    }
+}
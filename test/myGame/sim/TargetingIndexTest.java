@@ -0,0 +1,88 @@
+package myGame.sim;
+
+import myGame.Check;
+import myGame.droid.BaseDroid;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Просторовий індекс цілей проти прямого перебору команди. */
+public final class TargetingIndexTest {
+
+    public static void main(String[] args) throws Exception {
+        Check.run("найближчий ворог і кількість у радіусі збігаються з перебором", TargetingIndexTest::againstBruteForce);
+        Check.run("загиблі й чужі сусідству дроїди не потрапляють в індекс", TargetingIndexTest::onlyLiveMembers);
+        Check.run("порожня команда не має найближчого", TargetingIndexTest::emptyTeam);
+    }
+
+    private static void againstBruteForce() {
+        List<BaseDroid> a = SimultaneousResolverTest.team(21, 400);
+        List<BaseDroid> b = SimultaneousResolverTest.team(22, 400);
+        for (int i = 0; i < b.size(); i += 7) b.get(i).setCurrentHp(0);
+        RoundSnapshot s = snapshot(a, b);
+        TargetingIndex t = new TargetingIndex();
+        t.build(s, Neighbourhood.all(s.size()));
+
+        SplittableRandom rnd = new SplittableRandom(23);
+        for (int q = 0; q < 2_000; q++) {
+            int team = rnd.nextInt(2);
+            int position = rnd.nextInt(-50, 2_100);
+            int best = -1;
+            long bestDist = Long.MAX_VALUE;
+            for (int i = 0; i < s.size(); i++) {
+                if (!s.alive(i) || s.team(i) != team) continue;
+                long d = Math.abs((long) s.position(i) - position);
+                // при рівній відстані — лівіший
+                if (d < bestDist || d == bestDist && s.position(i) < s.position(best)) {
+                    best = i;
+                    bestDist = d;
+                }
+            }
+            int found = t.nearest(team, position);
+            Check.equal(s.position(best), s.position(found), "позиція найближчого до " + position);
+            Check.isTrue(s.alive(found) && s.team(found) == team, "найближчий живий і з потрібної команди");
+
+            int r = rnd.nextInt(0, 40);
+            int within = 0;
+            for (int i = 0; i < s.size(); i++) {
+                if (s.alive(i) && s.team(i) == team && Math.abs(s.position(i) - position) <= r) within++;
+            }
+            Check.equal(within, t.countWithin(team, position, r), "дроїдів у радіусі " + r + " від " + position);
+        }
+        for (int team = 0; team < 2; team++) {
+            for (int k = 1; k < t.size(team); k++) {
+                Check.isTrue(t.position(team, k - 1) <= t.position(team, k), "порядок за позицією");
+            }
+        }
+    }
+
+    private static void onlyLiveMembers() {
+        List<BaseDroid> a = SimultaneousResolverTest.team(31, 10);
+        List<BaseDroid> b = SimultaneousResolverTest.team(32, 10);
+        a.get(3).setCurrentHp(0);
+        RoundSnapshot s = snapshot(a, b);
+        Neighbourhood members = new Neighbourhood(s.size());
+        for (int i = 0; i < 6; i++) members.add(i);
+        members.add(12);
+        TargetingIndex t = new TargetingIndex();
+        t.build(s, members);
+        Check.equal(5, t.size(0), "живих членів команди A");
+        Check.equal(1, t.size(1), "членів команди B");
+        Check.equal(12, t.id(1, 0), "єдиний член команди B");
+    }
+
+    private static void emptyTeam() {
+        RoundSnapshot s = snapshot(SimultaneousResolverTest.team(41, 3), SimultaneousResolverTest.team(42, 3));
+        TargetingIndex t = new TargetingIndex();
+        t.build(s, new Neighbourhood(s.size()));
+        Check.equal(-1, t.nearest(0, 10), "найближчий у порожній команді");
+        Check.equal(0, t.countWithin(1, 10, 100), "кількість у порожній команді");
+    }
+
+    private static RoundSnapshot snapshot(List<BaseDroid> a, List<BaseDroid> b) {
+        RoundSnapshot s = new RoundSnapshot(a, b);
+        s.fixArena(0, 2_000);
+        s.refresh(1);
+        return s;
+    }
+}
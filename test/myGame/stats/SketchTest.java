@@ -0,0 +1,184 @@
+package myGame.stats;
+
+import myGame.Check;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** Похибка {@link QuantileSketch} і {@link DistinctCounter} після злиття і запису. */
+public final class SketchTest {
+
+    private static final double[] QUANTILES = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    public static void main(String[] args) throws Exception {
+        Check.run("похибка рангу квантилів злитих ескізів", SketchTest::mergedQuantiles);
+        Check.run("ескіз квантилів: межі, NaN, порожній, інше k", SketchTest::quantileEdges);
+        Check.run("ескіз квантилів однаковий після запису і читання", SketchTest::quantileRoundTrip);
+        Check.run("похибка злитих лічильників різних значень", SketchTest::mergedDistinct);
+        Check.run("лічильник різних значень: малі кількості, точність, запис", SketchTest::distinctEdges);
+    }
+
+    private static void mergedQuantiles() {
+        SplittableRandom rnd = new SplittableRandom(1);
+        int shards = 8, perShard = 50_000;
+        double[] all = new double[shards * perShard];
+        QuantileSketch merged = new QuantileSketch();
+        QuantileSketch single = new QuantileSketch();
+        for (int s = 0; s < shards; s++) {
+            QuantileSketch part = new QuantileSketch();
+            for (int i = 0; i < perShard; i++) {
+                // різні розподіли в різних потоках: рівномірний, експоненційний, зростаючий
+                double v = switch (s % 3) {
+                    case 0 -> rnd.nextDouble() * 1000;
+                    case 1 -> -Math.log(1 - rnd.nextDouble()) * 200;
+                    default -> i * 0.02 + s;
+                };
+                all[s * perShard + i] = v;
+                part.add(v);
+                single.add(v);
+            }
+            Check.isTrue(part.retained() <= 3 * QuantileSketch.DEFAULT_K, "пам'ять ескізу потоку");
+            merged.merge(part);
+        }
+        Arrays.sort(all);
+        Check.equal(all.length, merged.count(), "кількість");
+        Check.near(all[0], merged.min(), 0, "найменше");
+        Check.near(all[all.length - 1], merged.max(), 0, "найбільше");
+        Check.isTrue(merged.retained() <= 3 * QuantileSketch.DEFAULT_K, "пам'ять злитого ескізу");
+        for (double q : QUANTILES) {
+            // при k = 200 похибка рангу близько 1%
+            Check.near(q, rank(all, merged.quantile(q)), 0.02, "ранг квантиля " + q + " після злиття");
+            Check.near(q, rank(all, single.quantile(q)), 0.02, "ранг квантиля " + q + " одного потоку");
+        }
+    }
+
+    private static void quantileEdges() {
+        QuantileSketch empty = new QuantileSketch();
+        Check.isTrue(Double.isNaN(empty.quantile(0.5)) && Double.isNaN(empty.min()), "порожній ескіз");
+        QuantileSketch s = new QuantileSketch(16);
+        s.add(Double.NaN);
+        Check.equal(0, s.count(), "NaN не враховується");
+        for (int i = 1; i <= 10; i++) s.add(i);
+        Check.near(5, s.quantile(0.5), 0, "точна медіана до стиснення");
+        Check.near(1, s.quantile(0), 0, "квантиль 0");
+        Check.near(10, s.quantile(1), 0, "квантиль 1");
+        s.merge(empty);
+        Check.equal(10, s.count(), "злиття з порожнім");
+
+        // злиття ескізу з іншим k: точність — того, в який зливають
+        QuantileSketch coarse = new QuantileSketch(32);
+        double[] all = new double[100_000];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+            coarse.add(i);
+        }
+        QuantileSketch fine = new QuantileSketch().merge(coarse);
+        Check.isTrue(fine.retained() <= 3 * QuantileSketch.DEFAULT_K, "пам'ять після злиття");
+        for (double q : QUANTILES) Check.near(q, rank(all, fine.quantile(q)), 0.08, "ранг з ескізу k=32");
+        Check.fails(IllegalArgumentException.class, () -> fine.quantile(1.5), "частка поза [0, 1]");
+        Check.fails(IllegalArgumentException.class, () -> new QuantileSketch(4), "замале k");
+    }
+
+    private static void quantileRoundTrip() throws Exception {
+        QuantileSketch s = new QuantileSketch();
+        SplittableRandom rnd = new SplittableRandom(2);
+        for (int i = 0; i < 30_000; i++) s.add(rnd.nextGaussian());
+        byte[] bytes = bytes(out -> s.write(out));
+        QuantileSketch back = QuantileSketch.read(in(bytes));
+        Check.equal(s.count(), back.count(), "кількість");
+        Check.equal(s.retained(), back.retained(), "збережені значення");
+        for (double q : QUANTILES) Check.near(s.quantile(q), back.quantile(q), 0, "квантиль " + q);
+        // однаковий стан генератора: подальші значення стискаються однаково
+        for (int i = 0; i < 5_000; i++) {
+            double v = rnd.nextGaussian();
+            s.add(v);
+            back.add(v);
+        }
+        Check.near(s.quantile(0.9), back.quantile(0.9), 0, "квантиль після дописування");
+
+        byte[] badK = bytes.clone();
+        badK[3] = 2;
+        Check.fails(IOException.class, () -> QuantileSketch.read(in(badK)), "пошкоджене k");
+        Check.fails(IOException.class, () -> QuantileSketch.read(in(Arrays.copyOf(bytes, bytes.length - 5))),
+                "обрізаний ескіз");
+    }
+
+    private static void mergedDistinct() {
+        int shards = 8;
+        long perShard = 150_000;
+        DistinctCounter merged = new DistinctCounter();
+        DistinctCounter union = new DistinctCounter();
+        for (int s = 0; s < shards; s++) {
+            DistinctCounter part = new DistinctCounter();
+            // сусідні потоки перекриваються наполовину
+            for (long k = s * perShard / 2; k < s * perShard / 2 + perShard; k++) {
+                part.add(k);
+                union.add(k);
+            }
+            Check.near(perShard, part.estimate(), perShard * 0.05, "оцінка потоку " + s);
+            merged.merge(part);
+        }
+        long distinct = (shards - 1) * perShard / 2 + perShard;
+        Check.equal(union.estimate(), merged.estimate(), "злиття без втрати точності");
+        // 3 стандартні похибки при точності 12: 3 * 1.04 / 64 ≈ 4.9%
+        Check.near(distinct, merged.estimate(), distinct * 0.05, "оцінка злитих лічильників");
+        Check.near(distinct, merged.merge(union).estimate(), distinct * 0.05, "повторне злиття тих самих значень");
+
+        for (int p : new int[] {8, 14, 16}) {
+            DistinctCounter c = new DistinctCounter(p);
+            for (long k = 0; k < 500_000; k++) c.add(k * 0x9E3779B9L);
+            double sigma = 1.04 / Math.sqrt(1 << p);
+            Check.near(500_000, c.estimate(), 500_000 * 3 * sigma, "оцінка при точності " + p);
+        }
+    }
+
+    private static void distinctEdges() throws Exception {
+        DistinctCounter c = new DistinctCounter();
+        Check.equal(0, c.estimate(), "порожній лічильник");
+        for (int rep = 0; rep < 3; rep++) for (long k = 0; k < 100; k++) c.add(k);
+        Check.near(100, c.estimate(), 5, "мала кількість з повторами (лінійний підрахунок)");
+        Check.fails(IllegalArgumentException.class, () -> c.merge(new DistinctCounter(10)), "різна точність");
+        Check.fails(IllegalArgumentException.class, () -> new DistinctCounter(3), "замала точність");
+
+        for (long k = 0; k < 20_000; k++) c.add(k * 31);
+        byte[] bytes = bytes(out -> c.write(out));
+        DistinctCounter back = DistinctCounter.read(in(bytes));
+        Check.equal(c.estimate(), back.estimate(), "оцінка після читання");
+        byte[] bad = bytes.clone();
+        bad[0] = 40;
+        Check.fails(IOException.class, () -> DistinctCounter.read(in(bad)), "пошкоджена точність");
+        Check.fails(IOException.class, () -> DistinctCounter.read(in(Arrays.copyOf(bytes, 100))), "обрізаний лічильник");
+    }
+
+    /** @return частка значень, не більших за {@code v} */
+    private static double rank(double[] sorted, double v) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= v) lo = mid + 1;
+            else hi = mid;
+        }
+        return (double) lo / sorted.length;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] bytes(Writer w) throws IOException {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        w.write(out);
+        out.flush();
+        return b.toByteArray();
+    }
+
+    private static DataInputStream in(byte[] b) {
+        return new DataInputStream(new ByteArrayInputStream(b));
+    }
+}
@@ -0,0 +1,156 @@
+package myGame.store;
+
+import myGame.Check;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Запис і відновлення сегментів {@link MatchStore}, розбір нових записів {@link MatchTail}. */
+public final class MatchStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        Check.run("записи читаються після перевідкриття (без стиснення)", () -> roundTrip(false));
+        Check.run("записи читаються після перевідкриття (блочний gzip)", () -> roundTrip(true));
+        Check.run("обірваний запис в кінці активного сегмента відкидається", MatchStoreTest::tornTail);
+        Check.run("запис з невірною CRC і все після нього відкидаються", MatchStoreTest::badCrc);
+        Check.run("читання лише для читання не обрізає файл", MatchStoreTest::readOnlyKeepsFile);
+        Check.run("MatchTail видає ті самі бої, що й сховище, при подачі шматками", MatchStoreTest::tail);
+    }
+
+    private static void roundTrip(boolean compress) throws Exception {
+        Path dir = Check.tempDir("store");
+        List<String> logs = new ArrayList<>();
+        try (MatchStore store = MatchStore.open(dir, 4096, compress)) {
+            for (int i = 0; i < 60; i++) logs.add(append(store, i).toString());
+        }
+        try (MatchStore store = MatchStore.open(dir, 4096, compress)) {
+            Check.isTrue(store.segments().size() > 2, "кілька сегментів");
+            List<MatchEntry> entries = store.entries();
+            Check.equal(60, entries.size(), "кількість боїв");
+            for (int i = 0; i < entries.size(); i++) {
+                MatchEntry e = entries.get(i);
+                Check.equal(i, e.id(), "номер бою");
+                Check.equal(logs.get(i), new String(store.read(e), StandardCharsets.UTF_8), "лог бою " + i);
+            }
+            Check.equal(20, store.byMap("Sky").size(), "бої на мапі");
+            Check.equal(12, store.byDroid("droid-3").size(), "бої дроїда в обох командах");
+            int[] seen = {0};
+            for (int seg : store.segments()) {
+                store.forEachLog(seg, (e, log) -> {
+                    Check.equal(logs.get((int) e.id()), StandardCharsets.UTF_8.decode(log).toString(), "forEachLog");
+                    seen[0]++;
+                });
+            }
+            Check.equal(60, seen[0], "пройдено логів");
+            Check.equal(60, store.reserveId(), "наступний номер");
+        }
+    }
+
+    private static void tornTail() throws Exception {
+        Path dir = Check.tempDir("store");
+        long end;
+        try (MatchStore store = MatchStore.open(dir)) {
+            for (int i = 0; i < 9; i++) append(store, i);
+            end = Files.size(MatchStore.segmentFile(dir, 1));
+            append(store, 9);
+        }
+        Path seg = MatchStore.segmentFile(dir, 1);
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 5);
+        }
+        try (MatchStore store = MatchStore.open(dir)) {
+            Check.equal(9, store.entries().size(), "цілі записи");
+            Check.equal(end, Files.size(seg), "файл обрізано до останнього цілого запису");
+            StringBuilder log = append(store, store.reserveId());
+            MatchEntry e = store.entries().get(9);
+            Check.equal(9, e.id(), "номер продовжується");
+            Check.equal(log.toString(), new String(store.read(e), StandardCharsets.UTF_8), "новий запис після обрізання");
+        }
+        try (MatchStore store = MatchStore.open(dir)) {
+            Check.equal(10, store.entries().size(), "після повторного відкриття");
+        }
+    }
+
+    private static void badCrc() throws Exception {
+        Path dir = Check.tempDir("store");
+        MatchEntry broken;
+        try (MatchStore store = MatchStore.open(dir)) {
+            for (int i = 0; i < 5; i++) append(store, i);
+            broken = store.entries().get(3);
+        }
+        Path seg = MatchStore.segmentFile(dir, 1);
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long at = broken.offset() + broken.length() - 1;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 0x55)).rewind();
+            ch.write(b, at);
+        }
+        try (MatchStore store = MatchStore.openReadOnly(dir)) {
+            Check.equal(3, store.entries().size(), "записи до пошкодженого");
+            Check.fails(IOException.class, () -> store.read(broken), "читання пошкодженого запису");
+        }
+        try (MatchStore store = MatchStore.open(dir)) {
+            Check.equal(3, store.entries().size(), "записи до пошкодженого");
+            Check.equal(broken.offset(), Files.size(seg), "файл обрізано перед пошкодженим записом");
+        }
+    }
+
+    private static void readOnlyKeepsFile() throws Exception {
+        Path dir = Check.tempDir("store");
+        try (MatchStore store = MatchStore.open(dir)) {
+            for (int i = 0; i < 3; i++) append(store, i);
+        }
+        Path seg = MatchStore.segmentFile(dir, 1);
+        Files.write(seg, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+        long size = Files.size(seg);
+        try (MatchStore store = MatchStore.openReadOnly(dir)) {
+            Check.equal(3, store.entries().size(), "записи");
+        }
+        Check.equal(size, Files.size(seg), "розмір файлу");
+    }
+
+    private static void tail() throws Exception {
+        Path dir = Check.tempDir("store");
+        List<String> logs = new ArrayList<>();
+        List<String> seen = new ArrayList<>();
+        try (MatchStore store = MatchStore.open(dir, 2048, true)) {
+            append(store, store.reserveId());
+            MatchTail tail = store.tail();
+            for (int i = 0; i < 40; i++) logs.add(append(store, store.reserveId()).toString());
+            store.sync();
+            for (int chunk = 1; ; chunk = chunk % 97 + 13) {
+                Path f = tail.file();
+                if (!Files.exists(f)) break;
+                long pos = tail.position();
+                if (pos >= Files.size(f)) break;
+                ByteBuffer b = ByteBuffer.allocate((int) Math.min(chunk, Files.size(f) - pos));
+                try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+                    ch.read(b, pos);
+                }
+                b.flip();
+                tail.feed(pos, b, (e, log) -> seen.add(new String(log, StandardCharsets.UTF_8)));
+            }
+            Check.isTrue(store.segments().size() > 2, "стеження через кілька сегментів");
+        }
+        Check.equal(logs, seen, "логи з MatchTail");
+    }
+
+    /** Дописати бій з номером {@code i}: мапа й склад залежать від номера, лог — різної довжини. */
+    private static StringBuilder append(MatchStore store, long i) throws IOException {
+        StringBuilder log = new StringBuilder("=== Бій ").append(i).append(" ===\n");
+        for (int k = 0; k <= i % 7; k++) log.append("Раунд ").append(k).append(": droid-").append(i % 10).append(" атакує\n");
+        byte[] bytes = log.toString().getBytes(StandardCharsets.UTF_8);
+        String map = new String[] {"Cave", "Ocean", "Sky"}[(int) (i % 3)];
+        store.append(i, MatchEntry.TEAM, map, List.of("droid-" + i % 10), List.of("droid-" + (i + 5) % 10),
+                bytes, 0, bytes.length);
+        return log;
+    }
+}